@@ -0,0 +1,58 @@
+package com.shinelon.hello.common.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+
+/**
+ * 文件路径工具类
+ * 用于把接口传入的路径限制在配置的目录内
+ *
+ * @author shinelon
+ */
+public final class PathUtils {
+
+    private PathUtils() {
+        // 工具类禁止实例化
+    }
+
+    /**
+     * 请求路径相对基准目录解析并规范化，不在基准目录内时拒绝；
+     * 路径上已存在的部分再按真实路径检查，目录内指向外部的符号链接同样拒绝
+     *
+     * @param baseDir   基准目录
+     * @param path      请求路径
+     * @param allowBase 是否允许路径就是基准目录本身
+     * @param dirName   基准目录名称，用于错误信息
+     * @return 规范化后的绝对路径
+     * @throws IllegalArgumentException 路径不合法或不在基准目录内
+     */
+    public static Path resolveWithin(String baseDir, String path, boolean allowBase, String dirName) {
+        Path base = Path.of(baseDir).toAbsolutePath().normalize();
+        Path resolved;
+        try {
+            resolved = base.resolve(path.trim()).normalize();
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("文件路径不合法: " + path);
+        }
+        if (!resolved.startsWith(base) || (!allowBase && resolved.equals(base))) {
+            throw new IllegalArgumentException("文件路径必须位于" + dirName + "内: " + path);
+        }
+        Path existing = resolved;
+        while (existing != null && !Files.exists(existing, LinkOption.NOFOLLOW_LINKS)) {
+            existing = existing.getParent();
+        }
+        if (existing != null && existing.startsWith(base)) {
+            try {
+                if (!existing.toRealPath().startsWith(base.toRealPath())) {
+                    throw new IllegalArgumentException("文件路径必须位于" + dirName + "内: " + path);
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException("文件路径无法解析: " + path);
+            }
+        }
+        return resolved;
+    }
+}
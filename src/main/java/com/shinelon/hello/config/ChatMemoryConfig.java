@@ -1,31 +1,56 @@
 package com.shinelon.hello.config;
 
-import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
-import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import com.shinelon.hello.dao.ChatMessageDao;
+import com.shinelon.hello.dao.ChatSessionDao;
+import com.shinelon.hello.memory.JpaChatMemoryRepository;
+import com.shinelon.hello.memory.TokenWindowChatMemory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
 
 /**
  * Chat Memory 配置类
- * 使用 InMemory 存储实现对话记忆功能
+ * 对话历史只有一份：chat_session / chat_message 表，普通对话与记忆对话共用，会话尾部缓存在有界内存中；
+ * 读取时按 token 预算截取
  *
  * @author shinelon
  */
 @Configuration
+@EnableConfigurationProperties(ChatMemoryProperties.class)
 public class ChatMemoryConfig {
 
+    /**
+     * 基于消息表的对话记忆存储：只追加写入，每个会话最近 maxMessages 条消息按 W-TinyLFU 缓存在内存中
+     *
+     * @param chatSessionDao     会话DAO
+     * @param chatMessageDao     消息DAO
+     * @param transactionManager 事务管理器
+     * @param properties         对话记忆配置
+     * @param meterRegistry      指标注册表
+     * @return JpaChatMemoryRepository
+     */
+    @Bean
+    public JpaChatMemoryRepository chatMemoryRepository(ChatSessionDao chatSessionDao, ChatMessageDao chatMessageDao,
+                                                        PlatformTransactionManager transactionManager,
+                                                        ChatMemoryProperties properties,
+                                                        MeterRegistry meterRegistry) {
+        return new JpaChatMemoryRepository(chatSessionDao, chatMessageDao, transactionManager, properties,
+                meterRegistry);
+    }
+
     /**
      * 配置 ChatMemory Bean
-     * 使用内存存储，保留最近20条消息
+     * 按 token 预算截取记忆窗口（默认 2000），每条消息的 token 数缓存在元数据中，超出预算的较早消息压缩为摘要
      *
-     * @return ChatMemory 实例
+     * @param chatMemoryRepository 对话记忆存储
+     * @param properties           对话记忆配置
+     * @return TokenWindowChatMemory 实例
      */
     @Bean
-    public ChatMemory chatMemory() {
-        return MessageWindowChatMemory.builder()
-                .chatMemoryRepository(new InMemoryChatMemoryRepository())
-                .maxMessages(20)
-                .build();
+    public TokenWindowChatMemory chatMemory(JpaChatMemoryRepository chatMemoryRepository,
+                                            ChatMemoryProperties properties) {
+        return new TokenWindowChatMemory(chatMemoryRepository, properties);
     }
 }
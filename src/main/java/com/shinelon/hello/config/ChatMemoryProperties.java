@@ -0,0 +1,111 @@
+package com.shinelon.hello.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 对话记忆配置属性
+ * 对应 application.yml 中的 chat-memory.* 配置
+ *
+ * @author shinelon
+ */
+@Data
+@ConfigurationProperties(prefix = "chat-memory")
+public class ChatMemoryProperties {
+
+    /**
+     * 每个会话从数据库读取并缓存的最近消息数，提示词大小由 token 预算控制
+     */
+    private int maxMessages = 100;
+
+    /**
+     * 默认每次调用的 token 预算，覆盖记忆窗口与本轮提示词之和，请求可以单独指定
+     */
+    private int tokenBudget = 2000;
+
+    /**
+     * 请求可指定的 token 预算上限，也是每个会话保存的 token 上限
+     */
+    private int maxTokenBudget = 8000;
+
+    /**
+     * 是否把超出预算的较早消息压缩为一条摘要，关闭时直接丢弃
+     */
+    private boolean summarize = true;
+
+    /**
+     * 摘要占用的 token 数，从预算中预留
+     */
+    private int summaryTokens = 200;
+
+    /**
+     * 缓存 token 数的消息条数，按消息内容指纹缓存，超出后淘汰最久未用的
+     */
+    private int tokenCacheSize = 10_000;
+
+    /**
+     * 最多缓存的会话数，超出后按 W-TinyLFU 淘汰
+     */
+    private int maxConversations = 10_000;
+
+    /**
+     * 常驻会话编码字节数上限
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 消息文本达到该大小时尝试压缩
+     */
+    private DataSize compressionThreshold = DataSize.ofBytes(512);
+
+    /**
+     * 是否把 chat_message 的内容写入二进制列 content_bin（紧凑编码），关闭时写入文本列 content。
+     * 读取时两列都支持，开关可随时切换
+     */
+    private boolean binaryColumn = false;
+
+    /**
+     * 会话分段锁数量（向上取整为 2 的幂），同一会话的追加互斥，不同会话按分段并行
+     */
+    private int lockStripes = 64;
+
+    /**
+     * 会话空闲超过该时间后淘汰
+     */
+    private Duration idleTtl = Duration.ofMinutes(30);
+
+    /**
+     * 后台清理空闲会话的间隔
+     */
+    private Duration cleanupInterval = Duration.ofMinutes(1);
+
+    /**
+     * 批量维护配置
+     */
+    private Admin admin = new Admin();
+
+    /**
+     * 批量维护（批量清理、导出、导入）配置
+     */
+    @Data
+    public static class Admin {
+
+        /**
+         * 每批处理的会话数（导入时为每批写入的消息数），每个会话单独加锁和提交，批越小对在线请求的影响越小
+         */
+        private int batchSize = 100;
+
+        /**
+         * 保留的已结束任务数，超出后丢弃最早结束的任务
+         */
+        private int jobHistory = 20;
+
+        /**
+         * 导出、导入文件所在目录，请求中的文件路径相对该目录解析，不能指向目录之外
+         */
+        private String dir = "./data/chat-memory-admin";
+    }
+}
@@ -1,15 +1,38 @@
 package com.shinelon.hello.config;
 
+import com.shinelon.hello.model.vo.RagIngestReportVO;
+import com.shinelon.hello.rag.ingest.DocumentIngestionPipeline;
+import com.shinelon.hello.rag.ingest.DocumentRegistry;
+import com.shinelon.hello.rag.namespace.KnowledgeNamespace;
+import com.shinelon.hello.rag.namespace.KnowledgeNamespaces;
+import com.shinelon.hello.rag.postretrieval.ContextCompressionPostProcessor;
+import com.shinelon.hello.rag.postretrieval.LexicalEmbeddingReranker;
+import com.shinelon.hello.rag.postretrieval.Reranker;
+import com.shinelon.hello.rag.postretrieval.RerankingPostProcessor;
+import com.shinelon.hello.rag.query.CachingQueryTransformer;
+import com.shinelon.hello.rag.retrieval.AdaptiveRetrievalTuner;
+import com.shinelon.hello.rag.retrieval.HybridDocumentRetriever;
+import com.shinelon.hello.rag.retrieval.MultiQueryRetriever;
+import com.shinelon.hello.rag.store.KnowledgeVectorStore;
+import com.shinelon.hello.rag.store.RetrievalCache;
+import com.shinelon.hello.rag.store.VectorIndexSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.rag.preretrieval.query.expansion.MultiQueryExpander;
+import org.springframework.ai.rag.preretrieval.query.transformation.RewriteQueryTransformer;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -21,33 +44,234 @@ import java.util.Map;
  */
 @Slf4j
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties(RagProperties.class)
 public class RagConfig {
 
     /**
      * 创建内存向量存储
      *
      * @param embeddingModel 嵌入模型
+     * @param ragProperties  RAG 配置
+     * @param meterRegistry  指标注册表
      * @return VectorStore
      */
     @Bean
-    public VectorStore vectorStore(EmbeddingModel embeddingModel) {
-        log.info("[RAG] 初始化 SimpleVectorStore");
-        return SimpleVectorStore.builder(embeddingModel).build();
+    public KnowledgeVectorStore vectorStore(EmbeddingModel embeddingModel, RagProperties ragProperties,
+                                            MeterRegistry meterRegistry) {
+        log.info("[RAG] 初始化 KnowledgeVectorStore");
+        return new KnowledgeVectorStore(embeddingModel, ragProperties.getIngestion().getBatchSize(),
+                ragProperties.getIndex().getPartitionKeys(),
+                new RetrievalCache(ragProperties.getRetrievalCache(), meterRegistry));
+    }
+
+    /**
+     * 多租户命名空间：默认命名空间即主知识库，其余命名空间懒加载、按 LRU 卸载到磁盘
+     *
+     * @param vectorStore       主知识库向量存储
+     * @param documentRegistry  主知识库文档登记表
+     * @param ingestionPipeline 主知识库摄取流水线
+     * @param snapshot          向量索引快照
+     * @param embeddingModel    嵌入模型
+     * @param ragProperties     RAG 配置
+     * @param meterRegistry     指标注册表
+     * @return KnowledgeNamespaces
+     */
+    @Bean
+    public KnowledgeNamespaces knowledgeNamespaces(KnowledgeVectorStore vectorStore, DocumentRegistry documentRegistry,
+                                                   DocumentIngestionPipeline ingestionPipeline,
+                                                   VectorIndexSnapshot snapshot, EmbeddingModel embeddingModel,
+                                                   RagProperties ragProperties, MeterRegistry meterRegistry) {
+        KnowledgeNamespace defaultNamespace = new KnowledgeNamespace(KnowledgeNamespaces.DEFAULT_NAMESPACE,
+                vectorStore, documentRegistry, ingestionPipeline);
+        long quotaBytes = ragProperties.getNamespace().getQuota().toBytes();
+        return new KnowledgeNamespaces(defaultNamespace, name -> {
+            KnowledgeVectorStore store = new KnowledgeVectorStore(embeddingModel,
+                    ragProperties.getIngestion().getBatchSize(), ragProperties.getIndex().getPartitionKeys(),
+                    new RetrievalCache(ragProperties.getRetrievalCache(), meterRegistry), quotaBytes);
+            DocumentRegistry registry = new DocumentRegistry();
+            return new KnowledgeNamespace(name, store, registry,
+                    new DocumentIngestionPipeline(store, embeddingModel, registry, ragProperties));
+        }, snapshot, ragProperties.getNamespace());
+    }
+
+    /**
+     * 混合检索器：向量检索 + BM25 关键词检索，RRF 融合，按查询 context 中的命名空间选择向量存储
+     *
+     * @param knowledgeNamespaces 知识库命名空间
+     * @param ragProperties       RAG 配置
+     * @return HybridDocumentRetriever
+     */
+    @Bean
+    public HybridDocumentRetriever hybridDocumentRetriever(KnowledgeNamespaces knowledgeNamespaces,
+                                                           RagProperties ragProperties) {
+        return new HybridDocumentRetriever(knowledgeNamespaces::resolve, ragProperties.getRetrieval(),
+                retrievalLimit(ragProperties));
+    }
+
+    /**
+     * 检索阶段返回的文档数：启用重排序时多召回候选，交给重排序打分；
+     * 否则启用自适应 topK 时返回全部融合候选，交给自适应截取，都不启用时直接取 topK
+     */
+    private static int retrievalLimit(RagProperties ragProperties) {
+        RagProperties.Rerank rerank = ragProperties.getRerank();
+        if (rerank.isEnabled()) {
+            return rerank.getCandidates();
+        }
+        RagProperties.Retrieval retrieval = ragProperties.getRetrieval();
+        return ragProperties.getAdaptive().isEnabled() ? retrieval.getCandidateK() : retrieval.getTopK();
+    }
+
+    /**
+     * 重排序后保留的文档数：启用自适应 topK 时保留全部候选，由自适应截取决定最终数量
+     */
+    private static int rerankLimit(RagProperties ragProperties) {
+        RagProperties.Rerank rerank = ragProperties.getRerank();
+        return ragProperties.getAdaptive().isEnabled() ? rerank.getCandidates() : rerank.getTopK();
+    }
+
+    /**
+     * 带缓存的查询改写，进阶版 RAG 与流水线模式共用同一份改写缓存
+     *
+     * @param chatClientBuilder ChatClient 构建器
+     * @param ragProperties     RAG 配置
+     * @param meterRegistry     指标注册表
+     * @return CachingQueryTransformer
+     */
+    @Bean
+    public CachingQueryTransformer queryRewriteTransformer(ChatClient.Builder chatClientBuilder,
+                                                           RagProperties ragProperties, MeterRegistry meterRegistry) {
+        return new CachingQueryTransformer(RewriteQueryTransformer.builder()
+                .chatClientBuilder(chatClientBuilder)
+                .build(), ragProperties.getQueryRewrite(), meterRegistry);
+    }
+
+    /**
+     * 重排序打分器，默认为词项重合度 + 向量相似度加权，不依赖网络
+     *
+     * @param ragProperties RAG 配置
+     * @return Reranker
+     */
+    @Bean
+    public Reranker reranker(RagProperties ragProperties) {
+        return new LexicalEmbeddingReranker(ragProperties.getRerank().getLexicalWeight());
+    }
+
+    /**
+     * 重排序后处理：候选并行打分后保留 topK，启用自适应 topK 时保留全部候选
+     *
+     * @param reranker      重排序打分器
+     * @param ragProperties RAG 配置
+     * @return RerankingPostProcessor
+     */
+    @Bean
+    public RerankingPostProcessor rerankingPostProcessor(Reranker reranker, RagProperties ragProperties) {
+        return new RerankingPostProcessor(reranker, ragProperties.getRerank(), rerankLimit(ragProperties));
+    }
+
+    /**
+     * 检索参数调节：按得分断崖自适应截取 topK，支持按端点运行时覆盖 topK 与相似度阈值
+     *
+     * @param ragProperties RAG 配置
+     * @param meterRegistry 指标注册表
+     * @return AdaptiveRetrievalTuner
+     */
+    @Bean
+    public AdaptiveRetrievalTuner adaptiveRetrievalTuner(RagProperties ragProperties, MeterRegistry meterRegistry) {
+        int maxLimit = ragProperties.getRerank().isEnabled() ? rerankLimit(ragProperties)
+                : retrievalLimit(ragProperties);
+        return new AdaptiveRetrievalTuner(ragProperties, maxLimit, meterRegistry);
+    }
+
+    /**
+     * 检索后上下文压缩：近似重复去重、句子抽取、token 预算裁剪
+     *
+     * @param ragProperties RAG 配置
+     * @param meterRegistry 指标注册表
+     * @return ContextCompressionPostProcessor
+     */
+    @Bean
+    public ContextCompressionPostProcessor contextCompressionPostProcessor(RagProperties ragProperties,
+                                                                           MeterRegistry meterRegistry) {
+        return new ContextCompressionPostProcessor(ragProperties.getCompression(), meterRegistry);
+    }
+
+    /**
+     * 多查询并发检索器：原始查询、改写查询、扩展查询并发检索后 RRF 融合
+     *
+     * @param hybridDocumentRetriever 混合检索器
+     * @param queryRewriteTransformer 查询改写
+     * @param chatClientBuilder       ChatClient 构建器，用于查询扩展
+     * @param ragProperties           RAG 配置
+     * @return MultiQueryRetriever
+     */
+    @Bean
+    public MultiQueryRetriever multiQueryRetriever(HybridDocumentRetriever hybridDocumentRetriever,
+                                                   CachingQueryTransformer queryRewriteTransformer,
+                                                   ChatClient.Builder chatClientBuilder,
+                                                   RagProperties ragProperties) {
+        int expandedQueries = ragProperties.getRetrieval().getExpandedQueries();
+        MultiQueryExpander expander = expandedQueries > 0
+                ? MultiQueryExpander.builder()
+                        .chatClientBuilder(chatClientBuilder)
+                        .numberOfQueries(expandedQueries)
+                        .build()
+                : null;
+        return new MultiQueryRetriever(hybridDocumentRetriever, queryRewriteTransformer, expander,
+                ragProperties.getRetrieval(), retrievalLimit(ragProperties));
     }
 
     /**
      * 初始化示例文档数据
+     * 优先加载向量索引快照，快照中已有且未变化的文档不会重新嵌入；
+     * 快照缺失或指纹不一致时全量重建，并立即保存一次快照
      *
-     * @param vectorStore 向量存储
+     * @param ingestionPipeline 摄取流水线
+     * @param snapshot          向量索引快照
      * @return CommandLineRunner
      */
     @Bean
     @Order(1)
-    public CommandLineRunner initRagDocuments(VectorStore vectorStore) {
+    public CommandLineRunner initRagDocuments(DocumentIngestionPipeline ingestionPipeline,
+                                              VectorIndexSnapshot snapshot) {
+        return args -> {
+            long start = System.currentTimeMillis();
+            boolean loaded = snapshot.isEnabled() && snapshot.load();
+            RagIngestReportVO report = ingestionPipeline.ingestDocuments(createSampleDocuments());
+            log.info("[RAG] 示例文档加载完成, 快照={}, 新嵌入 {} 篇, 跳过 {} 篇, 耗时={}ms",
+                    loaded ? "命中" : "未命中", report.getDocumentCount(), report.getSkippedCount(),
+                    System.currentTimeMillis() - start);
+            if (snapshot.isEnabled() && report.getDocumentCount() > 0) {
+                snapshot.save();
+            }
+        };
+    }
+
+    /**
+     * 命令行摄取模式
+     * 启动参数 --rag.ingestion.cli-path=/path/to/docs 指定摄取路径，
+     * 加上 --rag.ingestion.cli-exit=true 则摄取完成后退出
+     *
+     * @param ingestionPipeline 摄取流水线
+     * @param ragProperties     RAG 配置
+     * @param context           应用上下文
+     * @return CommandLineRunner
+     */
+    @Bean
+    @Order(2)
+    public CommandLineRunner ingestFromCli(DocumentIngestionPipeline ingestionPipeline, RagProperties ragProperties,
+                                           ConfigurableApplicationContext context) {
         return args -> {
-            List<Document> documents = createSampleDocuments();
-            vectorStore.add(documents);
-            log.info("[RAG] 示例文档加载完成，共 {} 篇", documents.size());
+            RagProperties.Ingestion ingestion = ragProperties.getIngestion();
+            if (ingestion.getCliPath() == null || ingestion.getCliPath().isBlank()) {
+                return;
+            }
+            RagIngestReportVO report = ingestionPipeline.ingestPath(Path.of(ingestion.getCliPath()), true);
+            log.info("[RAG] 命令行摄取完成: {}", report);
+            if (ingestion.isCliExit()) {
+                int exitCode = report.getFailedCount() > 0 ? 1 : 0;
+                System.exit(SpringApplication.exit(context, () -> exitCode));
+            }
         };
     }
 
@@ -0,0 +1,364 @@
+package com.shinelon.hello.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * RAG 配置属性
+ * 对应 application.yml 中的 rag.* 配置
+ *
+ * @author shinelon
+ */
+@Data
+@ConfigurationProperties(prefix = "rag")
+public class RagProperties {
+
+    /**
+     * 文档摄取配置
+     */
+    private Ingestion ingestion = new Ingestion();
+
+    /**
+     * 向量索引配置
+     */
+    private Index index = new Index();
+
+    /**
+     * 向量索引快照配置
+     */
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * 检索配置
+     */
+    private Retrieval retrieval = new Retrieval();
+
+    /**
+     * 自适应 topK 配置
+     */
+    private Adaptive adaptive = new Adaptive();
+
+    /**
+     * 查询改写配置
+     */
+    private QueryRewrite queryRewrite = new QueryRewrite();
+
+    /**
+     * 检索结果缓存配置
+     */
+    private RetrievalCache retrievalCache = new RetrievalCache();
+
+    /**
+     * 上下文压缩配置
+     */
+    private Compression compression = new Compression();
+
+    /**
+     * 重排序配置
+     */
+    private Rerank rerank = new Rerank();
+
+    /**
+     * 多租户命名空间配置
+     */
+    private Namespace namespace = new Namespace();
+
+    /**
+     * 文档摄取配置
+     */
+    @Data
+    public static class Ingestion {
+
+        /**
+         * 单批嵌入的分块数量
+         */
+        private int batchSize = 16;
+
+        /**
+         * 并行嵌入的线程数
+         */
+        private int parallelism = 4;
+
+        /**
+         * 最大在途批次数，超过后读取线程阻塞等待（背压）
+         */
+        private int maxInFlightBatches = 8;
+
+        /**
+         * 分块大小（token 数）
+         */
+        private int chunkSize = 512;
+
+        /**
+         * 支持摄取的文件扩展名
+         */
+        private List<String> fileExtensions = List.of("txt", "md");
+
+        /**
+         * 摄取接口允许读取的根目录，请求路径相对该目录解析
+         */
+        private String rootDir = "./data/rag/docs";
+
+        /**
+         * 断点文件目录
+         */
+        private String checkpointDir = "data/rag/checkpoints";
+
+        /**
+         * 命令行模式：启动时摄取的文件或目录
+         */
+        private String cliPath;
+
+        /**
+         * 命令行模式：摄取完成后退出应用
+         */
+        private boolean cliExit = false;
+    }
+
+    /**
+     * 向量索引配置
+     */
+    @Data
+    public static class Index {
+
+        /**
+         * 后台清理墓碑分块的间隔
+         */
+        private Duration compactionInterval = Duration.ofMinutes(1);
+
+        /**
+         * 分区元数据键，按这些键的取值维护子索引，过滤条件命中时只扫描对应分区
+         */
+        private List<String> partitionKeys = List.of("category");
+    }
+
+    /**
+     * 向量索引快照配置
+     */
+    @Data
+    public static class Snapshot {
+
+        /**
+         * 是否启用快照：启动时加载，关闭时保存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 快照文件路径
+         */
+        private String path = "data/rag/snapshot/vector-index.snap";
+
+        /**
+         * 应用关闭时保存快照
+         */
+        private boolean saveOnShutdown = true;
+
+        /**
+         * 嵌入模型名称，参与快照指纹计算，模型变化时快照失效
+         */
+        private String embeddingModel = "embedding-2";
+    }
+
+    /**
+     * 检索配置
+     */
+    @Data
+    public static class Retrieval {
+
+        /**
+         * 最终返回的文档数
+         */
+        private int topK = 3;
+
+        /**
+         * 向量检索的相似度阈值
+         */
+        private double similarityThreshold = 0.5;
+
+        /**
+         * 向量检索与关键词检索各自召回的候选数
+         */
+        private int candidateK = 10;
+
+        /**
+         * RRF 平滑常数
+         */
+        private int rrfK = 60;
+
+        /**
+         * 向量检索线程数
+         */
+        private int parallelism = 4;
+
+        /**
+         * 流水线模式下额外扩展的查询数，0 表示只用原始查询和改写查询
+         */
+        private int expandedQueries = 0;
+    }
+
+    /**
+     * 自适应 topK 配置
+     */
+    @Data
+    public static class Adaptive {
+
+        /**
+         * 是否按得分断崖自适应截取文档，关闭时固定返回 topK 篇
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最少保留的文档数
+         */
+        private int minK = 1;
+
+        /**
+         * 最多保留的文档数
+         */
+        private int maxK = 5;
+
+        /**
+         * 得分低于前一篇的该比例时视为断崖，之后的文档丢弃
+         */
+        private double cliffRatio = 0.6;
+    }
+
+    /**
+     * 查询改写配置
+     */
+    @Data
+    public static class QueryRewrite {
+
+        /**
+         * 改写缓存最大条目数
+         */
+        private int cacheMaxSize = 1000;
+
+        /**
+         * 改写缓存过期时间
+         */
+        private Duration cacheTtl = Duration.ofMinutes(30);
+
+        /**
+         * 不超过该长度（字符数）的查询跳过改写
+         */
+        private int skipMaxLength = 6;
+    }
+
+    /**
+     * 检索结果缓存配置
+     */
+    @Data
+    public static class RetrievalCache {
+
+        /**
+         * 是否启用检索结果缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 检索结果缓存最大条目数
+         */
+        private int maxSize = 1000;
+
+        /**
+         * 检索结果缓存过期时间
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        /**
+         * 查询向量缓存最大条目数
+         */
+        private int embeddingMaxSize = 5000;
+
+        /**
+         * 查询向量缓存过期时间
+         */
+        private Duration embeddingTtl = Duration.ofHours(1);
+    }
+
+    /**
+     * 上下文压缩配置
+     */
+    @Data
+    public static class Compression {
+
+        /**
+         * 是否启用检索后的去重、句子抽取和 token 预算裁剪
+         */
+        private boolean enabled = true;
+
+        /**
+         * SimHash 汉明距离不超过该值的分块视为近似重复
+         */
+        private int duplicateDistance = 3;
+
+        /**
+         * 注入提示词的上下文 token 上限
+         */
+        private int maxContextTokens = 1200;
+    }
+
+    /**
+     * 重排序配置
+     */
+    @Data
+    public static class Rerank {
+
+        /**
+         * 是否启用重排序，启用后检索阶段先召回 candidates 个候选
+         */
+        private boolean enabled = true;
+
+        /**
+         * 检索阶段召回的候选数
+         */
+        private int candidates = 10;
+
+        /**
+         * 重排序后保留的文档数
+         */
+        private int topK = 3;
+
+        /**
+         * 默认重排序器中词项重合度的权重，其余为向量相似度的权重
+         */
+        private double lexicalWeight = 0.5;
+
+        /**
+         * 打分线程数
+         */
+        private int parallelism = 4;
+    }
+
+    /**
+     * 多租户命名空间配置
+     */
+    @Data
+    public static class Namespace {
+
+        /**
+         * 命名空间快照目录，冷命名空间卸载后保存在这里
+         */
+        private String dir = "data/rag/namespaces";
+
+        /**
+         * 最多常驻内存的命名空间数（不含默认命名空间）
+         */
+        private int maxResident = 32;
+
+        /**
+         * 常驻命名空间的内存总上限，超出后按最近最少使用卸载
+         */
+        private DataSize maxResidentSize = DataSize.ofMegabytes(512);
+
+        /**
+         * 单个命名空间的内存配额
+         */
+        private DataSize quota = DataSize.ofMegabytes(64);
+    }
+}
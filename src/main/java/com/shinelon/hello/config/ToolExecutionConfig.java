@@ -0,0 +1,42 @@
+package com.shinelon.hello.config;
+
+import com.shinelon.hello.tool.execution.ParallelToolCallingManager;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+
+/**
+ * 工具执行配置类
+ * 开启 tool-execution.parallel.enabled 时用并行执行的 ToolCallingManager 替换 Spring AI 默认的逐个执行实现，
+ * 所有 ChatClient 的工具调用都经过它
+ *
+ * @author shinelon
+ */
+@Configuration
+@EnableConfigurationProperties(ToolExecutionProperties.class)
+public class ToolExecutionConfig {
+
+    /**
+     * 并行执行工具调用的 ToolCallingManager，工具解析与异常处理沿用 Spring AI 自动配置的组件
+     *
+     * @param toolCallbackResolver 工具解析器
+     * @param exceptionProcessor   工具异常处理器
+     * @param observationRegistry  观测注册表
+     * @param properties           工具执行配置
+     * @return ParallelToolCallingManager
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "tool-execution.parallel", name = "enabled", havingValue = "true")
+    public ParallelToolCallingManager parallelToolCallingManager(ToolCallbackResolver toolCallbackResolver,
+                                                                 ToolExecutionExceptionProcessor exceptionProcessor,
+                                                                 ObjectProvider<ObservationRegistry> observationRegistry,
+                                                                 ToolExecutionProperties properties) {
+        return new ParallelToolCallingManager(toolCallbackResolver, exceptionProcessor,
+                observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP), properties.getParallel());
+    }
+}
@@ -0,0 +1,82 @@
+package com.shinelon.hello.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 工具执行配置
+ *
+ * @author shinelon
+ */
+@Data
+@ConfigurationProperties(prefix = "tool-execution")
+public class ToolExecutionProperties {
+
+    /**
+     * 并行执行配置
+     */
+    private Parallel parallel = new Parallel();
+
+    /**
+     * 工具结果缓存配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 并行执行配置：模型一轮返回多个工具调用时并发执行
+     */
+    @Data
+    public static class Parallel {
+
+        /**
+         * 是否开启并行执行，关闭时沿用 Spring AI 默认的逐个执行
+         */
+        private boolean enabled = false;
+
+        /**
+         * 执行线程数
+         */
+        private int parallelism = 4;
+
+        /**
+         * 等待队列长度，线程和队列都满时拒绝新的工具调用，以错误信息作为工具结果返回
+         */
+        private int queueCapacity = 64;
+
+        /**
+         * 单个工具调用的默认超时时间
+         */
+        private Duration timeout = Duration.ofSeconds(10);
+
+        /**
+         * 按工具名称覆盖超时时间
+         */
+        private Map<String, Duration> timeouts = new LinkedHashMap<>();
+    }
+
+    /**
+     * 工具结果缓存配置：标注 @CacheableTool 的工具按参数缓存结果
+     */
+    @Data
+    public static class Cache {
+
+        /**
+         * 是否开启缓存，关闭时所有工具每次都执行
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每个工具最多缓存的结果数
+         */
+        private int maxSize = 256;
+
+        /**
+         * 注解未指定有效期时的默认有效期
+         */
+        private Duration defaultTtl = Duration.ofMinutes(5);
+    }
+}
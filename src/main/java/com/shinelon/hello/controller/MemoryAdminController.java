@@ -0,0 +1,82 @@
+package com.shinelon.hello.controller;
+
+import com.shinelon.hello.common.result.Result;
+import com.shinelon.hello.model.dto.MemoryClearRequestDTO;
+import com.shinelon.hello.model.dto.MemoryExportRequestDTO;
+import com.shinelon.hello.model.dto.MemoryImportRequestDTO;
+import com.shinelon.hello.model.vo.MemoryJobVO;
+import com.shinelon.hello.service.MemoryAdminService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 对话记忆管理控制器
+ * 提供批量清理、导出、导入等运维 API，均以后台任务执行，通过任务接口查询进度或取消
+ *
+ * @author shinelon
+ */
+@Slf4j
+@RestController
+@RequestMapping("/learn/memory/admin")
+@RequiredArgsConstructor
+public class MemoryAdminController {
+
+    private final MemoryAdminService memoryAdminService;
+
+    /**
+     * 按会话ID前缀和/或空闲时间批量清理会话
+     */
+    @PostMapping("/clear")
+    public Result<MemoryJobVO> clear(@Valid @RequestBody MemoryClearRequestDTO request) {
+        log.info("[clear] API调用, prefix={}, idleMinutes={}", request.getPrefix(), request.getIdleMinutes());
+        return Result.success(memoryAdminService.submitClear(request));
+    }
+
+    /**
+     * 导出会话到 NDJSON 文件
+     */
+    @PostMapping("/export")
+    public Result<MemoryJobVO> export(@Valid @RequestBody MemoryExportRequestDTO request) {
+        log.info("[export] API调用, path={}, prefix={}", request.getPath(), request.getPrefix());
+        return Result.success(memoryAdminService.submitExport(request));
+    }
+
+    /**
+     * 从 NDJSON 文件导入会话
+     */
+    @PostMapping("/import")
+    public Result<MemoryJobVO> importConversations(@Valid @RequestBody MemoryImportRequestDTO request) {
+        log.info("[import] API调用, path={}, overwrite={}", request.getPath(), request.getOverwrite());
+        return Result.success(memoryAdminService.submitImport(request));
+    }
+
+    /**
+     * 查询全部任务
+     */
+    @GetMapping("/jobs")
+    public Result<List<MemoryJobVO>> listJobs() {
+        log.info("[listJobs] API调用");
+        return Result.success(memoryAdminService.listJobs());
+    }
+
+    /**
+     * 查询任务进度
+     */
+    @GetMapping("/jobs/{jobId}")
+    public Result<MemoryJobVO> getJob(@PathVariable String jobId) {
+        return Result.success(memoryAdminService.getJob(jobId));
+    }
+
+    /**
+     * 取消任务
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public Result<MemoryJobVO> cancelJob(@PathVariable String jobId) {
+        log.info("[cancelJob] API调用, jobId={}", jobId);
+        return Result.success(memoryAdminService.cancelJob(jobId));
+    }
+}
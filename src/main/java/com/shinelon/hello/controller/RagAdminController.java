@@ -0,0 +1,129 @@
+package com.shinelon.hello.controller;
+
+import com.shinelon.hello.common.result.Result;
+import com.shinelon.hello.model.dto.RagDocumentUpsertDTO;
+import com.shinelon.hello.model.dto.RagIngestRequestDTO;
+import com.shinelon.hello.model.dto.RagRetrievalTuningDTO;
+import com.shinelon.hello.model.vo.RagDocumentSourceVO;
+import com.shinelon.hello.model.vo.RagIngestReportVO;
+import com.shinelon.hello.model.vo.RagNamespaceVO;
+import com.shinelon.hello.model.vo.RagRetrievalTuningVO;
+import com.shinelon.hello.model.vo.RagSnapshotVO;
+import com.shinelon.hello.service.RagAdminService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * RAG 知识库管理控制器
+ * 提供文档摄取、单篇文档增量更新与删除、文档来源目录、索引快照、命名空间查看、检索参数调节等运维 API
+ *
+ * @author shinelon
+ */
+@Slf4j
+@RestController
+@RequestMapping("/learn/rag/admin")
+@RequiredArgsConstructor
+public class RagAdminController {
+
+    private final RagAdminService ragAdminService;
+
+    /**
+     * 摄取本地文件或目录
+     */
+    @PostMapping("/ingest")
+    public Result<RagIngestReportVO> ingest(@Valid @RequestBody RagIngestRequestDTO request) {
+        log.info("[ingest] API调用, path={}, resume={}", request.getPath(), request.getResume());
+        return Result.success(ragAdminService.ingest(request));
+    }
+
+    /**
+     * 新增或更新单篇文档
+     */
+    @PutMapping("/documents/{documentId}")
+    public Result<RagIngestReportVO> upsertDocument(@PathVariable String documentId,
+                                                    @Valid @RequestBody RagDocumentUpsertDTO request) {
+        log.info("[upsertDocument] API调用, documentId={}", documentId);
+        return Result.success(ragAdminService.upsertDocument(documentId, request));
+    }
+
+    /**
+     * 删除单篇文档
+     */
+    @DeleteMapping("/documents/{documentId}")
+    public Result<Void> deleteDocument(@PathVariable String documentId,
+                                       @RequestParam(required = false) String namespace) {
+        log.info("[deleteDocument] API调用, documentId={}, namespace={}", documentId, namespace);
+        ragAdminService.deleteDocument(documentId, namespace);
+        return Result.success();
+    }
+
+    /**
+     * 分页查询文档来源目录：分块数、字节数、嵌入模型版本和最近索引时间
+     *
+     * @param namespace 知识库命名空间，为空时为默认知识库，不存在时返回 404
+     * @param page      页码（从1开始）
+     * @param size      每页大小
+     */
+    @GetMapping("/sources")
+    public Result<List<RagDocumentSourceVO>> listSources(@RequestParam(required = false) String namespace,
+                                                         @RequestParam(defaultValue = "1") int page,
+                                                         @RequestParam(defaultValue = "20") int size) {
+        log.info("[listSources] API调用, namespace={}, page={}, size={}", namespace, page, size);
+        // 转换为0-based页码
+        return Result.success(ragAdminService.listSources(namespace, page - 1, size));
+    }
+
+    /**
+     * 列出知识库命名空间及其常驻状态、内存占用和配额
+     */
+    @GetMapping("/namespaces")
+    public Result<List<RagNamespaceVO>> listNamespaces() {
+        log.info("[listNamespaces] API调用");
+        return Result.success(ragAdminService.listNamespaces());
+    }
+
+    /**
+     * 各检索端点当前生效的 topK、相似度阈值和得分统计
+     */
+    @GetMapping("/retrieval")
+    public Result<List<RagRetrievalTuningVO>> listRetrievalTuning() {
+        log.info("[listRetrievalTuning] API调用");
+        return Result.success(ragAdminService.listRetrievalTuning());
+    }
+
+    /**
+     * 运行时覆盖检索端点的参数
+     *
+     * @param endpoint 端点：simple / advanced / pipeline
+     */
+    @PutMapping("/retrieval/{endpoint}")
+    public Result<RagRetrievalTuningVO> overrideRetrievalTuning(@PathVariable String endpoint,
+                                                                @Valid @RequestBody RagRetrievalTuningDTO request) {
+        log.info("[overrideRetrievalTuning] API调用, endpoint={}, request={}", endpoint, request);
+        return Result.success(ragAdminService.overrideRetrievalTuning(endpoint, request));
+    }
+
+    /**
+     * 去掉检索端点的运行时覆盖，回到配置默认值
+     *
+     * @param endpoint 端点：simple / advanced / pipeline
+     */
+    @DeleteMapping("/retrieval/{endpoint}")
+    public Result<RagRetrievalTuningVO> resetRetrievalTuning(@PathVariable String endpoint) {
+        log.info("[resetRetrievalTuning] API调用, endpoint={}", endpoint);
+        return Result.success(ragAdminService.resetRetrievalTuning(endpoint));
+    }
+
+    /**
+     * 立即保存向量索引快照
+     */
+    @PostMapping("/snapshot")
+    public Result<RagSnapshotVO> saveSnapshot() {
+        log.info("[saveSnapshot] API调用");
+        return Result.success(ragAdminService.saveSnapshot());
+    }
+}
@@ -70,6 +70,16 @@ public class RagController {
         return ragService.advancedChatStream(request);
     }
 
+    /**
+     * 流水线版 RAG 流式对话 (SSE)
+     * 原始查询与改写/扩展查询并发检索，首个事件先返回文档来源，上下文就绪后立即开始生成
+     */
+    @PostMapping("/advanced/chat/pipeline/stream")
+    public Flux<RagChatVO> pipelinedChatStream(@Valid @RequestBody RagChatRequestDTO request) {
+        log.info("[pipelinedChatStream] API调用, query={}", request.getQuery());
+        return ragService.pipelinedChatStream(request);
+    }
+
     // ==================== 文档管理 ====================
 
     /**
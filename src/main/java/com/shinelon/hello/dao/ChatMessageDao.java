@@ -1,9 +1,14 @@
 package com.shinelon.hello.dao;
 
 import com.shinelon.hello.model.entity.ChatMessageDO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -22,6 +27,24 @@ public interface ChatMessageDao extends JpaRepository<ChatMessageDO, Long> {
      */
     List<ChatMessageDO> findBySessionIdOrderByCreateTimeAsc(String sessionId);
 
+    /**
+     * 查询会话最近的消息，按创建时间、主键倒序（同一毫秒写入的消息按主键区分先后）
+     *
+     * @param sessionId 会话ID
+     * @param pageable  分页参数，取第一页即最近的若干条
+     * @return 消息列表
+     */
+    List<ChatMessageDO> findBySessionIdOrderByCreateTimeDescIdDesc(String sessionId, Pageable pageable);
+
+    /**
+     * 分页查询会话的消息，按创建时间、主键升序，供导出逐页读取
+     *
+     * @param sessionId 会话ID
+     * @param pageable  分页参数
+     * @return 消息列表
+     */
+    List<ChatMessageDO> findBySessionIdOrderByCreateTimeAscIdAsc(String sessionId, Pageable pageable);
+
     /**
      * 根据会话ID删除所有消息
      *
@@ -36,4 +59,15 @@ public interface ChatMessageDao extends JpaRepository<ChatMessageDO, Long> {
      * @return 消息数量
      */
     long countBySessionId(String sessionId);
+
+    /**
+     * 修改消息的创建时间，供导入时还原原始时间（插入时创建时间总是取当前时间）
+     *
+     * @param id         消息主键
+     * @param createTime 创建时间
+     * @return 修改的行数
+     */
+    @Modifying
+    @Query("update ChatMessageDO m set m.createTime = :createTime where m.id = :id")
+    int updateCreateTime(@Param("id") Long id, @Param("createTime") LocalDateTime createTime);
 }
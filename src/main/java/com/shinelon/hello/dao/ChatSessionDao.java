@@ -4,8 +4,13 @@ import com.shinelon.hello.model.entity.ChatSessionDO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -39,6 +44,55 @@ public interface ChatSessionDao extends JpaRepository<ChatSessionDO, Long> {
      */
     void deleteBySessionId(String sessionId);
 
+    /**
+     * 查询全部会话ID
+     *
+     * @return 会话ID列表
+     */
+    @Query("select s.sessionId from ChatSessionDO s")
+    List<String> findAllSessionIds();
+
+    /**
+     * 按主键游标分批查询满足条件的会话，供批量维护逐批遍历，不一次性加载全部会话
+     *
+     * @param afterId  上一批最后一个会话的主键，首批传 0
+     * @param pattern  会话ID的 LIKE 模式（转义字符为 !），不限制时传 %
+     * @param cutoff   空闲截止时间：会话更新时间和最后一条消息都早于该时间才返回，为 null 时不限制
+     * @param pageable 批大小
+     * @return 按主键升序的会话
+     */
+    @Query("select s from ChatSessionDO s where s.id > :afterId and s.sessionId like :pattern escape '!' "
+            + "and (:cutoff is null or (s.updateTime < :cutoff and not exists ("
+            + "select m.id from ChatMessageDO m where m.sessionId = s.sessionId and m.createTime >= :cutoff))) "
+            + "order by s.id")
+    List<ChatSessionDO> findBatchForMaintenance(@Param("afterId") Long afterId, @Param("pattern") String pattern,
+                                                @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * 统计满足条件的会话数，条件同 {@link #findBatchForMaintenance}
+     *
+     * @param pattern 会话ID的 LIKE 模式（转义字符为 !）
+     * @param cutoff  空闲截止时间，为 null 时不限制
+     * @return 会话数
+     */
+    @Query("select count(s) from ChatSessionDO s where s.sessionId like :pattern escape '!' "
+            + "and (:cutoff is null or (s.updateTime < :cutoff and not exists ("
+            + "select m.id from ChatMessageDO m where m.sessionId = s.sessionId and m.createTime >= :cutoff)))")
+    long countForMaintenance(@Param("pattern") String pattern, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 会话的创建、更新时间改为其消息中最早、最晚的创建时间，供导入后还原会话时间线
+     *
+     * @param sessionId 会话ID
+     * @return 修改的行数
+     */
+    @Modifying
+    @Query("update ChatSessionDO s set "
+            + "s.createTime = (select min(m.createTime) from ChatMessageDO m where m.sessionId = s.sessionId), "
+            + "s.updateTime = (select max(m.createTime) from ChatMessageDO m where m.sessionId = s.sessionId) "
+            + "where s.sessionId = :sessionId")
+    int syncTimesWithMessages(@Param("sessionId") String sessionId);
+
     /**
      * 分页查询所有会话，按更新时间倒序
      *
@@ -17,6 +17,12 @@ import java.util.concurrent.atomic.AtomicLong;
 @Service
 public class RbacMockDataService {
 
+    /**
+     * RBAC 查询工具的缓存失效分组，用户、角色、权限数据变更后发布
+     * {@link com.shinelon.hello.tool.cache.ToolResultInvalidationEvent}
+     */
+    public static final String TOOL_CACHE_GROUP = "rbac";
+
     private final Map<Long, UserDO> userMap = new ConcurrentHashMap<>();
     private final Map<Long, RoleDO> roleMap = new ConcurrentHashMap<>();
     private final Map<Long, PermissionDO> permissionMap = new ConcurrentHashMap<>();
@@ -2,18 +2,20 @@ package com.shinelon.hello.manager;
 
 import com.shinelon.hello.common.enums.ErrorCodeEnum;
 import com.shinelon.hello.common.exception.BusinessException;
+import com.shinelon.hello.memory.TokenBudgetChatMemoryAdvisor;
+import com.shinelon.hello.memory.TokenWindowChatMemory;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.client.ChatClient.AdvisorSpec;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
 /**
  * Chat Memory Manager
- * 封装带记忆的对话能力
+ * 封装带记忆的对话能力，记忆窗口按 token 预算截取
  *
  * @author shinelon
  */
@@ -23,14 +25,14 @@ import reactor.core.publisher.Flux;
 public class MemoryChatManager {
 
     private final ChatClient.Builder chatClientBuilder;
-    private final ChatMemory chatMemory;
+    private final TokenWindowChatMemory chatMemory;
 
     private ChatClient chatClient;
 
     @PostConstruct
     public void init() {
         this.chatClient = chatClientBuilder
-                .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
+                .defaultAdvisors(new TokenBudgetChatMemoryAdvisor(chatMemory))
                 .build();
     }
 
@@ -39,17 +41,19 @@ public class MemoryChatManager {
      *
      * @param conversationId 会话ID
      * @param prompt         用户输入
+     * @param tokenBudget    记忆窗口与本轮提示词的 token 预算，为 null 时用默认预算
      * @return AI回复
      */
-    public String syncCall(String conversationId, String prompt) {
+    public String syncCall(String conversationId, String prompt, Integer tokenBudget) {
         validateInput(conversationId, prompt);
+        chatMemory.tokenBudget(tokenBudget);
 
         log.debug("Memory sync call: conversationId={}, prompt={}", conversationId, truncate(prompt, 100));
 
         try {
             return chatClient.prompt()
                     .user(prompt)
-                    .advisors(advisor -> advisor.param(ChatMemory.CONVERSATION_ID, conversationId))
+                    .advisors(advisor -> memoryParams(advisor, conversationId, tokenBudget))
                     .call()
                     .content();
         } catch (Exception e) {
@@ -63,17 +67,19 @@ public class MemoryChatManager {
      *
      * @param conversationId 会话ID
      * @param prompt         用户输入
+     * @param tokenBudget    记忆窗口与本轮提示词的 token 预算，为 null 时用默认预算
      * @return AI回复流
      */
-    public Flux<String> streamCall(String conversationId, String prompt) {
+    public Flux<String> streamCall(String conversationId, String prompt, Integer tokenBudget) {
         validateInput(conversationId, prompt);
+        chatMemory.tokenBudget(tokenBudget);
 
         log.debug("Memory stream call: conversationId={}, prompt={}", conversationId, truncate(prompt, 100));
 
         try {
             return chatClient.prompt()
                     .user(prompt)
-                    .advisors(advisor -> advisor.param(ChatMemory.CONVERSATION_ID, conversationId))
+                    .advisors(advisor -> memoryParams(advisor, conversationId, tokenBudget))
                     .stream()
                     .content();
         } catch (Exception e) {
@@ -96,6 +102,16 @@ public class MemoryChatManager {
         log.info("Cleared memory for conversation: {}", conversationId);
     }
 
+    /**
+     * 会话ID与 token 预算参数
+     */
+    private void memoryParams(AdvisorSpec advisor, String conversationId, Integer tokenBudget) {
+        advisor.param(ChatMemory.CONVERSATION_ID, conversationId);
+        if (tokenBudget != null) {
+            advisor.param(TokenBudgetChatMemoryAdvisor.TOKEN_BUDGET, tokenBudget);
+        }
+    }
+
     /**
      * 验证输入
      */
@@ -2,20 +2,36 @@ package com.shinelon.hello.manager;
 
 import com.shinelon.hello.common.enums.ErrorCodeEnum;
 import com.shinelon.hello.common.exception.BusinessException;
+import com.shinelon.hello.rag.generation.CitationPrompt;
+import com.shinelon.hello.rag.namespace.KnowledgeNamespaces;
+import com.shinelon.hello.rag.postretrieval.ContextCompressionPostProcessor;
+import com.shinelon.hello.rag.postretrieval.RerankingPostProcessor;
+import com.shinelon.hello.rag.query.CachingQueryTransformer;
+import com.shinelon.hello.rag.retrieval.AdaptiveRetrievalTuner;
+import com.shinelon.hello.rag.retrieval.AdaptiveVectorStore;
+import com.shinelon.hello.rag.retrieval.HybridDocumentRetriever;
+import com.shinelon.hello.rag.retrieval.MultiQueryRetriever;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientResponse;
 import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
 import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
-import org.springframework.ai.rag.preretrieval.query.transformation.RewriteQueryTransformer;
+import org.springframework.ai.rag.generation.augmentation.QueryAugmenter;
 import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
-import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Component
@@ -24,58 +40,78 @@ public class RagChatManager {
 
     private final ChatClient.Builder chatClientBuilder;
     private final VectorStore vectorStore;
+    private final HybridDocumentRetriever hybridDocumentRetriever;
+    private final CachingQueryTransformer queryRewriteTransformer;
+    private final MultiQueryRetriever multiQueryRetriever;
+    private final RerankingPostProcessor reranker;
+    private final ContextCompressionPostProcessor contextCompressor;
+    private final KnowledgeNamespaces knowledgeNamespaces;
+    private final AdaptiveRetrievalTuner retrievalTuner;
+
+    private final QueryAugmenter queryAugmenter = CitationPrompt.augmenter();
 
     private ChatClient simpleRagClient;
     private ChatClient advancedRagClient;
+    private ChatClient plainClient;
 
-    private static final List<String> DOCUMENT_SOURCES = List.of(
-            "公司介绍", "产品说明", "技术架构", "常见问题", "联系方式"
-    );
+    private static final String CATEGORY_KEY = "category";
+    private static final Pattern CATEGORY_PATTERN = Pattern.compile("^[\\w\\u4e00-\\u9fa5-]{1,64}$");
 
     @PostConstruct
     public void init() {
         initSimpleRagClient();
         initAdvancedRagClient();
+        this.plainClient = chatClientBuilder.clone().build();
         log.info("[RAG] RagChatManager 初始化完成");
     }
 
     private void initSimpleRagClient() {
         this.simpleRagClient = chatClientBuilder.clone()
-                .defaultAdvisors(QuestionAnswerAdvisor.builder(vectorStore)
-                        .searchRequest(SearchRequest.builder()
-                                .similarityThreshold(0.5)
-                                .topK(3)
-                                .build())
-                        .build())
+                .defaultAdvisors(questionAnswerAdvisor(vectorStore))
                 .build();
         log.info("[RAG] 简单版 RAG 客户端初始化完成 (QuestionAnswerAdvisor)");
     }
 
+    /**
+     * 检索的 topK 与相似度阈值在每次检索时取简单版端点当前的参数，见 {@link AdaptiveVectorStore}
+     */
+    private QuestionAnswerAdvisor questionAnswerAdvisor(VectorStore store) {
+        return QuestionAnswerAdvisor.builder(new AdaptiveVectorStore(store, retrievalTuner,
+                        AdaptiveRetrievalTuner.SIMPLE))
+                .build();
+    }
+
     private void initAdvancedRagClient() {
         var advancedAdvisor = RetrievalAugmentationAdvisor.builder()
-                .queryTransformers(RewriteQueryTransformer.builder()
-                        .chatClientBuilder(chatClientBuilder)
-                        .build())
-                .documentRetriever(VectorStoreDocumentRetriever.builder()
-                        .vectorStore(vectorStore)
-                        .similarityThreshold(0.5)
-                        .topK(3)
-                        .build())
+                .queryTransformers(queryRewriteTransformer)
+                .documentRetriever(hybridDocumentRetriever)
+                .documentPostProcessors(reranker, retrievalTuner.postProcessor(AdaptiveRetrievalTuner.ADVANCED),
+                        contextCompressor)
+                .queryAugmenter(queryAugmenter)
                 .build();
 
         this.advancedRagClient = chatClientBuilder.clone()
                 .defaultAdvisors(advancedAdvisor)
                 .build();
-        log.info("[RAG] 进阶版 RAG 客户端初始化完成 (RetrievalAugmentationAdvisor + RewriteQueryTransformer)");
+        log.info("[RAG] 进阶版 RAG 客户端初始化完成 (RetrievalAugmentationAdvisor + 缓存查询改写 + 混合检索 + 重排序 + 自适应 topK + 上下文压缩 + 引用编号)");
     }
 
     public String simpleChat(String query) {
+        return simpleChat(query, null);
+    }
+
+    public String simpleChat(String query, String category) {
+        return simpleChat(query, category, null);
+    }
+
+    public String simpleChat(String query, String category, String namespace) {
         validateInput(query);
-        log.debug("[RAG-Simple] 查询: {}", truncate(query, 100));
+        String filterExpression = categoryFilter(category);
+        String namespaceName = existingNamespace(namespace);
+        log.debug("[RAG-Simple] 查询: {}, category={}, namespace={}", truncate(query, 100), category, namespaceName);
 
         try {
-            return simpleRagClient.prompt()
-                    .user(query)
+            return simplePrompt(query, filterExpression, namespaceName)
                     .call()
                     .content();
         } catch (Exception e) {
@@ -85,14 +121,31 @@ public class RagChatManager {
     }
 
     public Flux<String> simpleChatStream(String query) {
+        return simpleChatStream(query, null);
+    }
+
+    public Flux<String> simpleChatStream(String query, String category) {
+        return simpleChatStream(query, category, null);
+    }
+
+    public Flux<String> simpleChatStream(String query, String category, String namespace) {
+        return simpleChatResponseStream(query, category, namespace).mapNotNull(RagChatManager::content);
+    }
+
+    /**
+     * 简单版流式对话，每个响应的 context 中带有检索到的文档，见 {@link #retrievedDocuments}
+     */
+    public Flux<ChatClientResponse> simpleChatResponseStream(String query, String category, String namespace) {
         validateInput(query);
-        log.debug("[RAG-Simple-Stream] 查询: {}", truncate(query, 100));
+        String filterExpression = categoryFilter(category);
+        String namespaceName = existingNamespace(namespace);
+        log.debug("[RAG-Simple-Stream] 查询: {}, category={}, namespace={}",
+                truncate(query, 100), category, namespaceName);
 
         try {
-            return simpleRagClient.prompt()
-                    .user(query)
+            return simplePrompt(query, filterExpression, namespaceName)
                     .stream()
-                    .content();
+                    .chatClientResponse();
         } catch (Exception e) {
             log.error("[RAG-Simple-Stream] 调用失败: {}", e.getMessage(), e);
             return Flux.error(new BusinessException(ErrorCodeEnum.AI_SERVICE_UNAVAILABLE, "RAG服务调用失败", e));
@@ -100,12 +153,25 @@ public class RagChatManager {
     }
 
     public String advancedChat(String query) {
+        return advancedChat(query, null);
+    }
+
+    public String advancedChat(String query, String category) {
+        return advancedChat(query, category, null);
+    }
+
+    public String advancedChat(String query, String category, String namespace) {
         validateInput(query);
-        log.debug("[RAG-Advanced] 查询: {}", truncate(query, 100));
+        String filterExpression = categoryFilter(category);
+        String namespaceName = existingNamespace(namespace);
+        log.debug("[RAG-Advanced] 查询: {}, category={}, namespace={}", truncate(query, 100), category, namespaceName);
 
         try {
             return advancedRagClient.prompt()
                     .user(query)
+                    .advisors(filterParam(VectorStoreDocumentRetriever.FILTER_EXPRESSION, filterExpression))
+                    .advisors(namespaceParam(namespaceName))
+                    .advisors(thresholdParam())
                     .call()
                     .content();
         } catch (Exception e) {
@@ -115,22 +181,185 @@ public class RagChatManager {
     }
 
     public Flux<String> advancedChatStream(String query) {
+        return advancedChatStream(query, null);
+    }
+
+    public Flux<String> advancedChatStream(String query, String category) {
+        return advancedChatStream(query, category, null);
+    }
+
+    public Flux<String> advancedChatStream(String query, String category, String namespace) {
+        return advancedChatResponseStream(query, category, namespace).mapNotNull(RagChatManager::content);
+    }
+
+    /**
+     * 进阶版流式对话，上下文资料带引用编号，每个响应的 context 中带有检索到的文档，见 {@link #retrievedDocuments}
+     */
+    public Flux<ChatClientResponse> advancedChatResponseStream(String query, String category, String namespace) {
         validateInput(query);
-        log.debug("[RAG-Advanced-Stream] 查询: {}", truncate(query, 100));
+        String filterExpression = categoryFilter(category);
+        String namespaceName = existingNamespace(namespace);
+        log.debug("[RAG-Advanced-Stream] 查询: {}, category={}, namespace={}",
+                truncate(query, 100), category, namespaceName);
 
         try {
             return advancedRagClient.prompt()
                     .user(query)
+                    .advisors(filterParam(VectorStoreDocumentRetriever.FILTER_EXPRESSION, filterExpression))
+                    .advisors(namespaceParam(namespaceName))
+                    .advisors(thresholdParam())
                     .stream()
-                    .content();
+                    .chatClientResponse();
         } catch (Exception e) {
             log.error("[RAG-Advanced-Stream] 调用失败: {}", e.getMessage(), e);
             return Flux.error(new BusinessException(ErrorCodeEnum.AI_SERVICE_UNAVAILABLE, "RAG服务调用失败", e));
         }
     }
 
+    /**
+     * 流水线模式第一步：原始查询立即检索，同时并发改写/扩展查询并检索，融合、重排序、自适应截取并压缩后的上下文就绪即完成
+     *
+     * @param query     用户查询
+     * @param category  文档分类，为空时检索全部文档
+     * @param namespace 知识库命名空间，为空时为默认命名空间
+     * @return 融合后的上下文文档
+     */
+    public Mono<List<Document>> pipelinedRetrieve(String query, String category, String namespace) {
+        validateInput(query);
+        String filterExpression = categoryFilter(category);
+        String namespaceName = existingNamespace(namespace);
+        log.debug("[RAG-Pipeline] 查询: {}, category={}, namespace={}", truncate(query, 100), category, namespaceName);
+
+        Map<String, Object> context = new HashMap<>();
+        context.put(HybridDocumentRetriever.SIMILARITY_THRESHOLD,
+                retrievalTuner.settings(AdaptiveRetrievalTuner.PIPELINE).similarityThreshold());
+        if (filterExpression != null) {
+            context.put(VectorStoreDocumentRetriever.FILTER_EXPRESSION, filterExpression);
+        }
+        if (!KnowledgeNamespaces.DEFAULT_NAMESPACE.equals(namespaceName)) {
+            context.put(KnowledgeNamespaces.CONTEXT_KEY, namespaceName);
+        }
+        Query retrievalQuery = Query.builder().text(query).context(context).build();
+        return Mono.fromFuture(() -> multiQueryRetriever.retrieveAsync(retrievalQuery))
+                .map(documents -> reranker.process(retrievalQuery, documents))
+                .map(documents -> retrievalTuner.select(AdaptiveRetrievalTuner.PIPELINE, documents))
+                .map(documents -> contextCompressor.process(retrievalQuery, documents))
+                .onErrorMap(e -> !(e instanceof BusinessException), e -> {
+                    log.error("[RAG-Pipeline] 检索失败: {}", e.getMessage(), e);
+                    return new BusinessException(ErrorCodeEnum.AI_SERVICE_UNAVAILABLE, "RAG检索失败", e);
+                });
+    }
+
+    /**
+     * 流式响应中检索 Advisor 放入 context 的上下文文档，简单版与进阶版的键不同
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Document> retrievedDocuments(ChatClientResponse response) {
+        Object documents = response.context().get(RetrievalAugmentationAdvisor.DOCUMENT_CONTEXT);
+        if (documents == null) {
+            documents = response.context().get(QuestionAnswerAdvisor.RETRIEVED_DOCUMENTS);
+        }
+        return documents instanceof List<?> list ? (List<Document>) list : List.of();
+    }
+
+    /**
+     * 响应分片的文本，没有生成结果时为 null
+     */
+    public static String content(ChatClientResponse response) {
+        if (response.chatResponse() == null || response.chatResponse().getResult() == null) {
+            return null;
+        }
+        return response.chatResponse().getResult().getOutput().getText();
+    }
+
+    /**
+     * 流水线模式第二步：用已检索好的上下文直接开始生成，不再经过检索 Advisor
+     *
+     * @param query     用户查询
+     * @param documents 上下文文档
+     * @return 回复内容流
+     */
+    public Flux<String> pipelinedGenerateStream(String query, List<Document> documents) {
+        validateInput(query);
+        try {
+            return plainClient.prompt()
+                    .user(queryAugmenter.augment(new Query(query), documents).text())
+                    .stream()
+                    .content();
+        } catch (Exception e) {
+            log.error("[RAG-Pipeline] 调用失败: {}", e.getMessage(), e);
+            return Flux.error(new BusinessException(ErrorCodeEnum.AI_SERVICE_UNAVAILABLE, "RAG服务调用失败", e));
+        }
+    }
+
+    /**
+     * 默认知识库中已索引的文档来源，按文档ID排序，随摄取增量更新
+     */
     public List<String> getDocumentSources() {
-        return DOCUMENT_SOURCES;
+        return knowledgeNamespaces.get(null).registry().documentIds();
+    }
+
+    /**
+     * 分类过滤表达式，为空时检索全部文档，否则命中向量库的 category 分区，只扫描该分类
+     */
+    private String categoryFilter(String category) {
+        if (category == null || category.isBlank()) {
+            return null;
+        }
+        if (!CATEGORY_PATTERN.matcher(category).matches()) {
+            throw new IllegalArgumentException("文档分类格式不正确");
+        }
+        return CATEGORY_KEY + " == '" + category + "'";
+    }
+
+    /**
+     * 校验命名空间名称，非默认命名空间必须已存在；对话请求不会创建命名空间，不存在时报 404，
+     * 在调用模型之前检查，不会被包装成模型调用失败
+     */
+    private String existingNamespace(String namespace) {
+        String name = KnowledgeNamespaces.normalize(namespace);
+        if (!KnowledgeNamespaces.DEFAULT_NAMESPACE.equals(name)) {
+            knowledgeNamespaces.get(name);
+        }
+        return name;
+    }
+
+    /**
+     * 默认命名空间直接使用预先构建的客户端；其他命名空间按请求挂载该命名空间向量存储上的 QuestionAnswerAdvisor
+     */
+    private ChatClient.ChatClientRequestSpec simplePrompt(String query, String filterExpression, String namespace) {
+        ChatClient.ChatClientRequestSpec prompt = KnowledgeNamespaces.DEFAULT_NAMESPACE.equals(namespace)
+                ? simpleRagClient.prompt()
+                : plainClient.prompt().advisors(questionAnswerAdvisor(knowledgeNamespaces.get(namespace).store()));
+        return prompt.user(query)
+                .advisors(filterParam(QuestionAnswerAdvisor.FILTER_EXPRESSION, filterExpression));
+    }
+
+    /**
+     * 命名空间参数，进入检索 Query 的 context，由混合检索器据此选择向量存储
+     */
+    private Consumer<ChatClient.AdvisorSpec> namespaceParam(String namespace) {
+        return advisor -> {
+            if (!KnowledgeNamespaces.DEFAULT_NAMESPACE.equals(namespace)) {
+                advisor.param(KnowledgeNamespaces.CONTEXT_KEY, namespace);
+            }
+        };
+    }
+
+    /**
+     * 进阶版端点当前的相似度阈值，进入检索 Query 的 context，由混合检索器覆盖配置值
+     */
+    private Consumer<ChatClient.AdvisorSpec> thresholdParam() {
+        return advisor -> advisor.param(HybridDocumentRetriever.SIMILARITY_THRESHOLD,
+                retrievalTuner.settings(AdaptiveRetrievalTuner.ADVANCED).similarityThreshold());
+    }
+
+    private Consumer<ChatClient.AdvisorSpec> filterParam(String paramName, String filterExpression) {
+        return advisor -> {
+            if (filterExpression != null) {
+                advisor.param(paramName, filterExpression);
+            }
+        };
     }
 
     private void validateInput(String query) {
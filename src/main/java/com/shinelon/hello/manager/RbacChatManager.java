@@ -6,6 +6,7 @@ import com.shinelon.hello.tool.ApprovalSubmitTool;
 import com.shinelon.hello.tool.PermissionRoleQueryTool;
 import com.shinelon.hello.tool.RolePermissionQueryTool;
 import com.shinelon.hello.tool.UserQueryTool;
+import com.shinelon.hello.tool.cache.ToolResultCache;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +29,7 @@ public class RbacChatManager {
     private final RolePermissionQueryTool rolePermissionQueryTool;
     private final PermissionRoleQueryTool permissionRoleQueryTool;
     private final ApprovalSubmitTool approvalSubmitTool;
+    private final ToolResultCache toolResultCache;
 
     private ChatClient chatClient;
 
@@ -50,10 +52,9 @@ public class RbacChatManager {
         log.info("[RbacChatManager] 初始化开始，注册工具...");
         this.chatClient = chatClientBuilder
                 .defaultSystem(SYSTEM_PROMPT)
-                .defaultTools(userQueryTool)
-                .defaultTools(rolePermissionQueryTool)
-                .defaultTools(permissionRoleQueryTool)
-                .defaultTools(approvalSubmitTool)
+                // 查询工具的结果按参数缓存，RBAC 数据变更时整组失效
+                .defaultToolCallbacks(toolResultCache.toolCallbacks(userQueryTool, rolePermissionQueryTool,
+                        permissionRoleQueryTool, approvalSubmitTool))
                 .build();
         log.info("[RbacChatManager] 初始化完成，已注册4个工具");
     }
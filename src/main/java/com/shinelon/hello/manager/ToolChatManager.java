@@ -4,10 +4,13 @@ import com.shinelon.hello.common.enums.ErrorCodeEnum;
 import com.shinelon.hello.common.exception.BusinessException;
 import com.shinelon.hello.tool.CalculatorTool;
 import com.shinelon.hello.tool.DateTimeTool;
+import com.shinelon.hello.tool.cache.ToolResultCache;
+import com.shinelon.hello.tool.execution.ToolCallbackRegistry;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.tool.ToolCallback;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
@@ -27,6 +30,7 @@ public class ToolChatManager {
     private final ChatClient.Builder chatClientBuilder;
     private final DateTimeTool dateTimeTool;
     private final CalculatorTool calculatorTool;
+    private final ToolResultCache toolResultCache;
 
     private ChatClient chatClient;
 
@@ -37,17 +41,19 @@ public class ToolChatManager {
     public static final String TOOL_CALCULATOR = "calculator";
 
     /**
-     * 可用工具映射
+     * 可用工具注册表：启动时为每种工具组合生成 ToolCallback 列表（可缓存的工具已包装缓存），请求时直接查表
      */
-    private final Map<String, Object> toolMap = new LinkedHashMap<>();
+    private ToolCallbackRegistry toolRegistry;
 
     @PostConstruct
     public void init() {
         this.chatClient = chatClientBuilder.build();
 
         // 注册工具
-        toolMap.put(TOOL_DATETIME, dateTimeTool);
-        toolMap.put(TOOL_CALCULATOR, calculatorTool);
+        Map<String, ToolCallback[]> toolMap = new LinkedHashMap<>();
+        toolMap.put(TOOL_DATETIME, toolResultCache.toolCallbacks(dateTimeTool));
+        toolMap.put(TOOL_CALCULATOR, toolResultCache.toolCallbacks(calculatorTool));
+        this.toolRegistry = new ToolCallbackRegistry(toolMap);
     }
 
     /**
@@ -60,13 +66,13 @@ public class ToolChatManager {
     public String syncCall(String prompt, List<String> enabledTools) {
         validatePrompt(prompt);
 
-        Object[] tools = resolveTools(enabledTools);
-        log.debug("Tool sync call with {} tools: {}", tools.length, enabledTools);
+        List<ToolCallback> tools = toolRegistry.resolve(enabledTools);
+        log.debug("Tool sync call with {} tools: {}", tools.size(), enabledTools);
 
         try {
             return chatClient.prompt()
                     .user(prompt)
-                    .tools(tools)
+                    .toolCallbacks(tools)
                     .call()
                     .content();
         } catch (Exception e) {
@@ -85,13 +91,13 @@ public class ToolChatManager {
     public Flux<String> streamCall(String prompt, List<String> enabledTools) {
         validatePrompt(prompt);
 
-        Object[] tools = resolveTools(enabledTools);
-        log.debug("Tool stream call with {} tools: {}", tools.length, enabledTools);
+        List<ToolCallback> tools = toolRegistry.resolve(enabledTools);
+        log.debug("Tool stream call with {} tools: {}", tools.size(), enabledTools);
 
         try {
             return chatClient.prompt()
                     .user(prompt)
-                    .tools(tools)
+                    .toolCallbacks(tools)
                     .stream()
                     .content();
         } catch (Exception e) {
@@ -106,39 +112,7 @@ public class ToolChatManager {
      * @return 工具名称列表
      */
     public List<String> getAvailableTools() {
-        List<String> tools = new ArrayList<>(toolMap.size());
-        tools.addAll(toolMap.keySet());
-        return tools;
-    }
-
-    /**
-     * 解析工具列表
-     *
-     * @param enabledTools 启用的工具名称列表
-     * @return 工具对象数组
-     */
-    private Object[] resolveTools(List<String> enabledTools) {
-        if (enabledTools == null || enabledTools.isEmpty()) {
-            // 使用全部工具
-            return toolMap.values().toArray();
-        }
-
-        List<Object> tools = new ArrayList<>(Math.min(enabledTools.size(), toolMap.size()));
-        for (String toolName : enabledTools) {
-            Object tool = toolMap.get(toolName.toLowerCase());
-            if (tool != null) {
-                tools.add(tool);
-            } else {
-                log.warn("Unknown tool: {}", toolName);
-            }
-        }
-
-        if (tools.isEmpty()) {
-            // 如果没有匹配的工具，使用全部
-            return toolMap.values().toArray();
-        }
-
-        return tools.toArray();
+        return new ArrayList<>(toolRegistry.names());
     }
 
     /**
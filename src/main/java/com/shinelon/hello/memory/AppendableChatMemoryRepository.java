@@ -0,0 +1,24 @@
+package com.shinelon.hello.memory;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * 支持追加写入的对话记忆存储
+ * saveAll 需要整体替换会话；追加式存储（如数据库消息表）只写新增的消息，保留完整历史，
+ * {@link TokenWindowChatMemory} 检测到该接口时改用追加写入
+ *
+ * @author shinelon
+ */
+public interface AppendableChatMemoryRepository extends ChatMemoryRepository {
+
+    /**
+     * 在会话末尾追加消息
+     *
+     * @param conversationId 会话ID
+     * @param messages       新消息
+     */
+    void append(String conversationId, List<Message> messages);
+}
@@ -0,0 +1,457 @@
+package com.shinelon.hello.memory;
+
+import com.shinelon.hello.config.ChatMemoryProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 有界对话记忆存储
+ * 替代 InMemoryChatMemoryRepository：会话数、消息字节数和空闲时间都有上限，
+ * 会话不断新增时内存占用仍然有界。
+ * 会话以 {@link ChatMessageCodec} 编码后的字节数组常驻，读取时解码，
+ * 字节上限按编码长度精确计算，长文本还会被压缩。
+ * <p>
+ * 淘汰策略为 W-TinyLFU：
+ * <ol>
+ *     <li>新会话先进入窗口区（容量约 1%），窗口区按 LRU 淘汰</li>
+ *     <li>窗口区淘汰出的会话与主区试用段最久未访问的会话比较访问频率，频率更高者留下，
+ *     一次性访问的会话无法挤掉反复使用的会话</li>
+ *     <li>主区分为试用段和保护段（主区容量的 80%），试用段中再次访问的会话晋升到保护段</li>
+ * </ol>
+ * 访问频率由 {@link FrequencySketch} 估计。字节数超限时依次从试用段、保护段、窗口区最久未访问处淘汰；
+ * 空闲超时的会话在读取时惰性剔除，并由 {@link #cleanUp()} 定期清理。
+ * 被淘汰的会话编码交给淘汰监听器（如原样转存到冷存储），显式删除的会话不通知。
+ * 淘汰结构的维护加同一把锁，淘汰监听器在锁内执行；加载函数（如数据库查询）在锁外执行，
+ * 一个会话加载期间其他会话的读写不受阻塞，加载完成后放入时再检查是否已有并发写入，已有时以已有的为准。
+ * 消息编解码在锁外进行，锁内只有哈希表和链表操作，持锁时间与消息大小无关
+ *
+ * @author shinelon
+ */
+@Slf4j
+public class BoundedChatMemoryRepository implements ChatMemoryRepository {
+
+    private final int maxConversations;
+    private final long maxBytes;
+    private final long idleTtlNanos;
+    private final LongSupplier nanoClock;
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final int compressionThreshold;
+
+    private final BiConsumer<String, byte[]> evictionListener;
+    private final FrequencySketch sketch;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Entry> protectedSegment = new LinkedHashMap<>();
+    private long totalBytes;
+
+    private final Map<EvictionCause, Counter> evictions = new EnumMap<>(EvictionCause.class);
+
+    public BoundedChatMemoryRepository(ChatMemoryProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock 纳秒时钟，测试时可替换
+     */
+    public BoundedChatMemoryRepository(ChatMemoryProperties properties, MeterRegistry meterRegistry,
+                                       LongSupplier nanoClock) {
+        this(properties, meterRegistry, nanoClock, (conversationId, bytes) -> {
+        });
+    }
+
+    /**
+     * @param nanoClock        纳秒时钟，测试时可替换
+     * @param evictionListener 淘汰监听器，参数为会话ID和会话编码
+     */
+    public BoundedChatMemoryRepository(ChatMemoryProperties properties, MeterRegistry meterRegistry,
+                                       LongSupplier nanoClock, BiConsumer<String, byte[]> evictionListener) {
+        if (properties.getMaxConversations() <= 0) {
+            throw new IllegalArgumentException("最大会话数必须大于0");
+        }
+        this.maxConversations = properties.getMaxConversations();
+        this.maxBytes = properties.getMaxSize().toBytes();
+        this.idleTtlNanos = properties.getIdleTtl().toNanos();
+        this.compressionThreshold = (int) Math.min(properties.getCompressionThreshold().toBytes(), Integer.MAX_VALUE);
+        this.nanoClock = nanoClock;
+        this.evictionListener = evictionListener;
+        this.windowCapacity = Math.max(1, maxConversations / 100);
+        this.protectedCapacity = (int) ((maxConversations - windowCapacity) * 0.8);
+        this.sketch = new FrequencySketch(maxConversations);
+
+        Gauge.builder("chat.memory.conversations", this, BoundedChatMemoryRepository::size)
+                .description("常驻内存的会话数")
+                .register(meterRegistry);
+        Gauge.builder("chat.memory.bytes", this, BoundedChatMemoryRepository::bytes)
+                .description("常驻会话的编码字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        for (EvictionCause cause : EvictionCause.values()) {
+            evictions.put(cause, Counter.builder("chat.memory.evictions")
+                    .description("被淘汰的会话数")
+                    .tag("cause", cause.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public synchronized List<String> findConversationIds() {
+        cleanUp();
+        return List.copyOf(entries.keySet());
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        return findByConversationId(conversationId, id -> null);
+    }
+
+    /**
+     * 读取会话，内存中没有时用 loader 加载并放入内存。
+     * loader 在锁外执行，同一会话的并发加载由调用方（如按会话持有分段锁）避免
+     *
+     * @param conversationId 会话ID
+     * @param loader         加载函数，没有该会话时返回 null
+     * @return 消息列表
+     */
+    public List<Message> findByConversationId(String conversationId, Function<String, List<Message>> loader) {
+        validateConversationId(conversationId);
+        byte[] encoded;
+        synchronized (this) {
+            sketch.increment(conversationId);
+            encoded = touch(conversationId);
+        }
+        if (encoded == null) {
+            List<Message> loaded = loader.apply(conversationId);
+            if (loaded == null) {
+                return List.of();
+            }
+            encoded = storeIfAbsent(conversationId, ChatMessageCodec.encode(conversationId, loaded, compressionThreshold));
+            if (encoded == null) {
+                return List.copyOf(loaded);
+            }
+        }
+        // 编码数组只整体替换不会原地修改，可以在锁外解码
+        return decode(conversationId, encoded);
+    }
+
+    /**
+     * 编码在锁外完成，锁内只替换字节数组
+     */
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        validateConversationId(conversationId);
+        if (messages == null) {
+            throw new IllegalArgumentException("消息列表不能为空");
+        }
+        store(conversationId, ChatMessageCodec.encode(conversationId, messages, compressionThreshold));
+    }
+
+    /**
+     * 加载结果放入内存；加载期间已有并发写入时保留已有的
+     *
+     * @return 已有会话的编码，放入成功时返回 null
+     */
+    private synchronized byte[] storeIfAbsent(String conversationId, byte[] encoded) {
+        byte[] existing = touch(conversationId);
+        if (existing == null) {
+            store(conversationId, encoded);
+        }
+        return existing;
+    }
+
+    /**
+     * 访问常驻会话并返回其编码，不存在或已过期（同时剔除）时返回 null
+     */
+    private byte[] touch(String conversationId) {
+        Entry entry = entries.get(conversationId);
+        if (entry == null) {
+            return null;
+        }
+        long now = nanoClock.getAsLong();
+        if (isExpired(entry, now)) {
+            evict(entry, EvictionCause.EXPIRED);
+            return null;
+        }
+        entry.lastAccess = now;
+        onAccess(entry);
+        return entry.encoded;
+    }
+
+    private synchronized void store(String conversationId, byte[] encoded) {
+        long now = nanoClock.getAsLong();
+        expireIdleHeads(now);
+        sketch.increment(conversationId);
+
+        Entry entry = entries.get(conversationId);
+        if (entry == null) {
+            entry = new Entry(conversationId, Segment.WINDOW);
+            entries.put(conversationId, entry);
+            window.put(conversationId, entry);
+        } else {
+            totalBytes -= entry.encoded.length;
+            onAccess(entry);
+        }
+        entry.encoded = encoded;
+        entry.lastAccess = now;
+        totalBytes += encoded.length;
+
+        evictForCapacity();
+        evictForBytes(conversationId);
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        deleteByConversationId(conversationId, id -> {
+        });
+    }
+
+    /**
+     * 删除会话，同时在锁内执行 deleter（如删除冷存储中的副本），删除与重新加载不会交错
+     *
+     * @param conversationId 会话ID
+     * @param deleter        额外的删除操作
+     */
+    public synchronized void deleteByConversationId(String conversationId, Consumer<String> deleter) {
+        validateConversationId(conversationId);
+        Entry entry = entries.get(conversationId);
+        if (entry != null) {
+            remove(entry);
+        }
+        deleter.accept(conversationId);
+    }
+
+    /**
+     * 清理全部空闲超时的会话
+     *
+     * @return 清理的会话数
+     */
+    public synchronized int cleanUp() {
+        long now = nanoClock.getAsLong();
+        List<Entry> expired = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (isExpired(entry, now)) {
+                expired.add(entry);
+            }
+        }
+        expired.forEach(entry -> evict(entry, EvictionCause.EXPIRED));
+        return expired.size();
+    }
+
+    /**
+     * 全部常驻会话编码的快照，不计入访问
+     */
+    public synchronized Map<String, byte[]> snapshot() {
+        Map<String, byte[]> snapshot = new LinkedHashMap<>();
+        entries.forEach((conversationId, entry) -> snapshot.put(conversationId, entry.encoded));
+        return snapshot;
+    }
+
+    /**
+     * 常驻会话数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 常驻会话的编码字节数
+     */
+    public synchronized long bytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 会话是否常驻内存，不计入访问
+     */
+    public synchronized boolean contains(String conversationId) {
+        return entries.containsKey(conversationId);
+    }
+
+    /**
+     * 解码常驻会话，编码由本类写入，解码失败说明内存数据已损坏
+     */
+    private static List<Message> decode(String conversationId, byte[] encoded) {
+        try {
+            return ChatMessageCodec.decode(encoded).messages();
+        } catch (IOException e) {
+            throw new IllegalStateException("常驻会话解码失败: " + conversationId, e);
+        }
+    }
+
+    /**
+     * 访问后调整所在分段：窗口区和保护段移到队尾，试用段晋升到保护段
+     */
+    private void onAccess(Entry entry) {
+        switch (entry.segment) {
+            case WINDOW -> moveToTail(window, entry);
+            case PROTECTED -> moveToTail(protectedSegment, entry);
+            case PROBATION -> {
+                probation.remove(entry.conversationId);
+                entry.segment = Segment.PROTECTED;
+                protectedSegment.put(entry.conversationId, entry);
+                if (protectedSegment.size() > protectedCapacity) {
+                    Entry demoted = first(protectedSegment, null);
+                    protectedSegment.remove(demoted.conversationId);
+                    demoted.segment = Segment.PROBATION;
+                    probation.put(demoted.conversationId, demoted);
+                }
+            }
+        }
+    }
+
+    /**
+     * 窗口区超出容量时，把窗口区最久未访问的会话移入主区；总数超限时与试用段的淘汰候选比较频率
+     */
+    private void evictForCapacity() {
+        while (window.size() > windowCapacity) {
+            Entry candidate = first(window, null);
+            window.remove(candidate.conversationId);
+            if (entries.size() <= maxConversations) {
+                candidate.segment = Segment.PROBATION;
+                probation.put(candidate.conversationId, candidate);
+                continue;
+            }
+            Entry victim = first(probation, null);
+            if (victim == null) {
+                victim = first(protectedSegment, null);
+            }
+            if (victim != null && sketch.frequency(candidate.conversationId) > sketch.frequency(victim.conversationId)) {
+                evict(victim, EvictionCause.SIZE);
+                candidate.segment = Segment.PROBATION;
+                probation.put(candidate.conversationId, candidate);
+            } else {
+                evict(candidate, EvictionCause.SIZE);
+            }
+        }
+    }
+
+    /**
+     * 字节数超限时依次从试用段、保护段、窗口区最久未访问处淘汰，刚写入的会话最后考虑
+     */
+    private void evictForBytes(String justWritten) {
+        while (totalBytes > maxBytes) {
+            Entry victim = first(probation, justWritten);
+            if (victim == null) {
+                victim = first(protectedSegment, justWritten);
+            }
+            if (victim == null) {
+                victim = first(window, justWritten);
+            }
+            if (victim == null) {
+                log.warn("[ChatMemory] 单个会话超过字节上限, conversationId={}, bytes={}, maxBytes={}",
+                        justWritten, totalBytes, maxBytes);
+                return;
+            }
+            evict(victim, EvictionCause.BYTES);
+        }
+    }
+
+    /**
+     * 各分段队首按最近访问排序，写入时顺手剔除队首已空闲超时的会话
+     */
+    private void expireIdleHeads(long now) {
+        for (LinkedHashMap<String, Entry> segment : List.of(window, probation, protectedSegment)) {
+            Entry head = first(segment, null);
+            while (head != null && isExpired(head, now)) {
+                evict(head, EvictionCause.EXPIRED);
+                head = first(segment, null);
+            }
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.lastAccess >= idleTtlNanos;
+    }
+
+    private void evict(Entry entry, EvictionCause cause) {
+        remove(entry);
+        evictions.get(cause).increment();
+        log.debug("[ChatMemory] 会话已淘汰, conversationId={}, cause={}", entry.conversationId, cause);
+        try {
+            evictionListener.accept(entry.conversationId, entry.encoded);
+        } catch (RuntimeException e) {
+            log.error("[ChatMemory] 淘汰监听器执行失败, conversationId={}", entry.conversationId, e);
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.conversationId);
+        segmentOf(entry).remove(entry.conversationId);
+        totalBytes -= entry.encoded.length;
+    }
+
+    private LinkedHashMap<String, Entry> segmentOf(Entry entry) {
+        return switch (entry.segment) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            case PROTECTED -> protectedSegment;
+        };
+    }
+
+    private static void moveToTail(LinkedHashMap<String, Entry> segment, Entry entry) {
+        segment.remove(entry.conversationId);
+        segment.put(entry.conversationId, entry);
+    }
+
+    /**
+     * 分段中最久未访问的会话，跳过 excluded
+     */
+    private static Entry first(LinkedHashMap<String, Entry> segment, String excluded) {
+        Iterator<Entry> iterator = segment.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (!entry.conversationId.equals(excluded)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static void validateConversationId(String conversationId) {
+        if (conversationId == null || conversationId.isBlank()) {
+            throw new IllegalArgumentException("会话ID不能为空");
+        }
+    }
+
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    /**
+     * 淘汰原因
+     */
+    private enum EvictionCause {
+        SIZE, BYTES, EXPIRED
+    }
+
+    private static final class Entry {
+
+        private final String conversationId;
+        private Segment segment;
+        private byte[] encoded = new byte[0];
+        private long lastAccess;
+
+        private Entry(String conversationId, Segment segment) {
+            this.conversationId = conversationId;
+            this.segment = segment;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.shinelon.hello.memory;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 对话记忆后台清理任务
+ * 定期把空闲超时的会话尾部移出缓存，没有新请求时空闲会话也会被释放，下次读取再从数据库加载
+ *
+ * @author shinelon
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatMemoryCleaner {
+
+    private final JpaChatMemoryRepository chatMemoryRepository;
+
+    @Scheduled(fixedDelayString = "${chat-memory.cleanup-interval:PT1M}",
+            initialDelayString = "${chat-memory.cleanup-interval:PT1M}")
+    public void cleanUp() {
+        int removed = chatMemoryRepository.cleanUp();
+        if (removed > 0) {
+            log.info("[ChatMemory] 清理空闲会话完成, 清理={}, 剩余会话={}, 缓存字节数={}",
+                    removed, chatMemoryRepository.size(), chatMemoryRepository.bytes());
+        }
+    }
+}
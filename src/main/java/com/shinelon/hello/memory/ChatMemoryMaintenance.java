@@ -0,0 +1,428 @@
+package com.shinelon.hello.memory;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.shinelon.hello.config.ChatMemoryProperties;
+import com.shinelon.hello.dao.ChatMessageDao;
+import com.shinelon.hello.dao.ChatSessionDao;
+import com.shinelon.hello.model.entity.ChatMessageDO;
+import com.shinelon.hello.model.entity.ChatSessionDO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对话记忆批量维护：按条件批量清理、导出 NDJSON、从 NDJSON 导入
+ * <ul>
+ *     <li>任务提交后立即返回，在单个后台线程中依次执行，可查询进度或取消</li>
+ *     <li>会话按主键游标分批读取，导出的消息按页读取，任何时候只有一批会话或一页消息在内存中</li>
+ *     <li>每个会话的删除或写入都经过 {@link JpaChatMemoryRepository}，单独加锁、单独提交，
+ *     只短暂占用该会话的分段锁，不会长时间阻塞在线对话，缓存也随之更新</li>
+ * </ul>
+ * 导出格式为每行一条消息的 JSON，同一会话的消息连续且按时间顺序排列，导入时还原消息的创建时间；
+ * 导入遇到格式错误的行时任务失败，此前已导入的会话保留
+ *
+ * @author shinelon
+ */
+@Slf4j
+@Component
+public class ChatMemoryMaintenance implements AutoCloseable {
+
+    private final JpaChatMemoryRepository repository;
+    private final ChatSessionDao chatSessionDao;
+    private final ChatMessageDao chatMessageDao;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int jobHistory;
+    private final ExecutorService executor;
+    private final Map<String, MaintenanceJob> jobs = new LinkedHashMap<>();
+
+    public ChatMemoryMaintenance(JpaChatMemoryRepository repository, ChatSessionDao chatSessionDao,
+                                 ChatMessageDao chatMessageDao, ObjectMapper objectMapper,
+                                 ChatMemoryProperties properties) {
+        if (properties.getAdmin().getBatchSize() <= 0) {
+            throw new IllegalArgumentException("批大小必须大于0");
+        }
+        this.repository = repository;
+        this.chatSessionDao = chatSessionDao;
+        this.chatMessageDao = chatMessageDao;
+        this.objectMapper = objectMapper.copy()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.batchSize = properties.getAdmin().getBatchSize();
+        this.jobHistory = Math.max(properties.getAdmin().getJobHistory(), 0);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "chat-memory-admin-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 提交批量清理任务，条件同时满足的会话连同消息一起删除
+     *
+     * @param prefix 会话ID前缀，为 null 时不限制
+     * @param idle   空闲时间：会话超过该时间没有新消息，为 null 时不限制
+     * @return 任务
+     */
+    public MaintenanceJob submitClear(String prefix, Duration idle) {
+        if (prefix == null && idle == null) {
+            throw new IllegalArgumentException("清理条件不能为空，至少指定会话ID前缀或空闲时间");
+        }
+        if (idle != null && (idle.isNegative() || idle.isZero())) {
+            throw new IllegalArgumentException("空闲时间必须大于0");
+        }
+        String target = "prefix=" + prefix + ", idle=" + idle;
+        return submit(MaintenanceJob.Type.CLEAR, target, job -> clear(job, prefix, idle));
+    }
+
+    /**
+     * 提交导出任务，先写入临时文件，完成后再替换目标文件
+     *
+     * @param file   导出文件
+     * @param prefix 会话ID前缀，为 null 时导出全部会话
+     * @return 任务
+     */
+    public MaintenanceJob submitExport(Path file, String prefix) {
+        return submit(MaintenanceJob.Type.EXPORT, file.toString(), job -> export(job, file, prefix));
+    }
+
+    /**
+     * 提交导入任务
+     *
+     * @param file      导出生成的 NDJSON 文件
+     * @param overwrite 会话已存在时是否覆盖，否则跳过该会话
+     * @return 任务
+     */
+    public MaintenanceJob submitImport(Path file, boolean overwrite) {
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("导入文件不存在: " + file);
+        }
+        return submit(MaintenanceJob.Type.IMPORT, file.toString(), job -> importFile(job, file, overwrite));
+    }
+
+    public synchronized Optional<MaintenanceJob> job(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * 全部任务，最近提交的在前
+     */
+    public synchronized List<MaintenanceJob> jobs() {
+        List<MaintenanceJob> result = new ArrayList<>(jobs.values());
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * 取消任务
+     *
+     * @return 任务存在且尚未结束时返回 true
+     */
+    public boolean cancel(String jobId) {
+        return job(jobId).map(MaintenanceJob::cancel).orElse(false);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private synchronized MaintenanceJob submit(MaintenanceJob.Type type, String target, JobAction action) {
+        MaintenanceJob job = new MaintenanceJob(UUID.randomUUID().toString(), type, target);
+        jobs.put(job.id(), job);
+        pruneFinishedJobs();
+        job.future(executor.submit(() -> run(job, action)));
+        log.info("[ChatMemoryAdmin] 任务已提交, jobId={}, type={}, target={}", job.id(), type, target);
+        return job;
+    }
+
+    private void run(MaintenanceJob job, JobAction action) {
+        if (!job.start()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            action.run(job);
+            job.finish(MaintenanceJob.Status.SUCCEEDED, null);
+            log.info("[ChatMemoryAdmin] 任务完成, jobId={}, type={}, 会话={}, 消息={}, 跳过={}, 耗时={}ms",
+                    job.id(), job.type(), job.processedConversations(), job.processedMessages(),
+                    job.skippedConversations(), System.currentTimeMillis() - start);
+        } catch (CancellationException e) {
+            job.finish(MaintenanceJob.Status.CANCELLED, null);
+            log.info("[ChatMemoryAdmin] 任务已取消, jobId={}, 已处理会话={}", job.id(), job.processedConversations());
+        } catch (Exception e) {
+            job.finish(MaintenanceJob.Status.FAILED, e.getMessage());
+            log.error("[ChatMemoryAdmin] 任务失败, jobId={}, type={}, 已处理会话={}",
+                    job.id(), job.type(), job.processedConversations(), e);
+        }
+    }
+
+    /**
+     * 只保留 jobHistory 个已结束的任务，未结束的任务都保留
+     */
+    private void pruneFinishedJobs() {
+        List<MaintenanceJob> finished = jobs.values().stream()
+                .filter(MaintenanceJob::finished)
+                .sorted(Comparator.comparing(MaintenanceJob::finishTime))
+                .toList();
+        for (int i = 0; i < finished.size() - jobHistory; i++) {
+            jobs.remove(finished.get(i).id());
+        }
+    }
+
+    private void clear(MaintenanceJob job, String prefix, Duration idle) throws IOException {
+        String pattern = likePattern(prefix);
+        LocalDateTime cutoff = idle == null ? null : LocalDateTime.now().minus(idle);
+        job.totalConversations(chatSessionDao.countForMaintenance(pattern, cutoff));
+        forEachSession(job, pattern, cutoff, session -> {
+            repository.deleteByConversationId(session.getSessionId());
+            job.conversationProcessed();
+        });
+    }
+
+    private void export(MaintenanceJob job, Path file, String prefix) throws IOException {
+        String pattern = likePattern(prefix);
+        job.totalConversations(chatSessionDao.countForMaintenance(pattern, null));
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            forEachSession(job, pattern, null, session -> {
+                exportSession(job, writer, session.getSessionId());
+                job.conversationProcessed();
+            });
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void exportSession(MaintenanceJob job, BufferedWriter writer, String conversationId) throws IOException {
+        for (int page = 0; ; page++) {
+            List<ChatMessageDO> records = chatMessageDao.findBySessionIdOrderByCreateTimeAscIdAsc(conversationId,
+                    PageRequest.of(page, batchSize));
+            for (ChatMessageDO record : records) {
+                writer.write(objectMapper.writeValueAsString(toLine(conversationId, record)));
+                writer.newLine();
+            }
+            job.messagesProcessed(records.size());
+            if (records.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 逐行读取，同一会话连续的消息按批追加；每个会话第一次出现时决定覆盖还是跳过。
+     * 已出现过的会话ID记录在内存中，同一会话在文件中不连续出现时不会被重复覆盖；
+     * 消息按行中的创建时间写入，没有创建时间的行取当前时间
+     */
+    private void importFile(MaintenanceJob job, Path file, boolean overwrite) throws IOException {
+        job.totalBytes(Files.size(file));
+        Set<String> seen = new HashSet<>();
+        Set<String> skipped = new HashSet<>();
+        List<Message> pending = new ArrayList<>(batchSize);
+        List<LocalDateTime> pendingTimes = new ArrayList<>(batchSize);
+        String current = null;
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                job.bytesRead(line.getBytes(StandardCharsets.UTF_8).length + 1L);
+                if (line.isBlank()) {
+                    continue;
+                }
+                ExportedMessage exported = parse(line, lineNumber);
+                String conversationId = exported.conversationId();
+                if (!conversationId.equals(current)) {
+                    flush(job, current, pending, pendingTimes);
+                    checkCancelled(job);
+                    current = conversationId;
+                    if (seen.add(conversationId)) {
+                        if (!chatSessionDao.existsBySessionId(conversationId)) {
+                            job.conversationProcessed();
+                        } else if (overwrite) {
+                            repository.deleteByConversationId(conversationId);
+                            job.conversationProcessed();
+                        } else {
+                            skipped.add(conversationId);
+                            job.conversationSkipped();
+                        }
+                    }
+                }
+                if (skipped.contains(conversationId)) {
+                    continue;
+                }
+                pending.add(toMessage(exported, lineNumber));
+                pendingTimes.add(exported.createTime());
+                if (pending.size() >= batchSize) {
+                    flush(job, current, pending, pendingTimes);
+                    checkCancelled(job);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // 格式错误之前读到的消息照常写入
+            flush(job, current, pending, pendingTimes);
+            throw e;
+        }
+        flush(job, current, pending, pendingTimes);
+    }
+
+    private void flush(MaintenanceJob job, String conversationId, List<Message> pending,
+                       List<LocalDateTime> pendingTimes) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        repository.importMessages(conversationId, List.copyOf(pending), new ArrayList<>(pendingTimes));
+        job.messagesProcessed(pending.size());
+        pending.clear();
+        pendingTimes.clear();
+    }
+
+    private void forEachSession(MaintenanceJob job, String pattern, LocalDateTime cutoff, SessionAction action)
+            throws IOException {
+        long afterId = 0;
+        while (true) {
+            checkCancelled(job);
+            List<ChatSessionDO> batch = chatSessionDao.findBatchForMaintenance(afterId, pattern, cutoff,
+                    PageRequest.of(0, batchSize));
+            for (ChatSessionDO session : batch) {
+                action.accept(session);
+            }
+            if (batch.size() < batchSize) {
+                return;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    private static void checkCancelled(MaintenanceJob job) {
+        if (job.cancelRequested() || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * 前缀转为 LIKE 模式，转义 LIKE 通配符
+     */
+    static String likePattern(String prefix) {
+        if (prefix == null) {
+            return "%";
+        }
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    private ExportedMessage parse(String line, int lineNumber) {
+        ExportedMessage exported;
+        try {
+            exported = objectMapper.readValue(line, ExportedMessage.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("第 " + lineNumber + " 行格式错误: " + e.getOriginalMessage(), e);
+        }
+        if (exported.conversationId() == null || exported.conversationId().isBlank() || exported.type() == null) {
+            throw new IllegalArgumentException("第 " + lineNumber + " 行缺少会话ID或消息类型");
+        }
+        return exported;
+    }
+
+    private ExportedMessage toLine(String conversationId, ChatMessageDO record) {
+        Message message = repository.toMessage(record);
+        Map<String, Object> metadata = new LinkedHashMap<>(message.getMetadata());
+        metadata.remove("messageType");
+        List<AssistantMessage.ToolCall> toolCalls = message instanceof AssistantMessage assistant
+                && assistant.hasToolCalls() ? assistant.getToolCalls() : null;
+        List<ToolResponseMessage.ToolResponse> toolResponses = message instanceof ToolResponseMessage tool
+                ? tool.getResponses() : null;
+        // 空字段不写出，空字符串文本保留，导入后与导出前一致
+        return new ExportedMessage(conversationId, message.getMessageType().getValue(), message.getText(),
+                metadata.isEmpty() ? null : metadata, toolCalls, toolResponses, record.getCreateTime());
+    }
+
+    private static Message toMessage(ExportedMessage exported, int lineNumber) {
+        Map<String, Object> metadata = exported.metadata() == null ? new LinkedHashMap<>() : exported.metadata();
+        MessageType type;
+        try {
+            type = MessageType.fromValue(exported.type());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("第 " + lineNumber + " 行消息类型未知: " + exported.type(), e);
+        }
+        return switch (type) {
+            case USER -> UserMessage.builder().text(exported.text()).metadata(metadata).build();
+            case SYSTEM -> SystemMessage.builder().text(exported.text()).metadata(metadata).build();
+            case ASSISTANT -> AssistantMessage.builder()
+                    .content(exported.text())
+                    .properties(metadata)
+                    .toolCalls(exported.toolCalls() == null ? List.of() : exported.toolCalls())
+                    .build();
+            case TOOL -> ToolResponseMessage.builder()
+                    .responses(exported.toolResponses() == null ? List.of() : exported.toolResponses())
+                    .metadata(metadata)
+                    .build();
+        };
+    }
+
+    /**
+     * 导出文件中的一行
+     *
+     * @param conversationId 会话ID
+     * @param type           消息类型：user / assistant / system / tool
+     * @param text           消息文本
+     * @param metadata       消息元数据
+     * @param toolCalls      助手消息的工具调用
+     * @param toolResponses  工具消息的调用结果
+     * @param createTime     消息创建时间，旧版导出文件中没有，导入时取当前时间
+     */
+    record ExportedMessage(String conversationId, String type, String text, Map<String, Object> metadata,
+                           List<AssistantMessage.ToolCall> toolCalls,
+                           List<ToolResponseMessage.ToolResponse> toolResponses, LocalDateTime createTime) {
+    }
+
+    @FunctionalInterface
+    private interface JobAction {
+        void run(MaintenanceJob job) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface SessionAction {
+        void accept(ChatSessionDO session) throws IOException;
+    }
+}
@@ -0,0 +1,697 @@
+package com.shinelon.hello.memory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 会话消息紧凑二进制编码
+ * <p>
+ * 格式：魔数、版本、会话ID、消息数，之后每条消息依次为
+ * <ol>
+ *     <li>标志字节：低 3 位为角色，另有文本为 null、文本已压缩两个标志位</li>
+ *     <li>文本：变长整数（varint）长度前缀的 UTF-8；超过压缩阈值的文本用 Deflate 压缩，压缩后更小时才采用</li>
+ *     <li>元数据：键按会话内的键表引用，常见键（如 messageType）预置在表中只占一个字节，
+ *     其余键首次出现时写出原文并加入键表；值按类型编码，字符串、整数、浮点数、布尔值直接编码，复杂对象回退为 JSON</li>
+ *     <li>助手消息的工具调用、工具消息的工具结果</li>
+ * </ol>
+ * 所有长度与数量都用 varint，短消息的额外开销只有几个字节。媒体附件不编码，记忆对话只有文本消息。
+ * 仍可解码版本 1（定长 int 长度、元数据 JSON）的旧数据
+ *
+ * @author shinelon
+ */
+public final class ChatMessageCodec {
+
+    /**
+     * 默认压缩阈值（字节），短文本压缩收益小于开销
+     */
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 512;
+
+    private static final int MAGIC = 0x43484d4d;
+    private static final byte FORMAT_VERSION = 2;
+    private static final byte FORMAT_VERSION_1 = 1;
+
+    /**
+     * Deflate 的理论最大压缩比约为 1032，解压长度超过它说明数据已损坏，避免按损坏的长度分配超大数组
+     */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    private static final int ROLE_MASK = 0x07;
+    private static final int FLAG_NULL_TEXT = 0x08;
+    private static final int FLAG_COMPRESSED = 0x10;
+
+    private static final byte ROLE_USER = 1;
+    private static final byte ROLE_ASSISTANT = 2;
+    private static final byte ROLE_SYSTEM = 3;
+    private static final byte ROLE_TOOL = 4;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_INT = 2;
+    private static final byte VALUE_LONG = 3;
+    private static final byte VALUE_DOUBLE = 4;
+    private static final byte VALUE_TRUE = 5;
+    private static final byte VALUE_FALSE = 6;
+    private static final byte VALUE_ENUM = 7;
+    private static final byte VALUE_JSON = 8;
+
+    /**
+     * 预置键表，顺序即编号，只能在末尾追加
+     */
+    private static final List<String> STATIC_KEYS = List.of(
+            "messageType", "finishReason", "id", "index", "role", "refusal", "annotations", "reasoningContent",
+            "conversationId", "timestamp", "token_count");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    private ChatMessageCodec() {
+        // 工具类禁止实例化
+    }
+
+    /**
+     * 编码一个会话，超过默认阈值的文本压缩
+     *
+     * @param conversationId 会话ID
+     * @param messages       消息列表
+     * @return 编码结果
+     */
+    public static byte[] encode(String conversationId, List<Message> messages) {
+        return encode(conversationId, messages, DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    /**
+     * 编码一个会话
+     *
+     * @param conversationId       会话ID
+     * @param messages             消息列表
+     * @param compressionThreshold 文本 UTF-8 字节数达到该值时尝试压缩，{@link Integer#MAX_VALUE} 表示不压缩
+     * @return 编码结果
+     */
+    public static byte[] encode(String conversationId, List<Message> messages, int compressionThreshold) {
+        ByteWriter out = new ByteWriter(64 + messages.size() * 64);
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        out.writeString(conversationId);
+        out.writeVarint(messages.size());
+        KeyTable keys = new KeyTable();
+        for (Message message : messages) {
+            writeMessage(out, message, keys, compressionThreshold);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码一个会话
+     *
+     * @param bytes 编码结果
+     * @return 会话
+     * @throws IOException 格式不正确
+     */
+    public static Conversation decode(byte[] bytes) throws IOException {
+        ByteReader in = new ByteReader(bytes);
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("不是会话消息编码");
+            }
+            byte version = in.readByte();
+            if (version == FORMAT_VERSION_1) {
+                return decodeVersion1(in);
+            }
+            if (version != FORMAT_VERSION) {
+                throw new IOException("不支持的编码版本: " + version);
+            }
+            String conversationId = in.readString();
+            int count = in.readCount();
+            List<Message> messages = new ArrayList<>(count);
+            List<String> keys = new ArrayList<>(STATIC_KEYS);
+            for (int i = 0; i < count; i++) {
+                messages.add(readMessage(in, keys));
+            }
+            if (in.remaining() != 0) {
+                throw new IOException("编码末尾有多余数据");
+            }
+            return new Conversation(conversationId, List.copyOf(messages));
+        } catch (RuntimeException e) {
+            throw new IOException("会话消息解码失败", e);
+        }
+    }
+
+    /**
+     * 编码单条消息，用于数据库二进制列；只有版本字节，没有魔数和会话ID
+     *
+     * @param message              消息
+     * @param compressionThreshold 压缩阈值
+     * @return 编码结果
+     */
+    public static byte[] encodeMessage(Message message, int compressionThreshold) {
+        ByteWriter out = new ByteWriter(32);
+        out.writeByte(FORMAT_VERSION);
+        writeMessage(out, message, new KeyTable(), compressionThreshold);
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码 {@link #encodeMessage} 的结果
+     *
+     * @param bytes 编码结果
+     * @return 消息
+     * @throws IOException 格式不正确
+     */
+    public static Message decodeMessage(byte[] bytes) throws IOException {
+        ByteReader in = new ByteReader(bytes);
+        try {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("不支持的编码版本: " + version);
+            }
+            Message message = readMessage(in, new ArrayList<>(STATIC_KEYS));
+            if (in.remaining() != 0) {
+                throw new IOException("编码末尾有多余数据");
+            }
+            return message;
+        } catch (RuntimeException e) {
+            throw new IOException("消息解码失败", e);
+        }
+    }
+
+    private static void writeMessage(ByteWriter out, Message message, KeyTable keys, int compressionThreshold) {
+        int flags = switch (message.getMessageType()) {
+            case USER -> ROLE_USER;
+            case ASSISTANT -> ROLE_ASSISTANT;
+            case SYSTEM -> ROLE_SYSTEM;
+            case TOOL -> ROLE_TOOL;
+        };
+        String text = message.getText();
+        byte[] raw = text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = raw != null && raw.length >= compressionThreshold ? deflate(raw) : null;
+        if (raw == null) {
+            flags |= FLAG_NULL_TEXT;
+        } else if (compressed != null) {
+            flags |= FLAG_COMPRESSED;
+        }
+        out.writeByte(flags);
+        if (compressed != null) {
+            out.writeVarint(raw.length);
+            out.writeBytes(compressed);
+        } else if (raw != null) {
+            out.writeBytes(raw);
+        }
+
+        Map<String, Object> metadata = message.getMetadata();
+        out.writeVarint(metadata.size());
+        for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+            keys.write(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+
+        if (message instanceof AssistantMessage assistant) {
+            out.writeVarint(assistant.getToolCalls().size());
+            for (AssistantMessage.ToolCall toolCall : assistant.getToolCalls()) {
+                out.writeNullableString(toolCall.id());
+                out.writeNullableString(toolCall.type());
+                out.writeNullableString(toolCall.name());
+                out.writeNullableString(toolCall.arguments());
+            }
+        } else if (message instanceof ToolResponseMessage tool) {
+            out.writeVarint(tool.getResponses().size());
+            for (ToolResponseMessage.ToolResponse response : tool.getResponses()) {
+                out.writeNullableString(response.id());
+                out.writeNullableString(response.name());
+                out.writeNullableString(response.responseData());
+            }
+        }
+    }
+
+    private static Message readMessage(ByteReader in, List<String> keys) throws IOException {
+        int flags = in.readByte() & 0xff;
+        String text = null;
+        if ((flags & FLAG_NULL_TEXT) == 0) {
+            if ((flags & FLAG_COMPRESSED) != 0) {
+                int length = in.readVarint();
+                byte[] compressed = in.readBytes();
+                if (length > (long) compressed.length * MAX_DEFLATE_RATIO) {
+                    throw new IOException("解压长度不正确: " + length);
+                }
+                text = new String(inflate(compressed, length), StandardCharsets.UTF_8);
+            } else {
+                text = in.readString();
+            }
+        }
+
+        int metadataCount = in.readCount();
+        Map<String, Object> metadata = new LinkedHashMap<>(Math.max(metadataCount * 2, 4));
+        for (int i = 0; i < metadataCount; i++) {
+            String key = readKey(in, keys);
+            metadata.put(key, readValue(in));
+        }
+
+        return switch (flags & ROLE_MASK) {
+            case ROLE_USER -> UserMessage.builder().text(text).metadata(metadata).build();
+            case ROLE_SYSTEM -> SystemMessage.builder().text(text).metadata(metadata).build();
+            case ROLE_ASSISTANT -> {
+                int count = in.readCount();
+                List<AssistantMessage.ToolCall> toolCalls = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    toolCalls.add(new AssistantMessage.ToolCall(in.readNullableString(), in.readNullableString(),
+                            in.readNullableString(), in.readNullableString()));
+                }
+                yield AssistantMessage.builder().content(text).properties(metadata).toolCalls(toolCalls).build();
+            }
+            case ROLE_TOOL -> {
+                int count = in.readCount();
+                List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    responses.add(new ToolResponseMessage.ToolResponse(in.readNullableString(),
+                            in.readNullableString(), in.readNullableString()));
+                }
+                yield ToolResponseMessage.builder().responses(responses).metadata(metadata).build();
+            }
+            default -> throw new IOException("未知的消息角色: " + (flags & ROLE_MASK));
+        };
+    }
+
+    /**
+     * 键编号：0 表示新键，原文紧随其后并加入键表；n 表示键表第 n-1 项
+     */
+    private static String readKey(ByteReader in, List<String> keys) throws IOException {
+        int reference = in.readVarint();
+        if (reference == 0) {
+            String key = in.readString();
+            keys.add(key);
+            return key;
+        }
+        if (reference > keys.size()) {
+            throw new IOException("键编号越界: " + reference);
+        }
+        return keys.get(reference - 1);
+    }
+
+    private static void writeValue(ByteWriter out, Object value) {
+        if (value == null) {
+            out.writeByte(VALUE_NULL);
+        } else if (value instanceof String string) {
+            out.writeByte(VALUE_STRING);
+            out.writeString(string);
+        } else if (value instanceof Integer number) {
+            out.writeByte(VALUE_INT);
+            out.writeVarlong(zigzag(number));
+        } else if (value instanceof Long number) {
+            out.writeByte(VALUE_LONG);
+            out.writeVarlong(zigzag(number));
+        } else if (value instanceof Double number) {
+            out.writeByte(VALUE_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(number));
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? VALUE_TRUE : VALUE_FALSE);
+        } else if (value instanceof Enum<?> constant) {
+            out.writeByte(VALUE_ENUM);
+            out.writeString(constant.name());
+        } else {
+            out.writeByte(VALUE_JSON);
+            try {
+                out.writeBytes(OBJECT_MAPPER.writeValueAsBytes(value));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("元数据无法编码: " + value.getClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * 枚举值解码为名称字符串，与 JSON 往返的结果一致
+     */
+    private static Object readValue(ByteReader in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case VALUE_NULL -> null;
+            case VALUE_STRING, VALUE_ENUM -> in.readString();
+            case VALUE_INT -> (int) unzigzag(in.readVarlong());
+            case VALUE_LONG -> unzigzag(in.readVarlong());
+            case VALUE_DOUBLE -> Double.longBitsToDouble(in.readLong());
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_JSON -> OBJECT_MAPPER.readValue(in.readBytes(), Object.class);
+            default -> throw new IOException("未知的元数据类型: " + type);
+        };
+    }
+
+    /**
+     * 版本 1：定长 int 长度前缀，元数据为 JSON
+     */
+    private static Conversation decodeVersion1(ByteReader in) throws IOException {
+        String conversationId = in.readModifiedUtf8();
+        int count = in.readInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IOException("消息数不正确: " + count);
+        }
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte role = in.readByte();
+            String text = in.readIntPrefixedString();
+            Map<String, Object> metadata = OBJECT_MAPPER.readValue(in.readIntPrefixedBytes(), METADATA_TYPE);
+            messages.add(switch (role) {
+                case ROLE_USER -> UserMessage.builder().text(text).metadata(metadata).build();
+                case ROLE_SYSTEM -> SystemMessage.builder().text(text).metadata(metadata).build();
+                case ROLE_ASSISTANT -> {
+                    int toolCallCount = in.readIntCount();
+                    List<AssistantMessage.ToolCall> toolCalls = new ArrayList<>(toolCallCount);
+                    for (int j = 0; j < toolCallCount; j++) {
+                        toolCalls.add(new AssistantMessage.ToolCall(in.readIntPrefixedString(),
+                                in.readIntPrefixedString(), in.readIntPrefixedString(), in.readIntPrefixedString()));
+                    }
+                    yield AssistantMessage.builder().content(text).properties(metadata).toolCalls(toolCalls).build();
+                }
+                case ROLE_TOOL -> {
+                    int responseCount = in.readIntCount();
+                    List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(responseCount);
+                    for (int j = 0; j < responseCount; j++) {
+                        responses.add(new ToolResponseMessage.ToolResponse(in.readIntPrefixedString(),
+                                in.readIntPrefixedString(), in.readIntPrefixedString()));
+                    }
+                    yield ToolResponseMessage.builder().responses(responses).metadata(metadata).build();
+                }
+                default -> throw new IOException("未知的消息角色: " + role);
+            });
+        }
+        return new Conversation(conversationId, List.copyOf(messages));
+    }
+
+    /**
+     * Deflate 压缩，压缩后不比原文小时返回 null
+     */
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[raw.length];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    return null;
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return length < raw.length ? Arrays.copyOf(buffer, length) : null;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int length) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(raw, read, length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IOException("解压长度不正确: " + read + " != " + length);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 编码时的键表，预置常见键
+     */
+    private static final class KeyTable {
+
+        private final Map<String, Integer> references = new HashMap<>();
+
+        private KeyTable() {
+            for (int i = 0; i < STATIC_KEYS.size(); i++) {
+                references.put(STATIC_KEYS.get(i), i + 1);
+            }
+        }
+
+        private void write(ByteWriter out, String key) {
+            Integer reference = references.get(key);
+            if (reference != null) {
+                out.writeVarint(reference);
+                return;
+            }
+            out.writeVarint(0);
+            out.writeString(key);
+            references.put(key, references.size() + 1);
+        }
+    }
+
+    /**
+     * 可增长的字节缓冲
+     */
+    private static final class ByteWriter {
+
+        private byte[] buffer;
+        private int position;
+
+        private ByteWriter(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        private void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeInt(int value) {
+            ensure(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        private void writeVarint(int value) {
+            writeVarlong(value & 0xffffffffL);
+        }
+
+        private void writeVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7fL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 长度加一编码，0 表示 null
+         */
+        private void writeNullableString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    /**
+     * 带越界检查的字节读取
+     */
+    private static final class ByteReader {
+
+        private final byte[] buffer;
+        private int position;
+
+        private ByteReader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private int remaining() {
+            return buffer.length - position;
+        }
+
+        private void require(int length) throws IOException {
+            if (length < 0 || length > remaining()) {
+                throw new IOException("长度不正确: " + length);
+            }
+        }
+
+        private byte readByte() throws IOException {
+            require(1);
+            return buffer[position++];
+        }
+
+        private int readInt() throws IOException {
+            require(4);
+            int value = ((buffer[position] & 0xff) << 24) | ((buffer[position + 1] & 0xff) << 16)
+                    | ((buffer[position + 2] & 0xff) << 8) | (buffer[position + 3] & 0xff);
+            position += 4;
+            return value;
+        }
+
+        private long readLong() throws IOException {
+            return ((long) readInt() << 32) | (readInt() & 0xffffffffL);
+        }
+
+        private int readVarint() throws IOException {
+            long value = readVarlong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("varint 超出范围: " + value);
+            }
+            return (int) value;
+        }
+
+        private long readVarlong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("varint 过长");
+        }
+
+        /**
+         * 数量不可能超过剩余字节数，防止损坏的数据触发超大分配
+         */
+        private int readCount() throws IOException {
+            int count = readVarint();
+            require(count);
+            return count;
+        }
+
+        private byte[] readBytes() throws IOException {
+            int length = readVarint();
+            require(length);
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        private String readString() throws IOException {
+            int length = readVarint();
+            require(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private String readNullableString() throws IOException {
+            int length = readVarint();
+            if (length == 0) {
+                return null;
+            }
+            require(length - 1);
+            String value = new String(buffer, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return value;
+        }
+
+        private String readModifiedUtf8() throws IOException {
+            require(2);
+            int length = ((buffer[position] & 0xff) << 8) | (buffer[position + 1] & 0xff);
+            require(2 + length);
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer, position, 2 + length))) {
+                String value = in.readUTF();
+                position += 2 + length;
+                return value;
+            }
+        }
+
+        private int readIntCount() throws IOException {
+            int count = readInt();
+            require(count);
+            return count;
+        }
+
+        private byte[] readIntPrefixedBytes() throws IOException {
+            int length = readInt();
+            require(length);
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        private String readIntPrefixedString() throws IOException {
+            int length = readInt();
+            if (length == -1) {
+                return null;
+            }
+            require(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+
+    /**
+     * 解码后的会话
+     *
+     * @param conversationId 会话ID
+     * @param messages       消息列表
+     */
+    public record Conversation(String conversationId, List<Message> messages) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.shinelon.hello.memory;
+
+/**
+ * 访问频率估计（Count-Min Sketch，4 位计数器）
+ * 每个键映射到 4 个计数器，频率取其中最小值，计数上限 15。
+ * 累计增加次数达到样本数（容量的 10 倍）时所有计数器减半，使频率随时间衰减，
+ * 过去很热但已不再访问的键不会一直占着高频率。
+ * 非线程安全，由调用方加锁
+ *
+ * @author shinelon
+ */
+class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param capacity 预计跟踪的键数量
+     */
+    FrequencySketch(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1;
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = 10 * Math.max(capacity, 16);
+    }
+
+    /**
+     * 估计频率，0-15
+     */
+    int frequency(Object key) {
+        long hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            frequency = Math.min(frequency, count(indexHash(hash, i)));
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问
+     */
+    void increment(Object key) {
+        long hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= incrementAt(indexHash(hash, i));
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 所有计数器减半
+     */
+    void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int count(long indexHash) {
+        int slot = (int) (indexHash >>> 32) & tableMask;
+        int offset = (int) (indexHash & 15) << 2;
+        return (int) ((table[slot] >>> offset) & 0xfL);
+    }
+
+    private boolean incrementAt(long indexHash) {
+        int slot = (int) (indexHash >>> 32) & tableMask;
+        int offset = (int) (indexHash & 15) << 2;
+        long mask = 0xfL << offset;
+        if ((table[slot] & mask) == mask) {
+            return false;
+        }
+        table[slot] += 1L << offset;
+        return true;
+    }
+
+    private static long indexHash(long hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        return h ^ (h >>> 29);
+    }
+
+    private static long spread(int hashCode) {
+        long h = hashCode * 0x9e3779b97f4a7c15L;
+        return h ^ (h >>> 32);
+    }
+}
@@ -0,0 +1,421 @@
+package com.shinelon.hello.memory;
+
+import com.shinelon.hello.common.constants.CommonConstants;
+import com.shinelon.hello.common.enums.ErrorCodeEnum;
+import com.shinelon.hello.common.exception.BusinessException;
+import com.shinelon.hello.config.ChatMemoryProperties;
+import com.shinelon.hello.dao.ChatMessageDao;
+import com.shinelon.hello.dao.ChatSessionDao;
+import com.shinelon.hello.model.entity.ChatMessageDO;
+import com.shinelon.hello.model.entity.ChatSessionDO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于 chat_session / chat_message 表的对话记忆存储
+ * 普通对话（ChatServiceImpl）和记忆对话（MemoryChatManager）共用这一份历史：
+ * <ul>
+ *     <li>写入：只追加新消息，数据库保留完整历史；会话不存在时自动创建，标题取首条用户消息</li>
+ *     <li>读取：每个会话只读最近 maxMessages 条（尾部），缓存在 {@link BoundedChatMemoryRepository} 中，
+ *     缓存的会话数、字节数和空闲时间都有上限，淘汰后下次读取再从数据库加载</li>
+ *     <li>消息内容默认写入文本列 content；开启 chat-memory.binary-column 时写入 content_bin 紧凑编码，
+ *     带工具调用或工具结果的消息总是写入 content_bin，结构不丢失</li>
+ * </ul>
+ * 同一会话的读写持有分段锁，数据库写入与缓存更新不会与缓存加载交错。
+ * 在外层事务中追加、替换或删除时，缓存在事务提交后（afterCommit）才更新，提交前其他线程读不到未提交的修改：
+ * <ul>
+ *     <li>会话有未提交的修改时，读取绕过缓存直接查数据库，也不写入缓存（本事务内读到自己的修改，其他线程读到已提交的数据），
+ *     提交前重新加载的旧数据不会留在缓存里</li>
+ *     <li>提交后把同一事务内追加的消息按顺序补到已缓存的尾部；事务中替换或删除过该会话、
+ *     或多个事务同时修改同一会话（无法确定提交顺序）时，改为丢弃缓存</li>
+ *     <li>回滚时丢弃该会话的缓存，下次读取从数据库重新加载</li>
+ * </ul>
+ *
+ * @author shinelon
+ */
+@Slf4j
+public class JpaChatMemoryRepository implements AppendableChatMemoryRepository {
+
+    private static final int SESSION_ID_MAX_LENGTH = 36;
+
+    private final ChatSessionDao chatSessionDao;
+    private final ChatMessageDao chatMessageDao;
+    private final TransactionTemplate transactionTemplate;
+    private final BoundedChatMemoryRepository tailCache;
+    private final StripedLocks locks;
+    private final int tailSize;
+    private final boolean binaryColumn;
+    private final int compressionThreshold;
+    private final Counter loads;
+    /**
+     * 会话ID -> 有未提交追加的事务数，在该会话的分段锁内修改
+     */
+    private final Map<String, Integer> pendingTransactions = new ConcurrentHashMap<>();
+
+    public JpaChatMemoryRepository(ChatSessionDao chatSessionDao, ChatMessageDao chatMessageDao,
+                                   PlatformTransactionManager transactionManager, ChatMemoryProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.chatSessionDao = chatSessionDao;
+        this.chatMessageDao = chatMessageDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tailCache = new BoundedChatMemoryRepository(properties, meterRegistry);
+        this.locks = new StripedLocks(properties.getLockStripes());
+        this.tailSize = properties.getMaxMessages();
+        this.binaryColumn = properties.isBinaryColumn();
+        this.compressionThreshold = (int) Math.min(properties.getCompressionThreshold().toBytes(), Integer.MAX_VALUE);
+        this.loads = Counter.builder("chat.memory.loads")
+                .description("从数据库加载会话尾部的次数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        return chatSessionDao.findAllSessionIds();
+    }
+
+    /**
+     * 会话最近 maxMessages 条消息，优先读缓存
+     */
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        validateConversationId(conversationId);
+        return locks.call(conversationId, () -> pendingTransactions.containsKey(conversationId)
+                ? Objects.requireNonNullElse(loadTail(conversationId), List.of())
+                : tailCache.findByConversationId(conversationId, this::loadTail));
+    }
+
+    @Override
+    public void append(String conversationId, List<Message> messages) {
+        appendRecords(conversationId, messages);
+    }
+
+    /**
+     * 追加消息并返回写入的记录
+     *
+     * @param conversationId 会话ID
+     * @param messages       新消息
+     * @return 写入的记录，与 messages 一一对应
+     */
+    public List<ChatMessageDO> appendRecords(String conversationId, List<Message> messages) {
+        return appendRecords(conversationId, messages, null);
+    }
+
+    /**
+     * 追加导入的消息并还原其创建时间，会话的创建、更新时间随之改为消息中最早、最晚的创建时间
+     *
+     * @param conversationId 会话ID
+     * @param messages       导入的消息
+     * @param createTimes    与 messages 一一对应的创建时间，元素为 null 时取当前时间
+     */
+    public void importMessages(String conversationId, List<Message> messages, List<LocalDateTime> createTimes) {
+        if (messages != null && messages.size() != createTimes.size()) {
+            throw new IllegalArgumentException("创建时间与消息数量不一致");
+        }
+        appendRecords(conversationId, messages, createTimes);
+    }
+
+    private List<ChatMessageDO> appendRecords(String conversationId, List<Message> messages,
+                                              List<LocalDateTime> createTimes) {
+        validateConversationId(conversationId);
+        if (messages == null || messages.isEmpty()) {
+            return List.of();
+        }
+        return locks.call(conversationId, () -> {
+            List<ChatMessageDO> saved = transactionTemplate.execute(status -> {
+                ensureSession(conversationId, messages);
+                List<ChatMessageDO> records = chatMessageDao.saveAll(
+                        messages.stream().map(m -> toRecord(conversationId, m)).toList());
+                if (createTimes != null) {
+                    restoreCreateTimes(conversationId, records, createTimes);
+                }
+                return records;
+            });
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                pendingUpdates().append(conversationId, messages);
+            } else {
+                appendToTail(conversationId, messages);
+            }
+            return saved;
+        });
+    }
+
+    /**
+     * 整体替换会话的全部消息
+     */
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        validateConversationId(conversationId);
+        if (messages == null) {
+            throw new IllegalArgumentException("消息列表不能为空");
+        }
+        locks.run(conversationId, () -> {
+            transactionTemplate.executeWithoutResult(status -> {
+                chatMessageDao.deleteBySessionId(conversationId);
+                ensureSession(conversationId, messages);
+                chatMessageDao.saveAll(messages.stream().map(m -> toRecord(conversationId, m)).toList());
+            });
+            evictTail(conversationId);
+        });
+    }
+
+    /**
+     * 删除会话及其全部消息
+     */
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        validateConversationId(conversationId);
+        locks.run(conversationId, () -> {
+            transactionTemplate.executeWithoutResult(status -> {
+                chatMessageDao.deleteBySessionId(conversationId);
+                chatSessionDao.deleteBySessionId(conversationId);
+            });
+            evictTail(conversationId);
+        });
+    }
+
+    /**
+     * 读取记录的消息文本
+     */
+    public String contentOf(ChatMessageDO record) {
+        return toMessage(record).getText();
+    }
+
+    /**
+     * 记录转换为消息，有二进制列时按紧凑编码解码，否则按角色用文本列构造
+     */
+    public Message toMessage(ChatMessageDO record) {
+        if (record.getContentBin() != null) {
+            try {
+                return ChatMessageCodec.decodeMessage(record.getContentBin());
+            } catch (IOException e) {
+                throw new BusinessException(ErrorCodeEnum.INTERNAL_ERROR, "消息内容解码失败", e);
+            }
+        }
+        String role = record.getRole();
+        if (MessageType.USER.getValue().equals(role)) {
+            return new UserMessage(record.getContent());
+        }
+        if (MessageType.SYSTEM.getValue().equals(role)) {
+            return new SystemMessage(record.getContent());
+        }
+        return new AssistantMessage(record.getContent());
+    }
+
+    /**
+     * 清理缓存中空闲超时的会话
+     *
+     * @return 清理的会话数
+     */
+    public int cleanUp() {
+        return tailCache.cleanUp();
+    }
+
+    /**
+     * 缓存的会话数
+     */
+    public int size() {
+        return tailCache.size();
+    }
+
+    /**
+     * 缓存的编码字节数
+     */
+    public long bytes() {
+        return tailCache.bytes();
+    }
+
+    /**
+     * 会话尾部是否在缓存中，不计入访问
+     */
+    public boolean isCached(String conversationId) {
+        return tailCache.contains(conversationId);
+    }
+
+    private List<Message> loadTail(String conversationId) {
+        List<ChatMessageDO> records = chatMessageDao.findBySessionIdOrderByCreateTimeDescIdDesc(conversationId,
+                PageRequest.of(0, tailSize));
+        if (records.isEmpty()) {
+            return null;
+        }
+        loads.increment();
+        List<Message> messages = new ArrayList<>(records.size());
+        for (int i = records.size() - 1; i >= 0; i--) {
+            messages.add(toMessage(records.get(i)));
+        }
+        log.debug("[ChatMemory] 会话尾部已从数据库加载, conversationId={}, 消息数={}", conversationId, messages.size());
+        return messages;
+    }
+
+    /**
+     * 插入时创建时间总是取当前时间，写入后再按原始时间修改
+     */
+    private void restoreCreateTimes(String conversationId, List<ChatMessageDO> records,
+                                    List<LocalDateTime> createTimes) {
+        boolean restored = false;
+        for (int i = 0; i < records.size(); i++) {
+            LocalDateTime createTime = createTimes.get(i);
+            if (createTime != null) {
+                chatMessageDao.updateCreateTime(records.get(i).getId(), createTime);
+                records.get(i).setCreateTime(createTime);
+                restored = true;
+            }
+        }
+        if (restored) {
+            chatSessionDao.syncTimesWithMessages(conversationId);
+        }
+    }
+
+    private ChatMessageDO toRecord(String conversationId, Message message) {
+        ChatMessageDO record = new ChatMessageDO();
+        record.setSessionId(conversationId);
+        record.setRole(message.getMessageType().getValue());
+        boolean structured = message instanceof ToolResponseMessage
+                || (message instanceof AssistantMessage assistant && assistant.hasToolCalls());
+        if (binaryColumn || structured) {
+            record.setContent("");
+            record.setContentBin(ChatMessageCodec.encodeMessage(message, compressionThreshold));
+        } else {
+            record.setContent(message.getText() == null ? "" : message.getText());
+        }
+        return record;
+    }
+
+    private void ensureSession(String conversationId, List<Message> messages) {
+        if (chatSessionDao.existsBySessionId(conversationId)) {
+            return;
+        }
+        String firstQuestion = messages.stream()
+                .filter(UserMessage.class::isInstance)
+                .map(Message::getText)
+                .findFirst()
+                .orElse(null);
+        ChatSessionDO session = new ChatSessionDO();
+        session.setSessionId(conversationId);
+        session.setTitle(title(firstQuestion));
+        chatSessionDao.save(session);
+    }
+
+    private static String title(String content) {
+        if (content == null || content.isEmpty()) {
+            return "新会话";
+        }
+        return content.length() > CommonConstants.TITLE_MAX_LENGTH
+                ? content.substring(0, CommonConstants.TITLE_MAX_LENGTH) + "..."
+                : content;
+    }
+
+    /**
+     * 把新消息补到已缓存的尾部，并保持尾部长度；未缓存的会话不加载。调用方持有该会话的锁
+     */
+    private void appendToTail(String conversationId, List<Message> messages) {
+        if (tailCache.contains(conversationId)) {
+            List<Message> tail = new ArrayList<>(tailCache.findByConversationId(conversationId));
+            tail.addAll(messages);
+            tailCache.saveAll(conversationId, tail.subList(Math.max(0, tail.size() - tailSize), tail.size()));
+        }
+    }
+
+    /**
+     * 替换或删除后丢弃缓存；在外层事务中时，提交前该会话的读取绕过缓存，事务结束时再丢弃一次。调用方持有该会话的锁
+     */
+    private void evictTail(String conversationId) {
+        tailCache.deleteByConversationId(conversationId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingUpdates().evict(conversationId);
+        }
+    }
+
+    /**
+     * 当前事务的待更新记录，首次使用时绑定到事务并注册同步回调
+     */
+    private PendingTailUpdates pendingUpdates() {
+        PendingTailUpdates updates = (PendingTailUpdates) TransactionSynchronizationManager.getResource(this);
+        if (updates == null) {
+            updates = new PendingTailUpdates();
+            TransactionSynchronizationManager.bindResource(this, updates);
+            TransactionSynchronizationManager.registerSynchronization(updates);
+        }
+        return updates;
+    }
+
+    /**
+     * 一个事务内对缓存的修改：追加的消息按会话和追加顺序记录，替换或删除过的会话只记录需要丢弃，事务结束时更新缓存。
+     * 记录时调用方持有该会话的锁
+     */
+    private class PendingTailUpdates implements TransactionSynchronization {
+
+        private final Map<String, List<Message>> messages = new LinkedHashMap<>();
+        private final Set<String> evicted = new HashSet<>();
+
+        void append(String conversationId, List<Message> appended) {
+            track(conversationId).addAll(appended);
+        }
+
+        void evict(String conversationId) {
+            track(conversationId);
+            evicted.add(conversationId);
+        }
+
+        private List<Message> track(String conversationId) {
+            if (!messages.containsKey(conversationId)) {
+                pendingTransactions.merge(conversationId, 1, Integer::sum);
+            }
+            return messages.computeIfAbsent(conversationId, id -> new ArrayList<>());
+        }
+
+        @Override
+        public void afterCommit() {
+            messages.forEach((conversationId, appended) -> locks.run(conversationId, () -> {
+                if (!evicted.contains(conversationId) && pendingTransactions.getOrDefault(conversationId, 0) == 1) {
+                    appendToTail(conversationId, appended);
+                } else {
+                    tailCache.deleteByConversationId(conversationId);
+                }
+            }));
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(JpaChatMemoryRepository.this);
+            messages.keySet().forEach(conversationId -> locks.run(conversationId, () -> {
+                if (status != STATUS_COMMITTED) {
+                    tailCache.deleteByConversationId(conversationId);
+                    log.debug("[ChatMemory] 事务未提交, 已丢弃会话缓存, conversationId={}", conversationId);
+                }
+                pendingTransactions.computeIfPresent(conversationId, (id, count) -> count == 1 ? null : count - 1);
+            }));
+        }
+    }
+
+    private static void validateConversationId(String conversationId) {
+        if (conversationId == null || conversationId.isBlank()) {
+            throw new IllegalArgumentException("会话ID不能为空");
+        }
+        if (conversationId.length() > SESSION_ID_MAX_LENGTH) {
+            throw new IllegalArgumentException("会话ID不能超过" + SESSION_ID_MAX_LENGTH + "个字符");
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.shinelon.hello.memory;
+
+import com.shinelon.hello.model.vo.MemoryJobVO;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对话记忆批量维护任务的状态与进度
+ * 计数由执行线程更新、查询线程读取，都是原子变量或 volatile 字段，查询到的是执行过程中的近似快照
+ *
+ * @author shinelon
+ */
+public final class MaintenanceJob {
+
+    /**
+     * 任务类型
+     */
+    public enum Type {
+        CLEAR, EXPORT, IMPORT
+    }
+
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        PENDING, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        boolean finished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final Type type;
+    private final String target;
+    private final LocalDateTime createTime = LocalDateTime.now();
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private final AtomicLong processedConversations = new AtomicLong();
+    private final AtomicLong processedMessages = new AtomicLong();
+    private final AtomicLong skippedConversations = new AtomicLong();
+    private final AtomicLong progressUnits = new AtomicLong();
+
+    private volatile Status status = Status.PENDING;
+    private volatile Long totalConversations;
+    private volatile long totalUnits;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+    private volatile LocalDateTime startTime;
+    private volatile LocalDateTime finishTime;
+    private volatile Future<?> future;
+
+    MaintenanceJob(String id, Type type, String target) {
+        this.id = id;
+        this.type = type;
+        this.target = target;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public Type type() {
+        return type;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    public long processedConversations() {
+        return processedConversations.get();
+    }
+
+    public long processedMessages() {
+        return processedMessages.get();
+    }
+
+    public long skippedConversations() {
+        return skippedConversations.get();
+    }
+
+    public String error() {
+        return error;
+    }
+
+    /**
+     * 进度（0-1），总量未知时为 null
+     */
+    public Double progress() {
+        if (status == Status.SUCCEEDED) {
+            return 1.0;
+        }
+        long total = totalUnits;
+        return total <= 0 ? null : Math.min(1.0, (double) progressUnits.get() / total);
+    }
+
+    public MemoryJobVO toVO() {
+        return MemoryJobVO.builder()
+                .jobId(id)
+                .type(type.name())
+                .status(status.name())
+                .target(target)
+                .totalConversations(totalConversations)
+                .processedConversations(processedConversations.get())
+                .processedMessages(processedMessages.get())
+                .skippedConversations(skippedConversations.get())
+                .progress(progress())
+                .error(error)
+                .createTime(createTime)
+                .startTime(startTime)
+                .finishTime(finishTime)
+                .build();
+    }
+
+    /**
+     * 等待任务结束
+     *
+     * @return 超时前结束返回 true
+     */
+    boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    boolean finished() {
+        return status.finished();
+    }
+
+    LocalDateTime finishTime() {
+        return finishTime;
+    }
+
+    void future(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * 请求取消：排队中的任务直接取消，执行中的任务在处理完当前会话或当前批后停止
+     *
+     * @return 任务尚未结束时返回 true
+     */
+    synchronized boolean cancel() {
+        if (status.finished()) {
+            return false;
+        }
+        cancelRequested = true;
+        if (status == Status.PENDING && future != null && future.cancel(false)) {
+            finish(Status.CANCELLED, null);
+        }
+        return true;
+    }
+
+    /**
+     * 开始执行，排队期间已被取消时标记为已取消并返回 false
+     */
+    synchronized boolean start() {
+        if (status != Status.PENDING) {
+            return false;
+        }
+        if (cancelRequested) {
+            finish(Status.CANCELLED, null);
+            return false;
+        }
+        status = Status.RUNNING;
+        startTime = LocalDateTime.now();
+        return true;
+    }
+
+    synchronized void finish(Status finalStatus, String error) {
+        if (status.finished()) {
+            return;
+        }
+        this.error = error;
+        this.finishTime = LocalDateTime.now();
+        this.status = finalStatus;
+        done.countDown();
+    }
+
+    boolean cancelRequested() {
+        return cancelRequested;
+    }
+
+    void totalConversations(long total) {
+        this.totalConversations = total;
+        this.totalUnits = total;
+    }
+
+    void totalBytes(long bytes) {
+        this.totalUnits = bytes;
+    }
+
+    void conversationProcessed() {
+        processedConversations.incrementAndGet();
+        if (type != Type.IMPORT) {
+            progressUnits.incrementAndGet();
+        }
+    }
+
+    void conversationSkipped() {
+        skippedConversations.incrementAndGet();
+    }
+
+    void messagesProcessed(int count) {
+        processedMessages.addAndGet(count);
+    }
+
+    void bytesRead(long bytes) {
+        progressUnits.addAndGet(bytes);
+    }
+}
@@ -0,0 +1,69 @@
+package com.shinelon.hello.memory;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 分段锁
+ * 按会话ID哈希到固定数量的锁上：同一会话的操作互斥，不同会话大概率落在不同的锁上并行执行。
+ * 锁的数量固定，不随会话数增长，也不需要清理
+ *
+ * @author shinelon
+ */
+public final class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * @param stripes 锁的数量，向上取整为 2 的幂
+     */
+    public StripedLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("分段数必须大于0");
+        }
+        int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 持有 key 对应的锁执行 action
+     */
+    public void run(String key, Runnable action) {
+        call(key, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 持有 key 对应的锁执行 action 并返回结果
+     */
+    public <T> T call(String key, Supplier<T> action) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 分段数
+     */
+    public int stripes() {
+        return locks.length;
+    }
+
+    ReentrantLock lockFor(String key) {
+        int hash = key.hashCode();
+        // 高位参与运算，哈希低位相同的会话ID也能分散
+        hash ^= hash >>> 16;
+        return locks[hash & mask];
+    }
+}
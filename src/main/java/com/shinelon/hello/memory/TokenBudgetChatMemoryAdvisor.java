@@ -0,0 +1,91 @@
+package com.shinelon.hello.memory;
+
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.ai.chat.client.advisor.api.BaseChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.Generation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按 token 预算注入对话记忆的 Advisor
+ * 与 MessageChatMemoryAdvisor 相同地读取历史、保存本轮问答，区别在于历史窗口按 token 预算截取：
+ * 预算取自请求上下文参数 {@link #TOKEN_BUDGET}（未指定时用默认预算），
+ * 覆盖记忆窗口与本轮提示词之和，扣除本轮提示词后剩余的部分留给历史消息，每次调用的提示词大小可预期
+ *
+ * @author shinelon
+ */
+public final class TokenBudgetChatMemoryAdvisor implements BaseChatMemoryAdvisor {
+
+    /**
+     * 请求上下文参数：本次调用的 token 预算
+     */
+    public static final String TOKEN_BUDGET = "chat_memory_token_budget";
+
+    private final TokenWindowChatMemory chatMemory;
+
+    public TokenBudgetChatMemoryAdvisor(TokenWindowChatMemory chatMemory) {
+        this.chatMemory = chatMemory;
+    }
+
+    @Override
+    public int getOrder() {
+        return Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER;
+    }
+
+    @Override
+    public ChatClientRequest before(ChatClientRequest request, AdvisorChain advisorChain) {
+        String conversationId = getConversationId(request.context(), ChatMemory.DEFAULT_CONVERSATION_ID);
+        int budget = chatMemory.tokenBudget(request.context().get(TOKEN_BUDGET) instanceof Number requested
+                ? requested.intValue()
+                : null);
+        List<Message> instructions = request.prompt().getInstructions();
+        int historyBudget = Math.max(0, budget - chatMemory.tokens(instructions));
+
+        List<Message> messages = new ArrayList<>(chatMemory.get(conversationId, historyBudget));
+        messages.addAll(instructions);
+        ChatClientRequest processed = request.mutate()
+                .prompt(request.prompt().mutate().messages(messages).build())
+                .build();
+
+        UserMessage userMessage = processed.prompt().getUserMessage();
+        chatMemory.add(conversationId, userMessage);
+        return processed;
+    }
+
+    @Override
+    public ChatClientResponse after(ChatClientResponse response, AdvisorChain advisorChain) {
+        List<Message> assistantMessages = new ArrayList<>();
+        if (response.chatResponse() != null) {
+            for (Generation generation : response.chatResponse().getResults()) {
+                assistantMessages.add(generation.getOutput());
+            }
+        }
+        chatMemory.add(getConversationId(response.context(), ChatMemory.DEFAULT_CONVERSATION_ID), assistantMessages);
+        return response;
+    }
+
+    /**
+     * 流式响应聚合完整后再保存助手回复
+     */
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain streamAdvisorChain) {
+        return Mono.just(request)
+                .publishOn(BaseAdvisor.DEFAULT_SCHEDULER)
+                .map(r -> before(r, streamAdvisorChain))
+                .flatMapMany(streamAdvisorChain::nextStream)
+                .transform(flux -> new ChatClientMessageAggregator()
+                        .aggregateChatClientResponse(flux, response -> after(response, streamAdvisorChain)));
+    }
+}
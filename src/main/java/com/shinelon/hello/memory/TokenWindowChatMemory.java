@@ -0,0 +1,343 @@
+package com.shinelon.hello.memory;
+
+import com.shinelon.hello.common.cache.LruTtlCache;
+import com.shinelon.hello.config.ChatMemoryProperties;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按 token 预算截取的对话记忆
+ * 替代固定条数的 MessageWindowChatMemory，提示词大小由 token 预算决定而不是消息条数：
+ * <ul>
+ *     <li>存储：每个会话最多保存 maxTokenBudget 个 token、maxMessages 条消息，超出时丢弃最早的消息；
+ *     追加式存储（{@link AppendableChatMemoryRepository}）只追加新消息，历史由存储保留</li>
+ *     <li>读取：按 token 预算从最新的消息往前取，最新的系统消息始终保留；
+ *     窗口从用户消息开始，不会以孤立的助手回复或工具结果开头</li>
+ *     <li>开启摘要时，超出预算的较早消息压缩为一条系统消息（每轮提问的开头），占用预算中的 summaryTokens</li>
+ * </ul>
+ * 每条消息的 token 数按消息内容的指纹缓存在本对象中（不修改消息本身），相同内容的消息之后不再重复计算。
+ * <p>
+ * 追加是"读取-合并-保存"的复合操作，按会话ID持有分段锁执行：同一会话的并发追加依次生效不会丢消息，
+ * 不同会话落在不同的锁上并行执行。读取只有一次存储读，不加锁
+ *
+ * @author shinelon
+ */
+public class TokenWindowChatMemory implements ChatMemory {
+
+    /**
+     * 每条消息在文本之外的开销（角色标记、分隔符）
+     */
+    static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private static final String SUMMARY_HEADER = "以下是更早对话中用户的提问要点：";
+    private static final int SUMMARY_LINE_MAX_LENGTH = 60;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ChatMemoryRepository repository;
+    private final TokenCountEstimator estimator;
+    private final int defaultTokenBudget;
+    private final int maxTokenBudget;
+    private final int maxMessages;
+    private final boolean summarize;
+    private final int summaryTokens;
+    private final StripedLocks locks;
+    private final LruTtlCache<Long, Integer> tokenCache;
+
+    public TokenWindowChatMemory(ChatMemoryRepository repository, ChatMemoryProperties properties) {
+        this(repository, properties, new JTokkitTokenCountEstimator());
+    }
+
+    /**
+     * @param estimator token 计数器，测试时可替换
+     */
+    public TokenWindowChatMemory(ChatMemoryRepository repository, ChatMemoryProperties properties,
+                                 TokenCountEstimator estimator) {
+        if (properties.getMaxMessages() <= 0) {
+            throw new IllegalArgumentException("最大消息数必须大于0");
+        }
+        if (properties.getTokenBudget() <= 0 || properties.getTokenBudget() > properties.getMaxTokenBudget()) {
+            throw new IllegalArgumentException("默认 token 预算必须在 1 与 maxTokenBudget 之间");
+        }
+        if (properties.isSummarize()
+                && (properties.getSummaryTokens() < 0 || properties.getSummaryTokens() >= properties.getTokenBudget())) {
+            throw new IllegalArgumentException("摘要 token 数必须小于默认 token 预算");
+        }
+        this.repository = repository;
+        this.estimator = estimator;
+        this.defaultTokenBudget = properties.getTokenBudget();
+        this.maxTokenBudget = properties.getMaxTokenBudget();
+        this.maxMessages = properties.getMaxMessages();
+        this.summarize = properties.isSummarize();
+        this.summaryTokens = properties.getSummaryTokens();
+        this.locks = new StripedLocks(properties.getLockStripes());
+        this.tokenCache = new LruTtlCache<>(properties.getTokenCacheSize(), properties.getIdleTtl());
+    }
+
+    /**
+     * 追加消息；新消息中有系统消息时替换已保存的系统消息。
+     * 追加式存储直接追加（保留完整历史，由存储自己控制读取的尾部长度），读取窗口时只保留最后一条系统消息
+     */
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        validateConversationId(conversationId);
+        if (messages == null) {
+            throw new IllegalArgumentException("消息列表不能为空");
+        }
+        // 新消息的 token 数在锁外计算
+        tokens(messages);
+        if (repository instanceof AppendableChatMemoryRepository appendable) {
+            appendable.append(conversationId, messages);
+            return;
+        }
+        boolean replaceSystem = messages.stream().anyMatch(SystemMessage.class::isInstance);
+        locks.run(conversationId, () -> {
+            List<Message> merged = new ArrayList<>();
+            for (Message message : repository.findByConversationId(conversationId)) {
+                if (!(replaceSystem && message instanceof SystemMessage)) {
+                    merged.add(message);
+                }
+            }
+            merged.addAll(messages);
+            repository.saveAll(conversationId, select(merged, maxTokenBudget, maxMessages).kept());
+        });
+    }
+
+    /**
+     * 按默认预算读取
+     */
+    @Override
+    public List<Message> get(String conversationId) {
+        return get(conversationId, defaultTokenBudget);
+    }
+
+    /**
+     * 按指定预算读取
+     *
+     * @param conversationId 会话ID
+     * @param tokenBudget    token 预算，可以为 0（只保留系统消息）
+     * @return 不超过预算的消息窗口
+     */
+    public List<Message> get(String conversationId, int tokenBudget) {
+        validateConversationId(conversationId);
+        if (tokenBudget < 0) {
+            throw new IllegalArgumentException("token 预算不能为负数");
+        }
+        return window(repository.findByConversationId(conversationId), tokenBudget);
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        validateConversationId(conversationId);
+        locks.run(conversationId, () -> repository.deleteByConversationId(conversationId));
+    }
+
+    /**
+     * 解析请求指定的预算，未指定时用默认值；开启摘要时预算必须大于摘要预留
+     *
+     * @param requested 请求指定的预算
+     * @return 生效的预算
+     */
+    public int tokenBudget(Integer requested) {
+        if (requested == null) {
+            return defaultTokenBudget;
+        }
+        int min = summarize ? summaryTokens + 1 : 1;
+        if (requested < min || requested > maxTokenBudget) {
+            throw new IllegalArgumentException("token 预算必须在 " + min + " 与 " + maxTokenBudget + " 之间");
+        }
+        return requested;
+    }
+
+    /**
+     * 消息的 token 数，按消息内容的指纹读取缓存，没有时计算并写入缓存
+     */
+    public int tokens(Message message) {
+        long fingerprint = fingerprint(message);
+        Integer cached = tokenCache.get(fingerprint);
+        if (cached != null) {
+            return cached;
+        }
+        int tokens = MESSAGE_OVERHEAD_TOKENS + estimate(message.getText());
+        if (message instanceof AssistantMessage assistant) {
+            for (AssistantMessage.ToolCall toolCall : assistant.getToolCalls()) {
+                tokens += estimate(toolCall.name()) + estimate(toolCall.arguments());
+            }
+        } else if (message instanceof ToolResponseMessage tool) {
+            for (ToolResponseMessage.ToolResponse response : tool.getResponses()) {
+                tokens += estimate(response.name()) + estimate(response.responseData());
+            }
+        }
+        tokenCache.put(fingerprint, tokens);
+        return tokens;
+    }
+
+    public int tokens(List<Message> messages) {
+        int tokens = 0;
+        for (Message message : messages) {
+            tokens += tokens(message);
+        }
+        return tokens;
+    }
+
+    /**
+     * 读取窗口：先不留摘要空间试截，确有消息被丢弃时再预留摘要空间重截
+     */
+    List<Message> window(List<Message> messages, int tokenBudget) {
+        Selection full = select(messages, tokenBudget, Integer.MAX_VALUE);
+        if (!summarize || full.dropped().isEmpty() || summaryTokens == 0) {
+            return full.kept();
+        }
+        Selection selection = select(messages, Math.max(0, tokenBudget - summaryTokens), Integer.MAX_VALUE);
+        SystemMessage summary = summary(selection.dropped());
+        if (summary == null) {
+            return full.kept();
+        }
+        List<Message> result = new ArrayList<>(selection.kept().size() + 1);
+        int insertAt = 0;
+        while (insertAt < selection.kept().size() && selection.kept().get(insertAt) instanceof SystemMessage) {
+            insertAt++;
+        }
+        result.addAll(selection.kept().subList(0, insertAt));
+        result.add(summary);
+        result.addAll(selection.kept().subList(insertAt, selection.kept().size()));
+        return result;
+    }
+
+    /**
+     * 最后一条系统消息始终保留并先计入预算（更早的系统消息已被替换），其余消息从最新往前取，直到超出预算或条数；
+     * 起点再向后移到第一条用户消息，保证窗口以完整的一轮对话开始
+     */
+    private Selection select(List<Message> messages, int tokenBudget, int maxCount) {
+        int lastSystem = -1;
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i) instanceof SystemMessage) {
+                lastSystem = i;
+            }
+        }
+        int used = lastSystem < 0 ? 0 : tokens(messages.get(lastSystem));
+        int start = messages.size();
+        int count = 0;
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            Message message = messages.get(i);
+            if (message instanceof SystemMessage) {
+                continue;
+            }
+            int tokens = tokens(message);
+            if (used + tokens > tokenBudget || count >= maxCount) {
+                break;
+            }
+            used += tokens;
+            count++;
+            start = i;
+        }
+        boolean truncated = false;
+        for (int i = 0; i < start; i++) {
+            if (!(messages.get(i) instanceof SystemMessage)) {
+                truncated = true;
+                break;
+            }
+        }
+        if (truncated) {
+            while (start < messages.size() && !(messages.get(start) instanceof UserMessage)) {
+                start++;
+            }
+        }
+
+        List<Message> kept = new ArrayList<>();
+        List<Message> dropped = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (message instanceof SystemMessage ? i == lastSystem : i >= start) {
+                kept.add(message);
+            } else {
+                dropped.add(message);
+            }
+        }
+        return new Selection(kept, dropped);
+    }
+
+    /**
+     * 抽取式摘要：每轮用户提问的开头，从最近的往前加入，直到用完摘要预算
+     */
+    private SystemMessage summary(List<Message> dropped) {
+        int used = MESSAGE_OVERHEAD_TOKENS + estimate(SUMMARY_HEADER);
+        List<String> lines = new ArrayList<>();
+        for (int i = dropped.size() - 1; i >= 0; i--) {
+            if (!(dropped.get(i) instanceof UserMessage user) || user.getText() == null || user.getText().isBlank()) {
+                continue;
+            }
+            String text = user.getText().strip().replaceAll("\\s+", " ");
+            String line = "- " + (text.length() > SUMMARY_LINE_MAX_LENGTH
+                    ? text.substring(0, SUMMARY_LINE_MAX_LENGTH) + "..."
+                    : text);
+            int tokens = estimate(line) + 1;
+            if (used + tokens > summaryTokens) {
+                break;
+            }
+            used += tokens;
+            lines.add(0, line);
+        }
+        if (lines.isEmpty()) {
+            return null;
+        }
+        return new SystemMessage(SUMMARY_HEADER + "\n" + String.join("\n", lines));
+    }
+
+    /**
+     * 参与计数的内容（文本、工具调用和工具结果的名称与内容）的 64 位 FNV-1a 指纹，
+     * 每段之后混入长度，不同的分段方式不会得到相同的指纹
+     */
+    private static long fingerprint(Message message) {
+        long hash = fingerprint(FNV_OFFSET_BASIS, message.getText());
+        if (message instanceof AssistantMessage assistant) {
+            for (AssistantMessage.ToolCall toolCall : assistant.getToolCalls()) {
+                hash = fingerprint(fingerprint(hash, toolCall.name()), toolCall.arguments());
+            }
+        } else if (message instanceof ToolResponseMessage tool) {
+            for (ToolResponseMessage.ToolResponse response : tool.getResponses()) {
+                hash = fingerprint(fingerprint(hash, response.name()), response.responseData());
+            }
+        }
+        return hash;
+    }
+
+    private static long fingerprint(long hash, String part) {
+        if (part == null) {
+            return (hash ^ -1L) * FNV_PRIME;
+        }
+        for (int i = 0; i < part.length(); i++) {
+            hash = (hash ^ part.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ part.length()) * FNV_PRIME;
+    }
+
+    private int estimate(String text) {
+        return text == null || text.isEmpty() ? 0 : estimator.estimate(text);
+    }
+
+    private static void validateConversationId(String conversationId) {
+        if (conversationId == null || conversationId.isBlank()) {
+            throw new IllegalArgumentException("会话ID不能为空");
+        }
+    }
+
+    /**
+     * 截取结果
+     *
+     * @param kept    保留的消息，保持原顺序
+     * @param dropped 被丢弃的较早消息
+     */
+    private record Selection(List<Message> kept, List<Message> dropped) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.shinelon.hello.model.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
@@ -20,6 +21,7 @@ public class MemoryChatRequestDTO implements Serializable {
      * 会话ID（必填，用于标识对话上下文）
      */
     @NotBlank(message = "会话ID不能为空")
+    @Size(max = 36, message = "会话ID不能超过36个字符")
     private String conversationId;
 
     /**
@@ -28,4 +30,10 @@ public class MemoryChatRequestDTO implements Serializable {
     @NotBlank(message = "消息内容不能为空")
     @Size(max = 4000, message = "消息内容不能超过4000字符")
     private String content;
+
+    /**
+     * 记忆窗口与本轮提示词的 token 预算（可选，默认取 chat-memory.token-budget，上限为 chat-memory.max-token-budget）
+     */
+    @Positive(message = "token预算必须大于0")
+    private Integer tokenBudget;
 }
@@ -0,0 +1,31 @@
+package com.shinelon.hello.model.dto;
+
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 对话记忆批量清理请求 DTO
+ * 两个条件至少指定一个，同时指定时需同时满足
+ *
+ * @author shinelon
+ */
+@Data
+public class MemoryClearRequestDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 会话ID前缀（可选）
+     */
+    @Size(min = 1, max = 36, message = "会话ID前缀长度为1-36个字符")
+    private String prefix;
+
+    /**
+     * 空闲时间（分钟，可选）：会话超过该时间没有新消息才清理
+     */
+    @Positive(message = "空闲时间必须大于0")
+    private Long idleMinutes;
+}
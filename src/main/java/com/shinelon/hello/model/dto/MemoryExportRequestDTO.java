@@ -0,0 +1,30 @@
+package com.shinelon.hello.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 对话记忆导出请求 DTO
+ *
+ * @author shinelon
+ */
+@Data
+public class MemoryExportRequestDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 导出文件路径（NDJSON，每行一条消息），相对 chat-memory.admin.dir 解析，已存在时覆盖
+     */
+    @NotBlank(message = "导出路径不能为空")
+    private String path;
+
+    /**
+     * 只导出该前缀的会话（可选）
+     */
+    @Size(min = 1, max = 36, message = "会话ID前缀长度为1-36个字符")
+    private String prefix;
+}
@@ -0,0 +1,28 @@
+package com.shinelon.hello.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 对话记忆导入请求 DTO
+ *
+ * @author shinelon
+ */
+@Data
+public class MemoryImportRequestDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 导入文件路径（导出生成的 NDJSON），相对 chat-memory.admin.dir 解析
+     */
+    @NotBlank(message = "导入路径不能为空")
+    private String path;
+
+    /**
+     * 会话已存在时是否覆盖，默认跳过已存在的会话
+     */
+    private Boolean overwrite = false;
+}
@@ -1,6 +1,7 @@
 package com.shinelon.hello.model.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
@@ -22,4 +23,16 @@ public class RagChatRequestDTO implements Serializable {
     @NotBlank(message = "查询内容不能为空")
     @Size(max = 2000, message = "查询内容不能超过2000字符")
     private String query;
+
+    /**
+     * 文档分类（可选），指定后只在该分类的文档中检索
+     */
+    @Pattern(regexp = "^[\\w\\u4e00-\\u9fa5-]{1,64}$", message = "文档分类格式不正确")
+    private String category;
+
+    /**
+     * 知识库命名空间（可选），为空时使用默认知识库；不存在时返回 404，对话不会创建命名空间
+     */
+    @Pattern(regexp = "^[a-z0-9][a-z0-9_-]{0,63}$", message = "命名空间格式不正确")
+    private String namespace;
 }
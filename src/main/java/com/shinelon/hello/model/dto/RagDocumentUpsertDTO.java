@@ -0,0 +1,37 @@
+package com.shinelon.hello.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RAG 文档新增/更新请求 DTO
+ *
+ * @author shinelon
+ */
+@Data
+public class RagDocumentUpsertDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 文档内容
+     */
+    @NotBlank(message = "文档内容不能为空")
+    private String content;
+
+    /**
+     * 文档元数据（如 category）
+     */
+    private Map<String, Object> metadata = new HashMap<>();
+
+    /**
+     * 知识库命名空间（可选），为空时写入默认知识库，不存在时创建
+     */
+    @Pattern(regexp = "^[a-z0-9][a-z0-9_-]{0,63}$", message = "命名空间格式不正确")
+    private String namespace;
+}
@@ -0,0 +1,35 @@
+package com.shinelon.hello.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * RAG 文档摄取请求 DTO
+ *
+ * @author shinelon
+ */
+@Data
+public class RagIngestRequestDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 文件或目录路径，相对 rag.ingestion.root-dir 解析，不能位于该目录之外
+     */
+    @NotBlank(message = "摄取路径不能为空")
+    private String path;
+
+    /**
+     * 是否从上次断点继续，默认继续
+     */
+    private Boolean resume = true;
+
+    /**
+     * 知识库命名空间（可选），为空时写入默认知识库，不存在时创建
+     */
+    @Pattern(regexp = "^[a-z0-9][a-z0-9_-]{0,63}$", message = "命名空间格式不正确")
+    private String namespace;
+}
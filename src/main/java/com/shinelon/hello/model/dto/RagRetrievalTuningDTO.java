@@ -0,0 +1,51 @@
+package com.shinelon.hello.model.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * RAG 检索参数覆盖请求 DTO
+ * 未填写的字段沿用端点当前生效的参数
+ *
+ * @author shinelon
+ */
+@Data
+public class RagRetrievalTuningDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 是否按得分断崖自适应截取
+     */
+    private Boolean adaptive;
+
+    /**
+     * 最少保留的文档数
+     */
+    @Min(value = 1, message = "minK 不能小于1")
+    private Integer minK;
+
+    /**
+     * 最多保留的文档数
+     */
+    @Min(value = 1, message = "maxK 不能小于1")
+    private Integer maxK;
+
+    /**
+     * 向量检索的相似度阈值
+     */
+    @DecimalMin(value = "0.0", message = "相似度阈值不能小于0")
+    @DecimalMax(value = "1.0", message = "相似度阈值不能大于1")
+    private Double similarityThreshold;
+
+    /**
+     * 得分断崖比例
+     */
+    @DecimalMin(value = "0.0", message = "断崖比例不能小于0")
+    @DecimalMax(value = "1.0", message = "断崖比例不能大于1")
+    private Double cliffRatio;
+}
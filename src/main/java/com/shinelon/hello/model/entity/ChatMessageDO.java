@@ -39,12 +39,19 @@ public class ChatMessageDO {
     private String role;
 
     /**
-     * 消息内容
+     * 消息内容，写入二进制列时为空字符串
      */
     @Lob
     @Column(nullable = false)
     private String content;
 
+    /**
+     * 消息内容的紧凑二进制编码（ChatMessageCodec），开启 chat-memory.binary-column 时写入
+     */
+    @Lob
+    @Column(name = "content_bin")
+    private byte[] contentBin;
+
     /**
      * 创建时间
      */
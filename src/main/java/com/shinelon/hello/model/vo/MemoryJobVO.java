@@ -0,0 +1,88 @@
+package com.shinelon.hello.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 对话记忆批量维护任务 VO
+ *
+ * @author shinelon
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemoryJobVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 任务类型：CLEAR / EXPORT / IMPORT
+     */
+    private String type;
+
+    /**
+     * 任务状态：PENDING / RUNNING / SUCCEEDED / FAILED / CANCELLED
+     */
+    private String status;
+
+    /**
+     * 任务对象：清理条件或导出、导入的文件路径
+     */
+    private String target;
+
+    /**
+     * 待处理的会话总数（导入时未知，为空）
+     */
+    private Long totalConversations;
+
+    /**
+     * 已处理的会话数
+     */
+    private Long processedConversations;
+
+    /**
+     * 已处理的消息数（清理任务不统计）
+     */
+    private Long processedMessages;
+
+    /**
+     * 导入时因会话已存在而跳过的会话数
+     */
+    private Long skippedConversations;
+
+    /**
+     * 进度（0-1），导入任务按已读取的文件字节数计算
+     */
+    private Double progress;
+
+    /**
+     * 失败原因
+     */
+    private String error;
+
+    /**
+     * 提交时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 开始执行时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime finishTime;
+}
@@ -11,6 +11,9 @@ import java.util.List;
 
 /**
  * RAG 对话响应 VO
+ * <p>
+ * 流式接口的第一个事件是来源事件：只携带检索到的文档（编号、分块ID、得分）、来源与创建时间，不含回复内容；
+ * 之后的内容事件携带回复分片及该分片中解析出的引用编号；同一次流式响应的所有事件创建时间相同
  *
  * @author shinelon
  */
@@ -38,7 +41,17 @@ public class RagChatVO implements Serializable {
     private List<String> sources;
 
     /**
-     * 创建时间
+     * 检索到的上下文文档，仅来源事件携带
+     */
+    private List<RagSourceVO> documents;
+
+    /**
+     * 当前分片中引用的文档编号，对应 documents 中的 index
+     */
+    private List<Integer> citations;
+
+    /**
+     * 创建时间，流式响应中每个事件都携带，取来源事件生成的时间
      */
     private LocalDateTime createTime;
 }
@@ -0,0 +1,48 @@
+package com.shinelon.hello.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * RAG 知识库文档来源 VO
+ *
+ * @author shinelon
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RagDocumentSourceVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 文档ID（即 source）
+     */
+    private String documentId;
+
+    /**
+     * 分块数
+     */
+    private Integer chunkCount;
+
+    /**
+     * 分块文本总字节数（UTF-8）
+     */
+    private Long bytes;
+
+    /**
+     * 嵌入模型版本
+     */
+    private String embeddingVersion;
+
+    /**
+     * 最近索引时间
+     */
+    private LocalDateTime lastIndexedTime;
+}
@@ -0,0 +1,72 @@
+package com.shinelon.hello.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * RAG 文档摄取报告 VO
+ *
+ * @author shinelon
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RagIngestReportVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 摄取来源（文件/目录路径）
+     */
+    private String source;
+
+    /**
+     * 成功摄取的文档数
+     */
+    private Integer documentCount;
+
+    /**
+     * 因断点或内容未变跳过的文档数
+     */
+    private Integer skippedCount;
+
+    /**
+     * 失败的文档数
+     */
+    private Integer failedCount;
+
+    /**
+     * 写入的分块数
+     */
+    private Integer chunkCount;
+
+    /**
+     * 内容未变、复用已有向量的分块数
+     */
+    private Integer reusedChunkCount;
+
+    /**
+     * 写入的 token 数
+     */
+    private Long tokenCount;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private Long elapsedMillis;
+
+    /**
+     * 吞吐量：文档/秒
+     */
+    private Double docsPerSecond;
+
+    /**
+     * 吞吐量：token/秒
+     */
+    private Double tokensPerSecond;
+}
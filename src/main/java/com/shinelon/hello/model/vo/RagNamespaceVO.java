@@ -0,0 +1,62 @@
+package com.shinelon.hello.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * RAG 知识库命名空间 VO
+ *
+ * @author shinelon
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RagNamespaceVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 命名空间名称
+     */
+    private String name;
+
+    /**
+     * 是否常驻内存
+     */
+    private Boolean resident;
+
+    /**
+     * 分块数，未加载时为空
+     */
+    private Integer chunkCount;
+
+    /**
+     * 文档数，未加载时为空
+     */
+    private Integer documentCount;
+
+    /**
+     * 文档分块文本总字节数（UTF-8），未加载时为空
+     */
+    private Long sourceBytes;
+
+    /**
+     * 估算的内存占用（字节），未加载时为空
+     */
+    private Long memoryBytes;
+
+    /**
+     * 内存配额（字节），默认命名空间不限额时为空
+     */
+    private Long quotaBytes;
+
+    /**
+     * 磁盘快照大小（字节），尚未落盘时为空
+     */
+    private Long diskBytes;
+}
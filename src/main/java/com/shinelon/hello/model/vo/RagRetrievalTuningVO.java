@@ -0,0 +1,77 @@
+package com.shinelon.hello.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * RAG 检索端点参数与得分统计 VO
+ *
+ * @author shinelon
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RagRetrievalTuningVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 端点：simple / advanced / pipeline
+     */
+    private String endpoint;
+
+    /**
+     * 是否被运行时覆盖
+     */
+    private Boolean overridden;
+
+    /**
+     * 是否按得分断崖自适应截取
+     */
+    private Boolean adaptive;
+
+    /**
+     * 最少保留的文档数
+     */
+    private Integer minK;
+
+    /**
+     * 最多保留的文档数
+     */
+    private Integer maxK;
+
+    /**
+     * 向量检索的相似度阈值
+     */
+    private Double similarityThreshold;
+
+    /**
+     * 得分断崖比例
+     */
+    private Double cliffRatio;
+
+    /**
+     * 累计查询次数
+     */
+    private Long queryCount;
+
+    /**
+     * 平均保留的文档数
+     */
+    private Double meanSelected;
+
+    /**
+     * 平均最高得分
+     */
+    private Double meanTopScore;
+
+    /**
+     * 因得分断崖提前截断的次数
+     */
+    private Long cliffCount;
+}
@@ -0,0 +1,52 @@
+package com.shinelon.hello.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * RAG 向量索引快照 VO
+ *
+ * @author shinelon
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RagSnapshotVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 快照文件路径
+     */
+    private String path;
+
+    /**
+     * 嵌入模型指纹
+     */
+    private String fingerprint;
+
+    /**
+     * 分块数
+     */
+    private Integer chunkCount;
+
+    /**
+     * 文档数
+     */
+    private Integer documentCount;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long sizeBytes;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private Long elapsedMillis;
+}
@@ -0,0 +1,42 @@
+package com.shinelon.hello.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * RAG 检索到的上下文文档 VO
+ *
+ * @author shinelon
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RagSourceVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 引用编号（从1开始），与回答中的 [n] 标记对应
+     */
+    private Integer index;
+
+    /**
+     * 分块ID
+     */
+    private String documentId;
+
+    /**
+     * 文档来源
+     */
+    private String source;
+
+    /**
+     * 检索得分
+     */
+    private Double score;
+}
@@ -0,0 +1,56 @@
+package com.shinelon.hello.rag.generation;
+
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.generation.augmentation.ContextualQueryAugmenter;
+import org.springframework.ai.rag.generation.augmentation.QueryAugmenter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 带引用编号的上下文增强
+ * 上下文中每段资料以 [n] 开头（n 从1开始，与来源事件中的文档编号一致），
+ * 并要求模型在引用资料的句子末尾标注编号，供 {@link StreamingCitationResolver} 在流式输出时解析
+ *
+ * @author shinelon
+ */
+public final class CitationPrompt {
+
+    private static final PromptTemplate PROMPT_TEMPLATE = new PromptTemplate("""
+            以下是上下文信息，每段资料以 [编号] 开头。
+            ---------------------
+            {context}
+            ---------------------
+            请仅根据上下文信息回答问题，不要使用先验知识。
+            引用某段资料时，在相应句子末尾标注资料编号，例如 [1]；引用多段资料时写作 [1][2]。
+            如果上下文中没有答案，请直接说明无法回答。
+
+            问题: {query}
+            回答:
+            """);
+
+    private CitationPrompt() {
+        // 工具类禁止实例化
+    }
+
+    /**
+     * 带引用编号的查询增强器
+     */
+    public static QueryAugmenter augmenter() {
+        return ContextualQueryAugmenter.builder()
+                .promptTemplate(PROMPT_TEMPLATE)
+                .documentFormatter(CitationPrompt::format)
+                .build();
+    }
+
+    /**
+     * 按检索顺序给资料编号
+     */
+    static String format(List<Document> documents) {
+        return IntStream.range(0, documents.size())
+                .mapToObj(i -> "[" + (i + 1) + "] " + documents.get(i).getText())
+                .collect(Collectors.joining("\n\n"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.shinelon.hello.rag.generation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 流式引用解析器
+ * 随 token 流逐个分片解析回答中的 [n] 引用标记，n 为来源事件中的文档编号（从1开始），超出范围的编号忽略。
+ * 标记可能被拆到相邻分片中（如 "[" 与 "2]"），分片末尾可能是未闭合标记的部分先暂存，
+ * 与下一个分片拼接后再解析；每段文本只扫描一次，不需要缓冲整段回答。
+ * <p>
+ * 每个流使用一个实例，非线程安全
+ *
+ * @author shinelon
+ */
+public class StreamingCitationResolver {
+
+    private static final int MAX_DIGITS = 3;
+    private static final Pattern MARKER = Pattern.compile("\\[(\\d{1," + MAX_DIGITS + "})]");
+
+    private final int documentCount;
+    private final StringBuilder pending = new StringBuilder();
+
+    /**
+     * @param documentCount 上下文文档数
+     */
+    public StreamingCitationResolver(int documentCount) {
+        this.documentCount = documentCount;
+    }
+
+    /**
+     * 接收一个分片
+     *
+     * @param chunk 模型输出的分片
+     * @return 可以立即输出的文本及其中已闭合的引用
+     */
+    public Segment accept(String chunk) {
+        pending.append(chunk);
+        int holdFrom = partialMarkerStart(pending);
+        String ready = pending.substring(0, holdFrom);
+        pending.delete(0, holdFrom);
+        return new Segment(ready, citations(ready));
+    }
+
+    /**
+     * 流结束时输出暂存的文本，未闭合的标记按普通文本处理
+     */
+    public Segment flush() {
+        String rest = pending.toString();
+        pending.setLength(0);
+        return new Segment(rest, List.of());
+    }
+
+    /**
+     * 末尾可能是未闭合标记（"[" 后只有不超过 MAX_DIGITS 位数字）时返回其起始位置，否则返回文本长度
+     */
+    private static int partialMarkerStart(CharSequence text) {
+        int open = text.length() - 1;
+        while (open >= 0 && text.length() - 1 - open <= MAX_DIGITS && Character.isDigit(text.charAt(open))) {
+            open--;
+        }
+        boolean partial = open >= 0 && text.charAt(open) == '[' && text.length() - 1 - open <= MAX_DIGITS;
+        return partial ? open : text.length();
+    }
+
+    private List<Integer> citations(String text) {
+        if (text.indexOf('[') < 0) {
+            return List.of();
+        }
+        List<Integer> citations = new ArrayList<>();
+        Matcher matcher = MARKER.matcher(text);
+        while (matcher.find()) {
+            int index = Integer.parseInt(matcher.group(1));
+            if (index >= 1 && index <= documentCount && !citations.contains(index)) {
+                citations.add(index);
+            }
+        }
+        return citations;
+    }
+
+    /**
+     * 可输出的文本片段
+     *
+     * @param text      文本，可能为空
+     * @param citations 片段中引用的文档编号，按出现顺序去重
+     */
+    public record Segment(String text, List<Integer> citations) {
+
+        public boolean isEmpty() {
+            return text.isEmpty() && citations.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.shinelon.hello.rag.ingest;
+
+import com.shinelon.hello.rag.postretrieval.SimHash;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分块统计信息
+ * 摄取时计算一次并写入分块元数据：整块 token 数、SimHash 指纹、句子结束位置及每句 token 数。
+ * 检索后的 token 预算、去重和按句截断直接读取元数据，每个分块 O(1)，不需要在查询时重新分词、计数。
+ * <p>
+ * 元数据缺失或与文本不一致（如旧快照中的分块、被改写过文本的分块）时回退为现场计算
+ *
+ * @author shinelon
+ */
+public final class ChunkStatistics {
+
+    public static final String METADATA_TOKEN_COUNT = "token_count";
+    public static final String METADATA_SIMHASH = "simhash";
+    public static final String METADATA_SENTENCE_ENDS = "sentence_ends";
+    public static final String METADATA_SENTENCE_TOKENS = "sentence_tokens";
+
+    /**
+     * 句子结束符，结束符归属前一句
+     */
+    private static final String SENTENCE_TERMINATORS = "。！？!?；;\n";
+
+    private ChunkStatistics() {
+        // 工具类禁止实例化
+    }
+
+    /**
+     * 计算分块统计元数据
+     *
+     * @param text      分块文本
+     * @param estimator token 计数器
+     * @return 统计元数据
+     */
+    public static Map<String, Object> compute(String text, TokenCountEstimator estimator) {
+        List<Integer> ends = sentenceEnds(text);
+        List<Integer> sentenceTokens = new ArrayList<>(ends.size());
+        int start = 0;
+        for (int end : ends) {
+            String sentence = text.substring(start, end).strip();
+            sentenceTokens.add(sentence.isEmpty() ? 0 : estimator.estimate(sentence));
+            start = end;
+        }
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put(METADATA_TOKEN_COUNT, estimator.estimate(text));
+        statistics.put(METADATA_SIMHASH, SimHash.fingerprint(text));
+        statistics.put(METADATA_SENTENCE_ENDS, List.copyOf(ends));
+        statistics.put(METADATA_SENTENCE_TOKENS, List.copyOf(sentenceTokens));
+        return statistics;
+    }
+
+    /**
+     * 分块 token 数
+     */
+    public static int tokenCount(Document document, TokenCountEstimator estimator) {
+        if (document.getMetadata().get(METADATA_TOKEN_COUNT) instanceof Number tokens) {
+            return tokens.intValue();
+        }
+        return estimator.estimate(document.getText());
+    }
+
+    /**
+     * 分块 SimHash 指纹
+     */
+    public static long fingerprint(Document document) {
+        if (document.getMetadata().get(METADATA_SIMHASH) instanceof Number fingerprint) {
+            return fingerprint.longValue();
+        }
+        return SimHash.fingerprint(document.getText());
+    }
+
+    /**
+     * 分块中的非空句子及其 token 数，按原文顺序
+     */
+    public static List<Sentence> sentences(Document document, TokenCountEstimator estimator) {
+        String text = document.getText();
+        List<Integer> ends = integers(document.getMetadata().get(METADATA_SENTENCE_ENDS));
+        List<Integer> tokens = integers(document.getMetadata().get(METADATA_SENTENCE_TOKENS));
+        boolean consistent = ends != null && tokens != null && ends.size() == tokens.size()
+                && (ends.isEmpty() ? text.isEmpty() : ends.get(ends.size() - 1) == text.length());
+        if (!consistent) {
+            return sentences(text, estimator);
+        }
+        List<Sentence> sentences = new ArrayList<>(ends.size());
+        int start = 0;
+        for (int i = 0; i < ends.size(); i++) {
+            String sentence = text.substring(start, ends.get(i)).strip();
+            if (!sentence.isEmpty()) {
+                sentences.add(new Sentence(sentence, tokens.get(i)));
+            }
+            start = ends.get(i);
+        }
+        return sentences;
+    }
+
+    /**
+     * 现场切分句子并计数
+     */
+    public static List<Sentence> sentences(String text, TokenCountEstimator estimator) {
+        List<Sentence> sentences = new ArrayList<>();
+        int start = 0;
+        for (int end : sentenceEnds(text)) {
+            String sentence = text.substring(start, end).strip();
+            if (!sentence.isEmpty()) {
+                sentences.add(new Sentence(sentence, estimator.estimate(sentence)));
+            }
+            start = end;
+        }
+        return sentences;
+    }
+
+    /**
+     * 每句的结束位置（不含），最后一个等于文本长度
+     */
+    static List<Integer> sentenceEnds(String text) {
+        List<Integer> ends = new ArrayList<>();
+        for (int i = 0; i < text.length(); i++) {
+            if (SENTENCE_TERMINATORS.indexOf(text.charAt(i)) >= 0) {
+                ends.add(i + 1);
+            }
+        }
+        if (!text.isEmpty() && (ends.isEmpty() || ends.get(ends.size() - 1) != text.length())) {
+            ends.add(text.length());
+        }
+        return ends;
+    }
+
+    /**
+     * 快照加载后的元数据由 Jackson 反序列化，数值类型不固定，统一转成 Integer
+     */
+    private static List<Integer> integers(Object value) {
+        if (!(value instanceof List<?> list)) {
+            return null;
+        }
+        List<Integer> integers = new ArrayList<>(list.size());
+        for (Object element : list) {
+            if (!(element instanceof Number number)) {
+                return null;
+            }
+            integers.add(number.intValue());
+        }
+        return integers;
+    }
+
+    /**
+     * 句子
+     *
+     * @param text   去掉首尾空白的句子文本
+     * @param tokens token 数
+     */
+    public record Sentence(String text, int tokens) {
+    }
+}
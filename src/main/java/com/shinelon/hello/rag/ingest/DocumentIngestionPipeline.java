@@ -0,0 +1,454 @@
+package com.shinelon.hello.rag.ingest;
+
+import com.shinelon.hello.common.enums.ErrorCodeEnum;
+import com.shinelon.hello.common.exception.BusinessException;
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.model.vo.RagIngestReportVO;
+import com.shinelon.hello.rag.store.KnowledgeVectorStore;
+import com.shinelon.hello.rag.store.VectorIndexSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * RAG 文档摄取流水线
+ * 读取 -> 按 token 分块 -> 按批并行嵌入 -> 批量写入向量库
+ * <p>
+ * 读取与分块在调用线程上流式进行，嵌入在固定大小的线程池中执行，
+ * 在途批次数由信号量限制，嵌入跟不上时读取线程阻塞等待（背压）。
+ * 文档的全部分块写入成功后才记入断点，中断后可以跳过已完成的文档继续摄取。
+ * <p>
+ * 摄取是增量的：内容哈希未变的文档直接跳过，变化的文档只重新嵌入哈希变化的分块，
+ * 旧版本多出的分块打墓碑删除。
+ * <p>
+ * 分块时计算 {@link ChunkStatistics}（token 数、SimHash 指纹、句子边界）写入分块元数据，供检索后压缩直接使用。
+ * 每篇文档完成后在 {@link DocumentRegistry} 中登记分块数、字节数、嵌入模型版本和索引时间，
+ * 文档来源目录随摄取增量更新。
+ *
+ * @author shinelon
+ */
+@Slf4j
+@Component
+public class DocumentIngestionPipeline {
+
+    public static final String METADATA_SOURCE = "source";
+    public static final String METADATA_CATEGORY = "category";
+    public static final String METADATA_CHUNK_INDEX = "chunk_index";
+
+    private static final String DEFAULT_CATEGORY = "general";
+
+    private final KnowledgeVectorStore vectorStore;
+    private final EmbeddingModel embeddingModel;
+    private final DocumentRegistry documentRegistry;
+    private final RagProperties.Ingestion properties;
+    private final TokenTextSplitter splitter;
+    private final String embeddingVersion;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    public DocumentIngestionPipeline(KnowledgeVectorStore vectorStore, EmbeddingModel embeddingModel,
+                                     DocumentRegistry documentRegistry, RagProperties ragProperties) {
+        this.vectorStore = vectorStore;
+        this.embeddingModel = embeddingModel;
+        this.documentRegistry = documentRegistry;
+        this.properties = ragProperties.getIngestion();
+        this.embeddingVersion = VectorIndexSnapshot.fingerprint(embeddingModel, ragProperties);
+        this.splitter = TokenTextSplitter.builder()
+                .withChunkSize(properties.getChunkSize())
+                .build();
+    }
+
+    /**
+     * 摄取本地文件或目录，符号链接文件不摄取
+     *
+     * @param path   文件或目录
+     * @param resume 是否从上次断点继续，否则全量重新嵌入
+     * @return 摄取报告
+     */
+    public RagIngestReportVO ingestPath(Path path, boolean resume) {
+        Path root = path.toAbsolutePath().normalize();
+        if (!Files.exists(root)) {
+            throw new IllegalArgumentException("摄取路径不存在: " + path);
+        }
+
+        IngestionCheckpoint checkpoint = IngestionCheckpoint.open(checkpointFile(root), resume);
+        try (Stream<Path> files = Files.walk(root)) {
+            Stream<Document> documents = files
+                    // 不跟随符号链接，目录内指向外部的链接文件不摄取
+                    .filter(file -> Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS))
+                    .filter(this::isSupported)
+                    .map(file -> readDocument(root, file))
+                    .filter(Objects::nonNull);
+            return run(root.toString(), documents.iterator(), checkpoint, resume);
+        } catch (IOException e) {
+            throw new UncheckedIOException("遍历摄取路径失败: " + root, e);
+        }
+    }
+
+    /**
+     * 摄取内存中的文档，文档需带有 source 元数据
+     *
+     * @param documents 文档列表
+     * @return 摄取报告
+     */
+    public RagIngestReportVO ingestDocuments(List<Document> documents) {
+        return run("memory", documents.iterator(), IngestionCheckpoint.none(), true);
+    }
+
+    /**
+     * 新增或更新单篇文档，只重新嵌入变化的分块
+     *
+     * @param documentId 文档ID
+     * @param content    文档内容
+     * @param metadata   元数据
+     * @return 摄取报告
+     */
+    public RagIngestReportVO upsert(String documentId, String content, Map<String, Object> metadata) {
+        Map<String, Object> documentMetadata = new HashMap<>(metadata);
+        documentMetadata.put(METADATA_SOURCE, documentId);
+        return run(documentId, List.of(new Document(content, documentMetadata)).iterator(),
+                IngestionCheckpoint.none(), true);
+    }
+
+    /**
+     * 删除单篇文档，分块打墓碑标记，由后台压缩清理
+     *
+     * @param documentId 文档ID
+     * @return 文档是否存在
+     */
+    public boolean delete(String documentId) {
+        return documentRegistry.remove(documentId)
+                .map(indexed -> {
+                    vectorStore.delete(chunkIds(documentId, 0, indexed.chunkHashes().size()));
+                    log.info("[RAG-Ingest] 删除文档, documentId={}, 分块数={}", documentId, indexed.chunkHashes().size());
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * @param incremental 是否增量摄取：跳过未变化的文档，复用未变化的分块
+     */
+    private RagIngestReportVO run(String label, Iterator<Document> documents, IngestionCheckpoint checkpoint,
+                                  boolean incremental) {
+        log.info("[RAG-Ingest] 摄取开始, source={}, batchSize={}, parallelism={}",
+                label, properties.getBatchSize(), properties.getParallelism());
+        long startTime = System.nanoTime();
+
+        IngestionRun run = new IngestionRun(checkpoint, incremental);
+        try {
+            while (documents.hasNext()) {
+                Document document = documents.next();
+                String source = String.valueOf(document.getMetadata().getOrDefault(METADATA_SOURCE, document.getId()));
+                String contentHash = contentHash(document);
+                if (checkpoint.isCompleted(source, contentHash)
+                        || (incremental && documentRegistry.isUnchanged(source, contentHash))) {
+                    run.skippedCount.incrementAndGet();
+                    checkpoint.markCompleted(source, contentHash);
+                    continue;
+                }
+                run.addDocument(source, contentHash, split(source, document));
+            }
+            run.flush();
+            run.awaitCompletion();
+        } finally {
+            run.executor.shutdownNow();
+        }
+
+        long elapsedNanos = Math.max(System.nanoTime() - startTime, 1);
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        RagIngestReportVO report = RagIngestReportVO.builder()
+                .source(label)
+                .documentCount(run.documentCount.get())
+                .skippedCount(run.skippedCount.get())
+                .failedCount(run.failedCount.get())
+                .chunkCount(run.chunkCount.get())
+                .reusedChunkCount(run.reusedChunkCount.get())
+                .tokenCount(run.tokenCount.get())
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .docsPerSecond(run.documentCount.get() / seconds)
+                .tokensPerSecond(run.tokenCount.get() / seconds)
+                .build();
+        log.info("[RAG-Ingest] 摄取完成, source={}, 文档={}, 跳过={}, 失败={}, 分块={}, 复用分块={}, 耗时={}ms, {} docs/s, {} tokens/s",
+                label, report.getDocumentCount(), report.getSkippedCount(), report.getFailedCount(),
+                report.getChunkCount(), report.getReusedChunkCount(), report.getElapsedMillis(),
+                String.format("%.1f", report.getDocsPerSecond()), String.format("%.1f", report.getTokensPerSecond()));
+        return report;
+    }
+
+    /**
+     * 分块，分块ID由来源和序号确定，重复摄取同一文档会覆盖而不是追加。
+     * 不沿用分块器附加的 parent_document_id / total_chunks：前者每次随机，后者随文档长度变化，
+     * 都会让内容未变的分块被误判为变化
+     */
+    private List<Document> split(String source, Document document) {
+        List<Document> pieces = splitter.split(document);
+        List<Document> chunks = new ArrayList<>(pieces.size());
+        for (int i = 0; i < pieces.size(); i++) {
+            Document piece = pieces.get(i);
+            Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+            metadata.putAll(ChunkStatistics.compute(piece.getText(), tokenCountEstimator));
+            metadata.put(METADATA_CHUNK_INDEX, i);
+            chunks.add(Document.builder()
+                    .id(chunkId(source, i))
+                    .text(piece.getText())
+                    .metadata(metadata)
+                    .build());
+        }
+        return chunks;
+    }
+
+    private Document readDocument(Path root, Path file) {
+        String source = root.equals(file) ? file.getFileName().toString() : root.relativize(file).toString();
+        Path parent = root.relativize(file).getParent();
+        String category = parent != null ? parent.getFileName().toString() : DEFAULT_CATEGORY;
+        try {
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            if (content.isBlank()) {
+                log.debug("[RAG-Ingest] 跳过空文件: {}", source);
+                return null;
+            }
+            return new Document(content, Map.of(METADATA_SOURCE, source, METADATA_CATEGORY, category));
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取文件失败: " + file, e);
+        }
+    }
+
+    private boolean isSupported(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && properties.getFileExtensions().contains(name.substring(dot + 1));
+    }
+
+    private Path checkpointFile(Path root) {
+        return Path.of(properties.getCheckpointDir()).resolve(sha256(root.toString()).substring(0, 16) + ".ckpt");
+    }
+
+    static String chunkId(String source, int index) {
+        return UUID.nameUUIDFromBytes((source + "#" + index).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    static List<String> chunkIds(String source, int fromIndex, int toIndex) {
+        List<String> ids = new ArrayList<>(Math.max(toIndex - fromIndex, 0));
+        for (int i = fromIndex; i < toIndex; i++) {
+            ids.add(chunkId(source, i));
+        }
+        return ids;
+    }
+
+    /**
+     * 文档/分块哈希，文本或元数据变化都视为内容变化
+     */
+    static String contentHash(Document document) {
+        return sha256(document.getText() + "\u0000" + new TreeMap<>(document.getMetadata()));
+    }
+
+    static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 单次摄取的运行状态
+     */
+    private final class IngestionRun {
+
+        private final IngestionCheckpoint checkpoint;
+        private final boolean incremental;
+        private final ExecutorService executor;
+        private final Semaphore inFlight;
+        private final int maxInFlight;
+
+        private final AtomicInteger documentCount = new AtomicInteger();
+        private final AtomicInteger skippedCount = new AtomicInteger();
+        private final AtomicInteger failedCount = new AtomicInteger();
+        private final AtomicInteger chunkCount = new AtomicInteger();
+        private final AtomicInteger reusedChunkCount = new AtomicInteger();
+        private final AtomicLong tokenCount = new AtomicLong();
+
+        private List<PendingChunk> buffer = new ArrayList<>();
+
+        private IngestionRun(IngestionCheckpoint checkpoint, boolean incremental) {
+            this.checkpoint = checkpoint;
+            this.incremental = incremental;
+            this.maxInFlight = Math.max(properties.getMaxInFlightBatches(), 1);
+            this.inFlight = new Semaphore(maxInFlight);
+            AtomicInteger threadIndex = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(Math.max(properties.getParallelism(), 1), task -> {
+                Thread thread = new Thread(task, "rag-ingest-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private void addDocument(String source, String contentHash, List<Document> chunks) {
+            List<String> chunkHashes = chunks.stream().map(DocumentIngestionPipeline::contentHash).toList();
+            List<String> previousHashes = documentRegistry.find(source)
+                    .map(DocumentRegistry.IndexedDocument::chunkHashes)
+                    .orElse(List.of());
+            if (previousHashes.size() > chunks.size()) {
+                vectorStore.delete(chunkIds(source, chunks.size(), previousHashes.size()));
+            }
+
+            List<Document> changedChunks = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                boolean reusable = incremental && i < previousHashes.size()
+                        && previousHashes.get(i).equals(chunkHashes.get(i));
+                if (!reusable) {
+                    changedChunks.add(chunks.get(i));
+                }
+            }
+            reusedChunkCount.addAndGet(chunks.size() - changedChunks.size());
+
+            long bytes = chunks.stream()
+                    .mapToLong(chunk -> chunk.getText().getBytes(StandardCharsets.UTF_8).length)
+                    .sum();
+            DocumentProgress progress = new DocumentProgress(source, contentHash, chunkHashes, bytes,
+                    changedChunks.size());
+            if (changedChunks.isEmpty()) {
+                // 内容过短不产出分块，或者只删除了尾部分块
+                progress.finish();
+                return;
+            }
+            for (Document chunk : changedChunks) {
+                buffer.add(new PendingChunk(chunk, progress, ChunkStatistics.tokenCount(chunk, tokenCountEstimator)));
+                if (buffer.size() >= properties.getBatchSize()) {
+                    flush();
+                }
+            }
+        }
+
+        private void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            List<PendingChunk> batch = buffer;
+            buffer = new ArrayList<>();
+            acquire(1);
+            try {
+                executor.execute(() -> {
+                    try {
+                        embedAndWrite(batch);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        private void embedAndWrite(List<PendingChunk> batch) {
+            List<Document> chunks = batch.stream().map(PendingChunk::chunk).toList();
+            boolean success;
+            try {
+                List<float[]> embeddings = embeddingModel.embed(chunks.stream().map(Document::getText).toList());
+                vectorStore.addEmbedded(chunks, embeddings);
+                success = true;
+            } catch (Exception e) {
+                log.error("[RAG-Ingest] 批次嵌入失败, 分块数={}, error={}", batch.size(), e.getMessage(), e);
+                success = false;
+            }
+            for (PendingChunk pending : batch) {
+                if (success) {
+                    chunkCount.incrementAndGet();
+                    tokenCount.addAndGet(pending.tokens());
+                }
+                pending.progress().complete(success);
+            }
+        }
+
+        private void awaitCompletion() {
+            acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        }
+
+        private void acquire(int permits) {
+            try {
+                inFlight.acquire(permits);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ErrorCodeEnum.INTERNAL_ERROR, "文档摄取被中断", e);
+            }
+        }
+
+        /**
+         * 文档级进度，全部分块完成后登记文档并记录断点
+         */
+        private final class DocumentProgress {
+
+            private final String source;
+            private final String contentHash;
+            private final List<String> chunkHashes;
+            private final long bytes;
+            private final AtomicInteger remaining;
+            private volatile boolean failed;
+
+            private DocumentProgress(String source, String contentHash, List<String> chunkHashes, long bytes,
+                                     int pendingChunks) {
+                this.source = source;
+                this.contentHash = contentHash;
+                this.chunkHashes = chunkHashes;
+                this.bytes = bytes;
+                this.remaining = new AtomicInteger(pendingChunks);
+            }
+
+            private void complete(boolean success) {
+                if (!success) {
+                    failed = true;
+                }
+                if (remaining.decrementAndGet() > 0) {
+                    return;
+                }
+                if (failed) {
+                    failedCount.incrementAndGet();
+                } else {
+                    finish();
+                }
+            }
+
+            private void finish() {
+                documentRegistry.register(new DocumentRegistry.IndexedDocument(
+                        source, contentHash, chunkHashes, bytes, embeddingVersion, System.currentTimeMillis()));
+                documentCount.incrementAndGet();
+                checkpoint.markCompleted(source, contentHash);
+            }
+        }
+
+        private record PendingChunk(Document chunk, DocumentProgress progress, int tokens) {
+        }
+    }
+}
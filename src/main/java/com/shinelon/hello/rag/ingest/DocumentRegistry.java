@@ -0,0 +1,143 @@
+package com.shinelon.hello.rag.ingest;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已索引文档登记表
+ * 记录每篇文档的内容哈希和各分块哈希，用于变更检测：
+ * 内容未变的文档直接跳过，内容变化的文档只重新嵌入哈希变化的分块
+ * <p>
+ * 同时也是知识库的文档来源目录：按文档ID有序存放，摄取完成一篇登记一篇，
+ * 分块总数和字节总数随登记/删除增量维护，分页查询和统计都不需要扫描向量库
+ *
+ * @author shinelon
+ */
+@Component
+public class DocumentRegistry {
+
+    private final ConcurrentSkipListMap<String, IndexedDocument> documents = new ConcurrentSkipListMap<>();
+    private final AtomicLong chunkCount = new AtomicLong();
+    private final AtomicLong byteCount = new AtomicLong();
+
+    /**
+     * 查询已索引的文档
+     *
+     * @param documentId 文档ID（即 source）
+     * @return 已索引文档
+     */
+    public Optional<IndexedDocument> find(String documentId) {
+        return Optional.ofNullable(documents.get(documentId));
+    }
+
+    /**
+     * 文档内容是否与已索引版本一致
+     */
+    public boolean isUnchanged(String documentId, String contentHash) {
+        IndexedDocument indexed = documents.get(documentId);
+        return indexed != null && indexed.contentHash().equals(contentHash);
+    }
+
+    public void register(IndexedDocument document) {
+        IndexedDocument previous = documents.put(document.documentId(), document);
+        account(document, 1);
+        if (previous != null) {
+            account(previous, -1);
+        }
+    }
+
+    public Optional<IndexedDocument> remove(String documentId) {
+        IndexedDocument removed = documents.remove(documentId);
+        if (removed != null) {
+            account(removed, -1);
+        }
+        return Optional.ofNullable(removed);
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * 全部文档的分块总数
+     */
+    public long chunkCount() {
+        return chunkCount.get();
+    }
+
+    /**
+     * 全部文档的分块文本总字节数（UTF-8）
+     */
+    public long byteCount() {
+        return byteCount.get();
+    }
+
+    /**
+     * 按文档ID排序的全部文档ID
+     */
+    public List<String> documentIds() {
+        return List.copyOf(documents.keySet());
+    }
+
+    /**
+     * 按文档ID排序分页
+     *
+     * @param page 页码（从0开始）
+     * @param size 每页大小
+     * @return 当前页的文档
+     */
+    public List<IndexedDocument> page(int page, int size) {
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("分页参数不正确");
+        }
+        return documents.values().stream()
+                .skip((long) page * size)
+                .limit(size)
+                .toList();
+    }
+
+    /**
+     * 全部已索引文档，用于快照持久化
+     */
+    public Collection<IndexedDocument> documents() {
+        return List.copyOf(documents.values());
+    }
+
+    /**
+     * 用快照中的文档替换当前登记表
+     */
+    public synchronized void restore(Collection<IndexedDocument> indexedDocuments) {
+        documents.clear();
+        chunkCount.set(0);
+        byteCount.set(0);
+        indexedDocuments.forEach(this::register);
+    }
+
+    private void account(IndexedDocument document, int sign) {
+        chunkCount.addAndGet(sign * (long) document.chunkHashes().size());
+        byteCount.addAndGet(sign * document.bytes());
+    }
+
+    /**
+     * 已索引文档
+     *
+     * @param documentId       文档ID
+     * @param contentHash      文档内容哈希
+     * @param chunkHashes      按序号排列的分块哈希
+     * @param bytes            分块文本总字节数（UTF-8）
+     * @param embeddingVersion 嵌入模型版本（模型实现 + 模型名称 + 分块大小）
+     * @param indexedAt        索引时间（毫秒时间戳）
+     */
+    public record IndexedDocument(String documentId, String contentHash, List<String> chunkHashes, long bytes,
+                                  String embeddingVersion, long indexedAt) {
+
+        public IndexedDocument {
+            chunkHashes = List.copyOf(chunkHashes);
+        }
+    }
+}
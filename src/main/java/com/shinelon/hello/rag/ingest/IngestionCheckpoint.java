@@ -0,0 +1,81 @@
+package com.shinelon.hello.rag.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 摄取断点
+ * 以追加方式记录已完整写入向量库的文档（来源 + 内容哈希），中断后可跳过已完成的文档继续摄取
+ *
+ * @author shinelon
+ */
+@Slf4j
+final class IngestionCheckpoint {
+
+    private static final String SEPARATOR = "\t";
+
+    private final Path file;
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+
+    private IngestionCheckpoint(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * 不落盘的断点，用于内存文档的摄取
+     */
+    static IngestionCheckpoint none() {
+        return new IngestionCheckpoint(null);
+    }
+
+    /**
+     * 打开断点文件
+     *
+     * @param file   断点文件
+     * @param resume 是否从已有断点继续，否则清空重来
+     */
+    static IngestionCheckpoint open(Path file, boolean resume) {
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint(file);
+        try {
+            Files.createDirectories(file.getParent());
+            if (!resume) {
+                Files.deleteIfExists(file);
+            } else if (Files.exists(file)) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank()) {
+                        checkpoint.completed.add(line);
+                    }
+                }
+                log.info("[RAG-Ingest] 读取断点 {}, 已完成文档 {} 篇", file, checkpoint.completed.size());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取摄取断点失败: " + file, e);
+        }
+        return checkpoint;
+    }
+
+    boolean isCompleted(String source, String contentHash) {
+        return completed.contains(contentHash + SEPARATOR + source);
+    }
+
+    synchronized void markCompleted(String source, String contentHash) {
+        String entry = contentHash + SEPARATOR + source;
+        if (!completed.add(entry) || file == null) {
+            return;
+        }
+        try {
+            Files.writeString(file, entry + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("[RAG-Ingest] 写入断点失败, source={}, error={}", source, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.shinelon.hello.rag.namespace;
+
+import com.shinelon.hello.rag.ingest.DocumentIngestionPipeline;
+import com.shinelon.hello.rag.ingest.DocumentRegistry;
+import com.shinelon.hello.rag.store.KnowledgeVectorStore;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 知识库命名空间：独立的向量存储、文档登记表和摄取流水线
+ *
+ * @author shinelon
+ */
+public final class KnowledgeNamespace {
+
+    private final String name;
+    private final KnowledgeVectorStore store;
+    private final DocumentRegistry registry;
+    private final DocumentIngestionPipeline pipeline;
+
+    /**
+     * 正在执行的写操作数，大于 0 时不会被卸载
+     */
+    private final AtomicInteger writers = new AtomicInteger();
+
+    /**
+     * 最近一次落盘时向量存储的版本号，与当前版本号不同说明有未保存的修改
+     */
+    private volatile long savedVersion;
+
+    public KnowledgeNamespace(String name, KnowledgeVectorStore store, DocumentRegistry registry,
+                              DocumentIngestionPipeline pipeline) {
+        this.name = name;
+        this.store = store;
+        this.registry = registry;
+        this.pipeline = pipeline;
+        this.savedVersion = store.version();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public KnowledgeVectorStore store() {
+        return store;
+    }
+
+    public DocumentRegistry registry() {
+        return registry;
+    }
+
+    public DocumentIngestionPipeline pipeline() {
+        return pipeline;
+    }
+
+    boolean isDirty() {
+        return store.version() != savedVersion;
+    }
+
+    void markSaved(long version) {
+        this.savedVersion = version;
+    }
+
+    boolean isWriting() {
+        return writers.get() > 0;
+    }
+
+    void beginWrite() {
+        writers.incrementAndGet();
+    }
+
+    void endWrite() {
+        writers.decrementAndGet();
+    }
+}
@@ -0,0 +1,424 @@
+package com.shinelon.hello.rag.namespace;
+
+import com.shinelon.hello.common.enums.ErrorCodeEnum;
+import com.shinelon.hello.common.exception.BusinessException;
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.model.vo.RagNamespaceVO;
+import com.shinelon.hello.rag.store.KnowledgeVectorStore;
+import com.shinelon.hello.rag.store.VectorIndexSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.rag.Query;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 多租户知识库命名空间
+ * <p>
+ * 默认命名空间就是主知识库，始终常驻，由 {@link VectorIndexSnapshot} 负责持久化。
+ * 其余命名空间只在第一次写入时创建，之后按需从磁盘快照加载（懒加载）；读取不存在的命名空间时报不存在，不会创建。
+ * 常驻数量或估算内存总量超出上限时，按最近最少使用把冷命名空间保存到磁盘后卸载，
+ * 正在写入的命名空间不会被卸载。每个命名空间的向量存储有独立的内存配额。
+ * <p>
+ * 对象锁只保护常驻表，磁盘读写都在锁外进行，一个命名空间的冷加载或落盘不会阻塞其他命名空间的读取：
+ * <ul>
+ *     <li>同一命名空间同时只有一个线程加载，其余线程等待该次加载的结果</li>
+ *     <li>卸载时在锁内移出常驻表，释放锁后再落盘；落盘完成前再次使用直接放回常驻表，不会读到写了一半的快照</li>
+ * </ul>
+ * <p>
+ * 检索时通过 Query context 中的 {@link #CONTEXT_KEY} 选择命名空间。
+ *
+ * @author shinelon
+ */
+@Slf4j
+public class KnowledgeNamespaces implements AutoCloseable {
+
+    public static final String DEFAULT_NAMESPACE = "default";
+
+    /**
+     * Query context / Advisor 参数中的命名空间键
+     */
+    public static final String CONTEXT_KEY = "rag_namespace";
+
+    /**
+     * 命名空间名称同时用作快照文件名，只允许小写字母、数字、下划线和连字符
+     */
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[a-z0-9][a-z0-9_-]{0,63}$");
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private final KnowledgeNamespace defaultNamespace;
+    private final Function<String, KnowledgeNamespace> factory;
+    private final VectorIndexSnapshot snapshot;
+    private final RagProperties.Namespace properties;
+
+    /**
+     * 常驻的命名空间，按访问顺序排列，队首最久未使用
+     */
+    private final LinkedHashMap<String, KnowledgeNamespace> resident = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 已移出常驻表、正在落盘的命名空间，由对象锁保护
+     */
+    private final Map<String, KnowledgeNamespace> unloading = new HashMap<>();
+
+    /**
+     * 正在从磁盘加载的命名空间，加载结果为 null 表示命名空间不存在
+     */
+    private final Map<String, CompletableFuture<KnowledgeNamespace>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * @param defaultNamespace 默认命名空间
+     * @param factory          按名称创建空命名空间
+     * @param snapshot         快照读写
+     * @param properties       命名空间配置
+     */
+    public KnowledgeNamespaces(KnowledgeNamespace defaultNamespace, Function<String, KnowledgeNamespace> factory,
+                               VectorIndexSnapshot snapshot, RagProperties.Namespace properties) {
+        this.defaultNamespace = defaultNamespace;
+        this.factory = factory;
+        this.snapshot = snapshot;
+        this.properties = properties;
+    }
+
+    /**
+     * 校验并归一化命名空间名称，为空时返回默认命名空间
+     */
+    public static String normalize(String namespace) {
+        if (namespace == null || namespace.isBlank()) {
+            return DEFAULT_NAMESPACE;
+        }
+        String name = namespace.trim();
+        if (!NAME_PATTERN.matcher(name).matches()) {
+            throw new IllegalArgumentException("命名空间格式不正确");
+        }
+        return name;
+    }
+
+    /**
+     * 获取已存在的命名空间，未常驻时从磁盘懒加载
+     *
+     * @param namespace 命名空间名称，为空时为默认命名空间
+     * @return 命名空间
+     * @throws BusinessException 命名空间不存在（既不常驻，磁盘上也没有快照）
+     */
+    public KnowledgeNamespace get(String namespace) {
+        String name = normalize(namespace);
+        if (DEFAULT_NAMESPACE.equals(name)) {
+            return defaultNamespace;
+        }
+        KnowledgeNamespace loaded = acquire(name, false);
+        if (loaded == null) {
+            throw new BusinessException(ErrorCodeEnum.NOT_FOUND, "命名空间不存在: " + name);
+        }
+        return loaded;
+    }
+
+    /**
+     * 按 Query context 中的命名空间选择向量存储
+     */
+    public KnowledgeVectorStore resolve(Query query) {
+        Object namespace = query.context().get(CONTEXT_KEY);
+        return get(namespace == null ? null : namespace.toString()).store();
+    }
+
+    /**
+     * 在命名空间上执行写操作，命名空间不存在时创建；执行期间该命名空间不会被卸载，
+     * 结束后按内存上限检查是否需要卸载其他命名空间
+     *
+     * @param namespace 命名空间名称
+     * @param action    写操作
+     * @return 写操作的结果
+     */
+    public <T> T write(String namespace, Function<KnowledgeNamespace, T> action) {
+        String name = normalize(namespace);
+        KnowledgeNamespace target = null;
+        while (target == null) {
+            KnowledgeNamespace candidate = DEFAULT_NAMESPACE.equals(name) ? defaultNamespace : acquire(name, true);
+            synchronized (this) {
+                // 取到后、标记写入前可能已被卸载，此时重新获取
+                if (candidate == defaultNamespace || resident.get(name) == candidate) {
+                    candidate.beginWrite();
+                    target = candidate;
+                }
+            }
+        }
+        try {
+            return action.apply(target);
+        } finally {
+            List<KnowledgeNamespace> victims;
+            synchronized (this) {
+                target.endWrite();
+                victims = evict(target);
+            }
+            unload(victims);
+        }
+    }
+
+    /**
+     * 全部命名空间：默认命名空间、常驻命名空间以及只在磁盘上的命名空间
+     */
+    public List<RagNamespaceVO> list() {
+        // 复制一份再查找，避免 get 打乱最近最少使用顺序；读取磁盘在锁外进行
+        Map<String, KnowledgeNamespace> loadedNamespaces;
+        synchronized (this) {
+            loadedNamespaces = new HashMap<>(resident);
+        }
+        Set<String> names = new TreeSet<>(loadedNamespaces.keySet());
+        names.addAll(namesOnDisk());
+        List<RagNamespaceVO> namespaces = new ArrayList<>(names.size() + 1);
+        namespaces.add(describe(DEFAULT_NAMESPACE, defaultNamespace, null));
+        for (String name : names) {
+            KnowledgeNamespace loaded = loadedNamespaces.get(name);
+            namespaces.add(describe(name, loaded, loaded == null ? null : loaded.store().memoryQuotaBytes()));
+        }
+        return namespaces;
+    }
+
+    /**
+     * 常驻命名空间数（不含默认命名空间）
+     */
+    public synchronized int residentCount() {
+        return resident.size();
+    }
+
+    public synchronized boolean isResident(String namespace) {
+        return resident.containsKey(normalize(namespace));
+    }
+
+    /**
+     * 关闭时把有修改的常驻命名空间全部落盘
+     */
+    @Override
+    public void close() {
+        List<KnowledgeNamespace> namespaces;
+        synchronized (this) {
+            namespaces = new ArrayList<>(resident.values());
+        }
+        for (KnowledgeNamespace namespace : namespaces) {
+            if (namespace.isDirty()) {
+                try {
+                    save(namespace);
+                } catch (UncheckedIOException e) {
+                    log.warn("[RAG-Namespace] 关闭时保存命名空间失败, namespace={}, error={}",
+                            namespace.name(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 取常驻的命名空间，未常驻时从磁盘加载；同一命名空间同时只有一个线程加载，加载和卸载落盘都在锁外
+     *
+     * @param create 磁盘上没有快照时是否创建空命名空间
+     * @return 命名空间，不存在且不创建时为 null
+     */
+    private KnowledgeNamespace acquire(String name, boolean create) {
+        while (true) {
+            KnowledgeNamespace loaded = residentOrUnloading(name);
+            if (loaded != null) {
+                return loaded;
+            }
+            CompletableFuture<KnowledgeNamespace> future = new CompletableFuture<>();
+            CompletableFuture<KnowledgeNamespace> inFlight = loading.putIfAbsent(name, future);
+            if (inFlight != null) {
+                loaded = join(inFlight);
+                // 其他线程只读不创建时结果为 null，需要创建的再自己加载一次
+                if (loaded != null || !create) {
+                    return loaded;
+                }
+                continue;
+            }
+            List<KnowledgeNamespace> victims = List.of();
+            try {
+                // 占位前的检查与占位之间，其他线程可能刚好加载完成
+                loaded = residentOrUnloading(name);
+                if (loaded == null) {
+                    loaded = load(name, create);
+                    if (loaded != null) {
+                        synchronized (this) {
+                            resident.put(name, loaded);
+                            victims = evict(loaded);
+                        }
+                    }
+                }
+                future.complete(loaded);
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.remove(name, future);
+            }
+            unload(victims);
+            return loaded;
+        }
+    }
+
+    /**
+     * 常驻的命名空间；正在落盘的直接放回常驻表，不从磁盘重新加载
+     */
+    private synchronized KnowledgeNamespace residentOrUnloading(String name) {
+        KnowledgeNamespace loaded = resident.get(name);
+        if (loaded == null) {
+            loaded = unloading.get(name);
+            if (loaded != null) {
+                resident.put(name, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private static KnowledgeNamespace join(CompletableFuture<KnowledgeNamespace> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private KnowledgeNamespace load(String name, boolean create) {
+        Path file = snapshotFile(name);
+        boolean onDisk = Files.exists(file);
+        if (!onDisk && !create) {
+            return null;
+        }
+        KnowledgeNamespace namespace = factory.apply(name);
+        if (onDisk && snapshot.load(namespace.store(), namespace.registry(), file)) {
+            log.info("[RAG-Namespace] 命名空间已从磁盘加载, namespace={}, 分块={}", name, namespace.store().size());
+        } else {
+            log.info("[RAG-Namespace] 创建空命名空间, namespace={}", name);
+        }
+        namespace.markSaved(namespace.store().version());
+        return namespace;
+    }
+
+    /**
+     * 超出常驻数量或内存上限时，从最久未使用的开始移出常驻表，跳过刚访问的、正在写入的和上一次还没落盘完成的命名空间。
+     * 调用方持有对象锁，返回的命名空间需在释放锁后调用 {@link #unload} 落盘
+     */
+    private List<KnowledgeNamespace> evict(KnowledgeNamespace keep) {
+        List<KnowledgeNamespace> victims = new ArrayList<>();
+        while (resident.size() > properties.getMaxResident() || residentBytes() > maxResidentBytes()) {
+            KnowledgeNamespace victim = resident.values().stream()
+                    .filter(namespace -> namespace != keep && !namespace.isWriting())
+                    .filter(namespace -> !unloading.containsKey(namespace.name()))
+                    .findFirst()
+                    .orElse(null);
+            if (victim == null) {
+                break;
+            }
+            resident.remove(victim.name());
+            if (victim.isDirty()) {
+                unloading.put(victim.name(), victim);
+                victims.add(victim);
+            }
+            log.info("[RAG-Namespace] 卸载冷命名空间, namespace={}, 常驻数={}, 常驻内存={}B",
+                    victim.name(), resident.size(), residentBytes());
+        }
+        return victims;
+    }
+
+    /**
+     * 在锁外把移出常驻表的命名空间落盘；落盘失败时放回常驻表，暂不卸载
+     */
+    private void unload(List<KnowledgeNamespace> victims) {
+        for (KnowledgeNamespace victim : victims) {
+            boolean saved = false;
+            try {
+                save(victim);
+                saved = true;
+            } catch (UncheckedIOException e) {
+                log.warn("[RAG-Namespace] 命名空间落盘失败, 暂不卸载, namespace={}, error={}",
+                        victim.name(), e.getMessage());
+            } finally {
+                synchronized (this) {
+                    unloading.remove(victim.name());
+                    if (!saved) {
+                        resident.putIfAbsent(victim.name(), victim);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 同一命名空间的落盘串行执行，快照临时文件不会互相覆盖
+     */
+    private void save(KnowledgeNamespace namespace) {
+        synchronized (namespace) {
+            long version = namespace.store().version();
+            snapshot.save(namespace.store(), namespace.registry(), snapshotFile(namespace.name()));
+            namespace.markSaved(version);
+        }
+    }
+
+    private long residentBytes() {
+        return resident.values().stream().mapToLong(namespace -> namespace.store().estimatedBytes()).sum();
+    }
+
+    private long maxResidentBytes() {
+        return properties.getMaxResidentSize().toBytes();
+    }
+
+    private RagNamespaceVO describe(String name, KnowledgeNamespace loaded, Long quotaBytes) {
+        Path file = snapshotFile(name);
+        RagNamespaceVO.RagNamespaceVOBuilder builder = RagNamespaceVO.builder()
+                .name(name)
+                .resident(loaded != null)
+                .quotaBytes(quotaBytes);
+        if (loaded != null) {
+            builder.chunkCount(loaded.store().size())
+                    .documentCount(loaded.registry().size())
+                    .sourceBytes(loaded.registry().byteCount())
+                    .memoryBytes(loaded.store().estimatedBytes());
+        }
+        try {
+            if (!DEFAULT_NAMESPACE.equals(name) && Files.exists(file)) {
+                builder.diskBytes(Files.size(file));
+            }
+        } catch (IOException e) {
+            log.warn("[RAG-Namespace] 读取快照大小失败, namespace={}, error={}", name, e.getMessage());
+        }
+        return builder.build();
+    }
+
+    private Set<String> namesOnDisk() {
+        Path dir = Path.of(properties.getDir());
+        if (!Files.isDirectory(dir)) {
+            return Set.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            Set<String> names = new HashSet<>();
+            files.map(file -> file.getFileName().toString())
+                    .filter(fileName -> fileName.endsWith(SNAPSHOT_SUFFIX))
+                    .map(fileName -> fileName.substring(0, fileName.length() - SNAPSHOT_SUFFIX.length()))
+                    .filter(name -> NAME_PATTERN.matcher(name).matches())
+                    .forEach(names::add);
+            return names;
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取命名空间目录失败: " + dir, e);
+        }
+    }
+
+    private Path snapshotFile(String name) {
+        return Path.of(properties.getDir()).resolve(name + SNAPSHOT_SUFFIX);
+    }
+}
@@ -0,0 +1,142 @@
+package com.shinelon.hello.rag.postretrieval;
+
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.rag.ingest.ChunkStatistics;
+import com.shinelon.hello.rag.retrieval.CjkTokenizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.postretrieval.document.DocumentPostProcessor;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 检索后上下文压缩
+ * <ol>
+ *     <li>去重：按检索排名依次保留分块，与已保留分块 SimHash 汉明距离不超过阈值的视为近似重复并丢弃</li>
+ *     <li>句子抽取：只保留与查询有共同词项的句子，保持原文顺序；一句都不相关时保留首句作为主题句</li>
+ *     <li>token 预算：按排名依次放入句子，超出 maxContextTokens 后停止，放不下任何句子的分块直接丢弃</li>
+ * </ol>
+ * 压缩前后的上下文 token 数记录在 rag.context.tokens 指标中。
+ * <p>
+ * 分块 token 数、SimHash 指纹、句子边界和每句 token 数优先读取摄取时写入的 {@link ChunkStatistics} 元数据，
+ * 查询时只需对句子做相关性判断，不再重新计数
+ *
+ * @author shinelon
+ */
+@Slf4j
+public class ContextCompressionPostProcessor implements DocumentPostProcessor {
+
+    private final RagProperties.Compression properties;
+    private static final TokenCountEstimator TOKEN_COUNT_ESTIMATOR = new JTokkitTokenCountEstimator();
+    private final Counter retrievedTokens;
+    private final Counter compressedTokens;
+
+    public ContextCompressionPostProcessor(RagProperties.Compression properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.retrievedTokens = tokenCounter(meterRegistry, "retrieved");
+        this.compressedTokens = tokenCounter(meterRegistry, "compressed");
+    }
+
+    private static Counter tokenCounter(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("rag.context.tokens")
+                .description("RAG 上下文压缩前后的 token 数")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<Document> process(Query query, List<Document> documents) {
+        if (!properties.isEnabled() || documents.isEmpty()) {
+            return documents;
+        }
+        Set<String> queryTokens = new HashSet<>(CjkTokenizer.tokenize(query.text()));
+        List<Document> unique = deduplicate(documents);
+
+        int budget = properties.getMaxContextTokens();
+        int before = 0;
+        int after = 0;
+        List<Document> compressed = new ArrayList<>();
+        for (Document document : unique) {
+            before += ChunkStatistics.tokenCount(document, TOKEN_COUNT_ESTIMATOR);
+            StringBuilder text = new StringBuilder();
+            int documentTokens = 0;
+            for (ChunkStatistics.Sentence sentence : relevantSentences(
+                    ChunkStatistics.sentences(document, TOKEN_COUNT_ESTIMATOR), queryTokens)) {
+                if (after + sentence.tokens() > budget) {
+                    break;
+                }
+                text.append(sentence.text());
+                after += sentence.tokens();
+                documentTokens += sentence.tokens();
+            }
+            if (!text.isEmpty()) {
+                compressed.add(compressedDocument(document, text.toString(), documentTokens));
+            }
+        }
+        retrievedTokens.increment(before);
+        compressedTokens.increment(after);
+        log.debug("[RAG-Compress] 分块 {} -> 去重后 {} -> 保留 {}, token {} -> {}",
+                documents.size(), unique.size(), compressed.size(), before, after);
+        return compressed;
+    }
+
+    /**
+     * 按排名保留分块，丢弃与更靠前分块近似重复的分块
+     */
+    List<Document> deduplicate(List<Document> documents) {
+        List<Document> unique = new ArrayList<>();
+        List<Long> fingerprints = new ArrayList<>();
+        for (Document document : documents) {
+            long fingerprint = ChunkStatistics.fingerprint(document);
+            boolean duplicate = fingerprints.stream()
+                    .anyMatch(kept -> SimHash.distance(kept, fingerprint) <= properties.getDuplicateDistance());
+            if (!duplicate) {
+                unique.add(document);
+                fingerprints.add(fingerprint);
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * 抽取与查询有共同词项的句子
+     */
+    static List<String> relevantSentences(String text, Set<String> queryTokens) {
+        return relevantSentences(ChunkStatistics.sentences(text, TOKEN_COUNT_ESTIMATOR), queryTokens).stream()
+                .map(ChunkStatistics.Sentence::text)
+                .toList();
+    }
+
+    private static List<ChunkStatistics.Sentence> relevantSentences(List<ChunkStatistics.Sentence> sentences,
+                                                                    Set<String> queryTokens) {
+        List<ChunkStatistics.Sentence> relevant = sentences.stream()
+                .filter(sentence -> CjkTokenizer.tokenize(sentence.text()).stream().anyMatch(queryTokens::contains))
+                .toList();
+        if (!relevant.isEmpty() || sentences.isEmpty()) {
+            return relevant;
+        }
+        return List.of(sentences.get(0));
+    }
+
+    /**
+     * 压缩后的分块：文本变了，摄取时的句子统计和指纹不再适用，只保留新的 token 数
+     */
+    private static Document compressedDocument(Document document, String text, int tokens) {
+        Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+        metadata.remove(ChunkStatistics.METADATA_SIMHASH);
+        metadata.remove(ChunkStatistics.METADATA_SENTENCE_ENDS);
+        metadata.remove(ChunkStatistics.METADATA_SENTENCE_TOKENS);
+        metadata.put(ChunkStatistics.METADATA_TOKEN_COUNT, tokens);
+        return document.mutate().text(text).metadata(metadata).build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.shinelon.hello.rag.postretrieval;
+
+import com.shinelon.hello.rag.retrieval.CjkTokenizer;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.rag.Query;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 默认重排序器：词项重合度与向量相似度加权
+ * <ul>
+ *     <li>词项重合度：查询词项中出现在文档里的比例，分词方式与 BM25 一致</li>
+ *     <li>向量相似度：1 - 检索阶段写入的 distance 元数据；只由关键词检索命中的文档没有该值，按 0 计</li>
+ * </ul>
+ * 两项都在 [0, 1] 区间，不调用任何外部模型
+ *
+ * @author shinelon
+ */
+public class LexicalEmbeddingReranker implements Reranker {
+
+    private final double lexicalWeight;
+
+    /**
+     * @param lexicalWeight 词项重合度的权重，取值 [0, 1]
+     */
+    public LexicalEmbeddingReranker(double lexicalWeight) {
+        if (lexicalWeight < 0 || lexicalWeight > 1) {
+            throw new IllegalArgumentException("词项重合度权重必须在 [0, 1] 之间");
+        }
+        this.lexicalWeight = lexicalWeight;
+    }
+
+    @Override
+    public double score(Query query, Document document) {
+        return lexicalWeight * lexicalOverlap(query.text(), document.getText())
+                + (1 - lexicalWeight) * embeddingSimilarity(document);
+    }
+
+    static double lexicalOverlap(String query, String text) {
+        Set<String> queryTokens = new HashSet<>(CjkTokenizer.tokenize(query));
+        if (queryTokens.isEmpty()) {
+            return 0;
+        }
+        Set<String> textTokens = new HashSet<>(CjkTokenizer.tokenize(text));
+        long matched = queryTokens.stream().filter(textTokens::contains).count();
+        return (double) matched / queryTokens.size();
+    }
+
+    static double embeddingSimilarity(Document document) {
+        Object distance = document.getMetadata().get(DocumentMetadata.DISTANCE.value());
+        if (distance instanceof Number number) {
+            return Math.max(0, Math.min(1, 1 - number.doubleValue()));
+        }
+        return 0;
+    }
+}
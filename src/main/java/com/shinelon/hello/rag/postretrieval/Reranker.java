@@ -0,0 +1,23 @@
+package com.shinelon.hello.rag.postretrieval;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+
+/**
+ * 重排序打分器
+ * 对单个候选文档独立打分，便于在候选之间并行执行；实现必须是线程安全的
+ *
+ * @author shinelon
+ */
+@FunctionalInterface
+public interface Reranker {
+
+    /**
+     * 计算候选文档与查询的相关性
+     *
+     * @param query    查询
+     * @param document 候选文档
+     * @return 相关性得分，越大越相关
+     */
+    double score(Query query, Document document);
+}
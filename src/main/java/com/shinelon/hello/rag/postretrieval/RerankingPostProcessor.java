@@ -0,0 +1,76 @@
+package com.shinelon.hello.rag.postretrieval;
+
+import com.shinelon.hello.config.RagProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.postretrieval.document.DocumentPostProcessor;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 重排序后处理
+ * 检索阶段多召回 candidates 个候选，这里用 {@link Reranker} 在候选之间并行打分，
+ * 按得分降序保留 topK 个，文档的 score 替换为重排序得分
+ *
+ * @author shinelon
+ */
+@Slf4j
+public class RerankingPostProcessor implements DocumentPostProcessor, AutoCloseable {
+
+    private final Reranker reranker;
+    private final RagProperties.Rerank properties;
+    private final int topK;
+    private final ExecutorService executor;
+
+    public RerankingPostProcessor(Reranker reranker, RagProperties.Rerank properties) {
+        this(reranker, properties, properties.getTopK());
+    }
+
+    /**
+     * @param reranker   重排序打分器
+     * @param properties 重排序配置
+     * @param topK       保留的文档数，后面还有自适应截取时保留全部候选
+     */
+    public RerankingPostProcessor(Reranker reranker, RagProperties.Rerank properties, int topK) {
+        this.reranker = reranker;
+        this.properties = properties;
+        this.topK = topK;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(properties.getParallelism(), 1), task -> {
+            Thread thread = new Thread(task, "rag-rerank-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public List<Document> process(Query query, List<Document> documents) {
+        if (!properties.isEnabled() || documents.isEmpty()) {
+            return documents;
+        }
+        long start = System.nanoTime();
+        List<CompletableFuture<Document>> scored = documents.stream()
+                .map(document -> CompletableFuture.supplyAsync(
+                        () -> document.mutate().score(reranker.score(query, document)).build(), executor))
+                .toList();
+        List<Document> reranked = scored.stream()
+                .map(CompletableFuture::join)
+                .sorted(Comparator.comparing(Document::getScore).reversed())
+                .limit(topK)
+                .toList();
+        log.debug("[RAG-Rerank] 候选={}, 保留={}, 耗时={}us", documents.size(), reranked.size(),
+                (System.nanoTime() - start) / 1_000);
+        return reranked;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
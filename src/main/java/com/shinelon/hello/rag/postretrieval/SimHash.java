@@ -0,0 +1,73 @@
+package com.shinelon.hello.rag.postretrieval;
+
+import com.shinelon.hello.rag.retrieval.CjkTokenizer;
+
+import java.util.List;
+
+/**
+ * 64 位 SimHash 工具类
+ * 每个词项哈希成 64 位，按位累加（该位为 1 加权重，为 0 减权重），最终各位取符号得到指纹。
+ * 内容相近的文本指纹的汉明距离也小，可在 O(1) 时间内判断两个分块是否近似重复
+ *
+ * @author shinelon
+ */
+public final class SimHash {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+        // 工具类禁止实例化
+    }
+
+    /**
+     * 计算文本指纹，分词方式与 BM25 一致
+     */
+    public static long fingerprint(String text) {
+        return fingerprint(CjkTokenizer.tokenize(text));
+    }
+
+    /**
+     * 计算词项序列的指纹，重复出现的词项权重累加
+     */
+    public static long fingerprint(List<String> tokens) {
+        int[] weights = new int[Long.SIZE];
+        for (String token : tokens) {
+            long hash = hash(token);
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                weights[bit] += ((hash >>> bit) & 1L) == 1L ? 1 : -1;
+            }
+        }
+        long fingerprint = 0L;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * 两个指纹的汉明距离
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * FNV-1a 后再做一次 murmur3 fmix64 混淆，让短词项的各位分布更均匀
+     */
+    private static long hash(String token) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,87 @@
+package com.shinelon.hello.rag.query;
+
+import com.shinelon.hello.common.cache.LruTtlCache;
+import com.shinelon.hello.config.RagProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
+
+import java.util.regex.Pattern;
+
+/**
+ * 带缓存的查询改写
+ * 包装 RewriteQueryTransformer 等需要调用大模型的改写器：
+ * 1. 短查询、关键词式查询（错误码、电话号码、产品型号等）改写收益低，直接跳过
+ * 2. 其余查询按归一化文本缓存改写结果（LRU + TTL），相同问题只改写一次
+ * <p>
+ * 改写只替换查询文本，保留历史与上下文（如过滤表达式）。
+ * 指标：rag.query.rewrite{result=hit|miss|skipped}，rag.query.rewrite.cache.size
+ *
+ * @author shinelon
+ */
+@Slf4j
+public class CachingQueryTransformer implements QueryTransformer {
+
+    /**
+     * 关键词式查询：只由字母数字和常见连接符组成
+     */
+    private static final Pattern KEYWORD_LIKE = Pattern.compile("^[a-z0-9\\-_.:/#@+ ]+$");
+
+    private final QueryTransformer delegate;
+    private final RagProperties.QueryRewrite properties;
+    private final LruTtlCache<String, String> cache;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter skippedCounter;
+
+    public CachingQueryTransformer(QueryTransformer delegate, RagProperties.QueryRewrite properties,
+                                   MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.cache = new LruTtlCache<>(properties.getCacheMaxSize(), properties.getCacheTtl());
+        this.hitCounter = rewriteCounter(meterRegistry, "hit");
+        this.missCounter = rewriteCounter(meterRegistry, "miss");
+        this.skippedCounter = rewriteCounter(meterRegistry, "skipped");
+        Gauge.builder("rag.query.rewrite.cache.size", cache, LruTtlCache::size)
+                .description("查询改写缓存条目数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Query transform(Query query) {
+        String normalized = QueryNormalizer.normalize(query.text());
+        if (shouldSkip(normalized)) {
+            skippedCounter.increment();
+            log.debug("[RAG-Rewrite] 跳过改写: {}", normalized);
+            return query;
+        }
+
+        String rewritten = cache.get(normalized);
+        if (rewritten != null) {
+            hitCounter.increment();
+            log.debug("[RAG-Rewrite] 命中缓存: {} -> {}", normalized, rewritten);
+            return query.mutate().text(rewritten).build();
+        }
+
+        missCounter.increment();
+        Query transformed = delegate.transform(query);
+        cache.put(normalized, transformed.text());
+        return query.mutate().text(transformed.text()).build();
+    }
+
+    boolean shouldSkip(String normalized) {
+        return normalized.codePointCount(0, normalized.length()) <= properties.getSkipMaxLength()
+                || KEYWORD_LIKE.matcher(normalized).matches();
+    }
+
+    private static Counter rewriteCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("rag.query.rewrite")
+                .description("查询改写次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+package com.shinelon.hello.rag.query;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 查询归一化工具类
+ * 全角转半角、转小写、合并空白、去掉末尾标点，用作各级缓存的键，使近似相同的查询命中同一条目
+ *
+ * @author shinelon
+ */
+public final class QueryNormalizer {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[?？!！。.,，;；~～]+$");
+
+    private QueryNormalizer() {
+        // 工具类禁止实例化
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ");
+        return TRAILING_PUNCTUATION.matcher(normalized).replaceAll("");
+    }
+}
@@ -0,0 +1,255 @@
+package com.shinelon.hello.rag.retrieval;
+
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.model.vo.RagRetrievalTuningVO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.postretrieval.document.DocumentPostProcessor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 检索参数调节
+ * <ol>
+ *     <li>自适应 topK：候选按得分降序排列，至少保留 minK 篇、至多 maxK 篇，
+ *     其间某篇得分低于前一篇的 cliffRatio 倍（得分断崖）时截断。
+ *     简单问题通常只有一两篇高分文档，提示词更短；难的问题得分平缓，保留更多文档提高召回</li>
+ *     <li>按端点（simple / advanced / pipeline）运行时覆盖 topK、相似度阈值和断崖比例，重置后回到配置默认值</li>
+ *     <li>记录每次查询的得分分布：最高分、各候选相对最高分的比例、最终保留数和断崖截断次数，
+ *     指标名为 rag.retrieval.*，按 endpoint 打标签</li>
+ * </ol>
+ * 断崖按相邻得分的比例判断，不依赖得分的绝对尺度，余弦相似度、RRF 得分和重排序得分都适用
+ *
+ * @author shinelon
+ */
+@Slf4j
+public class AdaptiveRetrievalTuner {
+
+    public static final String SIMPLE = "simple";
+    public static final String ADVANCED = "advanced";
+    public static final String PIPELINE = "pipeline";
+
+    private static final List<String> ENDPOINTS = List.of(SIMPLE, ADVANCED, PIPELINE);
+
+    private final Settings defaults;
+    private final int maxLimit;
+    private final Map<String, Settings> overrides = new ConcurrentHashMap<>();
+    private final Map<String, EndpointMetrics> metrics = new LinkedHashMap<>();
+
+    /**
+     * @param ragProperties RAG 配置
+     * @param maxLimit      到达截取阶段的候选数，maxK 不能超过它
+     * @param meterRegistry 指标注册表
+     */
+    public AdaptiveRetrievalTuner(RagProperties ragProperties, int maxLimit, MeterRegistry meterRegistry) {
+        RagProperties.Adaptive adaptive = ragProperties.getAdaptive();
+        RagProperties.Retrieval retrieval = ragProperties.getRetrieval();
+        int fixedK = ragProperties.getRerank().isEnabled()
+                ? ragProperties.getRerank().getTopK()
+                : retrieval.getTopK();
+        this.defaults = adaptive.isEnabled()
+                ? new Settings(true, adaptive.getMinK(), adaptive.getMaxK(), retrieval.getSimilarityThreshold(),
+                        adaptive.getCliffRatio())
+                : new Settings(false, fixedK, fixedK, retrieval.getSimilarityThreshold(), adaptive.getCliffRatio());
+        this.maxLimit = maxLimit;
+        validate(defaults);
+        ENDPOINTS.forEach(endpoint -> metrics.put(endpoint, new EndpointMetrics(endpoint, meterRegistry)));
+    }
+
+    /**
+     * 端点当前生效的检索参数
+     */
+    public Settings settings(String endpoint) {
+        checkEndpoint(endpoint);
+        return overrides.getOrDefault(endpoint, defaults);
+    }
+
+    /**
+     * 运行时覆盖端点的检索参数
+     */
+    public void override(String endpoint, Settings settings) {
+        checkEndpoint(endpoint);
+        validate(settings);
+        overrides.put(endpoint, settings);
+        log.info("[RAG-Tuning] 检索参数已覆盖, endpoint={}, settings={}", endpoint, settings);
+    }
+
+    /**
+     * 去掉端点的运行时覆盖，回到配置默认值
+     */
+    public void reset(String endpoint) {
+        checkEndpoint(endpoint);
+        overrides.remove(endpoint);
+        log.info("[RAG-Tuning] 检索参数已重置, endpoint={}", endpoint);
+    }
+
+    /**
+     * 按端点参数截取按得分降序排列的文档，并记录得分分布
+     *
+     * @param endpoint 端点
+     * @param ranked   按得分降序排列的候选
+     * @return 保留的文档
+     */
+    public List<Document> select(String endpoint, List<Document> ranked) {
+        Settings settings = settings(endpoint);
+        int limit = Math.min(settings.maxK(), ranked.size());
+        int selected = settings.adaptive()
+                ? cliffCut(scores(ranked, limit), settings.minK(), settings.cliffRatio())
+                : limit;
+        metrics.get(endpoint).record(ranked, selected, selected < limit);
+        log.debug("[RAG-Tuning] endpoint={}, 候选={}, 保留={}", endpoint, ranked.size(), selected);
+        return selected == ranked.size() ? ranked : List.copyOf(ranked.subList(0, selected));
+    }
+
+    /**
+     * 作为检索后处理使用，放在重排序之后、上下文压缩之前
+     */
+    public DocumentPostProcessor postProcessor(String endpoint) {
+        checkEndpoint(endpoint);
+        return (query, documents) -> select(endpoint, documents);
+    }
+
+    /**
+     * 全部端点的参数与得分统计
+     */
+    public List<RagRetrievalTuningVO> describe() {
+        return ENDPOINTS.stream().map(this::describe).toList();
+    }
+
+    public RagRetrievalTuningVO describe(String endpoint) {
+        Settings settings = settings(endpoint);
+        EndpointMetrics endpointMetrics = metrics.get(endpoint);
+        return RagRetrievalTuningVO.builder()
+                .endpoint(endpoint)
+                .overridden(overrides.containsKey(endpoint))
+                .adaptive(settings.adaptive())
+                .minK(settings.minK())
+                .maxK(settings.maxK())
+                .similarityThreshold(settings.similarityThreshold())
+                .cliffRatio(settings.cliffRatio())
+                .queryCount(endpointMetrics.selected.count())
+                .meanSelected(endpointMetrics.selected.mean())
+                .meanTopScore(endpointMetrics.topScore.mean())
+                .cliffCount((long) endpointMetrics.cliffCuts.count())
+                .build();
+    }
+
+    /**
+     * 断崖截断
+     *
+     * @param scores     按降序排列的得分，长度即最多保留数，没有得分的位置为 NaN
+     * @param minK       最少保留数
+     * @param cliffRatio 断崖比例
+     * @return 保留数
+     */
+    static int cliffCut(double[] scores, int minK, double cliffRatio) {
+        for (int i = Math.max(minK, 1); i < scores.length; i++) {
+            double previous = scores[i - 1];
+            double current = scores[i];
+            if (Double.isNaN(previous) || Double.isNaN(current)) {
+                return scores.length;
+            }
+            if (previous <= 0 || current < previous * cliffRatio) {
+                return i;
+            }
+        }
+        return scores.length;
+    }
+
+    private static double[] scores(List<Document> ranked, int limit) {
+        double[] scores = new double[limit];
+        for (int i = 0; i < limit; i++) {
+            Double score = ranked.get(i).getScore();
+            scores[i] = score == null ? Double.NaN : score;
+        }
+        return scores;
+    }
+
+    private void validate(Settings settings) {
+        if (settings.minK() < 1 || settings.minK() > settings.maxK()) {
+            throw new IllegalArgumentException("minK 必须在 1 与 maxK 之间");
+        }
+        if (settings.maxK() > maxLimit) {
+            throw new IllegalArgumentException("maxK 不能超过检索返回的文档数 " + maxLimit);
+        }
+        if (settings.similarityThreshold() < 0 || settings.similarityThreshold() > 1) {
+            throw new IllegalArgumentException("相似度阈值必须在 0 与 1 之间");
+        }
+        if (settings.cliffRatio() < 0 || settings.cliffRatio() > 1) {
+            throw new IllegalArgumentException("断崖比例必须在 0 与 1 之间");
+        }
+    }
+
+    private static void checkEndpoint(String endpoint) {
+        if (!ENDPOINTS.contains(endpoint)) {
+            throw new IllegalArgumentException("未知的检索端点: " + endpoint);
+        }
+    }
+
+    /**
+     * 检索参数
+     *
+     * @param adaptive            是否按得分断崖自适应截取，否则固定取 maxK 篇
+     * @param minK                最少保留的文档数
+     * @param maxK                最多保留的文档数
+     * @param similarityThreshold 向量检索的相似度阈值
+     * @param cliffRatio          得分断崖比例
+     */
+    public record Settings(boolean adaptive, int minK, int maxK, double similarityThreshold, double cliffRatio) {
+    }
+
+    /**
+     * 单个端点的得分分布指标
+     */
+    private static final class EndpointMetrics {
+
+        private final DistributionSummary topScore;
+        private final DistributionSummary relativeScore;
+        private final DistributionSummary selected;
+        private final Counter cliffCuts;
+
+        private EndpointMetrics(String endpoint, MeterRegistry meterRegistry) {
+            this.topScore = DistributionSummary.builder("rag.retrieval.top.score")
+                    .description("每次检索的最高得分")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+            this.relativeScore = DistributionSummary.builder("rag.retrieval.relative.score")
+                    .description("候选得分与最高得分之比")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+            this.selected = DistributionSummary.builder("rag.retrieval.selected")
+                    .description("每次检索最终保留的文档数")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+            this.cliffCuts = Counter.builder("rag.retrieval.cliff")
+                    .description("因得分断崖提前截断的检索次数")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+        }
+
+        private void record(List<Document> ranked, int selectedCount, boolean cliff) {
+            selected.record(selectedCount);
+            if (cliff) {
+                cliffCuts.increment();
+            }
+            Double top = ranked.isEmpty() ? null : ranked.get(0).getScore();
+            if (top == null) {
+                return;
+            }
+            topScore.record(top);
+            if (top > 0) {
+                for (Document document : ranked) {
+                    if (document.getScore() != null) {
+                        relativeScore.record(document.getScore() / top);
+                    }
+                }
+            }
+        }
+    }
+}
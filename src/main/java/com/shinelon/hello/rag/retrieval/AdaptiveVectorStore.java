@@ -0,0 +1,58 @@
+package com.shinelon.hello.rag.retrieval;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+
+/**
+ * 按 {@link AdaptiveRetrievalTuner} 参数检索的向量存储
+ * QuestionAnswerAdvisor 的检索请求在构建时就固定了，也没有检索后处理的扩展点。
+ * 这里在检索时把 topK 和相似度阈值换成端点当前生效的参数（保留过滤表达式），再做自适应截取
+ *
+ * @author shinelon
+ */
+public class AdaptiveVectorStore implements VectorStore {
+
+    private final VectorStore delegate;
+    private final AdaptiveRetrievalTuner tuner;
+    private final String endpoint;
+
+    public AdaptiveVectorStore(VectorStore delegate, AdaptiveRetrievalTuner tuner, String endpoint) {
+        this.delegate = delegate;
+        this.tuner = tuner;
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        AdaptiveRetrievalTuner.Settings settings = tuner.settings(endpoint);
+        SearchRequest tuned = SearchRequest.from(request)
+                .topK(settings.maxK())
+                .similarityThreshold(settings.similarityThreshold())
+                .build();
+        return tuner.select(endpoint, delegate.similaritySearch(tuned));
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+}
@@ -0,0 +1,149 @@
+package com.shinelon.hello.rag.retrieval;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * 进程内 BM25 倒排索引
+ * 词项 -> (分块ID -> 词频)，写入/删除时同步维护文档长度与总长度，检索时实时计算 IDF。
+ * 读多写少，使用读写锁保护。
+ *
+ * @author shinelon
+ */
+public class Bm25Index {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+    private final Map<String, Map<String, Integer>> documentTerms = new HashMap<>();
+    private final Map<String, Integer> documentLengths = new HashMap<>();
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 写入分块，ID 已存在时替换
+     */
+    public void add(String id, String text) {
+        List<String> tokens = CjkTokenizer.tokenize(text);
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        for (String token : tokens) {
+            termFrequencies.merge(token, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            documentTerms.put(id, termFrequencies);
+            documentLengths.put(id, tokens.size());
+            totalLength += tokens.size();
+            termFrequencies.forEach((term, tf) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(id, tf));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+            documentLengths.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * BM25 检索
+     *
+     * @param query    查询文本
+     * @param limit    返回数量
+     * @param idFilter 分块过滤条件（如墓碑、元数据过滤）
+     * @return 按得分降序排列的分块
+     */
+    public List<ScoredId> search(String query, int limit, Predicate<String> idFilter) {
+        LinkedHashSet<String> queryTerms = new LinkedHashSet<>(CjkTokenizer.tokenize(query));
+        Map<String, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documentLengths.size();
+            if (documentCount == 0 || queryTerms.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / documentCount;
+            for (String term : queryTerms) {
+                Map<String, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (Map.Entry<String, Integer> entry : posting.entrySet()) {
+                    int tf = entry.getValue();
+                    double norm = K1 * (1 - B + B * documentLengths.get(entry.getKey()) / averageLength);
+                    scores.merge(entry.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<ScoredId> results = new ArrayList<>();
+        scores.forEach((id, score) -> {
+            if (idFilter.test(id)) {
+                results.add(new ScoredId(id, score));
+            }
+        });
+        results.sort((a, b) -> Double.compare(b.score(), a.score()));
+        return results.size() > limit ? results.subList(0, limit) : results;
+    }
+
+    private void removeInternal(String id) {
+        Map<String, Integer> termFrequencies = documentTerms.remove(id);
+        if (termFrequencies == null) {
+            return;
+        }
+        totalLength -= documentLengths.remove(id);
+        for (String term : termFrequencies.keySet()) {
+            Map<String, Integer> posting = postings.get(term);
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * 检索结果
+     *
+     * @param id    分块ID
+     * @param score BM25 得分
+     */
+    public record ScoredId(String id, double score) {
+    }
+}
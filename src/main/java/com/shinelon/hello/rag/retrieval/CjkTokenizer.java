@@ -0,0 +1,92 @@
+package com.shinelon.hello.rag.retrieval;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 面向中英混排文本的分词器
+ * <ul>
+ *     <li>连续的汉字/假名/韩文按二元组（bigram）切分，单个字单独成词，不依赖词典</li>
+ *     <li>字母数字串整体成词并转小写，内部的 - _ . 保留，便于精确匹配电话号码、错误码、版本号，
+ *     同时再按连接符拆出各段，例如 400-888-8888 产出 400-888-8888、400、888、8888</li>
+ *     <li>其余字符（空白、标点）作为分隔符</li>
+ * </ul>
+ *
+ * @author shinelon
+ */
+public final class CjkTokenizer {
+
+    private CjkTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        StringBuilder cjkRun = new StringBuilder();
+        StringBuilder wordRun = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                flushWord(wordRun, tokens);
+                cjkRun.append(c);
+            } else if (Character.isLetterOrDigit(c)) {
+                flushCjk(cjkRun, tokens);
+                wordRun.append(Character.toLowerCase(c));
+            } else if (isConnector(c) && !wordRun.isEmpty() && i + 1 < text.length()
+                    && Character.isLetterOrDigit(text.charAt(i + 1)) && !isCjk(text.charAt(i + 1))) {
+                wordRun.append(c);
+            } else {
+                flushCjk(cjkRun, tokens);
+                flushWord(wordRun, tokens);
+            }
+        }
+        flushCjk(cjkRun, tokens);
+        flushWord(wordRun, tokens);
+        return tokens;
+    }
+
+    private static void flushCjk(StringBuilder run, List<String> tokens) {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (run.length() == 1) {
+            tokens.add(run.toString());
+        } else {
+            for (int i = 0; i + 1 < run.length(); i++) {
+                tokens.add(run.substring(i, i + 2));
+            }
+        }
+        run.setLength(0);
+    }
+
+    private static void flushWord(StringBuilder run, List<String> tokens) {
+        if (run.isEmpty()) {
+            return;
+        }
+        String word = run.toString();
+        tokens.add(word);
+        if (word.chars().anyMatch(CjkTokenizer::isConnector)) {
+            for (String part : word.split("[-_.]")) {
+                if (!part.isEmpty()) {
+                    tokens.add(part);
+                }
+            }
+        }
+        run.setLength(0);
+    }
+
+    private static boolean isConnector(int c) {
+        return c == '-' || c == '_' || c == '.';
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,161 @@
+package com.shinelon.hello.rag.retrieval;
+
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.rag.store.KnowledgeVectorStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 混合检索器：向量检索 + BM25 关键词检索，倒数排名融合（RRF）
+ * <p>
+ * 向量检索需要调用嵌入模型，放到独立线程池执行；BM25 在内存中完成，在调用线程上并行进行。
+ * 两路各取 candidateK 个候选，按 RRF 得分 Σ 1/(k + rank) 融合后取 limit 个
+ * （默认 topK，启用重排序时为重排序的候选数），
+ * 融合后文档的 score 为 RRF 得分。
+ * 向量检索失败时降级为只用关键词检索的结果。
+ * 检索的向量存储可以按查询选择（例如按 context 中的命名空间），默认固定为同一个存储。
+ * context 中的 {@link #SIMILARITY_THRESHOLD} 覆盖配置的相似度阈值，用于按端点运行时调参。
+ *
+ * @author shinelon
+ */
+@Slf4j
+public class HybridDocumentRetriever implements DocumentRetriever, AutoCloseable {
+
+    /**
+     * 查询 context 中的相似度阈值键
+     */
+    public static final String SIMILARITY_THRESHOLD = "rag_similarity_threshold";
+
+    private final Function<Query, KnowledgeVectorStore> storeResolver;
+    private final RagProperties.Retrieval properties;
+    private final int limit;
+    private final ExecutorService executor;
+
+    public HybridDocumentRetriever(KnowledgeVectorStore vectorStore, RagProperties.Retrieval properties) {
+        this(vectorStore, properties, properties.getTopK());
+    }
+
+    /**
+     * @param vectorStore 向量存储
+     * @param properties  检索配置
+     * @param limit       融合后返回的文档数
+     */
+    public HybridDocumentRetriever(KnowledgeVectorStore vectorStore, RagProperties.Retrieval properties, int limit) {
+        this(query -> vectorStore, properties, limit);
+    }
+
+    /**
+     * @param storeResolver 按查询选择向量存储
+     * @param properties    检索配置
+     * @param limit         融合后返回的文档数
+     */
+    public HybridDocumentRetriever(Function<Query, KnowledgeVectorStore> storeResolver,
+                                   RagProperties.Retrieval properties, int limit) {
+        this.storeResolver = storeResolver;
+        this.properties = properties;
+        this.limit = limit;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(properties.getParallelism(), 1), task -> {
+            Thread thread = new Thread(task, "rag-retrieval-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public List<Document> retrieve(Query query) {
+        SearchRequest.Builder vectorRequest = SearchRequest.builder()
+                .query(query.text())
+                .topK(properties.getCandidateK())
+                .similarityThreshold(similarityThreshold(query));
+        SearchRequest.Builder keywordRequest = SearchRequest.builder()
+                .query(query.text())
+                .topK(properties.getCandidateK());
+        applyFilterExpression(query, vectorRequest, keywordRequest);
+        KnowledgeVectorStore vectorStore = storeResolver.apply(query);
+
+        CompletableFuture<List<Document>> denseFuture = CompletableFuture.supplyAsync(
+                () -> vectorStore.similaritySearch(vectorRequest.build()), executor);
+        List<Document> sparse = vectorStore.keywordSearch(keywordRequest.build());
+        List<Document> dense;
+        try {
+            dense = denseFuture.join();
+        } catch (CompletionException e) {
+            log.warn("[RAG-Hybrid] 向量检索失败, 降级为关键词检索, error={}", e.getCause().getMessage());
+            dense = List.of();
+        }
+
+        List<Document> fused = reciprocalRankFusion(List.of(dense, sparse), properties.getRrfK(), limit);
+        log.debug("[RAG-Hybrid] 向量命中={}, 关键词命中={}, 融合后={}", dense.size(), sparse.size(), fused.size());
+        return fused;
+    }
+
+    /**
+     * 倒数排名融合
+     *
+     * @param rankings 各路按相关性降序排列的结果
+     * @param k        平滑常数，通常取 60
+     * @param topK     返回数量
+     * @return 按 RRF 得分降序排列的文档
+     */
+    static List<Document> reciprocalRankFusion(List<List<Document>> rankings, int k, int topK) {
+        Map<String, Double> scores = new HashMap<>();
+        Map<String, Document> documents = new LinkedHashMap<>();
+        for (List<Document> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                Document document = ranking.get(rank);
+                scores.merge(document.getId(), 1.0 / (k + rank + 1), Double::sum);
+                documents.putIfAbsent(document.getId(), document);
+            }
+        }
+        List<String> ids = new ArrayList<>(documents.keySet());
+        ids.sort(Comparator.comparing((String id) -> scores.get(id)).reversed());
+        return ids.stream()
+                .limit(topK)
+                .map(id -> documents.get(id).mutate().score(scores.get(id)).build())
+                .toList();
+    }
+
+    private double similarityThreshold(Query query) {
+        return query.context().get(SIMILARITY_THRESHOLD) instanceof Number threshold
+                ? threshold.doubleValue()
+                : properties.getSimilarityThreshold();
+    }
+
+    /**
+     * 与 VectorStoreDocumentRetriever 一样，支持通过上下文传入过滤表达式
+     */
+    private void applyFilterExpression(Query query, SearchRequest.Builder... requests) {
+        Object filter = query.context().get(VectorStoreDocumentRetriever.FILTER_EXPRESSION);
+        for (SearchRequest.Builder request : requests) {
+            if (filter instanceof Filter.Expression expression) {
+                request.filterExpression(expression);
+            } else if (filter instanceof String text && !text.isBlank()) {
+                request.filterExpression(text);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
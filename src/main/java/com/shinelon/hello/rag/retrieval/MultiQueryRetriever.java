@@ -0,0 +1,133 @@
+package com.shinelon.hello.rag.retrieval;
+
+import com.shinelon.hello.config.RagProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.preretrieval.query.expansion.QueryExpander;
+import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多查询并发检索器
+ * <p>
+ * 原始查询的检索不等待查询改写，立即开始；改写完成后再用改写后的查询检索，
+ * 配置了查询扩展时，每个扩展查询也各自并发检索。所有结果按 RRF 融合后取 limit 个。
+ * 改写或扩展失败只会丢失对应的那一路结果，不影响原始查询的检索。
+ *
+ * @author shinelon
+ */
+@Slf4j
+public class MultiQueryRetriever implements DocumentRetriever, AutoCloseable {
+
+    private final DocumentRetriever retriever;
+    private final QueryTransformer rewriter;
+    private final QueryExpander expander;
+    private final RagProperties.Retrieval properties;
+    private final int limit;
+    private final ExecutorService executor;
+
+    /**
+     * @param retriever  单查询检索器
+     * @param rewriter   查询改写
+     * @param expander   查询扩展，为 null 时不扩展
+     * @param properties 检索配置
+     */
+    public MultiQueryRetriever(DocumentRetriever retriever, QueryTransformer rewriter, QueryExpander expander,
+                               RagProperties.Retrieval properties) {
+        this(retriever, rewriter, expander, properties, properties.getTopK());
+    }
+
+    /**
+     * @param retriever  单查询检索器
+     * @param rewriter   查询改写
+     * @param expander   查询扩展，为 null 时不扩展
+     * @param properties 检索配置
+     * @param limit      融合后返回的文档数
+     */
+    public MultiQueryRetriever(DocumentRetriever retriever, QueryTransformer rewriter, QueryExpander expander,
+                               RagProperties.Retrieval properties, int limit) {
+        this.retriever = retriever;
+        this.rewriter = rewriter;
+        this.expander = expander;
+        this.properties = properties;
+        this.limit = limit;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(properties.getParallelism(), 1), task -> {
+            Thread thread = new Thread(task, "rag-multi-query-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public List<Document> retrieve(Query query) {
+        return retrieveAsync(query).join();
+    }
+
+    /**
+     * 异步检索，返回的 future 在融合后的上下文就绪时完成
+     *
+     * @param query 原始查询，context 中的过滤表达式会带到每一路检索
+     * @return 融合后的文档
+     */
+    public CompletableFuture<List<Document>> retrieveAsync(Query query) {
+        long start = System.nanoTime();
+        List<CompletableFuture<List<Document>>> rankings = new ArrayList<>();
+        rankings.add(CompletableFuture.supplyAsync(() -> retriever.retrieve(query), executor));
+        rankings.add(CompletableFuture.supplyAsync(() -> rewriter.transform(query), executor)
+                .thenApplyAsync(rewritten -> rewritten.text().equals(query.text())
+                        ? List.<Document>of()
+                        : retriever.retrieve(rewritten), executor)
+                .exceptionally(e -> {
+                    log.warn("[RAG-MultiQuery] 改写查询检索失败, 忽略该路结果, error={}", e.getMessage());
+                    return List.of();
+                }));
+        if (expander != null) {
+            rankings.add(CompletableFuture.supplyAsync(() -> expander.expand(query), executor)
+                    .thenCompose(expanded -> retrieveExpanded(query, expanded))
+                    .exceptionally(e -> {
+                        log.warn("[RAG-MultiQuery] 扩展查询检索失败, 忽略该路结果, error={}", e.getMessage());
+                        return List.of();
+                    }));
+        }
+
+        return CompletableFuture.allOf(rankings.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    List<List<Document>> results = rankings.stream().map(CompletableFuture::join).toList();
+                    List<Document> fused = HybridDocumentRetriever.reciprocalRankFusion(results,
+                            properties.getRrfK(), limit);
+                    log.debug("[RAG-MultiQuery] 检索路数={}, 融合后={}, 耗时={}ms", results.size(), fused.size(),
+                            (System.nanoTime() - start) / 1_000_000);
+                    return fused;
+                });
+    }
+
+    /**
+     * 扩展查询各自并发检索，先在组内融合为一路，避免扩展数量放大其在总融合中的权重。
+     * 扩展查询沿用原始查询的 context，保证过滤表达式同样生效
+     */
+    private CompletableFuture<List<Document>> retrieveExpanded(Query original, List<Query> expanded) {
+        List<CompletableFuture<List<Document>>> futures = expanded.stream()
+                .filter(query -> !query.text().equals(original.text()))
+                .map(query -> original.mutate().text(query.text()).build())
+                .map(query -> CompletableFuture.supplyAsync(() -> retriever.retrieve(query), executor))
+                .toList();
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> HybridDocumentRetriever.reciprocalRankFusion(
+                        futures.stream().map(CompletableFuture::join).toList(),
+                        properties.getRrfK(), properties.getCandidateK()));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
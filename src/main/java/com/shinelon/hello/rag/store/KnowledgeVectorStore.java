@@ -0,0 +1,531 @@
+package com.shinelon.hello.rag.store;
+
+import com.shinelon.hello.rag.query.QueryNormalizer;
+import com.shinelon.hello.rag.retrieval.Bm25Index;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 知识库内存向量存储
+ * 与 SimpleVectorStore 一样做暴力余弦检索，区别在于：
+ * 1. add 时按批调用嵌入模型，而不是逐篇调用
+ * 2. 支持直接写入已计算好的向量，供摄取流水线批量并行嵌入后批量写入
+ * 3. 删除只打墓碑标记，检索时跳过，由 {@link #compact()} 在后台统一清理
+ * 4. 可以导出/恢复全部分块（含向量），用于快照持久化，启动时无需重新嵌入
+ * 5. 同步维护 BM25 倒排索引，支持关键词检索（{@link #keywordSearch(SearchRequest)}）
+ * 6. 按配置的元数据键（如 category）维护分区，过滤条件命中分区键时先圈定分区再计算相似度，
+ *    不再扫描全库；分区条件之外的过滤条件只在分区内逐条求值
+ * 7. 每次写入/删除递增版本号，向量检索结果按版本号缓存（{@link RetrievalCache}），热点查询跳过嵌入与检索
+ * 8. 增量估算常驻内存（向量 + 文本 + 元数据），可设置内存配额，写入会超出配额的批次直接拒绝；
+ *    配额按批检查，多个批次并发写入时可能小幅超出
+ *
+ * @author shinelon
+ */
+@Slf4j
+public class KnowledgeVectorStore implements VectorStore {
+
+    private final EmbeddingModel embeddingModel;
+    private final int embeddingBatchSize;
+
+    private final Map<String, StoredChunk> store = new ConcurrentHashMap<>();
+    private final Set<String> tombstones = ConcurrentHashMap.newKeySet();
+    private final Bm25Index keywordIndex = new Bm25Index();
+
+    /**
+     * 元数据分区：分区键 -> (取值 -> 分块ID)，只索引字符串取值
+     */
+    private final Map<String, Map<String, Set<String>>> partitions = new ConcurrentHashMap<>();
+
+    private final RetrievalCache retrievalCache;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private final long memoryQuotaBytes;
+
+    private final ExpressionParser expressionParser = new SpelExpressionParser();
+    private final FilterExpressionConverter filterExpressionConverter = new SimpleVectorStoreFilterExpressionConverter();
+
+    public KnowledgeVectorStore(EmbeddingModel embeddingModel, int embeddingBatchSize) {
+        this(embeddingModel, embeddingBatchSize, List.of());
+    }
+
+    public KnowledgeVectorStore(EmbeddingModel embeddingModel, int embeddingBatchSize, List<String> partitionKeys) {
+        this(embeddingModel, embeddingBatchSize, partitionKeys, RetrievalCache.disabled());
+    }
+
+    public KnowledgeVectorStore(EmbeddingModel embeddingModel, int embeddingBatchSize, List<String> partitionKeys,
+                                RetrievalCache retrievalCache) {
+        this(embeddingModel, embeddingBatchSize, partitionKeys, retrievalCache, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param memoryQuotaBytes 内存配额（估算字节数），超出后拒绝写入
+     */
+    public KnowledgeVectorStore(EmbeddingModel embeddingModel, int embeddingBatchSize, List<String> partitionKeys,
+                                RetrievalCache retrievalCache, long memoryQuotaBytes) {
+        if (embeddingBatchSize <= 0) {
+            throw new IllegalArgumentException("嵌入批大小必须大于0");
+        }
+        if (memoryQuotaBytes <= 0) {
+            throw new IllegalArgumentException("内存配额必须大于0");
+        }
+        this.embeddingModel = embeddingModel;
+        this.embeddingBatchSize = embeddingBatchSize;
+        this.retrievalCache = retrievalCache;
+        this.memoryQuotaBytes = memoryQuotaBytes;
+        partitionKeys.forEach(key -> partitions.put(key, new ConcurrentHashMap<>()));
+    }
+
+    @Override
+    public String getName() {
+        return "KnowledgeVectorStore";
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents == null || documents.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < documents.size(); from += embeddingBatchSize) {
+            List<Document> batch = documents.subList(from, Math.min(from + embeddingBatchSize, documents.size()));
+            List<String> texts = batch.stream().map(Document::getText).toList();
+            addEmbedded(batch, embeddingModel.embed(texts));
+        }
+    }
+
+    /**
+     * 写入已计算好向量的文档
+     *
+     * @param documents  文档列表
+     * @param embeddings 与文档一一对应的向量
+     */
+    public void addEmbedded(List<Document> documents, List<float[]> embeddings) {
+        if (documents.size() != embeddings.size()) {
+            throw new IllegalArgumentException("文档数量与向量数量不一致");
+        }
+        List<StoredChunk> chunks = new ArrayList<>(documents.size());
+        long growth = 0;
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            StoredChunk chunk = new StoredChunk(
+                    document.getId(), document.getText(), Map.copyOf(document.getMetadata()), embeddings.get(i));
+            StoredChunk old = store.get(chunk.id());
+            growth += chunk.estimatedBytes() - (old == null ? 0 : old.estimatedBytes());
+            chunks.add(chunk);
+        }
+        if (growth > 0 && estimatedBytes.get() + growth > memoryQuotaBytes) {
+            throw new IllegalStateException("向量库内存配额不足, 已用=" + estimatedBytes.get()
+                    + "B, 本批新增=" + growth + "B, 配额=" + memoryQuotaBytes + "B");
+        }
+        for (StoredChunk chunk : chunks) {
+            // 与 compact 对同一 key 互斥，重新写入的分块不会被清理掉
+            store.compute(chunk.id(), (id, old) -> {
+                tombstones.remove(id);
+                if (old != null) {
+                    unindexPartitions(old);
+                }
+                indexPartitions(chunk);
+                estimatedBytes.addAndGet(chunk.estimatedBytes() - (old == null ? 0 : old.estimatedBytes()));
+                return chunk;
+            });
+            keywordIndex.add(chunk.id(), chunk.text());
+        }
+        version.incrementAndGet();
+        log.debug("[RAG-Store] 写入 {} 个分块, 当前总数={}", documents.size(), size());
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        boolean changed = false;
+        for (String id : idList) {
+            if (store.containsKey(id)) {
+                changed |= tombstones.add(id);
+                keywordIndex.remove(id);
+            }
+        }
+        if (changed) {
+            version.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        ScanPlan plan = planScan(filterExpression);
+        Predicate<StoredChunk> predicate = plan.exact() ? chunk -> true : filterPredicate(filterExpression);
+        long deleted = candidates(plan).stream()
+                .filter(predicate)
+                .filter(chunk -> {
+                    keywordIndex.remove(chunk.id());
+                    return tombstones.add(chunk.id());
+                })
+                .count();
+        if (deleted > 0) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * 清理打了墓碑标记的分块
+     *
+     * @return 清理的分块数
+     */
+    public int compact() {
+        int removed = 0;
+        for (String id : List.copyOf(tombstones)) {
+            boolean[] dropped = new boolean[1];
+            store.computeIfPresent(id, (key, chunk) -> {
+                dropped[0] = tombstones.remove(key);
+                if (dropped[0]) {
+                    unindexPartitions(chunk);
+                    estimatedBytes.addAndGet(-chunk.estimatedBytes());
+                }
+                return dropped[0] ? null : chunk;
+            });
+            if (dropped[0]) {
+                removed++;
+            } else if (!store.containsKey(id)) {
+                tombstones.remove(id);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        ScanPlan plan = planScan(request.getFilterExpression());
+        if (plan.ids() != null && plan.ids().isEmpty()) {
+            return List.of();
+        }
+        // 先取版本号再检索，检索期间有写入时缓存的结果会因版本号落后而失效
+        long currentVersion = version.get();
+        String normalizedQuery = QueryNormalizer.normalize(request.getQuery());
+        RetrievalCache.ResultKey cacheKey = new RetrievalCache.ResultKey(normalizedQuery, request.getTopK(),
+                request.getSimilarityThreshold(), String.valueOf(request.getFilterExpression()));
+        List<Document> cached = fromCache(retrievalCache.getResult(cacheKey, currentVersion));
+        if (cached != null) {
+            return cached;
+        }
+
+        Predicate<StoredChunk> predicate = plan.exact() ? chunk -> true : filterPredicate(request.getFilterExpression());
+        float[] queryEmbedding = retrievalCache.getEmbedding(normalizedQuery);
+        if (queryEmbedding == null) {
+            queryEmbedding = embeddingModel.embed(request.getQuery());
+            retrievalCache.putEmbedding(normalizedQuery, queryEmbedding);
+        }
+
+        List<Document> results = new ArrayList<>();
+        for (StoredChunk chunk : candidates(plan)) {
+            if (tombstones.contains(chunk.id()) || !predicate.test(chunk)) {
+                continue;
+            }
+            double score = cosineSimilarity(queryEmbedding, chunk.embedding());
+            if (score >= request.getSimilarityThreshold()) {
+                results.add(chunk.toDocument(score));
+            }
+        }
+        results.sort(Comparator.comparing(Document::getScore).reversed());
+        List<Document> topK = results.size() > request.getTopK() ? results.subList(0, request.getTopK()) : results;
+        retrievalCache.putResult(cacheKey, currentVersion, topK.stream()
+                .map(document -> new RetrievalCache.ScoredChunk(document.getId(), document.getScore()))
+                .toList());
+        return topK;
+    }
+
+    private List<Document> fromCache(List<RetrievalCache.ScoredChunk> cached) {
+        if (cached == null) {
+            return null;
+        }
+        List<Document> documents = new ArrayList<>(cached.size());
+        for (RetrievalCache.ScoredChunk scored : cached) {
+            StoredChunk chunk = store.get(scored.id());
+            if (chunk == null || tombstones.contains(scored.id())) {
+                return null;
+            }
+            documents.add(chunk.toDocument(scored.score()));
+        }
+        return documents;
+    }
+
+    /**
+     * BM25 关键词检索，忽略相似度阈值，支持过滤表达式
+     *
+     * @param request 检索请求
+     * @return 按 BM25 得分降序排列的分块，score 为 BM25 得分
+     */
+    public List<Document> keywordSearch(SearchRequest request) {
+        ScanPlan plan = planScan(request.getFilterExpression());
+        Predicate<StoredChunk> predicate = plan.exact() ? chunk -> true : filterPredicate(request.getFilterExpression());
+        return keywordIndex.search(request.getQuery(), request.getTopK(), id -> {
+                    if (plan.ids() != null && !plan.ids().contains(id)) {
+                        return false;
+                    }
+                    StoredChunk chunk = store.get(id);
+                    return chunk != null && !tombstones.contains(id) && predicate.test(chunk);
+                }).stream()
+                .map(scored -> {
+                    StoredChunk chunk = store.get(scored.id());
+                    return chunk == null ? null : Document.builder()
+                            .id(chunk.id())
+                            .text(chunk.text())
+                            .metadata(new HashMap<>(chunk.metadata()))
+                            .score(scored.score())
+                            .build();
+                })
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * 导出有效（未删除）的分块
+     */
+    List<StoredChunk> liveChunks() {
+        return store.values().stream()
+                .filter(chunk -> !tombstones.contains(chunk.id()))
+                .toList();
+    }
+
+    /**
+     * 用快照中的分块替换当前全部内容
+     */
+    void restore(List<StoredChunk> chunks) {
+        store.clear();
+        tombstones.clear();
+        keywordIndex.clear();
+        partitions.values().forEach(Map::clear);
+        estimatedBytes.set(0);
+        for (StoredChunk chunk : chunks) {
+            store.put(chunk.id(), chunk);
+            estimatedBytes.addAndGet(chunk.estimatedBytes());
+            keywordIndex.add(chunk.id(), chunk.text());
+            indexPartitions(chunk);
+        }
+        version.incrementAndGet();
+        log.info("[RAG-Store] 从快照恢复 {} 个分块", chunks.size());
+    }
+
+    /**
+     * 当前有效（未删除）的分块数量
+     */
+    public int size() {
+        return store.size() - tombstones.size();
+    }
+
+    /**
+     * 版本号，每次写入/删除递增
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * 估算的常驻内存字节数，墓碑分块在压缩前仍然计入
+     */
+    public long estimatedBytes() {
+        return estimatedBytes.get();
+    }
+
+    /**
+     * 内存配额（估算字节数）
+     */
+    public long memoryQuotaBytes() {
+        return memoryQuotaBytes;
+    }
+
+    /**
+     * 待清理的墓碑数量
+     */
+    public int tombstoneCount() {
+        return tombstones.size();
+    }
+
+    /**
+     * 根据过滤条件圈定扫描范围
+     * EQ / IN 命中分区键时取对应分区；AND 取两侧中较小的候选集；OR 两侧都能圈定时取并集；其余全量扫描
+     */
+    ScanPlan planScan(Filter.Operand operand) {
+        if (operand == null) {
+            return ScanPlan.FULL_EXACT;
+        }
+        if (operand instanceof Filter.Group group) {
+            return planScan(group.content());
+        }
+        if (!(operand instanceof Filter.Expression expression)) {
+            return ScanPlan.FULL;
+        }
+        return switch (expression.type()) {
+            case EQ, IN -> planPartition(expression);
+            case AND -> {
+                ScanPlan left = planScan(expression.left());
+                ScanPlan right = planScan(expression.right());
+                if (left.ids() == null && right.ids() == null) {
+                    yield ScanPlan.FULL;
+                }
+                Set<String> smaller = left.ids() == null ? right.ids()
+                        : right.ids() == null || left.ids().size() <= right.ids().size() ? left.ids() : right.ids();
+                yield new ScanPlan(smaller, false);
+            }
+            case OR -> {
+                ScanPlan left = planScan(expression.left());
+                ScanPlan right = planScan(expression.right());
+                if (left.ids() == null || right.ids() == null) {
+                    yield ScanPlan.FULL;
+                }
+                Set<String> union = new HashSet<>(left.ids());
+                union.addAll(right.ids());
+                yield new ScanPlan(union, left.exact() && right.exact());
+            }
+            default -> ScanPlan.FULL;
+        };
+    }
+
+    private ScanPlan planPartition(Filter.Expression expression) {
+        if (!(expression.left() instanceof Filter.Key key) || !(expression.right() instanceof Filter.Value value)) {
+            return ScanPlan.FULL;
+        }
+        Map<String, Set<String>> partition = partitions.get(key.key());
+        if (partition == null) {
+            return ScanPlan.FULL;
+        }
+        List<?> values = expression.type() == Filter.ExpressionType.IN && value.value() instanceof List<?> list
+                ? list : List.of(value.value());
+        Set<String> ids = new HashSet<>();
+        for (Object partitionValue : values) {
+            if (!(partitionValue instanceof String text)) {
+                return ScanPlan.FULL;
+            }
+            ids.addAll(partition.getOrDefault(text, Set.of()));
+        }
+        return new ScanPlan(ids, true);
+    }
+
+    private Collection<StoredChunk> candidates(ScanPlan plan) {
+        if (plan.ids() == null) {
+            return store.values();
+        }
+        List<StoredChunk> chunks = new ArrayList<>(plan.ids().size());
+        for (String id : plan.ids()) {
+            StoredChunk chunk = store.get(id);
+            if (chunk != null) {
+                chunks.add(chunk);
+            }
+        }
+        return chunks;
+    }
+
+    private void indexPartitions(StoredChunk chunk) {
+        partitions.forEach((key, partition) -> {
+            if (chunk.metadata().get(key) instanceof String value) {
+                partition.computeIfAbsent(value, v -> ConcurrentHashMap.newKeySet()).add(chunk.id());
+            }
+        });
+    }
+
+    private void unindexPartitions(StoredChunk chunk) {
+        partitions.forEach((key, partition) -> {
+            if (chunk.metadata().get(key) instanceof String value) {
+                Set<String> ids = partition.get(value);
+                if (ids != null) {
+                    ids.remove(chunk.id());
+                }
+            }
+        });
+    }
+
+    private Predicate<StoredChunk> filterPredicate(Filter.Expression filterExpression) {
+        if (filterExpression == null) {
+            return chunk -> true;
+        }
+        Expression expression = expressionParser.parseExpression(
+                filterExpressionConverter.convertExpression(filterExpression));
+        return chunk -> {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("metadata", chunk.metadata());
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+
+    static double cosineSimilarity(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("向量维度不一致");
+        }
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        if (normA == 0 || normB == 0) {
+            return 0;
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+
+    /**
+     * 扫描范围
+     *
+     * @param ids   候选分块ID，null 表示全量扫描
+     * @param exact 候选集是否恰好满足过滤条件，是则无需逐条求值过滤表达式
+     */
+    record ScanPlan(Set<String> ids, boolean exact) {
+
+        static final ScanPlan FULL = new ScanPlan(null, false);
+        static final ScanPlan FULL_EXACT = new ScanPlan(null, true);
+    }
+
+    /**
+     * 存储的分块
+     */
+    record StoredChunk(String id, String text, Map<String, Object> metadata, float[] embedding) {
+
+        /**
+         * 每个分块在 Map 条目、对象头、BM25 倒排中的固定开销估算
+         */
+        private static final long OVERHEAD_BYTES = 256;
+
+        /**
+         * 每个元数据条目的估算开销
+         */
+        private static final long METADATA_ENTRY_BYTES = 64;
+
+        long estimatedBytes() {
+            return OVERHEAD_BYTES + (long) Float.BYTES * embedding.length + 2L * text.length()
+                    + METADATA_ENTRY_BYTES * metadata.size();
+        }
+
+        Document toDocument(double score) {
+            Map<String, Object> resultMetadata = new HashMap<>(metadata);
+            resultMetadata.put(DocumentMetadata.DISTANCE.value(), 1 - score);
+            return Document.builder()
+                    .id(id)
+                    .text(text)
+                    .metadata(resultMetadata)
+                    .score(score)
+                    .build();
+        }
+    }
+}
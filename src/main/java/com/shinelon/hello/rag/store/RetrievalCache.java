@@ -0,0 +1,132 @@
+package com.shinelon.hello.rag.store;
+
+import com.shinelon.hello.common.cache.LruTtlCache;
+import com.shinelon.hello.config.RagProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.List;
+
+/**
+ * 检索结果缓存
+ * 两级缓存，键均为归一化后的查询：
+ * 1. 查询向量：与向量库内容无关，只受 TTL 与容量限制
+ * 2. 检索结果（topK 分块ID与得分）：记录写入时的向量库版本号，向量库每次写入/删除都会递增版本号，
+ *    读取时版本号不一致即视为失效
+ * <p>
+ * 指标：rag.retrieval.cache{result=hit|miss|stale}，rag.embedding.cache{result=hit|miss}
+ *
+ * @author shinelon
+ */
+public class RetrievalCache {
+
+    private static final RetrievalCache DISABLED = new RetrievalCache();
+
+    private final boolean enabled;
+    private final LruTtlCache<String, float[]> embeddings;
+    private final LruTtlCache<ResultKey, CachedResult> results;
+
+    private final Counter resultHitCounter;
+    private final Counter resultMissCounter;
+    private final Counter resultStaleCounter;
+    private final Counter embeddingHitCounter;
+    private final Counter embeddingMissCounter;
+
+    private RetrievalCache() {
+        this.enabled = false;
+        this.embeddings = null;
+        this.results = null;
+        this.resultHitCounter = null;
+        this.resultMissCounter = null;
+        this.resultStaleCounter = null;
+        this.embeddingHitCounter = null;
+        this.embeddingMissCounter = null;
+    }
+
+    public RetrievalCache(RagProperties.RetrievalCache properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.embeddings = new LruTtlCache<>(properties.getEmbeddingMaxSize(), properties.getEmbeddingTtl());
+        this.results = new LruTtlCache<>(properties.getMaxSize(), properties.getTtl());
+        this.resultHitCounter = counter(meterRegistry, "rag.retrieval.cache", "hit");
+        this.resultMissCounter = counter(meterRegistry, "rag.retrieval.cache", "miss");
+        this.resultStaleCounter = counter(meterRegistry, "rag.retrieval.cache", "stale");
+        this.embeddingHitCounter = counter(meterRegistry, "rag.embedding.cache", "hit");
+        this.embeddingMissCounter = counter(meterRegistry, "rag.embedding.cache", "miss");
+    }
+
+    /**
+     * 不缓存
+     */
+    public static RetrievalCache disabled() {
+        return DISABLED;
+    }
+
+    float[] getEmbedding(String normalizedQuery) {
+        if (!enabled) {
+            return null;
+        }
+        float[] embedding = embeddings.get(normalizedQuery);
+        (embedding != null ? embeddingHitCounter : embeddingMissCounter).increment();
+        return embedding;
+    }
+
+    void putEmbedding(String normalizedQuery, float[] embedding) {
+        if (enabled) {
+            embeddings.put(normalizedQuery, embedding);
+        }
+    }
+
+    /**
+     * 读取检索结果
+     *
+     * @param version 当前向量库版本号
+     * @return 未命中或版本号不一致时返回 null
+     */
+    List<ScoredChunk> getResult(ResultKey key, long version) {
+        if (!enabled) {
+            return null;
+        }
+        CachedResult cached = results.get(key);
+        if (cached == null) {
+            resultMissCounter.increment();
+            return null;
+        }
+        if (cached.version() != version) {
+            resultStaleCounter.increment();
+            results.invalidate(key);
+            return null;
+        }
+        resultHitCounter.increment();
+        return cached.chunks();
+    }
+
+    void putResult(ResultKey key, long version, List<ScoredChunk> chunks) {
+        if (enabled) {
+            results.put(key, new CachedResult(version, List.copyOf(chunks)));
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder(name).tag("result", result).register(meterRegistry);
+    }
+
+    /**
+     * 检索结果缓存键
+     *
+     * @param query     归一化后的查询
+     * @param topK      返回数量
+     * @param threshold 相似度阈值
+     * @param filter    过滤表达式
+     */
+    record ResultKey(String query, int topK, double threshold, String filter) {
+    }
+
+    /**
+     * 缓存的检索结果
+     */
+    record ScoredChunk(String id, double score) {
+    }
+
+    private record CachedResult(long version, List<ScoredChunk> chunks) {
+    }
+}
@@ -0,0 +1,290 @@
+package com.shinelon.hello.rag.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.model.vo.RagSnapshotVO;
+import com.shinelon.hello.rag.ingest.DocumentRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 向量索引快照
+ * 把全部分块（ID、文本、元数据、向量）和文档登记表写入带版本号的二进制文件，
+ * 启动时直接加载，不需要重新调用嵌入模型。
+ * <p>
+ * 快照头记录嵌入模型指纹（模型实现 + 模型名称 + 分块大小），与当前配置不一致时拒绝加载，
+ * 由调用方回退到全量重建。
+ * <p>
+ * 默认读写主知识库的快照文件，也可以指定向量存储、登记表和文件，供命名空间卸载到磁盘时复用同一格式。
+ *
+ * @author shinelon
+ */
+@Slf4j
+@Component
+public class VectorIndexSnapshot {
+
+    /**
+     * 文件魔数 "RAGS"
+     */
+    private static final int MAGIC = 0x52414753;
+    private static final int FORMAT_VERSION = 2;
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    private final KnowledgeVectorStore vectorStore;
+    private final DocumentRegistry documentRegistry;
+    private final ObjectMapper objectMapper;
+    private final RagProperties.Snapshot properties;
+    private final String fingerprint;
+
+    public VectorIndexSnapshot(KnowledgeVectorStore vectorStore, DocumentRegistry documentRegistry,
+                               EmbeddingModel embeddingModel, ObjectMapper objectMapper,
+                               RagProperties ragProperties) {
+        this.vectorStore = vectorStore;
+        this.documentRegistry = documentRegistry;
+        this.objectMapper = objectMapper;
+        this.properties = ragProperties.getSnapshot();
+        this.fingerprint = fingerprint(embeddingModel, ragProperties);
+    }
+
+    /**
+     * 嵌入模型指纹，也作为文档登记表中的嵌入模型版本
+     */
+    public static String fingerprint(EmbeddingModel embeddingModel, RagProperties ragProperties) {
+        return embeddingModel.getClass().getName()
+                + "|" + ragProperties.getSnapshot().getEmbeddingModel()
+                + "|chunkSize=" + ragProperties.getIngestion().getChunkSize();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * 保存快照，先写临时文件再原子替换，保存中途失败不会破坏旧快照
+     *
+     * @return 快照信息
+     */
+    public RagSnapshotVO save() {
+        return save(vectorStore, documentRegistry, Path.of(properties.getPath()));
+    }
+
+    /**
+     * 把指定的向量存储和登记表保存到指定文件
+     *
+     * @param store    向量存储
+     * @param registry 文档登记表
+     * @param file     快照文件
+     * @return 快照信息
+     */
+    public synchronized RagSnapshotVO save(KnowledgeVectorStore store, DocumentRegistry registry, Path file) {
+        long start = System.currentTimeMillis();
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        List<KnowledgeVectorStore.StoredChunk> chunks = store.liveChunks();
+        Collection<DocumentRegistry.IndexedDocument> documents = registry.documents();
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+                writeHeader(out, chunks);
+                for (KnowledgeVectorStore.StoredChunk chunk : chunks) {
+                    writeChunk(out, chunk);
+                }
+                out.writeInt(documents.size());
+                for (DocumentRegistry.IndexedDocument document : documents) {
+                    writeDocument(out, document);
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            RagSnapshotVO snapshot = RagSnapshotVO.builder()
+                    .path(file.toString())
+                    .fingerprint(fingerprint)
+                    .chunkCount(chunks.size())
+                    .documentCount(documents.size())
+                    .sizeBytes(Files.size(file))
+                    .elapsedMillis(System.currentTimeMillis() - start)
+                    .build();
+            log.info("[RAG-Snapshot] 快照已保存, path={}, 分块={}, 文档={}, 大小={}B, 耗时={}ms",
+                    file, snapshot.getChunkCount(), snapshot.getDocumentCount(),
+                    snapshot.getSizeBytes(), snapshot.getElapsedMillis());
+            return snapshot;
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存向量索引快照失败: " + file, e);
+        }
+    }
+
+    /**
+     * 加载快照
+     *
+     * @return 是否加载成功；文件不存在、版本或指纹不一致、文件损坏时返回 false，由调用方重建
+     */
+    public boolean load() {
+        return load(vectorStore, documentRegistry, Path.of(properties.getPath()));
+    }
+
+    /**
+     * 从指定文件加载到指定的向量存储和登记表
+     *
+     * @param store    向量存储
+     * @param registry 文档登记表
+     * @param file     快照文件
+     * @return 是否加载成功
+     */
+    public synchronized boolean load(KnowledgeVectorStore store, DocumentRegistry registry, Path file) {
+        if (!Files.exists(file)) {
+            log.info("[RAG-Snapshot] 快照不存在, 将全量重建, path={}", file);
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                log.warn("[RAG-Snapshot] 快照文件格式不正确, 将全量重建, path={}", file);
+                return false;
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                log.warn("[RAG-Snapshot] 快照版本不一致, 将全量重建, expected={}, actual={}", FORMAT_VERSION, version);
+                return false;
+            }
+            String snapshotFingerprint = in.readUTF();
+            if (!fingerprint.equals(snapshotFingerprint)) {
+                log.warn("[RAG-Snapshot] 嵌入模型指纹不一致, 将全量重建, expected={}, actual={}",
+                        fingerprint, snapshotFingerprint);
+                return false;
+            }
+            in.readLong();
+            int dimensions = in.readInt();
+            int chunkCount = in.readInt();
+
+            List<KnowledgeVectorStore.StoredChunk> chunks = new ArrayList<>(chunkCount);
+            ByteBuffer vectorBuffer = ByteBuffer.allocate(dimensions * Float.BYTES);
+            for (int i = 0; i < chunkCount; i++) {
+                chunks.add(readChunk(in, vectorBuffer, dimensions));
+            }
+            int documentCount = in.readInt();
+            List<DocumentRegistry.IndexedDocument> documents = new ArrayList<>(documentCount);
+            for (int i = 0; i < documentCount; i++) {
+                documents.add(readDocument(in));
+            }
+
+            store.restore(chunks);
+            registry.restore(documents);
+            log.info("[RAG-Snapshot] 快照已加载, path={}, 分块={}, 文档={}, 耗时={}ms",
+                    file, chunkCount, documentCount, System.currentTimeMillis() - start);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("[RAG-Snapshot] 快照读取失败, 将全量重建, path={}, error={}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 应用关闭时保存快照
+     */
+    @PreDestroy
+    public void saveOnShutdown() {
+        if (!properties.isEnabled() || !properties.isSaveOnShutdown()) {
+            return;
+        }
+        try {
+            save();
+        } catch (RuntimeException e) {
+            log.warn("[RAG-Snapshot] 关闭时保存快照失败, error={}", e.getMessage());
+        }
+    }
+
+    private void writeHeader(DataOutputStream out, List<KnowledgeVectorStore.StoredChunk> chunks) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(fingerprint);
+        out.writeLong(System.currentTimeMillis());
+        out.writeInt(chunks.isEmpty() ? 0 : chunks.get(0).embedding().length);
+        out.writeInt(chunks.size());
+    }
+
+    private void writeChunk(DataOutputStream out, KnowledgeVectorStore.StoredChunk chunk) throws IOException {
+        out.writeUTF(chunk.id());
+        writeBytes(out, chunk.text().getBytes(StandardCharsets.UTF_8));
+        writeBytes(out, objectMapper.writeValueAsBytes(chunk.metadata()));
+        ByteBuffer vectorBuffer = ByteBuffer.allocate(chunk.embedding().length * Float.BYTES);
+        vectorBuffer.asFloatBuffer().put(chunk.embedding());
+        out.write(vectorBuffer.array());
+    }
+
+    private KnowledgeVectorStore.StoredChunk readChunk(DataInputStream in, ByteBuffer vectorBuffer, int dimensions)
+            throws IOException {
+        String id = in.readUTF();
+        String text = new String(readBytes(in), StandardCharsets.UTF_8);
+        Map<String, Object> metadata = objectMapper.readValue(readBytes(in), METADATA_TYPE);
+        in.readFully(vectorBuffer.array());
+        float[] embedding = new float[dimensions];
+        vectorBuffer.asFloatBuffer().get(embedding);
+        return new KnowledgeVectorStore.StoredChunk(id, text, Map.copyOf(metadata), embedding);
+    }
+
+    private void writeDocument(DataOutputStream out, DocumentRegistry.IndexedDocument document) throws IOException {
+        out.writeUTF(document.documentId());
+        out.writeUTF(document.contentHash());
+        out.writeInt(document.chunkHashes().size());
+        for (String chunkHash : document.chunkHashes()) {
+            out.writeUTF(chunkHash);
+        }
+        out.writeLong(document.bytes());
+        out.writeUTF(document.embeddingVersion());
+        out.writeLong(document.indexedAt());
+    }
+
+    private DocumentRegistry.IndexedDocument readDocument(DataInputStream in) throws IOException {
+        String documentId = in.readUTF();
+        String contentHash = in.readUTF();
+        int chunkCount = in.readInt();
+        List<String> chunkHashes = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            chunkHashes.add(in.readUTF());
+        }
+        long bytes = in.readLong();
+        String embeddingVersion = in.readUTF();
+        return new DocumentRegistry.IndexedDocument(documentId, contentHash, chunkHashes, bytes, embeddingVersion,
+                in.readLong());
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,32 @@
+package com.shinelon.hello.rag.store;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 向量库后台压缩任务
+ * 定期清理打了墓碑标记的分块，删除与更新操作本身只打标记，不阻塞在清理上
+ *
+ * @author shinelon
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VectorStoreCompactor {
+
+    private final KnowledgeVectorStore vectorStore;
+
+    @Scheduled(fixedDelayString = "${rag.index.compaction-interval:PT1M}",
+            initialDelayString = "${rag.index.compaction-interval:PT1M}")
+    public void compact() {
+        if (vectorStore.tombstoneCount() == 0) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int removed = vectorStore.compact();
+        log.info("[RAG-Store] 压缩完成, 清理分块={}, 剩余分块={}, 耗时={}ms",
+                removed, vectorStore.size(), System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,64 @@
+package com.shinelon.hello.service;
+
+import com.shinelon.hello.model.dto.MemoryClearRequestDTO;
+import com.shinelon.hello.model.dto.MemoryExportRequestDTO;
+import com.shinelon.hello.model.dto.MemoryImportRequestDTO;
+import com.shinelon.hello.model.vo.MemoryJobVO;
+
+import java.util.List;
+
+/**
+ * 对话记忆管理服务接口
+ * 批量操作以后台任务执行，提交后立即返回任务信息，通过任务ID查询进度
+ *
+ * @author shinelon
+ */
+public interface MemoryAdminService {
+
+    /**
+     * 提交批量清理任务
+     *
+     * @param request 清理条件
+     * @return 任务信息
+     */
+    MemoryJobVO submitClear(MemoryClearRequestDTO request);
+
+    /**
+     * 提交导出任务
+     *
+     * @param request 请求
+     * @return 任务信息
+     */
+    MemoryJobVO submitExport(MemoryExportRequestDTO request);
+
+    /**
+     * 提交导入任务
+     *
+     * @param request 请求
+     * @return 任务信息
+     */
+    MemoryJobVO submitImport(MemoryImportRequestDTO request);
+
+    /**
+     * 查询任务进度
+     *
+     * @param jobId 任务ID
+     * @return 任务信息
+     */
+    MemoryJobVO getJob(String jobId);
+
+    /**
+     * 查询全部任务，最近提交的在前
+     *
+     * @return 任务列表
+     */
+    List<MemoryJobVO> listJobs();
+
+    /**
+     * 取消任务
+     *
+     * @param jobId 任务ID
+     * @return 取消后的任务信息
+     */
+    MemoryJobVO cancelJob(String jobId);
+}
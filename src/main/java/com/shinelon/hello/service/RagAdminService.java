@@ -0,0 +1,93 @@
+package com.shinelon.hello.service;
+
+import com.shinelon.hello.model.dto.RagDocumentUpsertDTO;
+import com.shinelon.hello.model.dto.RagIngestRequestDTO;
+import com.shinelon.hello.model.dto.RagRetrievalTuningDTO;
+import com.shinelon.hello.model.vo.RagDocumentSourceVO;
+import com.shinelon.hello.model.vo.RagIngestReportVO;
+import com.shinelon.hello.model.vo.RagNamespaceVO;
+import com.shinelon.hello.model.vo.RagRetrievalTuningVO;
+import com.shinelon.hello.model.vo.RagSnapshotVO;
+
+import java.util.List;
+
+/**
+ * RAG 知识库管理服务接口
+ *
+ * @author shinelon
+ */
+public interface RagAdminService {
+
+    /**
+     * 摄取本地文件或目录
+     *
+     * @param request 请求
+     * @return 摄取报告
+     */
+    RagIngestReportVO ingest(RagIngestRequestDTO request);
+
+    /**
+     * 新增或更新单篇文档，只重新嵌入变化的分块
+     *
+     * @param documentId 文档ID
+     * @param request    请求
+     * @return 摄取报告
+     */
+    RagIngestReportVO upsertDocument(String documentId, RagDocumentUpsertDTO request);
+
+    /**
+     * 删除单篇文档
+     *
+     * @param documentId 文档ID
+     * @param namespace  知识库命名空间，为空时为默认知识库
+     */
+    void deleteDocument(String documentId, String namespace);
+
+    /**
+     * 分页查询文档来源目录，按文档ID排序
+     *
+     * @param namespace 知识库命名空间，为空时为默认知识库
+     * @param page      页码（从0开始）
+     * @param size      每页大小
+     * @return 文档来源列表
+     */
+    List<RagDocumentSourceVO> listSources(String namespace, int page, int size);
+
+    /**
+     * 列出全部知识库命名空间
+     *
+     * @return 命名空间列表
+     */
+    List<RagNamespaceVO> listNamespaces();
+
+    /**
+     * 各检索端点当前生效的参数与得分统计
+     *
+     * @return 端点列表
+     */
+    List<RagRetrievalTuningVO> listRetrievalTuning();
+
+    /**
+     * 运行时覆盖检索端点的参数，未填写的字段沿用当前值
+     *
+     * @param endpoint 端点：simple / advanced / pipeline
+     * @param request  请求
+     * @return 覆盖后的端点参数
+     */
+    RagRetrievalTuningVO overrideRetrievalTuning(String endpoint, RagRetrievalTuningDTO request);
+
+    /**
+     * 去掉检索端点的运行时覆盖，回到配置默认值
+     *
+     * @param endpoint 端点：simple / advanced / pipeline
+     * @return 重置后的端点参数
+     */
+    RagRetrievalTuningVO resetRetrievalTuning(String endpoint);
+
+    /**
+     * 保存向量索引快照
+     *
+     * @return 快照信息
+     */
+    RagSnapshotVO saveSnapshot();
+}
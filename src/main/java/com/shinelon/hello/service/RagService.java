@@ -45,6 +45,15 @@ public interface RagService {
      */
     Flux<RagChatVO> advancedChatStream(RagChatRequestDTO request);
 
+    /**
+     * 流水线版 RAG 流式对话
+     * 首个事件为检索到的文档来源，其后为回复内容
+     *
+     * @param request 请求
+     * @return 响应流
+     */
+    Flux<RagChatVO> pipelinedChatStream(RagChatRequestDTO request);
+
     /**
      * 获取已加载的文档列表
      *
@@ -7,6 +7,8 @@ import com.shinelon.hello.common.utils.DesensitizationUtils;
 import com.shinelon.hello.dao.ChatMessageDao;
 import com.shinelon.hello.dao.ChatSessionDao;
 import com.shinelon.hello.manager.ZhipuAiManager;
+import com.shinelon.hello.memory.JpaChatMemoryRepository;
+import com.shinelon.hello.memory.TokenWindowChatMemory;
 import com.shinelon.hello.model.dto.ChatRequestDTO;
 import com.shinelon.hello.model.entity.ChatMessageDO;
 import com.shinelon.hello.model.entity.ChatSessionDO;
@@ -15,7 +17,9 @@ import com.shinelon.hello.model.vo.SessionVO;
 import com.shinelon.hello.service.ChatService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
@@ -23,7 +27,6 @@ import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
@@ -31,6 +34,8 @@ import java.util.stream.Collectors;
 
 /**
  * 聊天服务实现
+ * 消息通过 {@link JpaChatMemoryRepository} 追加到 chat_message 表，与记忆对话共用同一份历史；
+ * 发给模型的历史由 {@link TokenWindowChatMemory} 按 token 预算截取，不再每轮读取整个会话
  *
  * @author shinelon
  */
@@ -42,6 +47,8 @@ public class ChatServiceImpl implements ChatService {
     private final ChatSessionDao chatSessionDao;
     private final ChatMessageDao chatMessageDao;
     private final ZhipuAiManager zhipuAiManager;
+    private final JpaChatMemoryRepository chatMemoryRepository;
+    private final TokenWindowChatMemory chatMemory;
 
     @Override
     @Transactional
@@ -165,7 +172,7 @@ public class ChatServiceImpl implements ChatService {
                 .map(msg -> MessageVO.builder()
                         .sessionId(sessionId)
                         .role(msg.getRole())
-                        .content(msg.getContent())
+                        .content(contentOf(msg))
                         .createTime(msg.getCreateTime())
                         .build())
                 .collect(Collectors.toList());
@@ -206,8 +213,8 @@ public class ChatServiceImpl implements ChatService {
             throw new BusinessException(ErrorCodeEnum.NOT_FOUND, "会话不存在");
         }
 
-        // 级联删除消息（由外键约束处理）
-        chatSessionDao.deleteBySessionId(sessionId);
+        // 同时删除消息与会话，并丢弃记忆缓存
+        chatMemoryRepository.deleteByConversationId(sessionId);
         log.info("[deleteSession] 删除会话成功, sessionId={}", sessionId);
     }
 
@@ -234,32 +241,25 @@ public class ChatServiceImpl implements ChatService {
     }
 
     /**
-     * 保存消息
+     * 追加消息，开启二进制列时内容以紧凑编码写入 content_bin
      */
     private ChatMessageDO saveMessage(String sessionId, String role, String content) {
-        ChatMessageDO message = new ChatMessageDO();
-        message.setSessionId(sessionId);
-        message.setRole(role);
-        message.setContent(content);
-        return chatMessageDao.save(message);
+        Message message = "user".equals(role) ? new UserMessage(content) : new AssistantMessage(content);
+        return chatMemoryRepository.appendRecords(sessionId, List.of(message)).get(0);
     }
 
     /**
-     * 构建消息历史
+     * 读取消息内容，二进制列优先，兼容开关切换前写入的文本列
      */
-    private List<Message> buildMessages(String sessionId) {
-        List<ChatMessageDO> history = chatMessageDao.findBySessionIdOrderByCreateTimeAsc(sessionId);
-        List<Message> messages = new ArrayList<>();
-
-        for (ChatMessageDO msg : history) {
-            if ("user".equals(msg.getRole())) {
-                messages.add(zhipuAiManager.createUserMessage(msg.getContent()));
-            } else {
-                messages.add(zhipuAiManager.createAssistantMessage(msg.getContent()));
-            }
-        }
+    private String contentOf(ChatMessageDO message) {
+        return chatMemoryRepository.contentOf(message);
+    }
 
-        return messages;
+    /**
+     * 构建消息历史，按默认 token 预算截取
+     */
+    private List<Message> buildMessages(String sessionId) {
+        return chatMemory.get(sessionId);
     }
 
     /**
@@ -269,7 +269,7 @@ public class ChatServiceImpl implements ChatService {
         return MessageVO.builder()
                 .sessionId(sessionId)
                 .role(message.getRole())
-                .content(message.getContent())
+                .content(contentOf(message))
                 .createTime(message.getCreateTime())
                 .build();
     }
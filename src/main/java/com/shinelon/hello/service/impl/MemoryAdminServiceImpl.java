@@ -0,0 +1,106 @@
+package com.shinelon.hello.service.impl;
+
+import com.shinelon.hello.common.enums.ErrorCodeEnum;
+import com.shinelon.hello.common.exception.BusinessException;
+import com.shinelon.hello.common.utils.PathUtils;
+import com.shinelon.hello.config.ChatMemoryProperties;
+import com.shinelon.hello.memory.ChatMemoryMaintenance;
+import com.shinelon.hello.memory.MaintenanceJob;
+import com.shinelon.hello.model.dto.MemoryClearRequestDTO;
+import com.shinelon.hello.model.dto.MemoryExportRequestDTO;
+import com.shinelon.hello.model.dto.MemoryImportRequestDTO;
+import com.shinelon.hello.model.vo.MemoryJobVO;
+import com.shinelon.hello.service.MemoryAdminService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 对话记忆管理服务实现
+ * 导出、导入的文件路径相对 chat-memory.admin.dir 解析，规范化后（含符号链接）不在该目录内的路径一律拒绝，
+ * 调用方不能借导出覆盖、借导入读取目录之外的文件
+ *
+ * @author shinelon
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemoryAdminServiceImpl implements MemoryAdminService {
+
+    private final ChatMemoryMaintenance chatMemoryMaintenance;
+    private final ChatMemoryProperties chatMemoryProperties;
+
+    @Override
+    public MemoryJobVO submitClear(MemoryClearRequestDTO request) {
+        if (request == null) {
+            throw new IllegalArgumentException("清理条件不能为空");
+        }
+        String prefix = blankToNull(request.getPrefix());
+        Duration idle = request.getIdleMinutes() == null ? null : Duration.ofMinutes(request.getIdleMinutes());
+        MaintenanceJob job = chatMemoryMaintenance.submitClear(prefix, idle);
+        log.info("[submitClear] 批量清理任务已提交, jobId={}, prefix={}, idleMinutes={}",
+                job.id(), prefix, request.getIdleMinutes());
+        return job.toVO();
+    }
+
+    @Override
+    public MemoryJobVO submitExport(MemoryExportRequestDTO request) {
+        if (request == null || request.getPath() == null || request.getPath().trim().isEmpty()) {
+            throw new IllegalArgumentException("导出路径不能为空");
+        }
+        MaintenanceJob job = chatMemoryMaintenance.submitExport(resolveAdminPath(request.getPath()),
+                blankToNull(request.getPrefix()));
+        log.info("[submitExport] 导出任务已提交, jobId={}, path={}", job.id(), request.getPath());
+        return job.toVO();
+    }
+
+    @Override
+    public MemoryJobVO submitImport(MemoryImportRequestDTO request) {
+        if (request == null || request.getPath() == null || request.getPath().trim().isEmpty()) {
+            throw new IllegalArgumentException("导入路径不能为空");
+        }
+        boolean overwrite = Boolean.TRUE.equals(request.getOverwrite());
+        MaintenanceJob job = chatMemoryMaintenance.submitImport(resolveAdminPath(request.getPath()), overwrite);
+        log.info("[submitImport] 导入任务已提交, jobId={}, path={}, overwrite={}", job.id(), request.getPath(), overwrite);
+        return job.toVO();
+    }
+
+    @Override
+    public MemoryJobVO getJob(String jobId) {
+        return findJob(jobId).toVO();
+    }
+
+    @Override
+    public List<MemoryJobVO> listJobs() {
+        return chatMemoryMaintenance.jobs().stream().map(MaintenanceJob::toVO).toList();
+    }
+
+    @Override
+    public MemoryJobVO cancelJob(String jobId) {
+        MaintenanceJob job = findJob(jobId);
+        if (chatMemoryMaintenance.cancel(jobId)) {
+            log.info("[cancelJob] 已请求取消任务, jobId={}", jobId);
+        }
+        return job.toVO();
+    }
+
+    private MaintenanceJob findJob(String jobId) {
+        if (jobId == null || jobId.trim().isEmpty()) {
+            throw new IllegalArgumentException("任务ID不能为空");
+        }
+        return chatMemoryMaintenance.job(jobId.trim())
+                .orElseThrow(() -> new BusinessException(ErrorCodeEnum.NOT_FOUND, "任务不存在: " + jobId));
+    }
+
+    private Path resolveAdminPath(String path) {
+        return PathUtils.resolveWithin(chatMemoryProperties.getAdmin().getDir(), path, false, "管理目录");
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
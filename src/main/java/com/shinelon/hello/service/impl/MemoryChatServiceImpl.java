@@ -34,7 +34,8 @@ public class MemoryChatServiceImpl implements MemoryChatService {
 
         String response = memoryChatManager.syncCall(
                 request.getConversationId(),
-                request.getContent()
+                request.getContent(),
+                request.getTokenBudget()
         );
 
         log.info("[chat] Memory调用完成, conversationId={}, 响应长度={}",
@@ -57,7 +58,7 @@ public class MemoryChatServiceImpl implements MemoryChatService {
 
         String conversationId = request.getConversationId();
 
-        return memoryChatManager.streamCall(conversationId, request.getContent())
+        return memoryChatManager.streamCall(conversationId, request.getContent(), request.getTokenBudget())
                 .map(chunk -> MemoryChatVO.builder()
                         .conversationId(conversationId)
                         .content(chunk)
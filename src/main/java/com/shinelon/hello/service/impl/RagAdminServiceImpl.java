@@ -0,0 +1,169 @@
+package com.shinelon.hello.service.impl;
+
+import com.shinelon.hello.common.enums.ErrorCodeEnum;
+import com.shinelon.hello.common.exception.BusinessException;
+import com.shinelon.hello.common.utils.PathUtils;
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.model.dto.RagDocumentUpsertDTO;
+import com.shinelon.hello.model.dto.RagIngestRequestDTO;
+import com.shinelon.hello.model.dto.RagRetrievalTuningDTO;
+import com.shinelon.hello.model.vo.RagDocumentSourceVO;
+import com.shinelon.hello.model.vo.RagIngestReportVO;
+import com.shinelon.hello.model.vo.RagNamespaceVO;
+import com.shinelon.hello.model.vo.RagRetrievalTuningVO;
+import com.shinelon.hello.model.vo.RagSnapshotVO;
+import com.shinelon.hello.rag.ingest.DocumentRegistry;
+import com.shinelon.hello.rag.namespace.KnowledgeNamespaces;
+import com.shinelon.hello.rag.retrieval.AdaptiveRetrievalTuner;
+import com.shinelon.hello.rag.store.VectorIndexSnapshot;
+import com.shinelon.hello.service.RagAdminService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RAG 知识库管理服务实现
+ * 摄取路径相对 rag.ingestion.root-dir 解析，规范化后（含符号链接）不在该目录内的路径一律拒绝，
+ * 调用方不能把目录之外的本地文件摄取进知识库
+ *
+ * @author shinelon
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RagAdminServiceImpl implements RagAdminService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final KnowledgeNamespaces knowledgeNamespaces;
+    private final VectorIndexSnapshot vectorIndexSnapshot;
+    private final AdaptiveRetrievalTuner retrievalTuner;
+    private final RagProperties ragProperties;
+
+    @Override
+    public RagIngestReportVO ingest(RagIngestRequestDTO request) {
+        if (request == null || request.getPath() == null || request.getPath().trim().isEmpty()) {
+            throw new IllegalArgumentException("摄取路径不能为空");
+        }
+
+        Path path = PathUtils.resolveWithin(ragProperties.getIngestion().getRootDir(), request.getPath(), true,
+                "摄取根目录");
+        boolean resume = !Boolean.FALSE.equals(request.getResume());
+        String namespace = KnowledgeNamespaces.normalize(request.getNamespace());
+        log.info("[ingest] 文档摄取开始, path={}, resume={}, namespace={}", request.getPath(), resume, namespace);
+
+        RagIngestReportVO report = knowledgeNamespaces.write(namespace,
+                target -> target.pipeline().ingestPath(path, resume));
+
+        log.info("[ingest] 文档摄取完成, path={}, namespace={}, 文档数={}, 分块数={}",
+                request.getPath(), namespace, report.getDocumentCount(), report.getChunkCount());
+        return report;
+    }
+
+    @Override
+    public RagIngestReportVO upsertDocument(String documentId, RagDocumentUpsertDTO request) {
+        validateDocumentId(documentId);
+        if (request == null || request.getContent() == null || request.getContent().trim().isEmpty()) {
+            throw new IllegalArgumentException("文档内容不能为空");
+        }
+
+        Map<String, Object> metadata = request.getMetadata() == null ? Map.of() : request.getMetadata();
+        String namespace = KnowledgeNamespaces.normalize(request.getNamespace());
+        RagIngestReportVO report = knowledgeNamespaces.write(namespace,
+                target -> target.pipeline().upsert(documentId.trim(), request.getContent(), metadata));
+
+        log.info("[upsertDocument] 文档更新完成, documentId={}, namespace={}, 重新嵌入分块={}, 复用分块={}, 耗时={}ms",
+                documentId, namespace, report.getChunkCount(), report.getReusedChunkCount(), report.getElapsedMillis());
+        return report;
+    }
+
+    @Override
+    public void deleteDocument(String documentId, String namespace) {
+        validateDocumentId(documentId);
+        String namespaceName = KnowledgeNamespaces.normalize(namespace);
+        // 命名空间不存在时报不存在，不为删除操作创建命名空间
+        knowledgeNamespaces.get(namespaceName);
+        if (!knowledgeNamespaces.write(namespaceName, target -> target.pipeline().delete(documentId.trim()))) {
+            throw new BusinessException(ErrorCodeEnum.NOT_FOUND, "文档不存在: " + documentId);
+        }
+        log.info("[deleteDocument] 文档已删除, documentId={}, namespace={}", documentId, namespaceName);
+    }
+
+    @Override
+    public List<RagDocumentSourceVO> listSources(String namespace, int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("分页参数不正确，每页大小范围为1-" + MAX_PAGE_SIZE);
+        }
+        return knowledgeNamespaces.get(namespace).registry().page(page, size).stream()
+                .map(this::toSourceVO)
+                .toList();
+    }
+
+    @Override
+    public List<RagNamespaceVO> listNamespaces() {
+        return knowledgeNamespaces.list();
+    }
+
+    @Override
+    public List<RagRetrievalTuningVO> listRetrievalTuning() {
+        return retrievalTuner.describe();
+    }
+
+    @Override
+    public RagRetrievalTuningVO overrideRetrievalTuning(String endpoint, RagRetrievalTuningDTO request) {
+        if (request == null) {
+            throw new IllegalArgumentException("检索参数不能为空");
+        }
+        AdaptiveRetrievalTuner.Settings current = retrievalTuner.settings(endpoint);
+        AdaptiveRetrievalTuner.Settings settings = new AdaptiveRetrievalTuner.Settings(
+                request.getAdaptive() != null ? request.getAdaptive() : current.adaptive(),
+                request.getMinK() != null ? request.getMinK() : current.minK(),
+                request.getMaxK() != null ? request.getMaxK() : current.maxK(),
+                request.getSimilarityThreshold() != null ? request.getSimilarityThreshold()
+                        : current.similarityThreshold(),
+                request.getCliffRatio() != null ? request.getCliffRatio() : current.cliffRatio());
+        retrievalTuner.override(endpoint, settings);
+        return retrievalTuner.describe(endpoint);
+    }
+
+    @Override
+    public RagRetrievalTuningVO resetRetrievalTuning(String endpoint) {
+        retrievalTuner.reset(endpoint);
+        return retrievalTuner.describe(endpoint);
+    }
+
+    @Override
+    public RagSnapshotVO saveSnapshot() {
+        try {
+            return vectorIndexSnapshot.save();
+        } catch (UncheckedIOException e) {
+            log.error("[saveSnapshot] 保存快照失败", e);
+            throw new BusinessException(ErrorCodeEnum.INTERNAL_ERROR, "保存快照失败", e);
+        }
+    }
+
+    private RagDocumentSourceVO toSourceVO(DocumentRegistry.IndexedDocument document) {
+        return RagDocumentSourceVO.builder()
+                .documentId(document.documentId())
+                .chunkCount(document.chunkHashes().size())
+                .bytes(document.bytes())
+                .embeddingVersion(document.embeddingVersion())
+                .lastIndexedTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(document.indexedAt()),
+                        ZoneId.systemDefault()))
+                .build();
+    }
+
+    private void validateDocumentId(String documentId) {
+        if (documentId == null || documentId.trim().isEmpty()) {
+            throw new IllegalArgumentException("文档ID不能为空");
+        }
+    }
+}
@@ -4,14 +4,21 @@ import com.shinelon.hello.common.utils.DesensitizationUtils;
 import com.shinelon.hello.manager.RagChatManager;
 import com.shinelon.hello.model.dto.RagChatRequestDTO;
 import com.shinelon.hello.model.vo.RagChatVO;
+import com.shinelon.hello.model.vo.RagSourceVO;
+import com.shinelon.hello.rag.generation.StreamingCitationResolver;
 import com.shinelon.hello.service.RagService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.document.Document;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
 
 /**
  * RAG 对话服务实现
@@ -29,10 +36,10 @@ public class RagServiceImpl implements RagService {
     public RagChatVO simpleChat(RagChatRequestDTO request) {
         validateRequest(request);
 
-        log.info("[simpleChat] 简单版RAG对话开始, query={}",
-                DesensitizationUtils.truncateAndMask(request.getQuery(), 50));
+        log.info("[simpleChat] 简单版RAG对话开始, query={}, category={}",
+                DesensitizationUtils.truncateAndMask(request.getQuery(), 50), request.getCategory());
 
-        String content = ragChatManager.simpleChat(request.getQuery());
+        String content = ragChatManager.simpleChat(request.getQuery(), request.getCategory(), request.getNamespace());
 
         log.info("[simpleChat] 简单版RAG对话完成, 响应长度={}", content.length());
 
@@ -49,11 +56,8 @@ public class RagServiceImpl implements RagService {
         log.info("[simpleChatStream] 简单版RAG流式对话开始, query={}",
                 DesensitizationUtils.truncateAndMask(request.getQuery(), 50));
 
-        return ragChatManager.simpleChatStream(request.getQuery())
-                .map(chunk -> RagChatVO.builder()
-                        .content(chunk)
-                        .createTime(LocalDateTime.now())
-                        .build())
+        return citedStream(ragChatManager.simpleChatResponseStream(
+                        request.getQuery(), request.getCategory(), request.getNamespace()))
                 .doOnError(e -> log.error("[simpleChatStream] 流式对话错误: {}", e.getMessage(), e));
     }
 
@@ -61,10 +65,10 @@ public class RagServiceImpl implements RagService {
     public RagChatVO advancedChat(RagChatRequestDTO request) {
         validateRequest(request);
 
-        log.info("[advancedChat] 进阶版RAG对话开始, query={}",
-                DesensitizationUtils.truncateAndMask(request.getQuery(), 50));
+        log.info("[advancedChat] 进阶版RAG对话开始, query={}, category={}",
+                DesensitizationUtils.truncateAndMask(request.getQuery(), 50), request.getCategory());
 
-        String content = ragChatManager.advancedChat(request.getQuery());
+        String content = ragChatManager.advancedChat(request.getQuery(), request.getCategory(), request.getNamespace());
 
         log.info("[advancedChat] 进阶版RAG对话完成, 响应长度={}", content.length());
 
@@ -81,19 +85,84 @@ public class RagServiceImpl implements RagService {
         log.info("[advancedChatStream] 进阶版RAG流式对话开始, query={}",
                 DesensitizationUtils.truncateAndMask(request.getQuery(), 50));
 
-        return ragChatManager.advancedChatStream(request.getQuery())
-                .map(chunk -> RagChatVO.builder()
-                        .content(chunk)
-                        .createTime(LocalDateTime.now())
-                        .build())
+        return citedStream(ragChatManager.advancedChatResponseStream(
+                        request.getQuery(), request.getCategory(), request.getNamespace()))
                 .doOnError(e -> log.error("[advancedChatStream] 流式对话错误: {}", e.getMessage(), e));
     }
 
+    @Override
+    public Flux<RagChatVO> pipelinedChatStream(RagChatRequestDTO request) {
+        validateRequest(request);
+
+        log.info("[pipelinedChatStream] 流水线版RAG流式对话开始, query={}",
+                DesensitizationUtils.truncateAndMask(request.getQuery(), 50));
+
+        return ragChatManager.pipelinedRetrieve(request.getQuery(), request.getCategory(), request.getNamespace())
+                .flatMapMany(documents -> citedStream(documents,
+                        ragChatManager.pipelinedGenerateStream(request.getQuery(), documents)))
+                .doOnError(e -> log.error("[pipelinedChatStream] 流式对话错误: {}", e.getMessage(), e));
+    }
+
     @Override
     public List<String> getDocuments() {
         return ragChatManager.getDocumentSources();
     }
 
+    /**
+     * 检索 Advisor 把上下文文档放在每个响应的 context 中，取第一个响应的文档生成来源事件
+     */
+    private Flux<RagChatVO> citedStream(Flux<ChatClientResponse> responses) {
+        return responses.switchOnFirst((first, flux) -> {
+            List<Document> documents = first.hasValue()
+                    ? RagChatManager.retrievedDocuments(first.get())
+                    : List.of();
+            return citedStream(documents, flux.mapNotNull(RagChatManager::content));
+        });
+    }
+
+    /**
+     * 先输出来源事件，再输出内容事件；内容事件边输出边解析 [n] 引用标记，创建时间沿用来源事件的时间
+     */
+    private Flux<RagChatVO> citedStream(List<Document> documents, Flux<String> chunks) {
+        StreamingCitationResolver resolver = new StreamingCitationResolver(documents.size());
+        RagChatVO sources = sourcesEvent(documents);
+        Flux<RagChatVO> contents = chunks.map(resolver::accept)
+                .concatWith(Mono.fromSupplier(resolver::flush))
+                .filter(segment -> !segment.isEmpty())
+                .map(segment -> RagChatVO.builder()
+                        .content(segment.text())
+                        .citations(segment.citations().isEmpty() ? null : segment.citations())
+                        .createTime(sources.getCreateTime())
+                        .build());
+        return Flux.concat(Mono.just(sources), contents);
+    }
+
+    /**
+     * 来源事件：在生成开始前先把检索到的文档编号、分块ID、得分和来源推给客户端
+     */
+    private RagChatVO sourcesEvent(List<Document> documents) {
+        List<String> sources = documents.stream()
+                .map(document -> document.getMetadata().get("source"))
+                .filter(Objects::nonNull)
+                .map(String::valueOf)
+                .distinct()
+                .toList();
+        List<RagSourceVO> sourceDocuments = IntStream.range(0, documents.size())
+                .mapToObj(i -> RagSourceVO.builder()
+                        .index(i + 1)
+                        .documentId(documents.get(i).getId())
+                        .source(Objects.toString(documents.get(i).getMetadata().get("source"), null))
+                        .score(documents.get(i).getScore())
+                        .build())
+                .toList();
+        return RagChatVO.builder()
+                .sourceCount(documents.size())
+                .sources(sources)
+                .documents(sourceDocuments)
+                .createTime(LocalDateTime.now())
+                .build();
+    }
+
     /**
      * 验证请求参数
      */
@@ -1,5 +1,6 @@
 package com.shinelon.hello.tool;
 
+import com.shinelon.hello.tool.cache.CacheableTool;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
@@ -25,6 +26,7 @@ public class CalculatorTool {
      * @param b 第二个数
      * @return 两数之和
      */
+    @CacheableTool(ttl = "PT1H")
     @Tool(description = "计算两个数的和，返回 a + b 的结果")
     public String add(
             @ToolParam(description = "第一个加数") double a,
@@ -40,6 +42,7 @@ public class CalculatorTool {
      * @param b 减数
      * @return 两数之差
      */
+    @CacheableTool(ttl = "PT1H")
     @Tool(description = "计算两个数的差，返回 a - b 的结果")
     public String subtract(
             @ToolParam(description = "被减数") double a,
@@ -55,6 +58,7 @@ public class CalculatorTool {
      * @param b 第二个因数
      * @return 两数之积
      */
+    @CacheableTool(ttl = "PT1H")
     @Tool(description = "计算两个数的乘积，返回 a * b 的结果")
     public String multiply(
             @ToolParam(description = "第一个因数") double a,
@@ -71,6 +75,7 @@ public class CalculatorTool {
      * @return 两数之商
      * @throws IllegalArgumentException 当除数为0时抛出
      */
+    @CacheableTool(ttl = "PT1H")
     @Tool(description = "计算两个数的商，返回 a / b 的结果。注意：除数不能为0")
     public String divide(
             @ToolParam(description = "被除数") double a,
@@ -89,6 +94,7 @@ public class CalculatorTool {
      * @param exponent 指数
      * @return 幂运算结果
      */
+    @CacheableTool(ttl = "PT1H")
     @Tool(description = "计算 base 的 exponent 次幂，返回 base^exponent 的结果")
     public String power(
             @ToolParam(description = "底数") double base,
@@ -104,6 +110,7 @@ public class CalculatorTool {
      * @return 平方根
      * @throws IllegalArgumentException 当数为负数时抛出
      */
+    @CacheableTool(ttl = "PT1H")
     @Tool(description = "计算一个数的平方根，返回 sqrt(number) 的结果。注意：数必须非负")
     public String squareRoot(
             @ToolParam(description = "要计算平方根的数，必须非负") double number) {
@@ -122,6 +129,7 @@ public class CalculatorTool {
      * @return 余数
      * @throws IllegalArgumentException 当除数为0时抛出
      */
+    @CacheableTool(ttl = "PT1H")
     @Tool(description = "计算 a 除以 b 的余数，返回 a % b 的结果")
     public String modulo(
             @ToolParam(description = "被除数") double a,
@@ -4,6 +4,7 @@ import com.shinelon.hello.data.RbacMockDataService;
 import com.shinelon.hello.model.entity.PermissionDO;
 import com.shinelon.hello.model.entity.RoleDO;
 import com.shinelon.hello.model.vo.RoleVO;
+import com.shinelon.hello.tool.cache.CacheableTool;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
@@ -33,6 +34,7 @@ public class PermissionRoleQueryTool {
      * @param permissionIdentifier 权限名称或权限代码
      * @return 角色列表
      */
+    @CacheableTool(group = RbacMockDataService.TOOL_CACHE_GROUP, ignoreCase = true)
     @Tool(description = "根据权限名称或代码查询拥有该权限的所有角色列表")
     public List<RoleVO> queryRolesByPermission(
             @ToolParam(description = "权限名称或权限代码，如：用户查看、USER_READ、用户编辑、USER_WRITE") String permissionIdentifier) {
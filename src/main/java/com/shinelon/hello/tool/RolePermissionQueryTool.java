@@ -4,6 +4,7 @@ import com.shinelon.hello.data.RbacMockDataService;
 import com.shinelon.hello.model.entity.PermissionDO;
 import com.shinelon.hello.model.entity.RoleDO;
 import com.shinelon.hello.model.vo.PermissionVO;
+import com.shinelon.hello.tool.cache.CacheableTool;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
@@ -33,6 +34,7 @@ public class RolePermissionQueryTool {
      * @param roleIdentifier 角色名称或角色代码
      * @return 权限列表
      */
+    @CacheableTool(group = RbacMockDataService.TOOL_CACHE_GROUP, ignoreCase = true)
     @Tool(description = "根据角色名称或代码查询该角色拥有的所有权限列表")
     public List<PermissionVO> queryPermissionsByRole(
             @ToolParam(description = "角色名称或角色代码，如：管理员、ADMIN、普通用户、USER") String roleIdentifier) {
@@ -5,6 +5,7 @@ import com.shinelon.hello.model.entity.PermissionDO;
 import com.shinelon.hello.model.entity.RoleDO;
 import com.shinelon.hello.model.entity.UserDO;
 import com.shinelon.hello.model.vo.UserInfoVO;
+import com.shinelon.hello.tool.cache.CacheableTool;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
@@ -34,6 +35,7 @@ public class UserQueryTool {
      * @param phone 手机号
      * @return 用户信息，包含角色和权限
      */
+    @CacheableTool(group = RbacMockDataService.TOOL_CACHE_GROUP)
     @Tool(description = "根据手机号查询用户信息，返回用户的详细信息包括角色和权限列表")
     public UserInfoVO queryUserInfo(
             @ToolParam(description = "用户手机号，11位数字") String phone) {
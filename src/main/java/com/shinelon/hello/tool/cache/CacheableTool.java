@@ -0,0 +1,42 @@
+package com.shinelon.hello.tool.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明工具结果可缓存
+ * 标注在 {@code @Tool} 方法上，通过 {@link ToolResultCache#toolCallbacks(Object...)} 注册的工具按参数缓存结果，
+ * 相同参数的重复调用（同一轮、同一会话或不同会话）直接返回缓存的结果，不再执行工具。
+ * <p>
+ * 只能用于纯查询工具：结果只由参数（和所属分组的数据）决定，没有副作用，也不依赖 ToolContext
+ *
+ * @author shinelon
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheableTool {
+
+    /**
+     * 缓存有效期，ISO-8601 格式（如 PT5M），为空时使用 tool-execution.cache.default-ttl
+     */
+    String ttl() default "";
+
+    /**
+     * 参与缓存键的参数名，为空时使用全部参数
+     */
+    String[] key() default {};
+
+    /**
+     * 字符串参数去掉首尾空白、忽略大小写后参与缓存键，用于按名称或代码不区分大小写查询的工具
+     */
+    boolean ignoreCase() default false;
+
+    /**
+     * 失效分组，工具依赖的数据变更时按分组一起失效（{@link ToolResultInvalidationEvent}），为空时只按 TTL 过期
+     */
+    String group() default "";
+}
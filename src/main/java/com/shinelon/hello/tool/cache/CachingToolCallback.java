@@ -0,0 +1,167 @@
+package com.shinelon.hello.tool.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.shinelon.hello.common.cache.LruTtlCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 缓存结果的 ToolCallback
+ * 缓存键为工具参数（JSON）中选定字段的规范化结果，与字段顺序和空白无关。
+ * 结果记录写入时所属分组的版本号，分组失效会递增版本号，执行期间发生失效的结果读取时视为过期，
+ * 不会把失效前查到的数据留在缓存里。工具抛出异常或返回 null 时不缓存
+ *
+ * @author shinelon
+ */
+@Slf4j
+class CachingToolCallback implements ToolCallback {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ToolCallback delegate;
+    private final List<String> keyFields;
+    private final boolean ignoreCase;
+    private final String group;
+    private final AtomicLong groupVersion;
+    private final LruTtlCache<String, CachedResult> cache;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter staleCounter;
+
+    /**
+     * @param keyFields    参与缓存键的参数名，为空时使用全部参数
+     * @param groupVersion 所属分组的版本号，分组失效时递增
+     */
+    CachingToolCallback(ToolCallback delegate, List<String> keyFields, boolean ignoreCase, String group,
+                        AtomicLong groupVersion, int maxSize, Duration ttl, LongSupplier nanoClock,
+                        MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.keyFields = List.copyOf(keyFields);
+        this.ignoreCase = ignoreCase;
+        this.group = group;
+        this.groupVersion = groupVersion;
+        this.cache = new LruTtlCache<>(maxSize, ttl, nanoClock);
+        String toolName = delegate.getToolDefinition().name();
+        this.hitCounter = counter(meterRegistry, toolName, "hit");
+        this.missCounter = counter(meterRegistry, toolName, "miss");
+        this.staleCounter = counter(meterRegistry, toolName, "stale");
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return cached(toolInput, () -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return cached(toolInput, () -> delegate.call(toolInput, toolContext));
+    }
+
+    String group() {
+        return group;
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private String cached(String toolInput, Supplier<String> execution) {
+        String key = key(toolInput);
+        if (key == null) {
+            return execution.get();
+        }
+        // 先取版本号再执行，执行期间分组失效时写入的结果带旧版本号，下次读取即过期
+        long version = groupVersion.get();
+        CachedResult cached = cache.get(key);
+        if (cached != null) {
+            if (cached.version() == version) {
+                hitCounter.increment();
+                return cached.result();
+            }
+            staleCounter.increment();
+            cache.invalidate(key);
+        } else {
+            missCounter.increment();
+        }
+        String result = execution.get();
+        if (result != null) {
+            cache.put(key, new CachedResult(version, result));
+        }
+        return result;
+    }
+
+    /**
+     * 规范化的缓存键：选定字段按名称排序后序列化；参数不是 JSON 对象时不缓存
+     */
+    String key(String toolInput) {
+        JsonNode input;
+        try {
+            input = OBJECT_MAPPER.readTree(toolInput == null || toolInput.isBlank() ? "{}" : toolInput);
+        } catch (JsonProcessingException e) {
+            log.debug("[ToolCache] 工具参数不是合法 JSON, 不缓存, tool={}", delegate.getToolDefinition().name());
+            return null;
+        }
+        if (!input.isObject()) {
+            return null;
+        }
+        List<String> fields = keyFields;
+        if (fields.isEmpty()) {
+            fields = new ArrayList<>();
+            for (Iterator<String> names = input.fieldNames(); names.hasNext(); ) {
+                fields.add(names.next());
+            }
+        }
+        ObjectNode key = OBJECT_MAPPER.createObjectNode();
+        fields.stream().sorted().forEach(field -> key.set(field, normalize(input.get(field))));
+        return key.toString();
+    }
+
+    private JsonNode normalize(JsonNode value) {
+        if (value == null) {
+            return OBJECT_MAPPER.nullNode();
+        }
+        if (ignoreCase && value.isTextual()) {
+            return TextNode.valueOf(value.asText().strip().toLowerCase(Locale.ROOT));
+        }
+        return value;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String toolName, String result) {
+        return Counter.builder("tool.result.cache")
+                .tag("tool", toolName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record CachedResult(long version, String result) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.shinelon.hello.tool.cache;
+
+import com.shinelon.hello.config.ToolExecutionProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.support.ToolCallbacks;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.support.ToolUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * 工具结果缓存
+ * 把工具对象转换为 ToolCallback，标注了 {@link CacheableTool} 的工具包装为缓存结果的 ToolCallback，
+ * 缓存在所有会话间共享，按工具名每个工具一个缓存（容量 tool-execution.cache.max-size，有效期见注解）：
+ * <ul>
+ *     <li>同一工具对象的同名工具只包装一次，多个 ChatClient 注册同一个工具时共享缓存；
+ *     同名工具换成另一个对象（按引用比较）时重新包装，旧对象的缓存随之丢弃，不会再调用旧对象</li>
+ *     <li>分组失效：收到 {@link ToolResultInvalidationEvent} 时递增分组版本号并清空该分组的缓存</li>
+ * </ul>
+ * 指标：tool.result.cache{tool, result=hit|miss|stale}
+ *
+ * @author shinelon
+ */
+@Slf4j
+@Component
+public class ToolResultCache {
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final Duration defaultTtl;
+    private final LongSupplier nanoClock;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Wrapped> callbacks = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> groupVersions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ToolResultCache(ToolExecutionProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getCache(), meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock 纳秒时钟，测试时可替换
+     */
+    ToolResultCache(ToolExecutionProperties.Cache properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (properties.getMaxSize() <= 0) {
+            throw new IllegalArgumentException("工具结果缓存容量必须大于0");
+        }
+        if (!isPositive(properties.getDefaultTtl())) {
+            throw new IllegalArgumentException("工具结果缓存有效期必须大于0");
+        }
+        this.enabled = properties.isEnabled();
+        this.maxSize = properties.getMaxSize();
+        this.defaultTtl = properties.getDefaultTtl();
+        this.nanoClock = nanoClock;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 把工具对象的 {@code @Tool} 方法转换为 ToolCallback，可缓存的工具包装缓存
+     *
+     * @param toolObjects 工具对象
+     * @return ToolCallback 数组，顺序与 Spring AI 解析结果一致
+     */
+    public ToolCallback[] toolCallbacks(Object... toolObjects) {
+        ToolCallback[] resolved = ToolCallbacks.from(toolObjects);
+        if (!enabled) {
+            return resolved;
+        }
+        // 工具名在一次解析中唯一（重名时 ToolCallbacks.from 已报错），按名称找到方法及其所属对象
+        Map<String, Method> cacheableMethods = new HashMap<>();
+        Map<String, Object> owners = new HashMap<>();
+        for (Object toolObject : toolObjects) {
+            ReflectionUtils.doWithMethods(AopUtils.getTargetClass(toolObject), method -> {
+                        cacheableMethods.put(ToolUtils.getToolName(method), method);
+                        owners.put(ToolUtils.getToolName(method), toolObject);
+                    },
+                    method -> method.isAnnotationPresent(Tool.class) && method.isAnnotationPresent(CacheableTool.class));
+        }
+        for (int i = 0; i < resolved.length; i++) {
+            String toolName = resolved[i].getToolDefinition().name();
+            Method method = cacheableMethods.get(toolName);
+            if (method != null) {
+                ToolCallback delegate = resolved[i];
+                Object owner = owners.get(toolName);
+                resolved[i] = callbacks.compute(toolName, (name, existing) -> {
+                    if (existing != null && existing.toolObject() == owner) {
+                        return existing;
+                    }
+                    if (existing != null) {
+                        log.info("[ToolCache] 工具对象已更换, 重新包装缓存, tool={}", name);
+                    }
+                    return new Wrapped(owner, wrap(delegate, method));
+                }).callback();
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * 使分组内所有工具的缓存结果失效
+     *
+     * @param group 失效分组
+     */
+    public void invalidate(String group) {
+        if (group == null || group.isEmpty()) {
+            throw new IllegalArgumentException("失效分组不能为空");
+        }
+        groupVersions.computeIfAbsent(group, g -> new AtomicLong()).incrementAndGet();
+        callbacks.values().stream()
+                .map(Wrapped::callback)
+                .filter(callback -> group.equals(callback.group()))
+                .forEach(CachingToolCallback::invalidateAll);
+        log.info("[ToolCache] 工具结果缓存已失效, group={}", group);
+    }
+
+    @EventListener
+    public void onInvalidation(ToolResultInvalidationEvent event) {
+        invalidate(event.group());
+    }
+
+    private CachingToolCallback wrap(ToolCallback delegate, Method method) {
+        CacheableTool annotation = method.getAnnotation(CacheableTool.class);
+        String toolName = delegate.getToolDefinition().name();
+        Set<String> parameterNames = Arrays.stream(method.getParameters())
+                .map(Parameter::getName)
+                .collect(Collectors.toSet());
+        for (String field : annotation.key()) {
+            if (!parameterNames.contains(field)) {
+                throw new IllegalStateException("工具 " + toolName + " 的缓存键参数不存在: " + field);
+            }
+        }
+        Duration ttl = ttl(toolName, annotation.ttl());
+        AtomicLong groupVersion = annotation.group().isEmpty()
+                ? new AtomicLong()
+                : groupVersions.computeIfAbsent(annotation.group(), g -> new AtomicLong());
+        log.info("[ToolCache] 工具结果开启缓存, tool={}, ttl={}, group={}", toolName, ttl, annotation.group());
+        return new CachingToolCallback(delegate, List.of(annotation.key()), annotation.ignoreCase(),
+                annotation.group(), groupVersion, maxSize, ttl, nanoClock, meterRegistry);
+    }
+
+    private Duration ttl(String toolName, String value) {
+        if (value.isEmpty()) {
+            return defaultTtl;
+        }
+        try {
+            Duration ttl = Duration.parse(value);
+            if (isPositive(ttl)) {
+                return ttl;
+            }
+        } catch (DateTimeParseException e) {
+            // 与非正数一起在下面报错
+        }
+        throw new IllegalStateException("工具 " + toolName + " 的缓存有效期不合法: " + value);
+    }
+
+    private static boolean isPositive(Duration duration) {
+        return duration != null && !duration.isNegative() && !duration.isZero();
+    }
+
+    /**
+     * 包装后的 ToolCallback 及其实际调用的工具对象
+     */
+    private record Wrapped(Object toolObject, CachingToolCallback callback) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.shinelon.hello.tool.cache;
+
+/**
+ * 工具结果失效事件
+ * 工具依赖的数据变更后发布，{@link ToolResultCache} 收到后使该分组的所有缓存结果失效
+ *
+ * @param group 失效分组，对应 {@link CacheableTool#group()}
+ * @author shinelon
+ */
+public record ToolResultInvalidationEvent(String group) {
+}
@@ -0,0 +1,261 @@
+package com.shinelon.hello.tool.execution;
+
+import com.shinelon.hello.config.ToolExecutionProperties;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.observation.DefaultToolCallingObservationConvention;
+import org.springframework.ai.tool.observation.ToolCallingObservationContext;
+import org.springframework.ai.tool.observation.ToolCallingObservationDocumentation;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并行执行工具调用的 ToolCallingManager
+ * 模型一轮返回的多个工具调用彼此独立（模型发出时看不到任何一个的结果），同时提交到有界线程池执行，
+ * 这一轮的耗时取决于最慢的工具而不是所有工具之和：
+ * <ul>
+ *     <li>工具结果按模型给出的调用顺序组装，与逐个执行的结果一致</li>
+ *     <li>每个工具调用有超时时间（可按工具名单独配置），从整批提交时算起，超时后中断执行该调用的线程，
+ *     超时信息经 ToolExecutionExceptionProcessor 转为工具结果交给模型，其余工具的结果照常返回</li>
+ *     <li>工具抛出的 ToolExecutionException 同样交给 ToolExecutionExceptionProcessor；其他异常原样抛出</li>
+ *     <li>线程池和队列都满时拒绝新的调用，不在调用线程执行（否则超时无法生效），
+ *     拒绝信息同样经 ToolExecutionExceptionProcessor 转为该调用的工具结果</li>
+ * </ul>
+ * 工具定义解析、工具上下文和对话历史的构造与 Spring AI 默认实现保持一致
+ *
+ * @author shinelon
+ */
+@Slf4j
+public class ParallelToolCallingManager implements ToolCallingManager, AutoCloseable {
+
+    private static final DefaultToolCallingObservationConvention OBSERVATION_CONVENTION =
+            new DefaultToolCallingObservationConvention();
+
+    private final ToolCallingManager delegate;
+    private final ToolCallbackResolver toolCallbackResolver;
+    private final ToolExecutionExceptionProcessor exceptionProcessor;
+    private final ObservationRegistry observationRegistry;
+    private final Duration defaultTimeout;
+    private final Map<String, Duration> timeouts;
+    private final ThreadPoolExecutor executor;
+
+    public ParallelToolCallingManager(ToolCallbackResolver toolCallbackResolver,
+                                      ToolExecutionExceptionProcessor exceptionProcessor,
+                                      ObservationRegistry observationRegistry,
+                                      ToolExecutionProperties.Parallel properties) {
+        if (properties.getTimeout() == null || properties.getTimeout().isNegative() || properties.getTimeout().isZero()) {
+            throw new IllegalArgumentException("工具超时时间必须大于0");
+        }
+        this.delegate = ToolCallingManager.builder()
+                .observationRegistry(observationRegistry)
+                .toolCallbackResolver(toolCallbackResolver)
+                .toolExecutionExceptionProcessor(exceptionProcessor)
+                .build();
+        this.toolCallbackResolver = toolCallbackResolver;
+        this.exceptionProcessor = exceptionProcessor;
+        this.observationRegistry = observationRegistry;
+        this.defaultTimeout = properties.getTimeout();
+        this.timeouts = Map.copyOf(properties.getTimeouts());
+        AtomicInteger threadIndex = new AtomicInteger();
+        int parallelism = Math.max(properties.getParallelism(), 1);
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(properties.getQueueCapacity(), 1)), task -> {
+                    Thread thread = new Thread(task, "tool-call-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(AssistantMessage::hasToolCalls)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No tool call requested by the chat model"));
+
+        ToolContext toolContext = buildToolContext(prompt, assistantMessage);
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+
+        // 先在调用线程解析全部工具，找不到工具时与默认实现一样直接失败，不提交任何调用
+        List<ToolCallback> callbacks = new ArrayList<>(toolCalls.size());
+        boolean returnDirect = true;
+        for (AssistantMessage.ToolCall toolCall : toolCalls) {
+            ToolCallback callback = resolve(prompt, toolCall.name());
+            returnDirect = returnDirect && callback.getToolMetadata().returnDirect();
+            callbacks.add(callback);
+        }
+
+        long start = System.nanoTime();
+        List<Future<String>> futures = new ArrayList<>(toolCalls.size());
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(toolCalls.size());
+        try {
+            for (int i = 0; i < toolCalls.size(); i++) {
+                futures.add(submit(callbacks.get(i), toolCalls.get(i).arguments(), toolContext));
+            }
+            for (int i = 0; i < toolCalls.size(); i++) {
+                AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+                String result = await(futures.get(i), callbacks.get(i), start);
+                responses.add(new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(),
+                        result != null ? result : ""));
+            }
+        } catch (RuntimeException | Error e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        log.debug("[ToolCalling] 并行执行工具调用完成, 调用数={}, 耗时={}ms",
+                toolCalls.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        List<Message> conversationHistory = new ArrayList<>(prompt.getInstructions());
+        conversationHistory.add(assistantMessage);
+        conversationHistory.add(ToolResponseMessage.builder().responses(responses).build());
+        return ToolExecutionResult.builder()
+                .conversationHistory(conversationHistory)
+                .returnDirect(returnDirect)
+                .build();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 工具调用的超时时间，按工具名配置优先
+     */
+    Duration timeout(String toolName) {
+        return timeouts.getOrDefault(toolName, defaultTimeout);
+    }
+
+    private ToolCallback resolve(Prompt prompt, String toolName) {
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options) {
+            for (ToolCallback callback : options.getToolCallbacks()) {
+                if (toolName.equals(callback.getToolDefinition().name())) {
+                    return callback;
+                }
+            }
+        }
+        ToolCallback callback = toolCallbackResolver.resolve(toolName);
+        if (callback == null) {
+            throw new IllegalStateException("No ToolCallback found for tool name: " + toolName);
+        }
+        return callback;
+    }
+
+    /**
+     * 提交工具调用，线程池已满时不执行，直接以拒绝信息作为该调用的结果
+     */
+    private Future<String> submit(ToolCallback callback, String arguments, ToolContext toolContext) {
+        try {
+            return executor.submit(() -> call(callback, arguments, toolContext));
+        } catch (RejectedExecutionException e) {
+            String toolName = callback.getToolDefinition().name();
+            log.warn("[ToolCalling] 工具调用线程池已满, 拒绝执行, tool={}", toolName);
+            return CompletableFuture.completedFuture(exceptionProcessor.process(new ToolExecutionException(
+                    callback.getToolDefinition(), new IllegalStateException("工具 " + toolName + " 繁忙，请稍后重试", e))));
+        }
+    }
+
+    /**
+     * 等待工具结果，每个调用的截止时间从整批提交时算起
+     */
+    private String await(Future<String> future, ToolCallback callback, long start) {
+        String toolName = callback.getToolDefinition().name();
+        Duration timeout = timeout(toolName);
+        long remaining = timeout.toNanos() - (System.nanoTime() - start);
+        try {
+            return future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("[ToolCalling] 工具调用超时, tool={}, timeout={}", toolName, timeout);
+            // 默认异常处理器会重新抛出受检异常，超时用运行时异常包装才能作为工具结果返回给模型
+            return exceptionProcessor.process(new ToolExecutionException(callback.getToolDefinition(),
+                    new IllegalStateException("工具 " + toolName + " 执行超时（" + timeout.toMillis() + "ms）", e)));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("工具调用失败: " + toolName, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待工具调用结果时被中断: " + toolName, e);
+        }
+    }
+
+    private String call(ToolCallback callback, String arguments, ToolContext toolContext) {
+        // 流式响应中参数可能为空
+        String input = arguments == null || arguments.isBlank() ? "{}" : arguments;
+        ToolCallingObservationContext observationContext = ToolCallingObservationContext.builder()
+                .toolDefinition(callback.getToolDefinition())
+                .toolMetadata(callback.getToolMetadata())
+                .toolCallArguments(input)
+                .build();
+        return ToolCallingObservationDocumentation.TOOL_CALL
+                .observation(null, OBSERVATION_CONVENTION, () -> observationContext, observationRegistry)
+                .observe(() -> {
+                    String result;
+                    try {
+                        result = callback.call(input, toolContext);
+                    } catch (ToolExecutionException e) {
+                        result = exceptionProcessor.process(e);
+                    }
+                    observationContext.setToolCallResult(result);
+                    return result;
+                });
+    }
+
+    /**
+     * 与默认实现相同：只有设置了工具上下文时才附带本次工具调用前的对话历史
+     */
+    private static ToolContext buildToolContext(Prompt prompt, AssistantMessage assistantMessage) {
+        Map<String, Object> context = Map.of();
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options
+                && options.getToolContext() != null && !options.getToolContext().isEmpty()) {
+            context = new HashMap<>(options.getToolContext());
+            List<Message> history = new ArrayList<>(prompt.copy().getInstructions());
+            history.add(AssistantMessage.builder()
+                    .content(assistantMessage.getText())
+                    .properties(assistantMessage.getMetadata())
+                    .toolCalls(assistantMessage.getToolCalls())
+                    .build());
+            context.put(ToolContext.TOOL_CALL_HISTORY, history);
+        }
+        return new ToolContext(context);
+    }
+}
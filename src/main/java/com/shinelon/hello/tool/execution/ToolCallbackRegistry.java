@@ -0,0 +1,98 @@
+package com.shinelon.hello.tool.execution;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.ToolCallback;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 预先计算的 ToolCallback 注册表
+ * 启动时为每种启用工具的组合（按注册顺序）生成不可变的 ToolCallback 列表，每次请求按启用的工具名查表：
+ * <ul>
+ *     <li>ToolCallback 在注册前已创建，工具定义（含 JSON Schema）只在创建时反射生成一次，请求时不再解析 {@code @Tool} 方法</li>
+ *     <li>启用工具按位组合成下标，同一组合不论请求中的顺序和重复都返回同一个列表实例，查表本身不分配对象</li>
+ *     <li>未指定工具、或指定的工具都不存在时返回全部工具；不存在的工具名忽略</li>
+ * </ul>
+ * 组合数随工具数指数增长，最多支持 {@value #MAX_TOOLS} 个工具名
+ *
+ * @author shinelon
+ */
+@Slf4j
+public class ToolCallbackRegistry {
+
+    static final int MAX_TOOLS = 10;
+
+    private final List<String> names;
+    private final Map<String, Integer> bits;
+    private final List<List<ToolCallback>> combinations;
+
+    /**
+     * @param tools 工具名称 -> 该工具的 ToolCallback，名称为小写，顺序即组合内 ToolCallback 的顺序
+     */
+    public ToolCallbackRegistry(Map<String, ToolCallback[]> tools) {
+        if (tools.isEmpty() || tools.size() > MAX_TOOLS) {
+            throw new IllegalArgumentException("工具数量必须在 1 与 " + MAX_TOOLS + " 之间");
+        }
+        this.names = List.copyOf(tools.keySet());
+        this.bits = new HashMap<>();
+        List<ToolCallback[]> callbacks = new ArrayList<>(tools.values());
+        for (int i = 0; i < names.size(); i++) {
+            if (!names.get(i).equals(names.get(i).toLowerCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("工具名称必须为小写: " + names.get(i));
+            }
+            bits.put(names.get(i), 1 << i);
+        }
+
+        int size = 1 << names.size();
+        List<List<ToolCallback>> all = new ArrayList<>(size);
+        all.add(List.of());
+        for (int mask = 1; mask < size; mask++) {
+            List<ToolCallback> combination = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) {
+                if ((mask & (1 << i)) != 0) {
+                    combination.addAll(List.of(callbacks.get(i)));
+                }
+            }
+            all.add(List.copyOf(combination));
+        }
+        this.combinations = List.copyOf(all);
+    }
+
+    /**
+     * 启用工具对应的 ToolCallback 列表
+     *
+     * @param enabledTools 启用的工具名称，不区分大小写，为空则使用全部
+     * @return 不可变列表，同一组合始终返回同一个实例
+     */
+    public List<ToolCallback> resolve(List<String> enabledTools) {
+        int all = combinations.size() - 1;
+        if (enabledTools == null || enabledTools.isEmpty()) {
+            return combinations.get(all);
+        }
+        int mask = 0;
+        // 按下标遍历，不创建迭代器
+        for (int i = 0; i < enabledTools.size(); i++) {
+            String toolName = enabledTools.get(i);
+            // 已是小写时 toLowerCase 返回原字符串，不分配新对象
+            Integer bit = toolName == null ? null : bits.get(toolName.toLowerCase(Locale.ROOT));
+            if (bit != null) {
+                mask |= bit;
+            } else {
+                log.warn("Unknown tool: {}", toolName);
+            }
+        }
+        // 如果没有匹配的工具，使用全部
+        return combinations.get(mask == 0 ? all : mask);
+    }
+
+    /**
+     * 注册的工具名称，按注册顺序
+     */
+    public List<String> names() {
+        return names;
+    }
+}
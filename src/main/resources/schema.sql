@@ -16,11 +16,12 @@ CREATE TABLE IF NOT EXISTS chat_message (
     session_id VARCHAR(36) NOT NULL,
     role VARCHAR(20) NOT NULL,
     content CLOB NOT NULL,
+    content_bin BLOB,
     create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     CONSTRAINT fk_message_session FOREIGN KEY (session_id) REFERENCES chat_session(session_id) ON DELETE CASCADE
 );
 
--- Indexes
-CREATE INDEX idx_chat_session_session_id ON chat_session(session_id);
-CREATE INDEX idx_chat_message_session_id ON chat_message(session_id);
-CREATE INDEX idx_chat_message_create_time ON chat_message(create_time);
+-- Indexes (schema.sql runs on every startup against the file database, so every statement must be idempotent)
+CREATE INDEX IF NOT EXISTS idx_chat_session_session_id ON chat_session(session_id);
+CREATE INDEX IF NOT EXISTS idx_chat_message_session_id ON chat_message(session_id);
+CREATE INDEX IF NOT EXISTS idx_chat_message_create_time ON chat_message(create_time);
@@ -0,0 +1,72 @@
+package com.shinelon.hello.common.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LruTtlCache 单元测试
+ *
+ * @author shinelon
+ */
+@DisplayName("LruTtlCache 测试")
+class LruTtlCacheTest {
+
+    private AtomicLong clock;
+    private LruTtlCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        cache = new LruTtlCache<>(2, Duration.ofSeconds(10), clock::get);
+    }
+
+    @Test
+    @DisplayName("超过容量时淘汰最久未访问的条目")
+    void put_overCapacity_shouldEvictLeastRecentlyUsed() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    @DisplayName("过期条目读取时返回 null 并被剔除")
+    void get_afterTtl_shouldExpire() {
+        cache.put("a", "1");
+        clock.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertEquals("1", cache.get("a"));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("失效单个与全部条目")
+    void invalidate_shouldRemoveEntries() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("容量必须大于0")
+    void constructor_withInvalidSize_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new LruTtlCache<>(0, Duration.ofSeconds(1)));
+    }
+}
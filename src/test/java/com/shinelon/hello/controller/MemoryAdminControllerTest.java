@@ -0,0 +1,188 @@
+package com.shinelon.hello.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shinelon.hello.config.ChatMemoryProperties;
+import com.shinelon.hello.memory.ChatMemoryMaintenance;
+import com.shinelon.hello.memory.MaintenanceJob;
+import com.shinelon.hello.model.dto.MemoryExportRequestDTO;
+import com.shinelon.hello.model.dto.MemoryImportRequestDTO;
+import com.shinelon.hello.model.vo.MemoryJobVO;
+import com.shinelon.hello.service.impl.MemoryAdminServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * MemoryAdminController 测试类
+ * 使用真实的 MemoryAdminServiceImpl 验证导出、导入路径限制在管理目录内，后台任务组件为 mock
+ *
+ * @author shinelon
+ */
+@WebMvcTest(value = MemoryAdminController.class, properties = "chat-memory.admin.dir=" + MemoryAdminControllerTest.ADMIN_DIR)
+@Import(MemoryAdminServiceImpl.class)
+@EnableConfigurationProperties(ChatMemoryProperties.class)
+@ActiveProfiles("test")
+class MemoryAdminControllerTest {
+
+    static final String ADMIN_DIR = "target/memory-admin-test";
+
+    private final Path adminDir = Path.of(ADMIN_DIR).toAbsolutePath().normalize();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private ChatMemoryMaintenance chatMemoryMaintenance;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(adminDir);
+        reset(chatMemoryMaintenance);
+        MaintenanceJob job = mock(MaintenanceJob.class);
+        when(job.toVO()).thenReturn(MemoryJobVO.builder().jobId("job-1").build());
+        when(chatMemoryMaintenance.submitExport(any(), any())).thenReturn(job);
+        when(chatMemoryMaintenance.submitImport(any(), anyBoolean())).thenReturn(job);
+    }
+
+    record PathTestCase(String name, String path) {
+    }
+
+    static Stream<PathTestCase> escapingPaths() {
+        return Stream.of(
+                new PathTestCase("上级目录", "../outside.ndjson"),
+                new PathTestCase("子目录中跳出", "exports/../../outside.ndjson"),
+                new PathTestCase("绝对路径", "/etc/passwd"),
+                new PathTestCase("管理目录本身", ".")
+        );
+    }
+
+    @Nested
+    @DisplayName("导出接口测试")
+    class ExportTests {
+
+        @Test
+        @DisplayName("管理目录内的相对路径 - 应返回200")
+        void export_relativePath_shouldResolveUnderAdminDir() throws Exception {
+            MemoryExportRequestDTO request = new MemoryExportRequestDTO();
+            request.setPath("exports/all.ndjson");
+
+            mockMvc.perform(post("/learn/memory/admin/export")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.code").value(200))
+                    .andExpect(jsonPath("$.data.jobId").value("job-1"));
+
+            verify(chatMemoryMaintenance).submitExport(
+                    eq(adminDir.resolve("exports/all.ndjson")), isNull());
+        }
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("com.shinelon.hello.controller.MemoryAdminControllerTest#escapingPaths")
+        @DisplayName("管理目录之外的路径 - 应返回400")
+        void export_escapingPath_shouldReturn400(PathTestCase testCase) throws Exception {
+            MemoryExportRequestDTO request = new MemoryExportRequestDTO();
+            request.setPath(testCase.path());
+
+            mockMvc.perform(post("/learn/memory/admin/export")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.code").value(400));
+
+            verify(chatMemoryMaintenance, never()).submitExport(any(), any());
+        }
+
+        @Test
+        @DisplayName("经管理目录内的符号链接指向外部 - 应返回400")
+        void export_symlinkOutside_shouldReturn400() throws Exception {
+            Path outside = Files.createTempDirectory("memory-admin-outside");
+            Path link = adminDir.resolve("link");
+            Files.deleteIfExists(link);
+            Files.createSymbolicLink(link, outside);
+            MemoryExportRequestDTO request = new MemoryExportRequestDTO();
+            request.setPath("link/all.ndjson");
+
+            try {
+                mockMvc.perform(post("/learn/memory/admin/export")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                        .andExpect(status().isBadRequest())
+                        .andExpect(jsonPath("$.code").value(400));
+            } finally {
+                Files.delete(link);
+                Files.delete(outside);
+            }
+
+            verify(chatMemoryMaintenance, never()).submitExport(any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("导入接口测试")
+    class ImportTests {
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("com.shinelon.hello.controller.MemoryAdminControllerTest#escapingPaths")
+        @DisplayName("管理目录之外的路径 - 应返回400")
+        void import_escapingPath_shouldReturn400(PathTestCase testCase) throws Exception {
+            MemoryImportRequestDTO request = new MemoryImportRequestDTO();
+            request.setPath(testCase.path());
+
+            mockMvc.perform(post("/learn/memory/admin/import")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.code").value(400));
+
+            verify(chatMemoryMaintenance, never()).submitImport(any(), anyBoolean());
+        }
+
+        @Test
+        @DisplayName("管理目录内的相对路径 - 应返回200")
+        void import_relativePath_shouldResolveUnderAdminDir() throws Exception {
+            MemoryImportRequestDTO request = new MemoryImportRequestDTO();
+            request.setPath("backup.ndjson");
+            request.setOverwrite(true);
+
+            mockMvc.perform(post("/learn/memory/admin/import")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.code").value(200));
+
+            verify(chatMemoryMaintenance).submitImport(
+                    adminDir.resolve("backup.ndjson"), true);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.shinelon.hello.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shinelon.hello.common.enums.ErrorCodeEnum;
+import com.shinelon.hello.common.exception.BusinessException;
+import com.shinelon.hello.model.dto.RagDocumentUpsertDTO;
+import com.shinelon.hello.model.dto.RagIngestRequestDTO;
+import com.shinelon.hello.model.dto.RagRetrievalTuningDTO;
+import com.shinelon.hello.model.vo.RagDocumentSourceVO;
+import com.shinelon.hello.model.vo.RagIngestReportVO;
+import com.shinelon.hello.model.vo.RagNamespaceVO;
+import com.shinelon.hello.model.vo.RagRetrievalTuningVO;
+import com.shinelon.hello.model.vo.RagSnapshotVO;
+import com.shinelon.hello.service.RagAdminService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * RagAdminController 测试类
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@WebMvcTest(RagAdminController.class)
+@ActiveProfiles("test")
+@DisplayName("RagAdminController 测试")
+class RagAdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private RagAdminService ragAdminService;
+
+    record IngestTestCase(String name, String path, int expectedStatus) {}
+
+    static Stream<IngestTestCase> ingestTestCases() {
+        return Stream.of(
+                new IngestTestCase("正常摄取", "/data/docs", 200),
+                new IngestTestCase("路径为空", null, 400),
+                new IngestTestCase("路径为空字符串", "", 400)
+        );
+    }
+
+    record UpsertTestCase(String name, String content, int expectedStatus) {}
+
+    static Stream<UpsertTestCase> upsertTestCases() {
+        return Stream.of(
+                new UpsertTestCase("正常更新", "智能客服系统支持多轮对话", 200),
+                new UpsertTestCase("内容为空", null, 400),
+                new UpsertTestCase("内容为空字符串", "", 400)
+        );
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(ragAdminService.ingest(any())).thenReturn(RagIngestReportVO.builder()
+                .source("/data/docs")
+                .documentCount(3)
+                .chunkCount(5)
+                .docsPerSecond(12.5)
+                .build());
+    }
+
+    @Nested
+    @DisplayName("文档摄取接口测试")
+    class IngestTests {
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("com.shinelon.hello.controller.RagAdminControllerTest#ingestTestCases")
+        @DisplayName("摄取参数验证")
+        void ingest_parameterValidation(IngestTestCase testCase) throws Exception {
+            RagIngestRequestDTO request = new RagIngestRequestDTO();
+            request.setPath(testCase.path());
+
+            mockMvc.perform(post("/learn/rag/admin/ingest")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().is(testCase.expectedStatus()));
+        }
+
+        @Test
+        @DisplayName("正常摄取 - 应返回摄取报告")
+        void ingest_normal_shouldReturnReport() throws Exception {
+            RagIngestRequestDTO request = new RagIngestRequestDTO();
+            request.setPath("/data/docs");
+
+            mockMvc.perform(post("/learn/rag/admin/ingest")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.code").value(200))
+                    .andExpect(jsonPath("$.data.documentCount").value(3))
+                    .andExpect(jsonPath("$.data.chunkCount").value(5))
+                    .andExpect(jsonPath("$.data.docsPerSecond").value(12.5));
+
+            verify(ragAdminService).ingest(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("单篇文档更新与删除接口测试")
+    class DocumentTests {
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("com.shinelon.hello.controller.RagAdminControllerTest#upsertTestCases")
+        @DisplayName("更新参数验证")
+        void upsert_parameterValidation(UpsertTestCase testCase) throws Exception {
+            when(ragAdminService.upsertDocument(eq("产品说明"), any())).thenReturn(RagIngestReportVO.builder()
+                    .documentCount(1)
+                    .chunkCount(1)
+                    .reusedChunkCount(2)
+                    .build());
+            RagDocumentUpsertDTO request = new RagDocumentUpsertDTO();
+            request.setContent(testCase.content());
+
+            mockMvc.perform(put("/learn/rag/admin/documents/{documentId}", "产品说明")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().is(testCase.expectedStatus()));
+        }
+
+        @Test
+        @DisplayName("正常更新 - 应返回复用分块数")
+        void upsert_normal_shouldReturnReport() throws Exception {
+            when(ragAdminService.upsertDocument(eq("产品说明"), any())).thenReturn(RagIngestReportVO.builder()
+                    .documentCount(1)
+                    .chunkCount(1)
+                    .reusedChunkCount(2)
+                    .build());
+            RagDocumentUpsertDTO request = new RagDocumentUpsertDTO();
+            request.setContent("智能客服系统支持多轮对话");
+
+            mockMvc.perform(put("/learn/rag/admin/documents/{documentId}", "产品说明")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.chunkCount").value(1))
+                    .andExpect(jsonPath("$.data.reusedChunkCount").value(2));
+        }
+
+        @Test
+        @DisplayName("删除文档")
+        void delete_normal_shouldReturnSuccess() throws Exception {
+            mockMvc.perform(delete("/learn/rag/admin/documents/{documentId}", "产品说明"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.code").value(200));
+
+            verify(ragAdminService).deleteDocument("产品说明", null);
+        }
+
+        @Test
+        @DisplayName("删除不存在的文档 - 应返回404")
+        void delete_missing_shouldReturnNotFound() throws Exception {
+            doThrow(new BusinessException(ErrorCodeEnum.NOT_FOUND, "文档不存在: missing"))
+                    .when(ragAdminService).deleteDocument("missing", null);
+
+            mockMvc.perform(delete("/learn/rag/admin/documents/{documentId}", "missing"))
+                    .andExpect(jsonPath("$.code").value(404));
+        }
+
+        @Test
+        @DisplayName("删除指定命名空间的文档")
+        void delete_withNamespace_shouldPassNamespace() throws Exception {
+            mockMvc.perform(delete("/learn/rag/admin/documents/{documentId}", "报价单")
+                            .param("namespace", "sales"))
+                    .andExpect(status().isOk());
+
+            verify(ragAdminService).deleteDocument("报价单", "sales");
+        }
+    }
+
+    @Nested
+    @DisplayName("文档来源目录接口测试")
+    class SourceTests {
+
+        @Test
+        @DisplayName("分页查询文档来源 - 页码从1开始")
+        void listSources_shouldConvertPageToZeroBased() throws Exception {
+            when(ragAdminService.listSources("sales", 1, 2)).thenReturn(List.of(
+                    RagDocumentSourceVO.builder().documentId("报价单").chunkCount(3).bytes(900L).build()));
+
+            mockMvc.perform(get("/learn/rag/admin/sources")
+                            .param("namespace", "sales")
+                            .param("page", "2")
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data[0].documentId").value("报价单"))
+                    .andExpect(jsonPath("$.data[0].chunkCount").value(3))
+                    .andExpect(jsonPath("$.data[0].bytes").value(900));
+        }
+
+        @Test
+        @DisplayName("分页参数不正确 - 应返回400")
+        void listSources_invalidPage_shouldReturnBadRequest() throws Exception {
+            when(ragAdminService.listSources(null, 0, 500))
+                    .thenThrow(new IllegalArgumentException("分页参数不正确"));
+
+            mockMvc.perform(get("/learn/rag/admin/sources").param("size", "500"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("命名空间接口测试")
+    class NamespaceTests {
+
+        @Test
+        @DisplayName("列出命名空间 - 应返回常驻状态与内存占用")
+        void listNamespaces_shouldReturnNamespaces() throws Exception {
+            when(ragAdminService.listNamespaces()).thenReturn(List.of(
+                    RagNamespaceVO.builder().name("default").resident(true).chunkCount(5).build(),
+                    RagNamespaceVO.builder().name("sales").resident(false).diskBytes(2048L).build()));
+
+            mockMvc.perform(get("/learn/rag/admin/namespaces"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data[0].name").value("default"))
+                    .andExpect(jsonPath("$.data[1].resident").value(false))
+                    .andExpect(jsonPath("$.data[1].diskBytes").value(2048));
+        }
+    }
+
+    @Nested
+    @DisplayName("检索参数接口测试")
+    class RetrievalTuningTests {
+
+        @Test
+        @DisplayName("查询检索参数 - 应返回各端点参数与统计")
+        void listRetrievalTuning_shouldReturnEndpoints() throws Exception {
+            when(ragAdminService.listRetrievalTuning()).thenReturn(List.of(
+                    RagRetrievalTuningVO.builder().endpoint("simple").maxK(5).queryCount(12L).build(),
+                    RagRetrievalTuningVO.builder().endpoint("advanced").overridden(true).maxK(3).build()));
+
+            mockMvc.perform(get("/learn/rag/admin/retrieval"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data[0].queryCount").value(12))
+                    .andExpect(jsonPath("$.data[1].overridden").value(true));
+        }
+
+        @Test
+        @DisplayName("覆盖检索参数 - 应返回覆盖后的参数")
+        void overrideRetrievalTuning_shouldReturnSettings() throws Exception {
+            when(ragAdminService.overrideRetrievalTuning(eq("advanced"), any(RagRetrievalTuningDTO.class)))
+                    .thenReturn(RagRetrievalTuningVO.builder().endpoint("advanced").overridden(true)
+                            .maxK(4).similarityThreshold(0.7).build());
+
+            mockMvc.perform(put("/learn/rag/admin/retrieval/advanced")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"maxK\":4,\"similarityThreshold\":0.7}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.maxK").value(4))
+                    .andExpect(jsonPath("$.data.similarityThreshold").value(0.7));
+        }
+
+        @Test
+        @DisplayName("相似度阈值超出范围 - 应返回400")
+        void overrideRetrievalTuning_invalidThreshold_shouldReturnBadRequest() throws Exception {
+            mockMvc.perform(put("/learn/rag/admin/retrieval/advanced")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"similarityThreshold\":1.5}"))
+                    .andExpect(status().isBadRequest());
+
+            verify(ragAdminService, never()).overrideRetrievalTuning(any(), any());
+        }
+
+        @Test
+        @DisplayName("未知端点 - 应返回400")
+        void overrideRetrievalTuning_unknownEndpoint_shouldReturnBadRequest() throws Exception {
+            when(ragAdminService.overrideRetrievalTuning(eq("unknown"), any(RagRetrievalTuningDTO.class)))
+                    .thenThrow(new IllegalArgumentException("未知的检索端点: unknown"));
+
+            mockMvc.perform(put("/learn/rag/admin/retrieval/unknown")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"maxK\":4}"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("重置检索参数 - 应回到默认值")
+        void resetRetrievalTuning_shouldReturnDefaults() throws Exception {
+            when(ragAdminService.resetRetrievalTuning("simple"))
+                    .thenReturn(RagRetrievalTuningVO.builder().endpoint("simple").overridden(false).build());
+
+            mockMvc.perform(delete("/learn/rag/admin/retrieval/simple"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.overridden").value(false));
+        }
+    }
+
+    @Nested
+    @DisplayName("索引快照接口测试")
+    class SnapshotTests {
+
+        @Test
+        @DisplayName("保存快照 - 应返回快照信息")
+        void saveSnapshot_shouldReturnSnapshotInfo() throws Exception {
+            when(ragAdminService.saveSnapshot()).thenReturn(RagSnapshotVO.builder()
+                    .path("data/rag/snapshot/vector-index.snap")
+                    .chunkCount(5)
+                    .documentCount(5)
+                    .build());
+
+            mockMvc.perform(post("/learn/rag/admin/snapshot"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.chunkCount").value(5))
+                    .andExpect(jsonPath("$.data.documentCount").value(5));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.shinelon.hello.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.model.dto.RagIngestRequestDTO;
+import com.shinelon.hello.model.vo.RagIngestReportVO;
+import com.shinelon.hello.rag.ingest.DocumentIngestionPipeline;
+import com.shinelon.hello.rag.namespace.KnowledgeNamespace;
+import com.shinelon.hello.rag.namespace.KnowledgeNamespaces;
+import com.shinelon.hello.rag.retrieval.AdaptiveRetrievalTuner;
+import com.shinelon.hello.rag.store.VectorIndexSnapshot;
+import com.shinelon.hello.service.impl.RagAdminServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * RagAdminController 文档摄取路径测试类
+ * 使用真实的 RagAdminServiceImpl 验证摄取路径限制在摄取根目录内，知识库组件为 mock
+ *
+ * @author shinelon
+ */
+@WebMvcTest(value = RagAdminController.class,
+        properties = "rag.ingestion.root-dir=" + RagAdminIngestControllerTest.ROOT_DIR)
+@Import(RagAdminServiceImpl.class)
+@EnableConfigurationProperties(RagProperties.class)
+@ActiveProfiles("test")
+@DisplayName("RagAdminController 摄取路径测试")
+class RagAdminIngestControllerTest {
+
+    static final String ROOT_DIR = "target/rag-ingest-test";
+
+    private final Path rootDir = Path.of(ROOT_DIR).toAbsolutePath().normalize();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private KnowledgeNamespaces knowledgeNamespaces;
+
+    @MockBean
+    private VectorIndexSnapshot vectorIndexSnapshot;
+
+    @MockBean
+    private AdaptiveRetrievalTuner retrievalTuner;
+
+    private DocumentIngestionPipeline pipeline;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        Files.createDirectories(rootDir.resolve("docs"));
+        reset(knowledgeNamespaces);
+        pipeline = mock(DocumentIngestionPipeline.class);
+        KnowledgeNamespace namespace = mock(KnowledgeNamespace.class);
+        when(namespace.pipeline()).thenReturn(pipeline);
+        when(pipeline.ingestPath(any(), anyBoolean())).thenReturn(RagIngestReportVO.builder()
+                .documentCount(1)
+                .chunkCount(2)
+                .build());
+        when(knowledgeNamespaces.write(anyString(), any())).thenAnswer(invocation ->
+                invocation.<Function<KnowledgeNamespace, Object>>getArgument(1).apply(namespace));
+    }
+
+    record PathTestCase(String name, String path) {
+    }
+
+    static Stream<PathTestCase> escapingPaths() {
+        return Stream.of(
+                new PathTestCase("上级目录", "../outside"),
+                new PathTestCase("子目录中跳出", "docs/../../outside"),
+                new PathTestCase("绝对路径", "/etc")
+        );
+    }
+
+    private void performIngest(String path, int expectedStatus) throws Exception {
+        RagIngestRequestDTO request = new RagIngestRequestDTO();
+        request.setPath(path);
+
+        mockMvc.perform(post("/learn/rag/admin/ingest")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().is(expectedStatus))
+                .andExpect(jsonPath("$.code").value(expectedStatus));
+    }
+
+    @Test
+    @DisplayName("摄取根目录内的相对路径 - 应返回200")
+    void ingest_relativePath_shouldResolveUnderRootDir() throws Exception {
+        performIngest("docs", 200);
+
+        verify(pipeline).ingestPath(rootDir.resolve("docs"), true);
+    }
+
+    @Test
+    @DisplayName("摄取根目录本身 - 应返回200")
+    void ingest_rootDir_shouldBeAllowed() throws Exception {
+        performIngest(".", 200);
+
+        verify(pipeline).ingestPath(rootDir, true);
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("escapingPaths")
+    @DisplayName("摄取根目录之外的路径 - 应返回400")
+    void ingest_escapingPath_shouldReturn400(PathTestCase testCase) throws Exception {
+        performIngest(testCase.path(), 400);
+
+        verify(knowledgeNamespaces, never()).write(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("经摄取根目录内的符号链接指向外部 - 应返回400")
+    void ingest_symlinkOutside_shouldReturn400() throws Exception {
+        Path outside = Files.createTempDirectory("rag-ingest-outside");
+        Path link = rootDir.resolve("link");
+        Files.deleteIfExists(link);
+        Files.createSymbolicLink(link, outside);
+
+        try {
+            performIngest("link", 400);
+        } finally {
+            Files.delete(link);
+            Files.delete(outside);
+        }
+
+        verify(knowledgeNamespaces, never()).write(anyString(), any());
+    }
+}
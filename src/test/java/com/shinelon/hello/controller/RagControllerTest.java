@@ -79,6 +79,18 @@ class RagControllerTest {
                 .andExpect(jsonPath("$.data.content", not(emptyString())));
     }
 
+    @Test
+    void advancedChat_withInvalidCategory_shouldReturnBadRequest() throws Exception {
+        RagChatRequestDTO request = new RagChatRequestDTO();
+        request.setQuery("我想了解一下你们的技术");
+        request.setCategory("tech' || true");
+
+        mockMvc.perform(post("/learn/rag/advanced/chat")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void advancedChat_withEmptyQuery_shouldReturnBadRequest() throws Exception {
         RagChatRequestDTO request = new RagChatRequestDTO();
@@ -0,0 +1,248 @@
+package com.shinelon.hello.memory;
+
+import com.shinelon.hello.config.ChatMemoryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BoundedChatMemoryRepository 单元测试
+ *
+ * @author shinelon
+ */
+@DisplayName("BoundedChatMemoryRepository 测试")
+class BoundedChatMemoryRepositoryTest {
+
+    private static final List<Message> MESSAGES = List.of(new UserMessage("你好"), new AssistantMessage("你好，有什么可以帮你？"));
+
+    private AtomicLong clock;
+    private ChatMemoryProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private BoundedChatMemoryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        properties = new ChatMemoryProperties();
+        properties.setMaxConversations(100);
+        properties.setIdleTtl(Duration.ofMinutes(10));
+        meterRegistry = new SimpleMeterRegistry();
+        repository = new BoundedChatMemoryRepository(properties, meterRegistry, clock::get);
+    }
+
+    @Nested
+    @DisplayName("基本读写测试")
+    class CrudTests {
+
+        @Test
+        @DisplayName("保存后可读取，删除后为空")
+        void saveAll_thenFind_shouldReturnMessages() {
+            repository.saveAll("c1", MESSAGES);
+
+            assertEquals(MESSAGES, repository.findByConversationId("c1"));
+            assertEquals(List.of("c1"), repository.findConversationIds());
+
+            repository.deleteByConversationId("c1");
+
+            assertTrue(repository.findByConversationId("c1").isEmpty());
+            assertEquals(0, repository.size());
+            assertEquals(0, repository.bytes());
+        }
+
+        @Test
+        @DisplayName("覆盖写入时字节数按新消息的编码长度计算")
+        void saveAll_overwrite_shouldReplaceBytes() {
+            repository.saveAll("c1", MESSAGES);
+            repository.saveAll("c1", List.of(new UserMessage("新")));
+
+            assertEquals(ChatMessageCodec.encode("c1", List.of(new UserMessage("新"))).length, repository.bytes());
+        }
+
+        @Test
+        @DisplayName("作为 MessageWindowChatMemory 的存储使用")
+        void messageWindowChatMemory_shouldWork() {
+            ChatMemory chatMemory = MessageWindowChatMemory.builder()
+                    .chatMemoryRepository(repository)
+                    .maxMessages(2)
+                    .build();
+
+            chatMemory.add("c1", new UserMessage("一"));
+            chatMemory.add("c1", new UserMessage("二"));
+            chatMemory.add("c1", new UserMessage("三"));
+
+            assertEquals(List.of("二", "三"), chatMemory.get("c1").stream().map(Message::getText).toList());
+        }
+
+        @Test
+        @DisplayName("会话ID为空")
+        void saveAll_blankConversationId_shouldThrow() {
+            assertThrows(IllegalArgumentException.class, () -> repository.saveAll(" ", MESSAGES));
+        }
+    }
+
+    @Nested
+    @DisplayName("淘汰测试")
+    class EvictionTests {
+
+        @Test
+        @DisplayName("会话不断新增时常驻会话数有界")
+        void churn_shouldStayWithinMaxConversations() {
+            for (int i = 0; i < 10_000; i++) {
+                repository.saveAll("c" + i, MESSAGES);
+                assertTrue(repository.size() <= properties.getMaxConversations());
+            }
+
+            assertEquals(properties.getMaxConversations(), repository.size());
+            assertTrue(meterRegistry.get("chat.memory.evictions").tag("cause", "size").counter().count() > 0);
+            assertEquals(repository.size(),
+                    meterRegistry.get("chat.memory.conversations").gauge().value());
+        }
+
+        @Test
+        @DisplayName("反复使用的会话不会被一次性会话挤掉")
+        void churn_shouldKeepFrequentlyUsedConversation() {
+            for (int i = 0; i < 5; i++) {
+                repository.saveAll("hot", MESSAGES);
+                repository.findByConversationId("hot");
+            }
+
+            for (int i = 0; i < 5_000; i++) {
+                repository.saveAll("once-" + i, MESSAGES);
+                if (i % 50 == 0) {
+                    repository.findByConversationId("hot");
+                }
+            }
+
+            assertTrue(repository.contains("hot"));
+        }
+
+        @Test
+        @DisplayName("字节数超限时淘汰最久未访问的会话")
+        void saveAll_overMaxSize_shouldEvictByBytes() {
+            long perConversation = ChatMessageCodec.encode("c0", MESSAGES).length;
+            properties.setMaxSize(DataSize.ofBytes(perConversation * 3));
+            repository = new BoundedChatMemoryRepository(properties, meterRegistry, clock::get);
+
+            for (int i = 0; i < 10; i++) {
+                repository.saveAll("c" + i, MESSAGES);
+                assertTrue(repository.bytes() <= perConversation * 3);
+            }
+
+            assertEquals(3, repository.size());
+            assertTrue(repository.contains("c9"));
+            assertTrue(meterRegistry.get("chat.memory.evictions").tag("cause", "bytes").counter().count() > 0);
+        }
+
+        @Test
+        @DisplayName("空闲超时的会话读取时为空，并被清理")
+        void idleConversation_shouldExpire() {
+            repository.saveAll("idle", MESSAGES);
+            repository.saveAll("active", MESSAGES);
+            clock.addAndGet(Duration.ofMinutes(6).toNanos());
+            repository.findByConversationId("active");
+            clock.addAndGet(Duration.ofMinutes(6).toNanos());
+
+            assertTrue(repository.findByConversationId("idle").isEmpty());
+            assertEquals(0, repository.cleanUp());
+            assertEquals(List.of("active"), repository.findConversationIds());
+
+            clock.addAndGet(Duration.ofMinutes(10).toNanos());
+
+            assertEquals(1, repository.cleanUp());
+            assertEquals(0, repository.bytes());
+        }
+    }
+
+    @Nested
+    @DisplayName("加载测试")
+    class LoaderTests {
+
+        @Test
+        @DisplayName("未命中时加载并放入内存, 再次读取不加载")
+        void findByConversationId_miss_shouldLoadOnce() {
+            AtomicLong loads = new AtomicLong();
+
+            assertEquals(MESSAGES, repository.findByConversationId("c1", id -> {
+                loads.incrementAndGet();
+                return MESSAGES;
+            }));
+            assertEquals(MESSAGES, repository.findByConversationId("c1", id -> {
+                loads.incrementAndGet();
+                return MESSAGES;
+            }));
+
+            assertEquals(1, loads.get());
+            assertTrue(repository.contains("c1"));
+        }
+
+        @Test
+        @DisplayName("一个会话加载缓慢时, 其他会话的命中不被阻塞")
+        void findByConversationId_slowLoader_shouldNotBlockOtherConversations() throws Exception {
+            repository.saveAll("hot", MESSAGES);
+            CountDownLatch loading = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<List<Message>> slow = CompletableFuture.supplyAsync(
+                    () -> repository.findByConversationId("cold", id -> {
+                        loading.countDown();
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return MESSAGES;
+                    }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            try {
+                List<Message> hot = CompletableFuture.supplyAsync(() -> repository.findByConversationId("hot"))
+                        .get(2, TimeUnit.SECONDS);
+                assertEquals(MESSAGES, hot);
+                assertEquals(1, repository.size());
+            } finally {
+                release.countDown();
+            }
+
+            assertEquals(MESSAGES, slow.get(5, TimeUnit.SECONDS));
+            assertTrue(repository.contains("cold"));
+        }
+
+        @Test
+        @DisplayName("加载期间已有并发写入时以已有的为准")
+        void findByConversationId_concurrentSave_shouldKeepExisting() {
+            List<Message> newer = List.of(new UserMessage("更新的消息"));
+
+            List<Message> result = repository.findByConversationId("c1", id -> {
+                repository.saveAll(id, newer);
+                return MESSAGES;
+            });
+
+            assertEquals(newer, result);
+            assertEquals(newer, repository.findByConversationId("c1"));
+            assertEquals(ChatMessageCodec.encode("c1", newer).length, repository.bytes());
+        }
+
+        @Test
+        @DisplayName("加载函数返回 null 时不放入内存")
+        void findByConversationId_loaderReturnsNull_shouldReturnEmpty() {
+            assertTrue(repository.findByConversationId("missing", id -> null).isEmpty());
+            assertFalse(repository.contains("missing"));
+        }
+    }
+}
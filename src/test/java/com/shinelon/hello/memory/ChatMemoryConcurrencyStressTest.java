@@ -0,0 +1,174 @@
+package com.shinelon.hello.memory;
+
+import com.shinelon.hello.config.ChatMemoryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.content.MediaContent;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 对话记忆并发压力测试
+ * 多个线程同时向同一会话和不同会话追加消息，校验：
+ * <ul>
+ *     <li>没有消息丢失：每个会话的消息数等于追加次数</li>
+ *     <li>线性一致：同一线程追加的消息在会话中保持追加顺序</li>
+ * </ul>
+ * 每轮用起跑门让所有线程同时开始，重复多轮以放大竞争
+ *
+ * @author shinelon
+ */
+@DisplayName("对话记忆并发压力测试")
+class ChatMemoryConcurrencyStressTest {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 100;
+    private static final int ROUNDS = 3;
+
+    private final TokenCountEstimator charEstimator = new TokenCountEstimator() {
+        @Override
+        public int estimate(String text) {
+            return text.length();
+        }
+
+        @Override
+        public int estimate(MediaContent content) {
+            return 0;
+        }
+
+        @Override
+        public int estimate(Iterable<MediaContent> contents) {
+            return 0;
+        }
+    };
+
+    private ChatMemoryProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ChatMemoryProperties();
+        properties.setMaxMessages(100_000);
+        properties.setMaxTokenBudget(10_000_000);
+        properties.setSummarize(false);
+        properties.setLockStripes(16);
+    }
+
+    private TokenWindowChatMemory newChatMemory() {
+        BoundedChatMemoryRepository repository = new BoundedChatMemoryRepository(properties,
+                new SimpleMeterRegistry());
+        return new TokenWindowChatMemory(repository, properties, charEstimator);
+    }
+
+    @Test
+    @DisplayName("同一会话并发追加不丢消息且保持每个线程的顺序")
+    void add_sameConversation_shouldBeLinearizable() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            TokenWindowChatMemory chatMemory = newChatMemory();
+
+            runConcurrently(thread -> {
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    chatMemory.add("shared", new UserMessage(thread + ":" + i));
+                }
+            });
+
+            List<Message> messages = chatMemory.get("shared", properties.getMaxTokenBudget());
+            assertEquals(THREADS * ADDS_PER_THREAD, messages.size(), "round=" + round);
+            assertPerThreadOrder(messages, "round=" + round);
+        }
+    }
+
+    @Test
+    @DisplayName("不同会话并发追加互不影响")
+    void add_distinctConversations_shouldAllSucceed() throws Exception {
+        TokenWindowChatMemory chatMemory = newChatMemory();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                // 每个线程轮流写自己的会话和相邻线程的会话，同一会话始终有两个写者
+                chatMemory.add("conv-" + thread, new UserMessage(thread + ":" + i));
+                chatMemory.add("conv-" + ((thread + 1) % THREADS), new UserMessage(thread + ":" + i));
+            }
+        });
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            List<Message> messages = chatMemory.get("conv-" + thread, properties.getMaxTokenBudget());
+            assertEquals(2 * ADDS_PER_THREAD, messages.size(), "conv-" + thread);
+            assertPerThreadOrder(messages, "conv-" + thread);
+        }
+    }
+
+    @Test
+    @DisplayName("追加与清除交错时清除之后只剩清除后追加的消息")
+    void addAndClear_shouldNotResurrectClearedMessages() throws Exception {
+        TokenWindowChatMemory chatMemory = newChatMemory();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                if (thread == 0 && i % 10 == 0) {
+                    chatMemory.clear("shared");
+                }
+                chatMemory.add("shared", new UserMessage(thread + ":" + i));
+            }
+        });
+        chatMemory.clear("shared");
+        chatMemory.add("shared", new UserMessage("0:0"));
+
+        assertEquals(1, chatMemory.get("shared").size());
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int id = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(id);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 消息文本为"线程:序号"，同一线程的序号必须严格递增
+     */
+    private void assertPerThreadOrder(List<Message> messages, String context) {
+        Map<String, Integer> last = new HashMap<>();
+        for (Message message : messages) {
+            String[] parts = message.getText().split(":");
+            int sequence = Integer.parseInt(parts[1]);
+            Integer previous = last.put(parts[0], sequence);
+            assertTrue(previous == null || previous < sequence,
+                    context + " 线程 " + parts[0] + " 的消息乱序: " + previous + " -> " + sequence);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
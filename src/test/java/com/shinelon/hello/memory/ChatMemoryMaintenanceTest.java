@@ -0,0 +1,407 @@
+package com.shinelon.hello.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shinelon.hello.config.ChatMemoryProperties;
+import com.shinelon.hello.dao.ChatMessageDao;
+import com.shinelon.hello.dao.ChatSessionDao;
+import com.shinelon.hello.model.entity.ChatMessageDO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ChatMemoryMaintenance 测试类
+ * 任务在后台线程执行，测试不包在事务中，每个用例前后清空表
+ *
+ * @author shinelon
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChatMemoryMaintenanceTest {
+
+    @Autowired
+    private ChatSessionDao chatSessionDao;
+
+    @Autowired
+    private ChatMessageDao chatMessageDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    private ChatMemoryProperties properties;
+    private JpaChatMemoryRepository repository;
+    private ChatMemoryMaintenance maintenance;
+
+    @BeforeEach
+    void setUp() {
+        chatMessageDao.deleteAll();
+        chatSessionDao.deleteAll();
+        properties = new ChatMemoryProperties();
+        properties.getAdmin().setBatchSize(2);
+        newMaintenance();
+    }
+
+    @AfterEach
+    void tearDown() {
+        maintenance.close();
+        chatMessageDao.deleteAll();
+        chatSessionDao.deleteAll();
+    }
+
+    private void newMaintenance() {
+        if (maintenance != null) {
+            maintenance.close();
+        }
+        repository = new JpaChatMemoryRepository(chatSessionDao, chatMessageDao, transactionManager, properties,
+                new SimpleMeterRegistry());
+        maintenance = new ChatMemoryMaintenance(repository, chatSessionDao, chatMessageDao, new ObjectMapper(),
+                properties);
+    }
+
+    private static MaintenanceJob await(MaintenanceJob job) throws InterruptedException {
+        assertTrue(job.await(10, TimeUnit.SECONDS), "任务未在超时前结束");
+        return job;
+    }
+
+    private void conversation(String conversationId, String... texts) {
+        for (String text : texts) {
+            repository.append(conversationId, List.of(new UserMessage(text), new AssistantMessage("re:" + text)));
+        }
+    }
+
+    /**
+     * 把会话及其消息的时间改到指定分钟数之前
+     */
+    private void age(String conversationId, long minutes) {
+        LocalDateTime time = LocalDateTime.now().minusMinutes(minutes);
+        jdbcTemplate.update("update chat_session set update_time = ? where session_id = ?", time, conversationId);
+        jdbcTemplate.update("update chat_message set create_time = ? where session_id = ?", time, conversationId);
+    }
+
+    private List<LocalDateTime> createTimes(String conversationId) {
+        return chatMessageDao.findBySessionIdOrderByCreateTimeAscIdAsc(conversationId, PageRequest.of(0, 100))
+                .stream().map(ChatMessageDO::getCreateTime).toList();
+    }
+
+    private List<String> sessionIds() {
+        return chatSessionDao.findAllSessionIds().stream().sorted().toList();
+    }
+
+    @Nested
+    @DisplayName("批量清理")
+    class ClearTests {
+
+        @Test
+        @DisplayName("按前缀清理, 跨多批处理并报告进度")
+        void clear_byPrefix_shouldRemoveMatching() throws Exception {
+            for (int i = 0; i < 5; i++) {
+                conversation("tmp-" + i, "q");
+            }
+            conversation("keep-1", "q");
+
+            MaintenanceJob job = await(maintenance.submitClear("tmp-", null));
+
+            assertEquals(MaintenanceJob.Status.SUCCEEDED, job.status());
+            assertEquals(5, job.toVO().getTotalConversations());
+            assertEquals(5, job.processedConversations());
+            assertEquals(1.0, job.progress());
+            assertEquals(List.of("keep-1"), sessionIds());
+            assertEquals(0, chatMessageDao.countBySessionId("tmp-0"));
+        }
+
+        @Test
+        @DisplayName("前缀中的 LIKE 通配符按字面匹配")
+        void clear_prefixWithWildcards_shouldMatchLiterally() throws Exception {
+            conversation("a_b-1", "q");
+            conversation("axb-1", "q");
+            conversation("a%b-1", "q");
+
+            await(maintenance.submitClear("a_b", null));
+
+            assertEquals(List.of("a%b-1", "axb-1"), sessionIds());
+        }
+
+        @Test
+        @DisplayName("按空闲时间清理, 近期有消息的会话保留")
+        void clear_byIdle_shouldKeepActive() throws Exception {
+            conversation("old", "q");
+            conversation("fresh", "q");
+            conversation("revived", "q");
+            age("old", 120);
+            age("revived", 120);
+            repository.append("revived", List.of(new UserMessage("新消息")));
+
+            MaintenanceJob job = await(maintenance.submitClear(null, Duration.ofMinutes(60)));
+
+            assertEquals(1, job.processedConversations());
+            assertEquals(List.of("fresh", "revived"), sessionIds());
+        }
+
+        @Test
+        @DisplayName("同时指定前缀和空闲时间时两个条件都要满足")
+        void clear_byPrefixAndIdle_shouldRequireBoth() throws Exception {
+            conversation("tmp-old", "q");
+            conversation("tmp-new", "q");
+            conversation("other-old", "q");
+            age("tmp-old", 120);
+            age("other-old", 120);
+
+            await(maintenance.submitClear("tmp-", Duration.ofMinutes(60)));
+
+            assertEquals(List.of("other-old", "tmp-new"), sessionIds());
+        }
+
+        @Test
+        @DisplayName("清理掉缓存中的会话尾部")
+        void clear_shouldEvictCache() throws Exception {
+            conversation("tmp-1", "q");
+            repository.findByConversationId("tmp-1");
+
+            await(maintenance.submitClear("tmp-", null));
+
+            assertFalse(repository.isCached("tmp-1"));
+            assertTrue(repository.findByConversationId("tmp-1").isEmpty());
+        }
+
+        record InvalidClearCase(String name, String prefix, Duration idle) {
+        }
+
+        static Stream<InvalidClearCase> invalidClearCases() {
+            return Stream.of(
+                    new InvalidClearCase("没有条件", null, null),
+                    new InvalidClearCase("空闲时间为0", null, Duration.ZERO),
+                    new InvalidClearCase("空闲时间为负数", "tmp-", Duration.ofMinutes(-1))
+            );
+        }
+
+        @ParameterizedTest
+        @MethodSource("invalidClearCases")
+        @DisplayName("清理条件不合法时拒绝提交")
+        void clear_invalid_shouldThrow(InvalidClearCase testCase) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> maintenance.submitClear(testCase.prefix(), testCase.idle()), testCase.name());
+            assertTrue(maintenance.jobs().isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("导出与导入")
+    class TransferTests {
+
+        @Test
+        @DisplayName("导出后导入, 消息顺序、类型和工具调用一致")
+        void exportThenImport_shouldRoundTrip() throws Exception {
+            AssistantMessage call = AssistantMessage.builder()
+                    .content("")
+                    .toolCalls(List.of(new AssistantMessage.ToolCall("t1", "function", "weather", "{\"city\":\"北京\"}")))
+                    .build();
+            ToolResponseMessage response = ToolResponseMessage.builder()
+                    .responses(List.of(new ToolResponseMessage.ToolResponse("t1", "weather", "晴")))
+                    .build();
+            List<Message> original = List.of(new SystemMessage("系统"), new UserMessage("天气"), call, response,
+                    new AssistantMessage("北京晴"));
+            repository.append("c1", original);
+            conversation("c2", "q1", "q2", "q3");
+            age("c2", 120);
+            List<LocalDateTime> c1Times = createTimes("c1");
+            List<LocalDateTime> c2Times = createTimes("c2");
+            Path file = tempDir.resolve("export/memory.ndjson");
+
+            MaintenanceJob export = await(maintenance.submitExport(file, null));
+            assertEquals(MaintenanceJob.Status.SUCCEEDED, export.status());
+            assertEquals(2, export.processedConversations());
+            assertEquals(11, export.processedMessages());
+            assertEquals(11, Files.readAllLines(file).size());
+            assertFalse(Files.exists(file.resolveSibling("memory.ndjson.tmp")));
+
+            chatMessageDao.deleteAll();
+            chatSessionDao.deleteAll();
+            newMaintenance();
+            MaintenanceJob imported = await(maintenance.submitImport(file, false));
+
+            assertEquals(MaintenanceJob.Status.SUCCEEDED, imported.status());
+            assertEquals(2, imported.processedConversations());
+            assertEquals(11, imported.processedMessages());
+            assertEquals(1.0, imported.progress());
+            List<Message> c1 = repository.findByConversationId("c1");
+            assertEquals(original.stream().map(Message::getMessageType).toList(),
+                    c1.stream().map(Message::getMessageType).toList());
+            assertEquals(original.stream().map(Message::getText).toList(), c1.stream().map(Message::getText).toList());
+            assertEquals("weather", ((AssistantMessage) c1.get(2)).getToolCalls().get(0).name());
+            assertEquals("晴", ((ToolResponseMessage) c1.get(3)).getResponses().get(0).responseData());
+            assertEquals(List.of("q1", "re:q1", "q2", "re:q2", "q3", "re:q3"),
+                    repository.findByConversationId("c2").stream().map(Message::getText).toList());
+            assertEquals("天气", chatSessionDao.findBySessionId("c1").orElseThrow().getTitle());
+            assertEquals(c1Times, createTimes("c1"));
+            assertEquals(c2Times, createTimes("c2"));
+            assertEquals(c2Times.get(c2Times.size() - 1),
+                    chatSessionDao.findBySessionId("c2").orElseThrow().getUpdateTime());
+
+            MaintenanceJob cleared = await(maintenance.submitClear(null, Duration.ofMinutes(60)));
+            assertEquals(MaintenanceJob.Status.SUCCEEDED, cleared.status());
+            assertEquals(List.of("c1"), sessionIds());
+        }
+
+        @Test
+        @DisplayName("没有创建时间的旧版导出行按当前时间导入")
+        void import_withoutCreateTime_shouldUseNow() throws Exception {
+            Path file = tempDir.resolve("legacy.ndjson");
+            Files.writeString(file, "{\"conversationId\":\"c1\",\"type\":\"user\",\"text\":\"q\"}\n",
+                    StandardCharsets.UTF_8);
+            LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+
+            MaintenanceJob imported = await(maintenance.submitImport(file, false));
+
+            assertEquals(MaintenanceJob.Status.SUCCEEDED, imported.status());
+            assertTrue(createTimes("c1").get(0).isAfter(before));
+        }
+
+        @Test
+        @DisplayName("按前缀导出")
+        void export_byPrefix_shouldFilter() throws Exception {
+            conversation("tmp-1", "q");
+            conversation("keep-1", "q");
+            Path file = tempDir.resolve("memory.ndjson");
+
+            await(maintenance.submitExport(file, "tmp-"));
+
+            assertTrue(Files.readAllLines(file).stream().allMatch(line -> line.contains("\"tmp-1\"")));
+        }
+
+        @Test
+        @DisplayName("默认跳过已存在的会话, 开启覆盖时替换")
+        void import_existing_shouldSkipOrOverwrite() throws Exception {
+            conversation("c1", "导出时");
+            Path file = tempDir.resolve("memory.ndjson");
+            await(maintenance.submitExport(file, null));
+            chatMessageDao.deleteAll();
+            chatSessionDao.deleteAll();
+            conversation("c1", "现在");
+
+            MaintenanceJob skipped = await(maintenance.submitImport(file, false));
+            assertEquals(1, skipped.skippedConversations());
+            assertEquals(List.of("现在", "re:现在"),
+                    repository.findByConversationId("c1").stream().map(Message::getText).toList());
+
+            MaintenanceJob overwritten = await(maintenance.submitImport(file, true));
+            assertEquals(1, overwritten.processedConversations());
+            assertEquals(List.of("导出时", "re:导出时"),
+                    repository.findByConversationId("c1").stream().map(Message::getText).toList());
+        }
+
+        @Test
+        @DisplayName("格式错误的行使任务失败并报告行号, 之前导入的会话保留")
+        void import_invalidLine_shouldFail() throws Exception {
+            Path file = tempDir.resolve("broken.ndjson");
+            Files.writeString(file, String.join("\n",
+                    "{\"conversationId\":\"c1\",\"type\":\"user\",\"text\":\"你好\"}",
+                    "",
+                    "{\"conversationId\":\"c2\",\"type\":\"user\",\"text\":\"在吗\"}",
+                    "not json"), StandardCharsets.UTF_8);
+
+            MaintenanceJob job = await(maintenance.submitImport(file, false));
+
+            assertEquals(MaintenanceJob.Status.FAILED, job.status());
+            assertTrue(job.error().contains("第 4 行"), job.error());
+            assertEquals(List.of("c1", "c2"), sessionIds());
+        }
+
+        @Test
+        @DisplayName("未知消息类型使任务失败")
+        void import_unknownType_shouldFail() throws Exception {
+            Path file = tempDir.resolve("unknown.ndjson");
+            Files.writeString(file, "{\"conversationId\":\"c1\",\"type\":\"robot\",\"text\":\"?\"}\n");
+
+            MaintenanceJob job = await(maintenance.submitImport(file, false));
+
+            assertEquals(MaintenanceJob.Status.FAILED, job.status());
+            assertTrue(job.error().contains("robot"), job.error());
+        }
+
+        @Test
+        @DisplayName("导入文件不存在时拒绝提交")
+        void import_missingFile_shouldThrow() {
+            Path missing = tempDir.resolve("missing.ndjson");
+
+            assertThrows(IllegalArgumentException.class, () -> maintenance.submitImport(missing, false));
+        }
+    }
+
+    @Nested
+    @DisplayName("任务管理")
+    class JobTests {
+
+        @Test
+        @DisplayName("只保留 jobHistory 个已结束的任务, 最近提交的在前")
+        void jobs_shouldKeepRecentHistory() throws Exception {
+            properties.getAdmin().setJobHistory(1);
+            newMaintenance();
+
+            MaintenanceJob first = await(maintenance.submitClear("x-", null));
+            MaintenanceJob second = await(maintenance.submitClear("y-", null));
+            MaintenanceJob third = await(maintenance.submitClear("z-", null));
+
+            assertEquals(List.of(third.id(), second.id()), maintenance.jobs().stream().map(MaintenanceJob::id).toList());
+            assertTrue(maintenance.job(first.id()).isEmpty());
+        }
+
+        @Test
+        @DisplayName("已结束的任务不能取消")
+        void cancel_finished_shouldReturnFalse() throws Exception {
+            MaintenanceJob job = await(maintenance.submitClear("x-", null));
+
+            assertFalse(maintenance.cancel(job.id()));
+            assertFalse(maintenance.cancel("missing"));
+            assertEquals(MaintenanceJob.Status.SUCCEEDED, job.status());
+        }
+
+        @Test
+        @DisplayName("排队中的任务取消后不再执行")
+        void cancel_pending_shouldNotStart() {
+            MaintenanceJob job = new MaintenanceJob("j1", MaintenanceJob.Type.CLEAR, "prefix=x-");
+
+            assertTrue(job.cancel());
+            assertFalse(job.start());
+
+            assertEquals(MaintenanceJob.Status.CANCELLED, job.status());
+            assertNotNull(job.toVO().getFinishTime());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.shinelon.hello.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 会话消息编码大小与吞吐基准测试
+ * 默认跳过，运行方式：
+ * mvn test -Dtest=ChatMessageCodecBenchmarkTest -Dmemory.benchmark=true
+ *   [-Dmemory.benchmark.conversations=2000 -Dmemory.benchmark.messages=20]
+ * <p>
+ * 对比三种表示：JSON（文本 + 元数据，近似 CLOB 列与 JSON 存储）、紧凑编码不压缩、紧凑编码压缩长文本
+ *
+ * @author shinelon
+ */
+@EnabledIfSystemProperty(named = "memory.benchmark", matches = "true")
+@DisplayName("ChatMessageCodec 基准测试")
+class ChatMessageCodecBenchmarkTest {
+
+    private static final String[] QUESTIONS = {
+            "智云客服支持哪些渠道接入？", "价格按坐席数怎么计费？", "知识库最多可以上传多少文档？", "能否私有化部署？"
+    };
+    private static final String ANSWER_PARAGRAPH =
+            "智云客服支持网页、App、微信公众号和企业微信接入，知识库问答基于检索增强生成，回答会附带引用来源。";
+
+    @Test
+    @DisplayName("编码大小与编解码吞吐")
+    void encode_sizeAndThroughput() throws Exception {
+        int conversationCount = Integer.getInteger("memory.benchmark.conversations", 2000);
+        int messagesPerConversation = Integer.getInteger("memory.benchmark.messages", 20);
+        Random random = new Random(42);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        List<List<Message>> conversations = new ArrayList<>(conversationCount);
+        for (int c = 0; c < conversationCount; c++) {
+            List<Message> messages = new ArrayList<>(messagesPerConversation);
+            for (int m = 0; m < messagesPerConversation; m += 2) {
+                messages.add(new UserMessage(QUESTIONS[random.nextInt(QUESTIONS.length)]));
+                messages.add(AssistantMessage.builder()
+                        .content(ANSWER_PARAGRAPH.repeat(1 + random.nextInt(12)))
+                        .properties(Map.of("finishReason", "STOP", "id", "resp-" + c + "-" + m))
+                        .build());
+            }
+            conversations.add(messages);
+        }
+
+        long jsonBytes = 0;
+        for (List<Message> messages : conversations) {
+            List<Map<String, Object>> rows = new ArrayList<>(messages.size());
+            for (Message message : messages) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("role", message.getMessageType().getValue());
+                row.put("content", message.getText());
+                row.put("metadata", message.getMetadata());
+                rows.add(row);
+            }
+            jsonBytes += objectMapper.writeValueAsBytes(rows).length;
+        }
+
+        long rawBytes = 0;
+        for (int c = 0; c < conversationCount; c++) {
+            rawBytes += ChatMessageCodec.encode("c" + c, conversations.get(c), Integer.MAX_VALUE).length;
+        }
+
+        List<byte[]> encoded = new ArrayList<>(conversationCount);
+        long encodeStart = System.nanoTime();
+        for (int c = 0; c < conversationCount; c++) {
+            encoded.add(ChatMessageCodec.encode("c" + c, conversations.get(c)));
+        }
+        long encodeNanos = System.nanoTime() - encodeStart;
+        long compactBytes = encoded.stream().mapToLong(bytes -> bytes.length).sum();
+
+        long decodeStart = System.nanoTime();
+        int decodedMessages = 0;
+        for (byte[] bytes : encoded) {
+            decodedMessages += ChatMessageCodec.decode(bytes).messages().size();
+        }
+        long decodeNanos = System.nanoTime() - decodeStart;
+
+        assertEquals((long) conversationCount * messagesPerConversation, decodedMessages);
+        assertTrue(compactBytes < jsonBytes);
+        long totalMessages = (long) conversationCount * messagesPerConversation;
+        System.out.printf("[ChatMemory-Codec-Benchmark] conversations=%d, messages=%d, json=%.1fKB, "
+                        + "compact=%.1fKB (%.0f%%), compact+deflate=%.1fKB (%.0f%%), "
+                        + "encode=%.0f msg/s, decode=%.0f msg/s%n",
+                conversationCount, totalMessages, jsonBytes / 1024.0,
+                rawBytes / 1024.0, rawBytes * 100.0 / jsonBytes,
+                compactBytes / 1024.0, compactBytes * 100.0 / jsonBytes,
+                totalMessages * 1e9 / encodeNanos, totalMessages * 1e9 / decodeNanos);
+    }
+}
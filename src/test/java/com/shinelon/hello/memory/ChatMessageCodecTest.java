@@ -0,0 +1,319 @@
+package com.shinelon.hello.memory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ChatMessageCodec 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("ChatMessageCodec 测试")
+class ChatMessageCodecTest {
+
+    record RoundTripTestCase(String name, Message message) {}
+
+    static Stream<RoundTripTestCase> roundTripTestCases() {
+        return Stream.of(
+                new RoundTripTestCase("用户消息", new UserMessage("你好，介绍一下智云科技")),
+                new RoundTripTestCase("系统消息", new SystemMessage("你是客服助手")),
+                new RoundTripTestCase("助手消息带元数据", AssistantMessage.builder()
+                        .content("好的")
+                        .properties(Map.of("finishReason", "STOP"))
+                        .build()),
+                new RoundTripTestCase("助手消息只有工具调用", AssistantMessage.builder()
+                        .toolCalls(List.of(new AssistantMessage.ToolCall("call-1", "function", "calculator",
+                                "{\"expression\":\"1+1\"}")))
+                        .build()),
+                new RoundTripTestCase("工具结果", ToolResponseMessage.builder()
+                        .responses(List.of(new ToolResponseMessage.ToolResponse("call-1", "calculator", "2")))
+                        .build()),
+                new RoundTripTestCase("空文本", new UserMessage(""))
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("roundTripTestCases")
+    @DisplayName("编码后解码与原消息一致")
+    void roundTrip_shouldPreserveMessage(RoundTripTestCase tc) throws IOException {
+        ChatMessageCodec.Conversation decoded = ChatMessageCodec.decode(
+                ChatMessageCodec.encode("会话-1", List.of(tc.message())));
+
+        assertEquals("会话-1", decoded.conversationId());
+        Message message = decoded.messages().get(0);
+        assertEquals(tc.message().getMessageType(), message.getMessageType());
+        assertEquals(tc.message().getText(), message.getText());
+        if (tc.message() instanceof AssistantMessage assistant) {
+            assertEquals(assistant.getToolCalls(), ((AssistantMessage) message).getToolCalls());
+        }
+        if (tc.message() instanceof ToolResponseMessage tool) {
+            assertEquals(tool.getResponses(), ((ToolResponseMessage) message).getResponses());
+        }
+    }
+
+    @Test
+    @DisplayName("截断的编码解码失败")
+    void decode_truncated_shouldThrow() {
+        byte[] bytes = ChatMessageCodec.encode("c1", List.of(new UserMessage("你好")));
+
+        assertThrows(IOException.class, () -> ChatMessageCodec.decode(Arrays.copyOf(bytes, bytes.length - 3)));
+        assertThrows(IOException.class, () -> ChatMessageCodec.decode(new byte[]{1, 2, 3, 4, 5}));
+    }
+
+    @Test
+    @DisplayName("单条消息编码往返")
+    void encodeMessage_roundTrip_shouldPreserveText() throws IOException {
+        Message message = new AssistantMessage("智云客服支持多轮对话".repeat(100));
+
+        byte[] bytes = ChatMessageCodec.encodeMessage(message, ChatMessageCodec.DEFAULT_COMPRESSION_THRESHOLD);
+        Message decoded = ChatMessageCodec.decodeMessage(bytes);
+
+        assertEquals(message.getMessageType(), decoded.getMessageType());
+        assertEquals(message.getText(), decoded.getText());
+        assertTrue(bytes.length < message.getText().getBytes(StandardCharsets.UTF_8).length / 4);
+    }
+
+    @Test
+    @DisplayName("可以解码版本 1 的旧编码")
+    void decode_version1_shouldWork() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(0x43484d4d);
+            out.writeByte(1);
+            out.writeUTF("旧会话");
+            out.writeInt(2);
+            out.writeByte(1);
+            writeV1Bytes(out, "你好".getBytes(StandardCharsets.UTF_8));
+            writeV1Bytes(out, "{\"source\":\"web\"}".getBytes(StandardCharsets.UTF_8));
+            out.writeByte(2);
+            writeV1Bytes(out, "您好".getBytes(StandardCharsets.UTF_8));
+            writeV1Bytes(out, "{}".getBytes(StandardCharsets.UTF_8));
+            out.writeInt(1);
+            out.writeInt(-1);
+            writeV1Bytes(out, "function".getBytes(StandardCharsets.UTF_8));
+            writeV1Bytes(out, "calculator".getBytes(StandardCharsets.UTF_8));
+            writeV1Bytes(out, "{}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        ChatMessageCodec.Conversation decoded = ChatMessageCodec.decode(buffer.toByteArray());
+
+        assertEquals("旧会话", decoded.conversationId());
+        assertEquals("你好", decoded.messages().get(0).getText());
+        assertEquals("web", decoded.messages().get(0).getMetadata().get("source"));
+        AssistantMessage assistant = (AssistantMessage) decoded.messages().get(1);
+        assertEquals("您好", assistant.getText());
+        assertEquals(List.of(new AssistantMessage.ToolCall(null, "function", "calculator", "{}")),
+                assistant.getToolCalls());
+    }
+
+    private static void writeV1Bytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Nested
+    @DisplayName("紧凑编码测试")
+    class CompactTests {
+
+        @Test
+        @DisplayName("长文本压缩，短文本不压缩")
+        void encode_longText_shouldCompress() throws IOException {
+            String longText = "请介绍智云科技的产品线和价格。".repeat(200);
+            List<Message> messages = List.of(new UserMessage(longText));
+
+            byte[] compressed = ChatMessageCodec.encode("c1", messages);
+            byte[] raw = ChatMessageCodec.encode("c1", messages, Integer.MAX_VALUE);
+
+            assertTrue(compressed.length * 10 < raw.length);
+            assertEquals(longText, ChatMessageCodec.decode(compressed).messages().get(0).getText());
+            assertEquals(ChatMessageCodec.encode("c1", List.of(new UserMessage("短"))).length,
+                    ChatMessageCodec.encode("c1", List.of(new UserMessage("短")), Integer.MAX_VALUE).length);
+        }
+
+        @Test
+        @DisplayName("重复的元数据键只写一次原文")
+        void encode_repeatedKeys_shouldIntern() {
+            Map<String, Object> metadata = Map.of("customKey", "v");
+            byte[] one = ChatMessageCodec.encode("c1", List.of(UserMessage.builder().text("a").metadata(metadata).build()));
+            byte[] two = ChatMessageCodec.encode("c1", List.of(
+                    UserMessage.builder().text("a").metadata(metadata).build(),
+                    UserMessage.builder().text("a").metadata(metadata).build()));
+
+            byte[] empty = ChatMessageCodec.encode("c1", List.of());
+
+            // 首次出现：新键标记 + 长度 + 原文；再次出现：一个字节的键编号
+            int firstMessage = one.length - empty.length;
+            int secondMessage = two.length - one.length;
+            assertEquals("customKey".length() + 1, firstMessage - secondMessage);
+        }
+
+        @Test
+        @DisplayName("短会话除文本外只有少量固定开销")
+        void encode_shortConversation_shouldBeSmallerThanText() {
+            List<Message> messages = List.of(new UserMessage("你好"), new AssistantMessage("你好，有什么可以帮你？"));
+            int textBytes = messages.stream().mapToInt(m -> m.getText().getBytes(StandardCharsets.UTF_8).length).sum();
+
+            byte[] bytes = ChatMessageCodec.encode("c1", messages);
+
+            // 每条消息固定开销：标志字节 + 长度 + 元数据数 + messageType 键值，约 12 字节
+            assertTrue(bytes.length <= textBytes + 8 + messages.size() * 16, "编码长度: " + bytes.length);
+        }
+    }
+
+    @Nested
+    @DisplayName("随机往返测试")
+    class FuzzTests {
+
+        private static final long SEED = 20261019L;
+
+        @Test
+        @DisplayName("随机会话编码后解码与原消息一致")
+        void roundTrip_randomConversations_shouldPreserve() throws IOException {
+            Random random = new Random(SEED);
+            for (int round = 0; round < 500; round++) {
+                List<Message> messages = randomMessages(random);
+                int threshold = random.nextBoolean() ? ChatMessageCodec.DEFAULT_COMPRESSION_THRESHOLD : random.nextInt(64);
+                String conversationId = randomText(random, 1 + random.nextInt(40));
+
+                ChatMessageCodec.Conversation decoded = ChatMessageCodec.decode(
+                        ChatMessageCodec.encode(conversationId, messages, threshold));
+
+                assertEquals(conversationId, decoded.conversationId(), "round=" + round);
+                assertEquals(messages.size(), decoded.messages().size(), "round=" + round);
+                for (int i = 0; i < messages.size(); i++) {
+                    assertSameMessage(messages.get(i), decoded.messages().get(i), "round=" + round + ", i=" + i);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("损坏或截断的编码只抛出 IOException")
+        void decode_corrupted_shouldOnlyThrowIOException() {
+            Random random = new Random(SEED);
+            for (int round = 0; round < 2000; round++) {
+                byte[] bytes = ChatMessageCodec.encode("c" + round, randomMessages(random), random.nextInt(128));
+                byte[] corrupted = random.nextBoolean()
+                        ? Arrays.copyOf(bytes, random.nextInt(bytes.length))
+                        : flipRandomByte(bytes, random);
+                try {
+                    ChatMessageCodec.decode(corrupted);
+                } catch (IOException expected) {
+                    // 损坏的数据允许解码失败
+                } catch (Throwable e) {
+                    fail("round=" + round + " 抛出了非 IOException: " + e);
+                }
+            }
+        }
+
+        private byte[] flipRandomByte(byte[] bytes, Random random) {
+            byte[] copy = bytes.clone();
+            copy[5 + random.nextInt(copy.length - 5)] ^= (byte) (1 + random.nextInt(255));
+            return copy;
+        }
+
+        private void assertSameMessage(Message expected, Message actual, String context) {
+            assertEquals(expected.getMessageType(), actual.getMessageType(), context);
+            assertEquals(expected.getText(), actual.getText(), context);
+            assertEquals(expected.getMetadata(), actual.getMetadata(), context);
+            if (expected instanceof AssistantMessage assistant) {
+                assertEquals(assistant.getToolCalls(), ((AssistantMessage) actual).getToolCalls(), context);
+            }
+            if (expected instanceof ToolResponseMessage tool) {
+                assertEquals(tool.getResponses(), ((ToolResponseMessage) actual).getResponses(), context);
+            }
+        }
+
+        private List<Message> randomMessages(Random random) {
+            int count = random.nextInt(6);
+            List<Message> messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String text = randomText(random, random.nextInt(10) == 0 ? 2000 : random.nextInt(80));
+                Map<String, Object> metadata = randomMetadata(random);
+                messages.add(switch (random.nextInt(4)) {
+                    case 0 -> UserMessage.builder().text(text).metadata(metadata).build();
+                    case 1 -> SystemMessage.builder().text(text).metadata(metadata).build();
+                    case 2 -> AssistantMessage.builder()
+                            .content(random.nextInt(5) == 0 ? null : text)
+                            .properties(metadata)
+                            .toolCalls(randomToolCalls(random))
+                            .build();
+                    default -> ToolResponseMessage.builder()
+                            .responses(List.of(new ToolResponseMessage.ToolResponse(
+                                    "call-" + random.nextInt(100), "tool", randomText(random, random.nextInt(300)))))
+                            .metadata(metadata)
+                            .build();
+                });
+            }
+            return messages;
+        }
+
+        private List<AssistantMessage.ToolCall> randomToolCalls(Random random) {
+            List<AssistantMessage.ToolCall> toolCalls = new ArrayList<>();
+            for (int i = random.nextInt(3); i > 0; i--) {
+                toolCalls.add(new AssistantMessage.ToolCall(random.nextBoolean() ? null : "call-" + i, "function",
+                        randomText(random, 8), "{\"x\":" + random.nextInt() + "}"));
+            }
+            return toolCalls;
+        }
+
+        private Map<String, Object> randomMetadata(Random random) {
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            List<String> keys = List.of("finishReason", "id", "index", "source", "custom", randomText(random, 6));
+            for (int i = random.nextInt(5); i > 0; i--) {
+                String key = keys.get(random.nextInt(keys.size()));
+                metadata.put(key, switch (random.nextInt(7)) {
+                    case 0 -> randomText(random, random.nextInt(20));
+                    case 1 -> random.nextInt();
+                    case 2 -> random.nextLong();
+                    case 3 -> random.nextDouble() * 1e6 - 5e5;
+                    case 4 -> random.nextBoolean();
+                    case 5 -> List.of("a", randomText(random, 4));
+                    default -> Map.of("nested", randomText(random, 4));
+                });
+            }
+            return metadata;
+        }
+
+        /**
+         * 混合 ASCII、中文和四字节字符；偶尔生成高度重复的文本，覆盖压缩路径
+         */
+        private String randomText(Random random, int length) {
+            if (length > 0 && random.nextInt(4) == 0) {
+                return "重复的段落。".repeat(length / 6 + 1);
+            }
+            StringBuilder builder = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                switch (random.nextInt(4)) {
+                    case 0 -> builder.append((char) ('a' + random.nextInt(26)));
+                    case 1 -> builder.append((char) (0x4e00 + random.nextInt(0x5000)));
+                    case 2 -> builder.appendCodePoint(0x1f600 + random.nextInt(0x40));
+                    default -> builder.append(' ');
+                }
+            }
+            return builder.toString();
+        }
+    }
+}
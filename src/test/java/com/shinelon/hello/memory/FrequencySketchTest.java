@@ -0,0 +1,60 @@
+package com.shinelon.hello.memory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FrequencySketch 单元测试
+ *
+ * @author shinelon
+ */
+@DisplayName("FrequencySketch 测试")
+class FrequencySketchTest {
+
+    @Test
+    @DisplayName("频率随访问增加，上限为15")
+    void increment_shouldCountUpToFifteen() {
+        FrequencySketch sketch = new FrequencySketch(64);
+
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("hot");
+        }
+        assertEquals(5, sketch.frequency("hot"));
+
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("hot");
+        }
+        assertEquals(15, sketch.frequency("hot"));
+        assertTrue(sketch.frequency("cold") < sketch.frequency("hot"));
+    }
+
+    @Test
+    @DisplayName("重置后频率减半")
+    void reset_shouldHalveCounters() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 8; i++) {
+            sketch.increment("key");
+        }
+
+        sketch.reset();
+
+        assertEquals(4, sketch.frequency("key"));
+    }
+
+    @Test
+    @DisplayName("累计访问达到样本数时自动衰减")
+    void increment_overSampleSize_shouldAge() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment("old");
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            sketch.increment("key-" + i);
+        }
+
+        assertTrue(sketch.frequency("old") < 15);
+    }
+}
@@ -0,0 +1,364 @@
+package com.shinelon.hello.memory;
+
+import com.shinelon.hello.config.ChatMemoryProperties;
+import com.shinelon.hello.dao.ChatMessageDao;
+import com.shinelon.hello.dao.ChatSessionDao;
+import com.shinelon.hello.model.entity.ChatMessageDO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JpaChatMemoryRepository 测试类
+ * 使用表格驱动测试风格；测试方法不包在事务中，外层事务由测试用 TransactionTemplate 显式控制
+ *
+ * @author shinelon
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaChatMemoryRepositoryTest {
+
+    @Autowired
+    private ChatSessionDao chatSessionDao;
+
+    @Autowired
+    private ChatMessageDao chatMessageDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ChatMemoryProperties properties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        chatMessageDao.deleteAll();
+        chatSessionDao.deleteAll();
+        properties = new ChatMemoryProperties();
+        properties.setMaxMessages(4);
+        registry = new SimpleMeterRegistry();
+    }
+
+    private JpaChatMemoryRepository newRepository() {
+        return new JpaChatMemoryRepository(chatSessionDao, chatMessageDao, transactionManager, properties, registry);
+    }
+
+    private double loads() {
+        return registry.get("chat.memory.loads").counter().count();
+    }
+
+    private static List<String> texts(List<Message> messages) {
+        return messages.stream().map(Message::getText).toList();
+    }
+
+    @Nested
+    @DisplayName("追加与读取")
+    class AppendTests {
+
+        @Test
+        @DisplayName("追加的消息按顺序写入数据库并可读出")
+        void append_shouldPersistInOrder() {
+            JpaChatMemoryRepository repository = newRepository();
+
+            repository.append("c1", List.of(new UserMessage("问题"), new AssistantMessage("回答")));
+
+            assertEquals(List.of("问题", "回答"), texts(repository.findByConversationId("c1")));
+            assertEquals(2, chatMessageDao.countBySessionId("c1"));
+            assertEquals(List.of("c1"), repository.findConversationIds());
+        }
+
+        @Test
+        @DisplayName("会话不存在时自动创建, 标题取首条用户消息")
+        void append_shouldCreateSessionWithTitle() {
+            newRepository().append("c1", List.of(new UserMessage("第一个问题")));
+
+            assertEquals("第一个问题", chatSessionDao.findBySessionId("c1").orElseThrow().getTitle());
+        }
+
+        @Test
+        @DisplayName("数据库保留完整历史, 读取只取最近 maxMessages 条")
+        void findByConversationId_shouldReturnTail() {
+            JpaChatMemoryRepository repository = newRepository();
+            for (int i = 0; i < 6; i++) {
+                repository.append("c1", List.of(new UserMessage("m" + i)));
+            }
+
+            assertEquals(List.of("m2", "m3", "m4", "m5"), texts(repository.findByConversationId("c1")));
+            assertEquals(6, chatMessageDao.countBySessionId("c1"));
+        }
+
+        @Test
+        @DisplayName("不存在的会话返回空列表")
+        void findByConversationId_unknown_shouldReturnEmpty() {
+            assertTrue(newRepository().findByConversationId("missing").isEmpty());
+        }
+
+        @Test
+        @DisplayName("appendRecords 返回与消息一一对应的记录")
+        void appendRecords_shouldReturnSavedRecords() {
+            List<ChatMessageDO> records = newRepository().appendRecords("c1",
+                    List.of(new UserMessage("问题"), new AssistantMessage("回答")));
+
+            assertEquals(2, records.size());
+            assertEquals("user", records.get(0).getRole());
+            assertEquals("assistant", records.get(1).getRole());
+            assertNotNull(records.get(1).getId());
+        }
+    }
+
+    @Nested
+    @DisplayName("尾部缓存")
+    class CacheTests {
+
+        @Test
+        @DisplayName("缓存命中时不再查询数据库")
+        void findByConversationId_cached_shouldNotReload() {
+            JpaChatMemoryRepository repository = newRepository();
+            repository.append("c1", List.of(new UserMessage("m0")));
+
+            repository.findByConversationId("c1");
+            repository.findByConversationId("c1");
+
+            assertEquals(1, loads());
+            assertTrue(repository.isCached("c1"));
+        }
+
+        @Test
+        @DisplayName("追加时同步更新已缓存的尾部, 并保持尾部长度")
+        void append_cached_shouldUpdateTail() {
+            JpaChatMemoryRepository repository = newRepository();
+            repository.append("c1", List.of(new UserMessage("m0"), new UserMessage("m1"), new UserMessage("m2")));
+            repository.findByConversationId("c1");
+
+            repository.append("c1", List.of(new UserMessage("m3"), new UserMessage("m4")));
+
+            assertEquals(List.of("m1", "m2", "m3", "m4"), texts(repository.findByConversationId("c1")));
+            assertEquals(1, loads());
+        }
+
+        @Test
+        @DisplayName("未缓存的会话追加时不加载尾部")
+        void append_uncached_shouldNotLoad() {
+            JpaChatMemoryRepository repository = newRepository();
+
+            repository.append("c1", List.of(new UserMessage("m0")));
+
+            assertFalse(repository.isCached("c1"));
+            assertEquals(0, loads());
+        }
+
+        @Test
+        @DisplayName("saveAll 整体替换消息并丢弃缓存")
+        void saveAll_shouldReplaceMessages() {
+            JpaChatMemoryRepository repository = newRepository();
+            repository.append("c1", List.of(new UserMessage("旧")));
+            repository.findByConversationId("c1");
+
+            repository.saveAll("c1", List.of(new UserMessage("新1"), new AssistantMessage("新2")));
+
+            assertFalse(repository.isCached("c1"));
+            assertEquals(List.of("新1", "新2"), texts(repository.findByConversationId("c1")));
+        }
+
+        @Test
+        @DisplayName("删除会话时同时删除消息与缓存")
+        void deleteByConversationId_shouldRemoveEverything() {
+            JpaChatMemoryRepository repository = newRepository();
+            repository.append("c1", List.of(new UserMessage("m0")));
+            repository.findByConversationId("c1");
+
+            repository.deleteByConversationId("c1");
+
+            assertFalse(repository.isCached("c1"));
+            assertFalse(chatSessionDao.existsBySessionId("c1"));
+            assertEquals(0, chatMessageDao.countBySessionId("c1"));
+            assertTrue(repository.findByConversationId("c1").isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("外层事务")
+    class TransactionTests {
+
+        private JpaChatMemoryRepository cachedRepository() {
+            JpaChatMemoryRepository repository = newRepository();
+            repository.append("c1", List.of(new UserMessage("m0")));
+            repository.findByConversationId("c1");
+            return repository;
+        }
+
+        @Test
+        @DisplayName("提交前其他线程读不到未提交的消息, 本事务能读到, 提交后缓存补上新消息")
+        void append_inTransaction_shouldUpdateCacheAfterCommit() {
+            JpaChatMemoryRepository repository = cachedRepository();
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                repository.append("c1", List.of(new UserMessage("m1")));
+
+                List<Message> otherThread = CompletableFuture
+                        .supplyAsync(() -> repository.findByConversationId("c1")).join();
+                assertEquals(List.of("m0"), texts(otherThread));
+                assertEquals(List.of("m0", "m1"), texts(repository.findByConversationId("c1")));
+            });
+            double loadsAfterCommit = loads();
+
+            assertEquals(List.of("m0", "m1"), texts(repository.findByConversationId("c1")));
+            assertTrue(repository.isCached("c1"));
+            assertEquals(loadsAfterCommit, loads());
+        }
+
+        @Test
+        @DisplayName("同一事务内多次追加, 提交后按顺序补到缓存, 不重新加载")
+        void append_twiceInTransaction_shouldApplyInOrder() {
+            JpaChatMemoryRepository repository = cachedRepository();
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                repository.append("c1", List.of(new UserMessage("m1")));
+                repository.append("c1", List.of(new AssistantMessage("m2")));
+            });
+
+            assertEquals(List.of("m0", "m1", "m2"), texts(repository.findByConversationId("c1")));
+            assertEquals(1, loads());
+        }
+
+        @Test
+        @DisplayName("事务内删除会话时其他线程读到的旧数据不进入缓存, 提交后读不到已删除的消息")
+        void delete_inTransaction_shouldNotRecacheConcurrentRead() {
+            JpaChatMemoryRepository repository = cachedRepository();
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                repository.deleteByConversationId("c1");
+
+                List<Message> otherThread = CompletableFuture
+                        .supplyAsync(() -> repository.findByConversationId("c1")).join();
+                assertEquals(List.of("m0"), texts(otherThread));
+                assertFalse(repository.isCached("c1"));
+            });
+
+            assertTrue(repository.findByConversationId("c1").isEmpty());
+            assertFalse(repository.isCached("c1"));
+        }
+
+        @Test
+        @DisplayName("事务内替换消息时其他线程读到的旧数据不进入缓存, 提交后读到新消息")
+        void saveAll_inTransaction_shouldNotRecacheConcurrentRead() {
+            JpaChatMemoryRepository repository = cachedRepository();
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                repository.saveAll("c1", List.of(new UserMessage("新1"), new AssistantMessage("新2")));
+
+                List<Message> otherThread = CompletableFuture
+                        .supplyAsync(() -> repository.findByConversationId("c1")).join();
+                assertEquals(List.of("m0"), texts(otherThread));
+                assertEquals(List.of("新1", "新2"), texts(repository.findByConversationId("c1")));
+            });
+
+            assertFalse(repository.isCached("c1"));
+            assertEquals(List.of("新1", "新2"), texts(repository.findByConversationId("c1")));
+            assertTrue(repository.isCached("c1"));
+        }
+
+        @Test
+        @DisplayName("事务回滚时缓存不包含回滚的消息")
+        void append_rolledBack_shouldNotReachCache() {
+            JpaChatMemoryRepository repository = cachedRepository();
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                repository.append("c1", List.of(new UserMessage("m1")));
+                status.setRollbackOnly();
+            });
+
+            assertEquals(List.of("m0"), texts(repository.findByConversationId("c1")));
+            assertEquals(1, chatMessageDao.countBySessionId("c1"));
+        }
+    }
+
+    @Nested
+    @DisplayName("内容列")
+    class ColumnTests {
+
+        @Test
+        @DisplayName("默认写入文本列")
+        void append_default_shouldUseTextColumn() {
+            ChatMessageDO record = newRepository().appendRecords("c1", List.of(new UserMessage("你好"))).get(0);
+
+            assertEquals("你好", record.getContent());
+            assertNull(record.getContentBin());
+        }
+
+        @Test
+        @DisplayName("开启二进制列时写入紧凑编码, 读取结果一致")
+        void append_binaryColumn_shouldRoundTrip() {
+            properties.setBinaryColumn(true);
+            JpaChatMemoryRepository repository = newRepository();
+
+            ChatMessageDO record = repository.appendRecords("c1", List.of(new UserMessage("你好"))).get(0);
+
+            assertNotNull(record.getContentBin());
+            assertEquals("你好", repository.contentOf(record));
+            assertEquals(List.of("你好"), texts(repository.findByConversationId("c1")));
+        }
+
+        @Test
+        @DisplayName("工具调用与工具结果总是写入二进制列, 结构不丢失")
+        void append_toolMessages_shouldKeepStructure() {
+            JpaChatMemoryRepository repository = newRepository();
+            AssistantMessage call = AssistantMessage.builder()
+                    .content("")
+                    .toolCalls(List.of(new AssistantMessage.ToolCall("t1", "function", "weather", "{\"city\":\"北京\"}")))
+                    .build();
+            ToolResponseMessage response = ToolResponseMessage.builder()
+                    .responses(List.of(new ToolResponseMessage.ToolResponse("t1", "weather", "晴")))
+                    .build();
+
+            repository.append("c1", List.of(new UserMessage("天气"), call, response));
+            chatMessageDao.findAll().forEach(r -> assertEquals(!"user".equals(r.getRole()), r.getContentBin() != null));
+
+            List<Message> loaded = newRepository().findByConversationId("c1");
+            assertEquals("weather", ((AssistantMessage) loaded.get(1)).getToolCalls().get(0).name());
+            assertEquals("晴", ((ToolResponseMessage) loaded.get(2)).getResponses().get(0).responseData());
+        }
+    }
+
+    @Nested
+    @DisplayName("参数校验")
+    class ValidationTests {
+
+        static Stream<String> invalidIds() {
+            return Stream.of(null, "", "  ", "a".repeat(37));
+        }
+
+        @ParameterizedTest
+        @MethodSource("invalidIds")
+        @DisplayName("会话ID为空或超过36个字符时拒绝")
+        void invalidConversationId_shouldThrow(String conversationId) {
+            JpaChatMemoryRepository repository = newRepository();
+            List<Message> messages = List.of(new UserMessage("m"));
+
+            assertThrows(IllegalArgumentException.class, () -> repository.append(conversationId, messages));
+            assertThrows(IllegalArgumentException.class, () -> repository.findByConversationId(conversationId));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.shinelon.hello.memory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StripedLocks 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("StripedLocks 测试")
+class StripedLocksTest {
+
+    record StripesTestCase(String name, int requested, int expected) {}
+
+    static Stream<StripesTestCase> stripesTestCases() {
+        return Stream.of(
+                new StripesTestCase("1 个", 1, 1),
+                new StripesTestCase("2 的幂不变", 64, 64),
+                new StripesTestCase("向上取整", 65, 128),
+                new StripesTestCase("3 取整为 4", 3, 4)
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("stripesTestCases")
+    @DisplayName("分段数向上取整为 2 的幂")
+    void stripes_shouldRoundUpToPowerOfTwo(StripesTestCase tc) {
+        assertEquals(tc.expected(), new StripedLocks(tc.requested()).stripes());
+    }
+
+    @Test
+    @DisplayName("同一会话总是同一把锁，不同会话分散到多把锁")
+    void lockFor_shouldBeStableAndSpread() {
+        StripedLocks locks = new StripedLocks(16);
+        Set<Object> used = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            String key = "conv-" + i;
+            assertSame(locks.lockFor(key), locks.lockFor(key));
+            used.add(locks.lockFor(key));
+        }
+
+        assertEquals(16, used.size());
+    }
+
+    @Test
+    @DisplayName("非法分段数")
+    void constructor_invalidStripes_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedLocks(0));
+    }
+}
@@ -0,0 +1,92 @@
+package com.shinelon.hello.memory;
+
+import com.shinelon.hello.config.ChatMemoryProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenBudgetChatMemoryAdvisor 单元测试
+ *
+ * @author shinelon
+ */
+@DisplayName("TokenBudgetChatMemoryAdvisor 测试")
+class TokenBudgetChatMemoryAdvisorTest {
+
+    private TokenWindowChatMemory chatMemory;
+    private TokenBudgetChatMemoryAdvisor advisor;
+
+    @BeforeEach
+    void setUp() {
+        ChatMemoryProperties properties = new ChatMemoryProperties();
+        properties.setSummarize(false);
+        chatMemory = new TokenWindowChatMemory(new InMemoryChatMemoryRepository(), properties,
+                new JTokkitTokenCountEstimator());
+        advisor = new TokenBudgetChatMemoryAdvisor(chatMemory);
+        for (int i = 0; i < 30; i++) {
+            chatMemory.add("c1", new UserMessage("第" + i + "个问题：智云客服的价格怎么算？"));
+            chatMemory.add("c1", new AssistantMessage("第" + i + "个回答：按坐席数计费，每个坐席每月固定费用。"));
+        }
+    }
+
+    private ChatClientRequest request(String prompt, Integer tokenBudget) {
+        Map<String, Object> context = new HashMap<>();
+        context.put(ChatMemory.CONVERSATION_ID, "c1");
+        if (tokenBudget != null) {
+            context.put(TokenBudgetChatMemoryAdvisor.TOKEN_BUDGET, tokenBudget);
+        }
+        return ChatClientRequest.builder().prompt(new Prompt(new UserMessage(prompt))).context(context).build();
+    }
+
+    @Test
+    @DisplayName("历史与本轮提示词合计不超过请求预算")
+    void before_shouldFitRequestedBudget() {
+        for (int budget : List.of(100, 300, 800)) {
+            ChatClientRequest processed = advisor.before(request("那私有化部署呢？", budget), null);
+
+            List<Message> messages = processed.prompt().getInstructions();
+            assertTrue(chatMemory.tokens(messages) <= budget, "budget=" + budget);
+            assertEquals("那私有化部署呢？", messages.get(messages.size() - 1).getText());
+            assertInstanceOf(UserMessage.class, messages.get(0));
+        }
+    }
+
+    @Test
+    @DisplayName("预算越大带入的历史越多")
+    void before_largerBudget_shouldIncludeMoreHistory() {
+        int small = advisor.before(request("问题", 200), null).prompt().getInstructions().size();
+        int large = advisor.before(request("问题", 2000), null).prompt().getInstructions().size();
+
+        assertTrue(large > small, "small=" + small + ", large=" + large);
+    }
+
+    @Test
+    @DisplayName("本轮问答写入记忆")
+    void beforeAndAfter_shouldStoreTurn() {
+        ChatClientRequest processed = advisor.before(request("新问题", null), null);
+        ChatResponse chatResponse = new ChatResponse(List.of(new Generation(new AssistantMessage("新回答"))));
+        advisor.after(ChatClientResponse.builder().chatResponse(chatResponse).context(processed.context()).build(),
+                null);
+
+        List<Message> history = chatMemory.get("c1", 100);
+        assertEquals("新问题", history.get(history.size() - 2).getText());
+        assertEquals("新回答", history.get(history.size() - 1).getText());
+    }
+}
@@ -0,0 +1,286 @@
+package com.shinelon.hello.memory;
+
+import com.shinelon.hello.config.ChatMemoryProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.content.MediaContent;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenWindowChatMemory 单元测试
+ * token 数按字符数计，结果可精确推算
+ *
+ * @author shinelon
+ */
+@DisplayName("TokenWindowChatMemory 测试")
+class TokenWindowChatMemoryTest {
+
+    private static final int OVERHEAD = TokenWindowChatMemory.MESSAGE_OVERHEAD_TOKENS;
+
+    private final AtomicInteger estimates = new AtomicInteger();
+    private final TokenCountEstimator charEstimator = new TokenCountEstimator() {
+        @Override
+        public int estimate(String text) {
+            estimates.incrementAndGet();
+            return text.length();
+        }
+
+        @Override
+        public int estimate(MediaContent content) {
+            return 0;
+        }
+
+        @Override
+        public int estimate(Iterable<MediaContent> contents) {
+            return 0;
+        }
+    };
+
+    private ChatMemoryProperties properties;
+    private InMemoryChatMemoryRepository repository;
+    private TokenWindowChatMemory chatMemory;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ChatMemoryProperties();
+        properties.setTokenBudget(100);
+        properties.setMaxTokenBudget(1000);
+        properties.setSummarize(false);
+        properties.setSummaryTokens(40);
+        repository = new InMemoryChatMemoryRepository();
+        chatMemory = new TokenWindowChatMemory(repository, properties, charEstimator);
+    }
+
+    /**
+     * 写入 turns 轮问答，问题和回答各 6 个字符，每条 6 + OVERHEAD 个 token
+     */
+    private void addTurns(String conversationId, int turns) {
+        for (int i = 0; i < turns; i++) {
+            chatMemory.add(conversationId, new UserMessage(String.format("问题%04d", i)));
+            chatMemory.add(conversationId, new AssistantMessage(String.format("回答%04d", i)));
+        }
+    }
+
+    @Nested
+    @DisplayName("窗口截取测试")
+    class WindowTests {
+
+        @Test
+        @DisplayName("短消息只要在预算内就全部保留，不受 20 条限制")
+        void get_shortMessages_shouldKeepMoreThanTwenty() {
+            addTurns("c1", 15);
+
+            assertEquals(30, chatMemory.get("c1", 1000).size());
+        }
+
+        @Test
+        @DisplayName("超出预算时丢弃最早的消息，窗口以用户消息开始")
+        void get_overBudget_shouldDropOldestAndStartWithUser() {
+            addTurns("c1", 10);
+            int perMessage = 6 + OVERHEAD;
+
+            // 预算可容纳 5 条，起点对齐到用户消息后保留 4 条（两轮完整问答）
+            List<Message> window = chatMemory.get("c1", perMessage * 5);
+
+            assertEquals(4, window.size());
+            assertInstanceOf(UserMessage.class, window.get(0));
+            assertEquals("问题0008", window.get(0).getText());
+            assertEquals("回答0009", window.get(3).getText());
+            assertTrue(chatMemory.tokens(window) <= perMessage * 5);
+        }
+
+        @Test
+        @DisplayName("系统消息始终保留并计入预算")
+        void get_systemMessage_shouldAlwaysKeep() {
+            chatMemory.add("c1", new SystemMessage("你是客服"));
+            addTurns("c1", 5);
+            int perMessage = 6 + OVERHEAD;
+
+            List<Message> window = chatMemory.get("c1", 4 + OVERHEAD + perMessage * 2);
+
+            assertEquals(3, window.size());
+            assertInstanceOf(SystemMessage.class, window.get(0));
+            assertEquals("问题0004", window.get(1).getText());
+        }
+
+        @Test
+        @DisplayName("新的系统消息替换已保存的系统消息")
+        void add_newSystemMessage_shouldReplace() {
+            chatMemory.add("c1", new SystemMessage("旧设定"));
+            chatMemory.add("c1", new SystemMessage("新设定"));
+
+            assertEquals(List.of("新设定"), chatMemory.get("c1").stream().map(Message::getText).toList());
+        }
+
+        @Test
+        @DisplayName("存储超过 maxTokenBudget 时丢弃最早的消息")
+        void add_overMaxTokenBudget_shouldTrimStorage() {
+            addTurns("c1", 100);
+
+            List<Message> stored = repository.findByConversationId("c1");
+            assertTrue(chatMemory.tokens(stored) <= properties.getMaxTokenBudget());
+            assertEquals("回答0099", stored.get(stored.size() - 1).getText());
+        }
+
+        @Test
+        @DisplayName("存储条数不超过 maxMessages")
+        void add_overMaxMessages_shouldTrimStorage() {
+            properties.setMaxMessages(6);
+            chatMemory = new TokenWindowChatMemory(repository, properties, charEstimator);
+            addTurns("c1", 10);
+
+            assertEquals(6, repository.findByConversationId("c1").size());
+        }
+    }
+
+    @Nested
+    @DisplayName("token 缓存测试")
+    class TokenCacheTests {
+
+        @Test
+        @DisplayName("token 数按内容缓存，重复读取不再计算")
+        void tokens_shouldCacheByContent() {
+            addTurns("c1", 3);
+            chatMemory.get("c1");
+            int afterFirstRead = estimates.get();
+
+            chatMemory.get("c1");
+            chatMemory.get("c1", 50);
+
+            assertEquals(afterFirstRead, estimates.get());
+        }
+
+        @Test
+        @DisplayName("计数不修改调用方的消息")
+        void tokens_shouldNotMutateMessage() {
+            UserMessage message = new UserMessage("你好");
+            Map<String, Object> before = new HashMap<>(message.getMetadata());
+
+            chatMemory.add("c1", List.of(message));
+            chatMemory.get("c1");
+
+            assertEquals(before, message.getMetadata());
+            assertEquals(before, repository.findByConversationId("c1").get(0).getMetadata());
+        }
+
+        @Test
+        @DisplayName("文本相同、工具调用参数不同的消息分别计数")
+        void tokens_differentToolArguments_shouldNotShareCache() {
+            AssistantMessage shortCall = AssistantMessage.builder()
+                    .content("查询")
+                    .toolCalls(List.of(new AssistantMessage.ToolCall("t1", "function", "weather", "{}")))
+                    .build();
+            AssistantMessage longCall = AssistantMessage.builder()
+                    .content("查询")
+                    .toolCalls(List.of(new AssistantMessage.ToolCall("t1", "function", "weather", "{\"city\":1}")))
+                    .build();
+
+            assertEquals(2 + 7 + 2 + OVERHEAD, chatMemory.tokens(shortCall));
+            assertEquals(2 + 7 + 10 + OVERHEAD, chatMemory.tokens(longCall));
+        }
+
+        @Test
+        @DisplayName("经编码存储往返后缓存仍可使用")
+        void tokens_afterCodecRoundTrip_shouldStillBeCached() throws Exception {
+            UserMessage message = new UserMessage("你好");
+            chatMemory.tokens(message);
+            Message decoded = ChatMessageCodec.decode(ChatMessageCodec.encode("c1", List.of(message)))
+                    .messages().get(0);
+            int before = estimates.get();
+
+            assertEquals(2 + OVERHEAD, chatMemory.tokens(decoded));
+            assertEquals(before, estimates.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("摘要测试")
+    class SummaryTests {
+
+        @Test
+        @DisplayName("超出预算的较早提问压缩为摘要，总量不超过预算")
+        void get_summarize_shouldPrependSummary() {
+            properties.setSummarize(true);
+            chatMemory = new TokenWindowChatMemory(repository, properties, charEstimator);
+            addTurns("c1", 10);
+
+            List<Message> window = chatMemory.get("c1", 100);
+
+            assertInstanceOf(SystemMessage.class, window.get(0));
+            assertTrue(window.get(0).getText().contains("问题0"));
+            assertInstanceOf(UserMessage.class, window.get(1));
+            assertTrue(chatMemory.tokens(window) <= 100, "窗口 token 数: " + chatMemory.tokens(window));
+        }
+
+        @Test
+        @DisplayName("全部在预算内时不生成摘要")
+        void get_withinBudget_shouldNotSummarize() {
+            properties.setSummarize(true);
+            chatMemory = new TokenWindowChatMemory(repository, properties, charEstimator);
+            addTurns("c1", 2);
+
+            assertTrue(chatMemory.get("c1").stream().noneMatch(SystemMessage.class::isInstance));
+        }
+    }
+
+    record BudgetTestCase(String name, Integer requested, Integer expected) {}
+
+    static Stream<BudgetTestCase> budgetTestCases() {
+        return Stream.of(
+                new BudgetTestCase("未指定时用默认预算", null, 100),
+                new BudgetTestCase("上限内", 1000, 1000),
+                new BudgetTestCase("超过上限", 1001, null),
+                new BudgetTestCase("关闭摘要时不受摘要预留限制", 40, 40),
+                new BudgetTestCase("非正数", 0, null)
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("budgetTestCases")
+    @DisplayName("请求预算解析")
+    void tokenBudget_shouldValidate(BudgetTestCase tc) {
+        if (tc.expected() == null) {
+            assertThrows(IllegalArgumentException.class, () -> chatMemory.tokenBudget(tc.requested()));
+        } else {
+            assertEquals(tc.expected(), chatMemory.tokenBudget(tc.requested()));
+        }
+    }
+
+    @Test
+    @DisplayName("开启摘要时预算必须大于摘要预留")
+    void tokenBudget_summarize_shouldExceedSummaryTokens() {
+        properties.setSummarize(true);
+        chatMemory = new TokenWindowChatMemory(repository, properties, charEstimator);
+
+        assertThrows(IllegalArgumentException.class, () -> chatMemory.tokenBudget(40));
+        assertEquals(41, chatMemory.tokenBudget(41));
+    }
+
+    @Test
+    @DisplayName("清除后为空")
+    void clear_shouldRemoveConversation() {
+        addTurns("c1", 2);
+
+        chatMemory.clear("c1");
+
+        assertEquals(new ArrayList<>(), chatMemory.get("c1"));
+    }
+}
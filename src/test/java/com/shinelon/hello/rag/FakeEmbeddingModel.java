@@ -0,0 +1,72 @@
+package com.shinelon.hello.rag;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试用嵌入模型
+ * 按字符哈希到固定维度并归一化，字符重合度越高余弦相似度越高，不依赖网络
+ *
+ * @author shinelon
+ */
+public class FakeEmbeddingModel implements EmbeddingModel {
+
+    public static final int DIMENSIONS = 64;
+
+    /**
+     * call 调用次数
+     */
+    public final AtomicInteger callCount = new AtomicInteger();
+
+    /**
+     * 累计嵌入的文本数
+     */
+    public final AtomicInteger embeddedTexts = new AtomicInteger();
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        callCount.incrementAndGet();
+        List<Embedding> embeddings = new ArrayList<>();
+        List<String> texts = request.getInstructions();
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings.add(new Embedding(vector(texts.get(i)), i));
+        }
+        embeddedTexts.addAndGet(texts.size());
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return DIMENSIONS;
+    }
+
+    public static float[] vector(String text) {
+        float[] vector = new float[DIMENSIONS];
+        text.codePoints()
+                .filter(cp -> !Character.isWhitespace(cp))
+                .forEach(cp -> vector[Math.floorMod(cp * 31, DIMENSIONS)] += 1);
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+}
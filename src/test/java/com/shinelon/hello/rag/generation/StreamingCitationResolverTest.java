@@ -0,0 +1,90 @@
+package com.shinelon.hello.rag.generation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StreamingCitationResolver 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("StreamingCitationResolver 测试")
+class StreamingCitationResolverTest {
+
+    record ResolveTestCase(String name, List<String> chunks, List<List<Integer>> expectedCitations) {}
+
+    static Stream<ResolveTestCase> resolveTestCases() {
+        return Stream.of(
+                new ResolveTestCase("标记完整出现在一个分片中",
+                        List.of("公司成立于2020年[1]。", "总部在北京[2]。"),
+                        List.of(List.of(1), List.of(2))),
+                new ResolveTestCase("标记被拆到两个分片中",
+                        List.of("采用微服务架构[", "3]。"),
+                        List.of(List.of(3))),
+                new ResolveTestCase("标记被拆到三个分片中",
+                        List.of("支持多轮对话[", "1", "][2]"),
+                        List.of(List.of(1, 2))),
+                new ResolveTestCase("超出文档数的编号忽略",
+                        List.of("见资料[9]和[0]"),
+                        List.of()),
+                new ResolveTestCase("同一分片重复引用只记一次",
+                        List.of("[2]第一句[2]第二句[1]"),
+                        List.of(List.of(2, 1))),
+                new ResolveTestCase("方括号内不是编号按普通文本处理",
+                        List.of("数组写作 [a", "] 或 [12345]"),
+                        List.of())
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("resolveTestCases")
+    @DisplayName("按分片增量解析引用，输出文本与输入一致")
+    void accept_shouldResolveCitationsIncrementally(ResolveTestCase tc) {
+        StreamingCitationResolver resolver = new StreamingCitationResolver(3);
+        StringBuilder text = new StringBuilder();
+        List<List<Integer>> citations = new ArrayList<>();
+
+        for (String chunk : tc.chunks()) {
+            StreamingCitationResolver.Segment segment = resolver.accept(chunk);
+            text.append(segment.text());
+            if (!segment.citations().isEmpty()) {
+                citations.add(segment.citations());
+            }
+        }
+        text.append(resolver.flush().text());
+
+        assertEquals(String.join("", tc.chunks()), text.toString());
+        assertEquals(tc.expectedCitations(), citations);
+    }
+
+    @Test
+    @DisplayName("未闭合的标记暂存到下一个分片，流结束时原样输出")
+    void accept_partialMarker_shouldBeHeldBack() {
+        StreamingCitationResolver resolver = new StreamingCitationResolver(3);
+
+        StreamingCitationResolver.Segment segment = resolver.accept("结论[1");
+
+        assertEquals("结论", segment.text());
+        assertTrue(segment.citations().isEmpty());
+        assertEquals("[1", resolver.flush().text());
+        assertTrue(resolver.flush().isEmpty());
+    }
+
+    @Test
+    @DisplayName("上下文资料按检索顺序编号")
+    void format_shouldNumberDocuments() {
+        String context = CitationPrompt.format(List.of(new Document("第一段"), new Document("第二段")));
+
+        assertEquals("[1] 第一段\n\n[2] 第二段", context);
+    }
+}
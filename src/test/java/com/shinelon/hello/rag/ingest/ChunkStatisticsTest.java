@@ -0,0 +1,117 @@
+package com.shinelon.hello.rag.ingest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shinelon.hello.rag.postretrieval.SimHash;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.content.MediaContent;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ChunkStatistics 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("ChunkStatistics 测试")
+class ChunkStatisticsTest {
+
+    private static final String TEXT = "智能客服系统支持多轮对话。可对接企业知识库！\n价格按坐席数计费";
+
+    private final TokenCountEstimator estimator = new JTokkitTokenCountEstimator();
+
+    record BoundaryTestCase(String name, String text, List<Integer> expectedEnds) {}
+
+    static Stream<BoundaryTestCase> boundaryTestCases() {
+        return Stream.of(
+                new BoundaryTestCase("结束符归属前一句", "第一句。第二句！", List.of(4, 8)),
+                new BoundaryTestCase("末尾没有结束符", "第一句。第二句", List.of(4, 7)),
+                new BoundaryTestCase("换行也是句子边界", "标题\n正文", List.of(3, 5)),
+                new BoundaryTestCase("空文本", "", List.of())
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("boundaryTestCases")
+    @DisplayName("句子结束位置")
+    void sentenceEnds_shouldSplitOnTerminators(BoundaryTestCase tc) {
+        assertEquals(tc.expectedEnds(), ChunkStatistics.sentenceEnds(tc.text()));
+    }
+
+    @Test
+    @DisplayName("读取元数据与现场计算结果一致")
+    void sentences_fromMetadata_shouldMatchComputed() {
+        Document document = new Document(TEXT, ChunkStatistics.compute(TEXT, estimator));
+
+        assertEquals(ChunkStatistics.sentences(TEXT, estimator), ChunkStatistics.sentences(document, estimator));
+        assertEquals(estimator.estimate(TEXT), ChunkStatistics.tokenCount(document, estimator));
+        assertEquals(SimHash.fingerprint(TEXT), ChunkStatistics.fingerprint(document));
+        assertEquals(List.of("智能客服系统支持多轮对话。", "可对接企业知识库！", "价格按坐席数计费"),
+                ChunkStatistics.sentences(document, estimator).stream().map(ChunkStatistics.Sentence::text).toList());
+    }
+
+    @Test
+    @DisplayName("有元数据时查询阶段不再调用 token 计数")
+    void read_withMetadata_shouldNotEstimate() {
+        Document document = new Document(TEXT, ChunkStatistics.compute(TEXT, estimator));
+        AtomicInteger estimates = new AtomicInteger();
+        TokenCountEstimator counting = new TokenCountEstimator() {
+            @Override
+            public int estimate(String text) {
+                estimates.incrementAndGet();
+                return estimator.estimate(text);
+            }
+
+            @Override
+            public int estimate(MediaContent content) {
+                estimates.incrementAndGet();
+                return estimator.estimate(content);
+            }
+
+            @Override
+            public int estimate(Iterable<MediaContent> contents) {
+                estimates.incrementAndGet();
+                return estimator.estimate(contents);
+            }
+        };
+
+        ChunkStatistics.tokenCount(document, counting);
+        ChunkStatistics.sentences(document, counting);
+
+        assertEquals(0, estimates.get());
+    }
+
+    @Test
+    @DisplayName("经快照 JSON 往返后的元数据仍可使用")
+    void read_afterJsonRoundTrip_shouldWork() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Object> metadata = objectMapper.readValue(
+                objectMapper.writeValueAsBytes(ChunkStatistics.compute(TEXT, estimator)), new TypeReference<>() {
+                });
+        Document document = new Document(TEXT, metadata);
+
+        assertEquals(SimHash.fingerprint(TEXT), ChunkStatistics.fingerprint(document));
+        assertEquals(ChunkStatistics.sentences(TEXT, estimator), ChunkStatistics.sentences(document, estimator));
+    }
+
+    @Test
+    @DisplayName("文本与元数据不一致时回退为现场计算")
+    void sentences_staleMetadata_shouldRecompute() {
+        Document document = new Document("新的文本。", ChunkStatistics.compute(TEXT, estimator));
+
+        assertEquals(List.of("新的文本。"),
+                ChunkStatistics.sentences(document, estimator).stream().map(ChunkStatistics.Sentence::text).toList());
+    }
+}
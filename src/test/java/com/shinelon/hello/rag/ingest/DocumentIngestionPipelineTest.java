@@ -0,0 +1,345 @@
+package com.shinelon.hello.rag.ingest;
+
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.model.vo.RagIngestReportVO;
+import com.shinelon.hello.rag.FakeEmbeddingModel;
+import com.shinelon.hello.rag.store.KnowledgeVectorStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.nio.charset.StandardCharsets;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DocumentIngestionPipeline 单元测试
+ *
+ * @author shinelon
+ */
+@DisplayName("DocumentIngestionPipeline 测试")
+class DocumentIngestionPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FakeEmbeddingModel embeddingModel;
+    private KnowledgeVectorStore vectorStore;
+    private DocumentRegistry registry;
+    private DocumentIngestionPipeline pipeline;
+    private Path docsDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        RagProperties properties = new RagProperties();
+        properties.getIngestion().setBatchSize(2);
+        properties.getIngestion().setParallelism(2);
+        properties.getIngestion().setMaxInFlightBatches(2);
+        properties.getIngestion().setCheckpointDir(tempDir.resolve("checkpoints").toString());
+
+        embeddingModel = new FakeEmbeddingModel();
+        vectorStore = new KnowledgeVectorStore(embeddingModel, 2);
+        registry = new DocumentRegistry();
+        pipeline = new DocumentIngestionPipeline(vectorStore, embeddingModel, registry, properties);
+
+        docsDir = tempDir.resolve("docs");
+        Files.createDirectories(docsDir.resolve("faq"));
+        Files.writeString(docsDir.resolve("about.md"), "智云科技成立于2020年，专注企业级AI解决方案。");
+        Files.writeString(docsDir.resolve("faq/key.txt"), "如何获取API密钥？登录控制台创建新密钥。");
+        Files.writeString(docsDir.resolve("faq/limit.txt"), "不同套餐有不同的调用频率限制。");
+        Files.writeString(docsDir.resolve("ignored.pdf"), "不支持的格式");
+        Files.writeString(docsDir.resolve("empty.txt"), "   ");
+    }
+
+    @Nested
+    @DisplayName("目录摄取测试")
+    class PathIngestionTests {
+
+        @Test
+        @DisplayName("摄取目录中支持的文件并记录吞吐量")
+        void ingestPath_shouldIngestSupportedFiles() {
+            RagIngestReportVO report = pipeline.ingestPath(docsDir, false);
+
+            assertEquals(3, report.getDocumentCount());
+            assertEquals(0, report.getSkippedCount());
+            assertEquals(0, report.getFailedCount());
+            assertEquals(3, report.getChunkCount());
+            assertTrue(report.getTokenCount() > 0);
+            assertTrue(report.getDocsPerSecond() > 0);
+            assertTrue(report.getTokensPerSecond() > 0);
+            assertEquals(3, vectorStore.size());
+        }
+
+        @Test
+        @DisplayName("分块元数据带有摄取时计算的统计信息")
+        void ingestPath_shouldStoreChunkStatistics() {
+            pipeline.ingestPath(docsDir, false);
+
+            Document chunk = vectorStore.similaritySearch(SearchRequest.builder().query("密钥").topK(1).build()).get(0);
+
+            assertInstanceOf(Integer.class, chunk.getMetadata().get(ChunkStatistics.METADATA_TOKEN_COUNT));
+            assertInstanceOf(Long.class, chunk.getMetadata().get(ChunkStatistics.METADATA_SIMHASH));
+            assertEquals(chunk.getText().length(), ((List<?>) chunk.getMetadata()
+                    .get(ChunkStatistics.METADATA_SENTENCE_ENDS)).stream().reduce((a, b) -> b).orElseThrow());
+        }
+
+        @Test
+        @DisplayName("子目录名作为 category 元数据")
+        void ingestPath_shouldUseDirectoryAsCategory() {
+            pipeline.ingestPath(docsDir, false);
+
+            List<Document> results = vectorStore.similaritySearch(SearchRequest.builder()
+                    .query("密钥").topK(5).filterExpression("category == 'faq'").build());
+
+            assertEquals(2, results.size());
+        }
+
+        @Test
+        @DisplayName("断点续传跳过已完成且未变化的文件")
+        void ingestPath_withResume_shouldSkipCompletedFiles() throws IOException {
+            pipeline.ingestPath(docsDir, false);
+            Files.writeString(docsDir.resolve("faq/limit.txt"), "免费套餐每分钟调用10次。");
+
+            RagIngestReportVO report = pipeline.ingestPath(docsDir, true);
+
+            assertEquals(1, report.getDocumentCount());
+            assertEquals(2, report.getSkippedCount());
+            assertEquals(3, vectorStore.size());
+        }
+
+        @Test
+        @DisplayName("不续传时重新摄取全部文件，分块ID稳定不重复写入")
+        void ingestPath_withoutResume_shouldReingestAll() {
+            pipeline.ingestPath(docsDir, false);
+
+            RagIngestReportVO report = pipeline.ingestPath(docsDir, false);
+
+            assertEquals(3, report.getDocumentCount());
+            assertEquals(3, vectorStore.size());
+        }
+
+        @Test
+        @DisplayName("不跟随指向目录外文件的符号链接")
+        void ingestPath_shouldSkipSymlinkedFiles() throws IOException {
+            Path outside = Files.writeString(tempDir.resolve("secret.txt"), "目录之外的文件内容");
+            Files.createSymbolicLink(docsDir.resolve("link.txt"), outside);
+
+            RagIngestReportVO report = pipeline.ingestPath(docsDir, false);
+
+            assertEquals(3, report.getDocumentCount());
+            assertEquals(3, vectorStore.size());
+        }
+
+        @Test
+        @DisplayName("路径不存在时抛出异常")
+        void ingestPath_withMissingPath_shouldThrow() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> pipeline.ingestPath(tempDir.resolve("missing"), false));
+        }
+    }
+
+    @Nested
+    @DisplayName("内存文档摄取测试")
+    class DocumentIngestionTests {
+
+        @Test
+        @DisplayName("按批并行嵌入")
+        void ingestDocuments_shouldEmbedInBatches() {
+            List<Document> documents = List.of(
+                    new Document("【公司介绍】智云科技成立于2020年", Map.of("source", "a")),
+                    new Document("【产品说明】智能客服系统", Map.of("source", "b")),
+                    new Document("【技术架构】Spring Boot + Spring AI", Map.of("source", "c")),
+                    new Document("【常见问题】如何获取API密钥", Map.of("source", "d")),
+                    new Document("【联系方式】客服电话400-888-8888", Map.of("source", "e")));
+
+            RagIngestReportVO report = pipeline.ingestDocuments(documents);
+
+            assertEquals(5, report.getDocumentCount());
+            assertEquals(5, vectorStore.size());
+            assertEquals(3, embeddingModel.callCount.get());
+        }
+
+        @Test
+        @DisplayName("嵌入失败的文档计入失败数")
+        void ingestDocuments_whenEmbeddingFails_shouldReportFailure() {
+            FakeEmbeddingModel failingModel = new FakeEmbeddingModel() {
+                @Override
+                public org.springframework.ai.embedding.EmbeddingResponse call(
+                        org.springframework.ai.embedding.EmbeddingRequest request) {
+                    throw new IllegalStateException("embedding unavailable");
+                }
+            };
+            RagProperties properties = new RagProperties();
+            DocumentIngestionPipeline failingPipeline = new DocumentIngestionPipeline(
+                    new KnowledgeVectorStore(failingModel, 2), failingModel, new DocumentRegistry(), properties);
+
+            RagIngestReportVO report = failingPipeline.ingestDocuments(
+                    List.of(new Document("【公司介绍】智云科技成立于2020年", Map.of("source", "a"))));
+
+            assertEquals(0, report.getDocumentCount());
+            assertEquals(1, report.getFailedCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("增量更新测试")
+    class IncrementalTests {
+
+        private static final String SECTION = "智能客服系统支持多轮对话、意图识别和知识库问答，可以接入网页、APP和微信渠道。";
+
+        private DocumentIngestionPipeline smallChunkPipeline;
+
+        @BeforeEach
+        void setUp() {
+            RagProperties properties = new RagProperties();
+            properties.getIngestion().setBatchSize(2);
+            properties.getIngestion().setChunkSize(32);
+            smallChunkPipeline = new DocumentIngestionPipeline(
+                    vectorStore, embeddingModel, new DocumentRegistry(), properties);
+        }
+
+        private String content(int sections, String tail) {
+            return SECTION.repeat(sections) + tail;
+        }
+
+        @Test
+        @DisplayName("内容未变的文档直接跳过，不调用嵌入模型")
+        void upsert_unchanged_shouldSkip() {
+            smallChunkPipeline.upsert("doc", content(4, "结束。"), Map.of("category", "product"));
+            int embedded = embeddingModel.embeddedTexts.get();
+
+            RagIngestReportVO report = smallChunkPipeline.upsert("doc", content(4, "结束。"), Map.of("category", "product"));
+
+            assertEquals(1, report.getSkippedCount());
+            assertEquals(0, report.getChunkCount());
+            assertEquals(embedded, embeddingModel.embeddedTexts.get());
+        }
+
+        @Test
+        @DisplayName("只重新嵌入变化的分块")
+        void upsert_changedTail_shouldReembedChangedChunksOnly() {
+            RagIngestReportVO first = smallChunkPipeline.upsert("doc", content(4, "结束。"), Map.of());
+            int embedded = embeddingModel.embeddedTexts.get();
+
+            RagIngestReportVO second = smallChunkPipeline.upsert("doc", content(4, "更新后的结尾说明。"), Map.of());
+
+            assertEquals(1, second.getDocumentCount());
+            assertTrue(second.getReusedChunkCount() > 0);
+            assertTrue(second.getChunkCount() < first.getChunkCount());
+            assertEquals(embedded + second.getChunkCount(), embeddingModel.embeddedTexts.get());
+        }
+
+        @Test
+        @DisplayName("元数据变化的分块需要重新嵌入")
+        void upsert_changedMetadata_shouldReembedAllChunks() {
+            RagIngestReportVO first = smallChunkPipeline.upsert("doc", content(2, ""), Map.of("category", "a"));
+
+            RagIngestReportVO second = smallChunkPipeline.upsert("doc", content(2, ""), Map.of("category", "b"));
+
+            assertEquals(first.getChunkCount(), second.getChunkCount());
+            assertEquals(0, second.getReusedChunkCount());
+        }
+
+        @Test
+        @DisplayName("文档变短时多出的分块打墓碑并从检索结果中消失")
+        void upsert_shorterContent_shouldTombstoneStaleChunks() {
+            RagIngestReportVO first = smallChunkPipeline.upsert("doc", content(4, ""), Map.of());
+            assertTrue(first.getChunkCount() > 1);
+
+            smallChunkPipeline.upsert("doc", "智能客服系统支持多轮对话。", Map.of());
+
+            assertEquals(1, vectorStore.size());
+            assertEquals(first.getChunkCount() - 1, vectorStore.tombstoneCount());
+            assertEquals(1, vectorStore.similaritySearch(SearchRequest.builder().query("客服").topK(10).build()).size());
+        }
+
+        @Test
+        @DisplayName("删除文档后分块打墓碑，压缩后物理清理")
+        void delete_shouldTombstoneThenCompact() {
+            RagIngestReportVO report = smallChunkPipeline.upsert("doc", content(3, ""), Map.of());
+
+            assertTrue(smallChunkPipeline.delete("doc"));
+
+            assertEquals(0, vectorStore.size());
+            assertEquals(report.getChunkCount(), vectorStore.tombstoneCount());
+            assertEquals(report.getChunkCount(), vectorStore.compact());
+            assertEquals(0, vectorStore.tombstoneCount());
+        }
+
+        @Test
+        @DisplayName("删除不存在的文档返回 false")
+        void delete_missing_shouldReturnFalse() {
+            assertFalse(smallChunkPipeline.delete("missing"));
+        }
+
+        @Test
+        @DisplayName("删除后重新写入同一文档可以正常检索")
+        void upsert_afterDelete_shouldBeSearchable() {
+            smallChunkPipeline.upsert("doc", content(1, ""), Map.of());
+            smallChunkPipeline.delete("doc");
+
+            RagIngestReportVO report = smallChunkPipeline.upsert("doc", content(1, ""), Map.of());
+            vectorStore.compact();
+
+            assertEquals(report.getChunkCount(), vectorStore.size());
+            assertEquals(0, vectorStore.tombstoneCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("文档来源目录测试")
+    class SourceCatalogueTests {
+
+        @Test
+        @DisplayName("摄取完成的文档登记分块数、字节数和嵌入模型版本")
+        void ingestPath_shouldRegisterSourceStatistics() {
+            pipeline.ingestPath(docsDir, false);
+
+            DocumentRegistry.IndexedDocument about = registry.find("about.md").orElseThrow();
+            String text = "智云科技成立于2020年，专注企业级AI解决方案。";
+            assertEquals(1, about.chunkHashes().size());
+            assertEquals(text.getBytes(StandardCharsets.UTF_8).length, about.bytes());
+            assertTrue(about.embeddingVersion().startsWith(FakeEmbeddingModel.class.getName()));
+            assertTrue(about.indexedAt() > 0);
+            assertEquals(3, registry.chunkCount());
+        }
+
+        @Test
+        @DisplayName("更新和删除文档时增量维护统计")
+        void upsertAndDelete_shouldMaintainTotals() {
+            pipeline.upsert("a", "智能客服系统支持多轮对话。", Map.of());
+            pipeline.upsert("b", "知识库支持全文检索。", Map.of());
+            long bytesOfB = registry.find("b").orElseThrow().bytes();
+
+            pipeline.upsert("a", "智能客服支持知识库问答。", Map.of());
+            assertEquals(2, registry.chunkCount());
+            assertEquals(bytesOfB + "智能客服支持知识库问答。".getBytes(StandardCharsets.UTF_8).length, registry.byteCount());
+
+            pipeline.delete("a");
+            assertEquals(1, registry.chunkCount());
+            assertEquals(bytesOfB, registry.byteCount());
+        }
+
+        @Test
+        @DisplayName("按文档ID排序分页")
+        void page_shouldReturnSortedPages() {
+            pipeline.ingestPath(docsDir, false);
+
+            assertEquals(List.of("about.md", "faq/key.txt", "faq/limit.txt"), registry.documentIds());
+            assertEquals(List.of("faq/limit.txt"),
+                    registry.page(1, 2).stream().map(DocumentRegistry.IndexedDocument::documentId).toList());
+            assertTrue(registry.page(2, 2).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> registry.page(0, 0));
+        }
+    }
+}
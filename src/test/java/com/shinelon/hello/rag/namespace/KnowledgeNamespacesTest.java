@@ -0,0 +1,328 @@
+package com.shinelon.hello.rag.namespace;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shinelon.hello.common.enums.ErrorCodeEnum;
+import com.shinelon.hello.common.exception.BusinessException;
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.model.vo.RagIngestReportVO;
+import com.shinelon.hello.model.vo.RagNamespaceVO;
+import com.shinelon.hello.rag.FakeEmbeddingModel;
+import com.shinelon.hello.rag.ingest.DocumentIngestionPipeline;
+import com.shinelon.hello.rag.ingest.DocumentRegistry;
+import com.shinelon.hello.rag.store.KnowledgeVectorStore;
+import com.shinelon.hello.rag.store.RetrievalCache;
+import com.shinelon.hello.rag.store.VectorIndexSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.rag.Query;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KnowledgeNamespaces 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("KnowledgeNamespaces 测试")
+class KnowledgeNamespacesTest {
+
+    @TempDir
+    Path tempDir;
+
+    private RagProperties properties;
+    private FakeEmbeddingModel embeddingModel;
+    private KnowledgeNamespace defaultNamespace;
+    private KnowledgeNamespaces namespaces;
+    private final Map<String, AtomicInteger> created = new ConcurrentHashMap<>();
+    private volatile Consumer<String> beforeCreate = name -> {
+    };
+
+    @BeforeEach
+    void setUp() {
+        properties = new RagProperties();
+        properties.getSnapshot().setPath(tempDir.resolve("vector-index.snap").toString());
+        properties.getNamespace().setDir(tempDir.resolve("namespaces").toString());
+        properties.getNamespace().setMaxResident(2);
+        embeddingModel = new FakeEmbeddingModel();
+        defaultNamespace = newNamespace(KnowledgeNamespaces.DEFAULT_NAMESPACE, Long.MAX_VALUE);
+        namespaces = newNamespaces();
+    }
+
+    private KnowledgeNamespace newNamespace(String name, long quotaBytes) {
+        KnowledgeVectorStore store = new KnowledgeVectorStore(embeddingModel, 4, List.of("category"),
+                RetrievalCache.disabled(), quotaBytes);
+        DocumentRegistry registry = new DocumentRegistry();
+        return new KnowledgeNamespace(name, store, registry,
+                new DocumentIngestionPipeline(store, embeddingModel, registry, properties));
+    }
+
+    private KnowledgeNamespaces newNamespaces() {
+        VectorIndexSnapshot snapshot = new VectorIndexSnapshot(defaultNamespace.store(), defaultNamespace.registry(),
+                embeddingModel, new ObjectMapper(), properties);
+        long quotaBytes = properties.getNamespace().getQuota().toBytes();
+        return new KnowledgeNamespaces(defaultNamespace, name -> {
+            created.computeIfAbsent(name, n -> new AtomicInteger()).incrementAndGet();
+            beforeCreate.accept(name);
+            return newNamespace(name, quotaBytes);
+        }, snapshot, properties.getNamespace());
+    }
+
+    private RagIngestReportVO upsert(String namespace, String documentId, String content) {
+        return namespaces.write(namespace,
+                target -> target.pipeline().upsert(documentId, content, Map.of("category", "product")));
+    }
+
+    record NameTestCase(String name, String namespace, String expected, boolean valid) {}
+
+    static Stream<NameTestCase> nameTestCases() {
+        return Stream.of(
+                new NameTestCase("为空时使用默认命名空间", null, "default", true),
+                new NameTestCase("空白时使用默认命名空间", "  ", "default", true),
+                new NameTestCase("小写字母数字", "tenant-01", "tenant-01", true),
+                new NameTestCase("首尾空白被去掉", " sales_kb ", "sales_kb", true),
+                new NameTestCase("大写字母", "Tenant", null, false),
+                new NameTestCase("路径穿越", "../etc", null, false),
+                new NameTestCase("超长名称", "a".repeat(65), null, false)
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("nameTestCases")
+    @DisplayName("命名空间名称校验")
+    void normalize_shouldValidateName(NameTestCase tc) {
+        if (tc.valid()) {
+            assertEquals(tc.expected(), KnowledgeNamespaces.normalize(tc.namespace()));
+        } else {
+            assertThrows(IllegalArgumentException.class, () -> KnowledgeNamespaces.normalize(tc.namespace()));
+        }
+    }
+
+    @Nested
+    @DisplayName("懒加载与隔离测试")
+    class LoadTests {
+
+        @Test
+        @DisplayName("默认命名空间就是主知识库，其他命名空间首次写入时才创建")
+        void write_shouldCreateNamespaceLazily() {
+            assertSame(defaultNamespace, namespaces.get(null));
+            assertEquals(0, namespaces.residentCount());
+
+            namespaces.write("sales", target -> null);
+
+            assertTrue(namespaces.isResident("sales"));
+            assertEquals("sales", namespaces.get("sales").name());
+        }
+
+        @Test
+        @DisplayName("读取不存在的命名空间报不存在，不创建也不挤出常驻的命名空间")
+        void get_unknownNamespace_shouldNotCreate() {
+            properties.getNamespace().setMaxResident(1);
+            upsert("a", "文档A", "智能客服系统支持多轮对话");
+
+            BusinessException e = assertThrows(BusinessException.class, () -> namespaces.get("unknown"));
+            Query query = Query.builder().text("报价").context(Map.of(KnowledgeNamespaces.CONTEXT_KEY, "ghost")).build();
+            assertThrows(BusinessException.class, () -> namespaces.resolve(query));
+
+            assertEquals(ErrorCodeEnum.NOT_FOUND, e.getErrorCode());
+            assertFalse(namespaces.isResident("unknown"));
+            assertTrue(namespaces.isResident("a"));
+            assertFalse(created.containsKey("unknown"));
+        }
+
+        @Test
+        @DisplayName("不同命名空间的文档相互隔离，检索按 context 选择命名空间")
+        void resolve_shouldIsolateNamespaces() {
+            upsert("sales", "报价单", "企业版报价每年十万元");
+            upsert("support", "工单", "工单系统支持自动分派");
+
+            KnowledgeVectorStore sales = namespaces.resolve(Query.builder()
+                    .text("报价").context(Map.of(KnowledgeNamespaces.CONTEXT_KEY, "sales")).build());
+
+            assertEquals(1, sales.size());
+            assertEquals(1, namespaces.get("support").store().size());
+            assertSame(defaultNamespace.store(), namespaces.resolve(new Query("报价")));
+            assertEquals(0, defaultNamespace.store().size());
+        }
+    }
+
+    @Nested
+    @DisplayName("卸载测试")
+    class EvictionTests {
+
+        @Test
+        @DisplayName("超出常驻数量时最久未使用的命名空间落盘卸载，再次使用时从磁盘加载且不重新嵌入")
+        void get_overMaxResident_shouldUnloadLeastRecentlyUsed() {
+            upsert("a", "文档A", "智能客服系统支持多轮对话");
+            upsert("b", "文档B", "工单系统支持自动分派");
+            namespaces.get("a");
+            upsert("c", "文档C", "知识库支持全文检索");
+
+            assertEquals(2, namespaces.residentCount());
+            assertFalse(namespaces.isResident("b"));
+            assertTrue(Files.exists(tempDir.resolve("namespaces").resolve("b.snap")));
+
+            int embeddedBefore = embeddingModel.embeddedTexts.get();
+            KnowledgeNamespace reloaded = namespaces.get("b");
+
+            assertEquals(1, reloaded.store().size());
+            assertTrue(reloaded.registry().find("文档B").isPresent());
+            assertEquals(embeddedBefore, embeddingModel.embeddedTexts.get());
+        }
+
+        @Test
+        @DisplayName("常驻内存总量超出上限时卸载冷命名空间")
+        void write_overResidentSize_shouldUnloadColdNamespace() {
+            properties.getNamespace().setMaxResident(10);
+            upsert("a", "文档A", "智能客服系统支持多轮对话");
+            long oneNamespace = namespaces.get("a").store().estimatedBytes();
+            properties.getNamespace().setMaxResidentSize(DataSize.ofBytes(oneNamespace + 1));
+
+            upsert("b", "文档B", "工单系统支持自动分派");
+
+            assertFalse(namespaces.isResident("a"));
+            assertTrue(namespaces.isResident("b"));
+        }
+
+        @Test
+        @DisplayName("正在写入的命名空间不会被卸载，写入结束后再回到常驻上限以内")
+        void write_inProgress_shouldNotBeUnloaded() {
+            properties.getNamespace().setMaxResident(1);
+            namespaces.write("a", target -> {
+                namespaces.write("b", other -> null);
+                assertTrue(namespaces.isResident("a"));
+                assertEquals(2, namespaces.residentCount());
+                return null;
+            });
+
+            assertEquals(1, namespaces.residentCount());
+            assertTrue(namespaces.isResident("a"));
+        }
+
+        @Test
+        @DisplayName("关闭时保存有修改的命名空间，重启后可以列出并加载")
+        void close_shouldPersistDirtyNamespaces() {
+            upsert("a", "文档A", "智能客服系统支持多轮对话");
+            namespaces.close();
+
+            KnowledgeNamespaces restarted = newNamespaces();
+            List<RagNamespaceVO> listed = restarted.list();
+
+            assertEquals(List.of("default", "a"), listed.stream().map(RagNamespaceVO::getName).toList());
+            assertFalse(listed.get(1).getResident());
+            assertNotNull(listed.get(1).getDiskBytes());
+            assertEquals(1, restarted.get("a").store().size());
+        }
+    }
+
+    @Nested
+    @DisplayName("并发加载测试")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("一个命名空间冷加载期间，其他常驻命名空间的读取不被阻塞")
+        void coldLoad_shouldNotBlockResidentNamespaces() throws Exception {
+            upsert("a", "文档A", "智能客服系统支持多轮对话");
+            CountDownLatch loadStarted = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            beforeCreate = name -> {
+                if ("slow".equals(name)) {
+                    loadStarted.countDown();
+                    await(release);
+                }
+            };
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<?> slow = executor.submit(() -> namespaces.write("slow", target -> null));
+                assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+                KnowledgeNamespace resident = CompletableFuture.supplyAsync(() -> namespaces.get("a"))
+                        .get(5, TimeUnit.SECONDS);
+
+                assertEquals(1, resident.store().size());
+                release.countDown();
+                slow.get(5, TimeUnit.SECONDS);
+                assertTrue(namespaces.isResident("slow"));
+            } finally {
+                release.countDown();
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("同一命名空间同时加载时只从磁盘加载一次")
+        void concurrentGet_shouldLoadOnce() throws Exception {
+            upsert("a", "文档A", "智能客服系统支持多轮对话");
+            namespaces.close();
+            namespaces = newNamespaces();
+            created.clear();
+            CountDownLatch release = new CountDownLatch(1);
+            beforeCreate = name -> await(release);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<KnowledgeNamespace>> futures = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    futures.add(executor.submit(() -> namespaces.get("a")));
+                }
+                Thread.sleep(100);
+                release.countDown();
+
+                for (Future<KnowledgeNamespace> future : futures) {
+                    assertSame(futures.get(0).get(5, TimeUnit.SECONDS), future.get(5, TimeUnit.SECONDS));
+                }
+                assertEquals(1, created.get("a").get());
+                assertEquals(1, namespaces.get("a").store().size());
+            } finally {
+                release.countDown();
+                executor.shutdownNow();
+            }
+        }
+
+        private static void await(CountDownLatch latch) {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("内存配额测试")
+    class QuotaTests {
+
+        @Test
+        @DisplayName("超出命名空间配额的分块写入失败")
+        void upsert_overQuota_shouldFail() {
+            properties.getNamespace().setQuota(DataSize.ofBytes(1024));
+            namespaces = newNamespaces();
+
+            RagIngestReportVO report = upsert("tiny", "大文档", "智能客服系统支持多轮对话。".repeat(400));
+
+            assertTrue(report.getFailedCount() > 0);
+            assertTrue(namespaces.get("tiny").store().estimatedBytes() <= 1024);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.shinelon.hello.rag.postretrieval;
+
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.rag.ingest.ChunkStatistics;
+import com.shinelon.hello.rag.retrieval.CjkTokenizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ContextCompressionPostProcessor 单元测试
+ *
+ * @author shinelon
+ */
+@DisplayName("ContextCompressionPostProcessor 测试")
+class ContextCompressionPostProcessorTest {
+
+    private static final String PRODUCT = "智能客服系统支持多轮对话。可对接企业知识库。价格按坐席数计费。";
+    private static final String CONTACT = "客服电话：400-888-8888。邮箱：support@zhiyun.com。";
+
+    private RagProperties.Compression properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ContextCompressionPostProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RagProperties.Compression();
+        meterRegistry = new SimpleMeterRegistry();
+        processor = new ContextCompressionPostProcessor(properties, meterRegistry);
+    }
+
+    private double tokens(String stage) {
+        return meterRegistry.get("rag.context.tokens").tag("stage", stage).counter().count();
+    }
+
+    private static Document document(String id, String text) {
+        return new Document(id, text, Map.of("source", id));
+    }
+
+    record SentenceTestCase(String name, String query, String text, List<String> expected) {}
+
+    static Stream<SentenceTestCase> sentenceTestCases() {
+        return Stream.of(
+                new SentenceTestCase("只保留相关句子", "知识库怎么对接", PRODUCT, List.of("可对接企业知识库。")),
+                new SentenceTestCase("多句相关时保持原文顺序", "多轮对话和计费方式", PRODUCT,
+                        List.of("智能客服系统支持多轮对话。", "价格按坐席数计费。")),
+                new SentenceTestCase("精确匹配电话号码", "400-888-8888", CONTACT, List.of("客服电话：400-888-8888。")),
+                new SentenceTestCase("无相关句子时保留首句", "公司成立时间", CONTACT, List.of("客服电话：400-888-8888。")),
+                new SentenceTestCase("空文本", "任意问题", "", List.of())
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("sentenceTestCases")
+    @DisplayName("句子抽取")
+    void relevantSentences_shouldKeepQueryRelevantSentences(SentenceTestCase tc) {
+        List<String> sentences = ContextCompressionPostProcessor.relevantSentences(tc.text(),
+                new HashSet<>(CjkTokenizer.tokenize(tc.query())));
+
+        assertEquals(tc.expected(), sentences);
+    }
+
+    @Nested
+    @DisplayName("去重测试")
+    class DeduplicateTests {
+
+        @Test
+        @DisplayName("近似重复的分块只保留排名靠前的一个")
+        void process_nearDuplicates_shouldKeepHigherRanked() {
+            List<Document> documents = List.of(
+                    document("a", PRODUCT),
+                    document("b", PRODUCT.replace("。", ".")),
+                    document("c", CONTACT));
+
+            List<Document> unique = processor.deduplicate(documents);
+
+            assertEquals(List.of("a", "c"), unique.stream().map(Document::getId).toList());
+        }
+    }
+
+    @Nested
+    @DisplayName("token 预算测试")
+    class BudgetTests {
+
+        @Test
+        @DisplayName("压缩后 token 数不超过预算，且记录压缩前后的 token 指标")
+        void process_shouldFitTokenBudget() {
+            properties.setMaxContextTokens(20);
+            List<Document> documents = List.of(document("product", PRODUCT), document("contact", CONTACT));
+
+            List<Document> compressed = processor.process(new Query("客服系统和客服电话"), documents);
+
+            assertFalse(compressed.isEmpty());
+            assertEquals("product", compressed.get(0).getId());
+            assertEquals("product", compressed.get(0).getMetadata().get("source"));
+            assertTrue(tokens("compressed") <= 20);
+            assertTrue(tokens("compressed") < tokens("retrieved"));
+        }
+
+        @Test
+        @DisplayName("优先使用摄取时写入的 token 数，压缩后的分块更新 token 数并去掉过期的句子统计")
+        void process_shouldUsePrecomputedStatistics() {
+            Map<String, Object> metadata = new HashMap<>(ChunkStatistics.compute(PRODUCT, new JTokkitTokenCountEstimator()));
+            metadata.put(ChunkStatistics.METADATA_TOKEN_COUNT, 1000);
+
+            List<Document> compressed = processor.process(new Query("知识库怎么对接"),
+                    List.of(new Document("product", PRODUCT, metadata)));
+
+            assertEquals(1000, tokens("retrieved"));
+            assertEquals("可对接企业知识库。", compressed.get(0).getText());
+            assertEquals((int) tokens("compressed"), compressed.get(0).getMetadata().get(ChunkStatistics.METADATA_TOKEN_COUNT));
+            assertFalse(compressed.get(0).getMetadata().containsKey(ChunkStatistics.METADATA_SENTENCE_ENDS));
+        }
+
+        @Test
+        @DisplayName("预算耗尽后排名靠后的分块被丢弃")
+        void process_exhaustedBudget_shouldDropLowerRanked() {
+            properties.setMaxContextTokens(1);
+            List<Document> documents = List.of(document("product", PRODUCT), document("contact", CONTACT));
+
+            assertTrue(processor.process(new Query("客服系统"), documents).isEmpty());
+        }
+
+        @Test
+        @DisplayName("关闭压缩时原样返回")
+        void process_disabled_shouldReturnAsIs() {
+            properties.setEnabled(false);
+            List<Document> documents = List.of(document("product", PRODUCT), document("copy", PRODUCT));
+
+            assertSame(documents, processor.process(new Query("客服系统"), documents));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.shinelon.hello.rag.postretrieval;
+
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.rag.FakeEmbeddingModel;
+import com.shinelon.hello.rag.retrieval.HybridDocumentRetriever;
+import com.shinelon.hello.rag.store.KnowledgeVectorStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 重排序成本与上下文精确率基准测试
+ * 默认跳过，运行方式：
+ * mvn test -Dtest=RerankingBenchmarkTest -Drag.benchmark=true [-Drag.benchmark.products=300]
+ * <p>
+ * 语料由若干产品组成，每个产品有介绍、价格、保修三个分块，不同产品的分块只有型号和数字不同。
+ * 查询指明型号和主题，答案分块唯一。上下文精确率用两个指标衡量：
+ * precision@1 = 首个分块就是答案分块的查询比例，hit@3 = 答案分块进入 top3 的查询比例。
+ * 对比：纯向量 top3、混合检索 top3、混合检索多召回 N 个候选后重排序取 top3（N 取多个值）
+ *
+ * @author shinelon
+ */
+@EnabledIfSystemProperty(named = "rag.benchmark", matches = "true")
+@DisplayName("Reranking 基准测试")
+class RerankingBenchmarkTest {
+
+    private static final int TOP_K = 3;
+    private static final String[] TOPICS = {"介绍", "价格", "保修"};
+
+    @Test
+    @DisplayName("重排序成本与上下文精确率")
+    void rerank_costVsPrecision() {
+        int products = Integer.getInteger("rag.benchmark.products", 300);
+        KnowledgeVectorStore vectorStore = new KnowledgeVectorStore(new FakeEmbeddingModel(), 64);
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            String model = "ZX-" + i;
+            documents.add(new Document(model + "-介绍", model + " 型号智能音箱介绍：支持语音助手与多房间播放，适合家庭使用。",
+                    Map.of("product", model)));
+            documents.add(new Document(model + "-价格", model + " 的价格为 " + (100 + i) + " 元，企业采购可享受批量折扣。",
+                    Map.of("product", model)));
+            documents.add(new Document(model + "-保修", model + " 提供 " + (1 + i % 3) + " 年保修，保修期内免费更换配件。",
+                    Map.of("product", model)));
+        }
+        vectorStore.add(documents);
+
+        List<Query> queries = new ArrayList<>();
+        for (int i = 0; i < products; i += 3) {
+            queries.add(new Query("ZX-" + i + " 的" + TOPICS[i % TOPICS.length] + "是怎样的"));
+        }
+
+        RagProperties.Retrieval retrieval = new RagProperties().getRetrieval();
+        retrieval.setSimilarityThreshold(0.0);
+
+        List<List<Document>> cosine = queries.stream()
+                .map(query -> vectorStore.similaritySearch(SearchRequest.builder()
+                        .query(query.text()).topK(TOP_K).similarityThreshold(0.0).build()))
+                .toList();
+        System.out.printf("[RAG-Rerank-Benchmark] products=%d, queries=%d%n", products, queries.size());
+        report("cosine top" + TOP_K, queries, cosine);
+
+        List<List<Document>> hybridTopK;
+        try (HybridDocumentRetriever hybrid = new HybridDocumentRetriever(vectorStore, retrieval, TOP_K)) {
+            hybridTopK = queries.stream().map(hybrid::retrieve).toList();
+        }
+        report("hybrid top" + TOP_K, queries, hybridTopK);
+
+        double bestRerankedPrecision = 0;
+        for (int candidates : new int[]{5, 10, 20, 40}) {
+            retrieval.setCandidateK(Math.max(candidates, retrieval.getCandidateK()));
+            RagProperties.Rerank rerank = new RagProperties.Rerank();
+            rerank.setTopK(TOP_K);
+            rerank.setCandidates(candidates);
+            try (HybridDocumentRetriever hybrid = new HybridDocumentRetriever(vectorStore, retrieval, candidates);
+                 RerankingPostProcessor processor = new RerankingPostProcessor(
+                         new LexicalEmbeddingReranker(rerank.getLexicalWeight()), rerank)) {
+                List<List<Document>> retrieved = queries.stream().map(hybrid::retrieve).toList();
+                long start = System.nanoTime();
+                List<List<Document>> reranked = new ArrayList<>();
+                for (int q = 0; q < queries.size(); q++) {
+                    reranked.add(processor.process(queries.get(q), retrieved.get(q)));
+                }
+                double rerankMicros = (System.nanoTime() - start) / 1_000.0 / queries.size();
+                bestRerankedPrecision = Math.max(bestRerankedPrecision, answerRate(queries, reranked, 1));
+                report(String.format("hybrid %d candidates + rerank top%d (%.1fus/query)", candidates, TOP_K,
+                        rerankMicros), queries, reranked);
+            }
+        }
+
+        assertTrue(bestRerankedPrecision >= answerRate(queries, cosine, 1));
+    }
+
+    private static void report(String label, List<Query> queries, List<List<Document>> results) {
+        System.out.printf("[RAG-Rerank-Benchmark] %s: precision@1=%.3f, hit@%d=%.3f%n", label,
+                answerRate(queries, results, 1), TOP_K, answerRate(queries, results, TOP_K));
+    }
+
+    /**
+     * 答案分块出现在前 k 个结果中的查询比例
+     */
+    private static double answerRate(List<Query> queries, List<List<Document>> results, int k) {
+        int hits = 0;
+        for (int q = 0; q < queries.size(); q++) {
+            String answerId = answerId(queries.get(q));
+            if (results.get(q).stream().limit(k).anyMatch(document -> answerId.equals(document.getId()))) {
+                hits++;
+            }
+        }
+        return (double) hits / queries.size();
+    }
+
+    /**
+     * 查询格式为 "ZX-i 的主题是怎样的"，答案分块ID为 "ZX-i-主题"
+     */
+    private static String answerId(Query query) {
+        String text = query.text();
+        String model = text.substring(0, text.indexOf(' '));
+        String topic = text.substring(text.indexOf('的') + 1, text.indexOf("是怎样的"));
+        return model + "-" + topic;
+    }
+}
@@ -0,0 +1,145 @@
+package com.shinelon.hello.rag.postretrieval;
+
+import com.shinelon.hello.config.RagProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.rag.Query;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RerankingPostProcessor 与 LexicalEmbeddingReranker 单元测试
+ *
+ * @author shinelon
+ */
+@DisplayName("RerankingPostProcessor 测试")
+class RerankingPostProcessorTest {
+
+    private RagProperties.Rerank properties;
+    private RerankingPostProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RagProperties.Rerank();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (processor != null) {
+            processor.close();
+        }
+    }
+
+    private static Document document(String id, String text, double distance) {
+        return new Document(id, text, Map.of(DocumentMetadata.DISTANCE.value(), distance));
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    @Nested
+    @DisplayName("重排序测试")
+    class ProcessTests {
+
+        @Test
+        @DisplayName("按重排序得分降序保留 topK，score 替换为重排序得分")
+        void process_shouldKeepTopKByRerankScore() {
+            properties.setTopK(2);
+            Map<String, Double> scores = Map.of("a", 0.1, "b", 0.9, "c", 0.5);
+            processor = new RerankingPostProcessor((query, document) -> scores.get(document.getId()), properties);
+
+            List<Document> results = processor.process(new Query("问题"),
+                    List.of(document("a", "A", 0.1), document("b", "B", 0.1), document("c", "C", 0.1)));
+
+            assertEquals(List.of("b", "c"), ids(results));
+            assertEquals(0.9, results.get(0).getScore());
+        }
+
+        @Test
+        @DisplayName("候选在多个线程上并行打分")
+        void process_shouldScoreInParallel() {
+            properties.setTopK(20);
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            processor = new RerankingPostProcessor((query, document) -> {
+                threads.add(Thread.currentThread().getName());
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 0;
+            }, properties);
+            List<Document> candidates = IntStream.range(0, 20)
+                    .mapToObj(i -> document("d" + i, "文本" + i, 0.5))
+                    .toList();
+
+            List<Document> results = processor.process(new Query("问题"), candidates);
+
+            assertEquals(ids(candidates), ids(results), "得分相同时保持检索顺序");
+            assertTrue(threads.size() > 1);
+            assertTrue(threads.stream().allMatch(name -> name.startsWith("rag-rerank-")));
+        }
+
+        @Test
+        @DisplayName("关闭重排序时原样返回")
+        void process_disabled_shouldReturnAsIs() {
+            properties.setEnabled(false);
+            processor = new RerankingPostProcessor((query, document) -> 0, properties);
+            List<Document> candidates = List.of(document("a", "A", 0.1), document("b", "B", 0.1),
+                    document("c", "C", 0.1), document("d", "D", 0.1));
+
+            assertSame(candidates, processor.process(new Query("问题"), candidates));
+        }
+    }
+
+    @Nested
+    @DisplayName("默认重排序器测试")
+    class LexicalEmbeddingRerankerTests {
+
+        record ScoreTestCase(String name, String query, String text, Double distance, double expected) {}
+
+        static Stream<ScoreTestCase> scoreTestCases() {
+            return Stream.of(
+                    new ScoreTestCase("词项全部命中且向量完全相似", "E1001", "错误码E1001", 0.0, 1.0),
+                    new ScoreTestCase("词项全部命中，关键词检索命中无 distance", "E1001", "错误码E1001", null, 0.5),
+                    new ScoreTestCase("三个词项命中一个", "客服电话", "客服邮箱", 1.0, 1.0 / 6),
+                    new ScoreTestCase("词项不命中只看向量", "发票", "客服电话", 0.2, 0.4),
+                    new ScoreTestCase("查询只有标点", "？", "客服电话", 1.0, 0.0)
+            );
+        }
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("scoreTestCases")
+        @DisplayName("词项重合度与向量相似度各占一半")
+        void score_shouldBlendLexicalAndEmbedding(ScoreTestCase tc) {
+            Document document = tc.distance() == null
+                    ? new Document(tc.text())
+                    : new Document(tc.text(), Map.of(DocumentMetadata.DISTANCE.value(), tc.distance()));
+
+            double score = new LexicalEmbeddingReranker(0.5).score(new Query(tc.query()), document);
+
+            assertEquals(tc.expected(), score, 1e-9);
+        }
+
+        @Test
+        @DisplayName("权重超出范围时抛出参数异常")
+        void constructor_invalidWeight_shouldThrow() {
+            assertThrows(IllegalArgumentException.class, () -> new LexicalEmbeddingReranker(1.5));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.shinelon.hello.rag.postretrieval;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SimHash 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("SimHash 测试")
+class SimHashTest {
+
+    private static final String BASE = "智能客服系统：7x24小时自动应答，支持多轮对话，可对接企业知识库，帮助企业降低客服成本。";
+
+    record DistanceTestCase(String name, String other, boolean expectedNear) {}
+
+    static Stream<DistanceTestCase> distanceTestCases() {
+        return Stream.of(
+                new DistanceTestCase("完全相同", BASE, true),
+                new DistanceTestCase("只差标点", BASE.replace("，", ","), true),
+                new DistanceTestCase("末尾多一个词", BASE + "欢迎", true),
+                new DistanceTestCase("内容无关", "客服电话：400-888-8888，邮箱：support@zhiyun.com，工作时间周一至周五。", false)
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("distanceTestCases")
+    @DisplayName("近似文本的指纹汉明距离小，无关文本的距离大")
+    void distance_shouldReflectSimilarity(DistanceTestCase tc) {
+        int distance = SimHash.distance(SimHash.fingerprint(BASE), SimHash.fingerprint(tc.other()));
+
+        assertEquals(tc.expectedNear(), distance <= 3, "distance=" + distance);
+    }
+
+    @Test
+    @DisplayName("指纹与计算次数无关")
+    void fingerprint_shouldBeDeterministic() {
+        assertEquals(SimHash.fingerprint(BASE), SimHash.fingerprint(BASE));
+        assertEquals(0L, SimHash.fingerprint(""));
+    }
+}
@@ -0,0 +1,102 @@
+package com.shinelon.hello.rag.query;
+
+import com.shinelon.hello.config.RagProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CachingQueryTransformer 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("CachingQueryTransformer 测试")
+class CachingQueryTransformerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger rewriteCalls;
+    private CachingQueryTransformer transformer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rewriteCalls = new AtomicInteger();
+        transformer = new CachingQueryTransformer(query -> {
+            rewriteCalls.incrementAndGet();
+            return query.mutate().text("改写:" + query.text()).build();
+        }, new RagProperties.QueryRewrite(), meterRegistry);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("rag.query.rewrite").tag("result", result).counter().count();
+    }
+
+    record SkipTestCase(String name, String query, boolean expectedSkip) {}
+
+    static Stream<SkipTestCase> skipTestCases() {
+        return Stream.of(
+                new SkipTestCase("短查询", "API密钥", true),
+                new SkipTestCase("错误码", "E1001", true),
+                new SkipTestCase("电话号码", "400-888-8888", true),
+                new SkipTestCase("英文关键词", "Spring Boot 3.x", true),
+                new SkipTestCase("完整问句", "你们公司的主要产品有哪些？", false),
+                new SkipTestCase("口语化问题", "我想了解一下你们的技术架构", false)
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("skipTestCases")
+    @DisplayName("启发式跳过短查询和关键词式查询")
+    void transform_shouldSkipShortOrKeywordQueries(SkipTestCase tc) {
+        Query result = transformer.transform(new Query(tc.query()));
+
+        assertEquals(tc.expectedSkip(), result.text().equals(tc.query()));
+        assertEquals(tc.expectedSkip() ? 0 : 1, rewriteCalls.get());
+        assertEquals(tc.expectedSkip() ? 1.0 : 0.0, count("skipped"));
+    }
+
+    @Nested
+    @DisplayName("缓存测试")
+    class CacheTests {
+
+        @Test
+        @DisplayName("归一化后相同的查询只改写一次")
+        void transform_sameNormalizedQuery_shouldRewriteOnce() {
+            transformer.transform(new Query("你们公司的主要产品有哪些？"));
+            Query cached = transformer.transform(new Query("  你们公司的主要产品有哪些?  "));
+
+            assertEquals("改写:你们公司的主要产品有哪些？", cached.text());
+            assertEquals(1, rewriteCalls.get());
+            assertEquals(1.0, count("miss"));
+            assertEquals(1.0, count("hit"));
+            assertEquals(1.0, meterRegistry.get("rag.query.rewrite.cache.size").gauge().value());
+        }
+
+        @Test
+        @DisplayName("命中缓存时保留原查询的上下文")
+        void transform_cacheHit_shouldKeepContext() {
+            transformer.transform(new Query("你们公司的主要产品有哪些"));
+            Query query = Query.builder()
+                    .text("你们公司的主要产品有哪些")
+                    .context(Map.of(VectorStoreDocumentRetriever.FILTER_EXPRESSION, "category == 'product'"))
+                    .build();
+
+            Query result = transformer.transform(query);
+
+            assertEquals("category == 'product'", result.context().get(VectorStoreDocumentRetriever.FILTER_EXPRESSION));
+        }
+    }
+}
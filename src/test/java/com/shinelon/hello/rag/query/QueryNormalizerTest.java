@@ -0,0 +1,37 @@
+package com.shinelon.hello.rag.query;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * QueryNormalizer 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("QueryNormalizer 测试")
+class QueryNormalizerTest {
+
+    record NormalizeTestCase(String name, String input, String expected) {}
+
+    static Stream<NormalizeTestCase> normalizeTestCases() {
+        return Stream.of(
+                new NormalizeTestCase("合并空白并去掉首尾空白", "  如何  获取\t密钥 ", "如何 获取 密钥"),
+                new NormalizeTestCase("全角转半角并转小写", "ＡＰＩ密钥", "api密钥"),
+                new NormalizeTestCase("去掉末尾问号", "如何获取密钥？？", "如何获取密钥"),
+                new NormalizeTestCase("null", null, "")
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("normalizeTestCases")
+    @DisplayName("查询归一化")
+    void normalize(NormalizeTestCase tc) {
+        assertEquals(tc.expected(), QueryNormalizer.normalize(tc.input()));
+    }
+}
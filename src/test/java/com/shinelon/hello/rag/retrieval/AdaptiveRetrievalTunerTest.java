@@ -0,0 +1,209 @@
+package com.shinelon.hello.rag.retrieval;
+
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.model.vo.RagRetrievalTuningVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AdaptiveRetrievalTuner 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("AdaptiveRetrievalTuner 测试")
+class AdaptiveRetrievalTunerTest {
+
+    private RagProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveRetrievalTuner tuner;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RagProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        tuner = new AdaptiveRetrievalTuner(properties, 10, meterRegistry);
+    }
+
+    private static List<Document> ranked(double... scores) {
+        return IntStream.range(0, scores.length)
+                .mapToObj(i -> Document.builder().id("d" + i).text("文档" + i).score(scores[i]).build())
+                .toList();
+    }
+
+    record CliffTestCase(String name, double[] scores, int minK, double cliffRatio, int expected) {}
+
+    static Stream<CliffTestCase> cliffTestCases() {
+        return Stream.of(
+                new CliffTestCase("一篇高分后断崖", new double[]{0.92, 0.41, 0.40, 0.38}, 1, 0.6, 1),
+                new CliffTestCase("得分平缓全部保留", new double[]{0.80, 0.75, 0.70, 0.66}, 1, 0.6, 4),
+                new CliffTestCase("断崖在第三篇之后", new double[]{0.90, 0.85, 0.80, 0.30}, 1, 0.6, 3),
+                new CliffTestCase("断崖在 minK 之前不截断", new double[]{0.90, 0.20, 0.19, 0.05}, 3, 0.6, 3),
+                new CliffTestCase("minK 之后遇到0分截断", new double[]{0.50, 0.0, 0.0}, 2, 0.6, 2),
+                new CliffTestCase("缺少得分时不截断", new double[]{0.90, Double.NaN, 0.10}, 1, 0.6, 3),
+                new CliffTestCase("比例为0时不截断", new double[]{0.90, 0.01}, 1, 0.0, 2),
+                new CliffTestCase("空候选", new double[]{}, 1, 0.6, 0)
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("cliffTestCases")
+    @DisplayName("按相邻得分比例截断")
+    void cliffCut_shouldCutAtFirstCliff(CliffTestCase tc) {
+        assertEquals(tc.expected(), AdaptiveRetrievalTuner.cliffCut(tc.scores(), tc.minK(), tc.cliffRatio()));
+    }
+
+    @Nested
+    @DisplayName("截取测试")
+    class SelectTests {
+
+        @Test
+        @DisplayName("至多保留 maxK 篇")
+        void select_shouldNotExceedMaxK() {
+            List<Document> selected = tuner.select(AdaptiveRetrievalTuner.ADVANCED,
+                    ranked(0.9, 0.88, 0.86, 0.84, 0.82, 0.80, 0.78));
+
+            assertEquals(properties.getAdaptive().getMaxK(), selected.size());
+        }
+
+        @Test
+        @DisplayName("断崖后的文档被丢弃并记录指标")
+        void select_withCliff_shouldDropTailAndRecordMetrics() {
+            List<Document> selected = tuner.select(AdaptiveRetrievalTuner.PIPELINE, ranked(0.9, 0.3, 0.2));
+
+            assertEquals(List.of("d0"), selected.stream().map(Document::getId).toList());
+            RagRetrievalTuningVO vo = tuner.describe(AdaptiveRetrievalTuner.PIPELINE);
+            assertEquals(1L, vo.getQueryCount());
+            assertEquals(1L, vo.getCliffCount());
+            assertEquals(0.9, vo.getMeanTopScore(), 1e-9);
+            assertEquals(1.0, vo.getMeanSelected(), 1e-9);
+            assertEquals(3, meterRegistry.get("rag.retrieval.relative.score")
+                    .tag("endpoint", AdaptiveRetrievalTuner.PIPELINE).summary().count());
+        }
+
+        @Test
+        @DisplayName("关闭自适应时固定取 topK")
+        void select_adaptiveDisabled_shouldKeepFixedTopK() {
+            properties.getAdaptive().setEnabled(false);
+            AdaptiveRetrievalTuner fixed = new AdaptiveRetrievalTuner(properties, 10, new SimpleMeterRegistry());
+
+            List<Document> selected = fixed.select(AdaptiveRetrievalTuner.SIMPLE, ranked(0.9, 0.3, 0.2, 0.1));
+
+            assertEquals(properties.getRerank().getTopK(), selected.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("运行时覆盖测试")
+    class OverrideTests {
+
+        @Test
+        @DisplayName("覆盖只影响对应端点，重置后回到默认值")
+        void override_shouldApplyPerEndpointUntilReset() {
+            AdaptiveRetrievalTuner.Settings defaults = tuner.settings(AdaptiveRetrievalTuner.SIMPLE);
+            AdaptiveRetrievalTuner.Settings settings = new AdaptiveRetrievalTuner.Settings(false, 2, 2, 0.7, 0.6);
+
+            tuner.override(AdaptiveRetrievalTuner.ADVANCED, settings);
+
+            assertEquals(settings, tuner.settings(AdaptiveRetrievalTuner.ADVANCED));
+            assertEquals(defaults, tuner.settings(AdaptiveRetrievalTuner.SIMPLE));
+            assertEquals(2, tuner.select(AdaptiveRetrievalTuner.ADVANCED, ranked(0.9, 0.1, 0.05)).size());
+            assertTrue(tuner.describe(AdaptiveRetrievalTuner.ADVANCED).getOverridden());
+
+            tuner.reset(AdaptiveRetrievalTuner.ADVANCED);
+
+            assertEquals(defaults, tuner.settings(AdaptiveRetrievalTuner.ADVANCED));
+        }
+
+        record InvalidTestCase(String name, AdaptiveRetrievalTuner.Settings settings) {}
+
+        static Stream<InvalidTestCase> invalidTestCases() {
+            return Stream.of(
+                    new InvalidTestCase("minK 为0", new AdaptiveRetrievalTuner.Settings(true, 0, 3, 0.5, 0.6)),
+                    new InvalidTestCase("minK 大于 maxK", new AdaptiveRetrievalTuner.Settings(true, 4, 3, 0.5, 0.6)),
+                    new InvalidTestCase("maxK 超过候选数", new AdaptiveRetrievalTuner.Settings(true, 1, 11, 0.5, 0.6)),
+                    new InvalidTestCase("阈值大于1", new AdaptiveRetrievalTuner.Settings(true, 1, 3, 1.5, 0.6)),
+                    new InvalidTestCase("断崖比例为负", new AdaptiveRetrievalTuner.Settings(true, 1, 3, 0.5, -0.1))
+            );
+        }
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("invalidTestCases")
+        @DisplayName("参数不合法时拒绝覆盖")
+        void override_invalidSettings_shouldThrow(InvalidTestCase tc) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> tuner.override(AdaptiveRetrievalTuner.SIMPLE, tc.settings()));
+            assertFalse(tuner.describe(AdaptiveRetrievalTuner.SIMPLE).getOverridden());
+        }
+
+        @Test
+        @DisplayName("未知端点")
+        void settings_unknownEndpoint_shouldThrow() {
+            assertThrows(IllegalArgumentException.class, () -> tuner.settings("unknown"));
+        }
+    }
+
+    @Nested
+    @DisplayName("AdaptiveVectorStore 测试")
+    class VectorStoreTests {
+
+        @Test
+        @DisplayName("按端点参数检索，保留过滤表达式")
+        void similaritySearch_shouldUseEndpointSettings() {
+            List<SearchRequest> requests = new ArrayList<>();
+            VectorStore delegate = new RecordingVectorStore(requests, ranked(0.9, 0.85, 0.2));
+            tuner.override(AdaptiveRetrievalTuner.SIMPLE, new AdaptiveRetrievalTuner.Settings(true, 1, 4, 0.7, 0.6));
+
+            List<Document> results = new AdaptiveVectorStore(delegate, tuner, AdaptiveRetrievalTuner.SIMPLE)
+                    .similaritySearch(SearchRequest.builder()
+                            .query("价格")
+                            .topK(3)
+                            .similarityThreshold(0.5)
+                            .filterExpression("category == 'product'")
+                            .build());
+
+            assertEquals(2, results.size());
+            SearchRequest request = requests.get(0);
+            assertEquals(4, request.getTopK());
+            assertEquals(0.7, request.getSimilarityThreshold(), 1e-9);
+            assertNotNull(request.getFilterExpression());
+        }
+    }
+
+    private record RecordingVectorStore(List<SearchRequest> requests, List<Document> results) implements VectorStore {
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            requests.add(request);
+            return results;
+        }
+
+        @Override
+        public void add(List<Document> documents) {
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.shinelon.hello.rag.retrieval;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bm25Index 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("Bm25Index 测试")
+class Bm25IndexTest {
+
+    private Bm25Index index;
+
+    @BeforeEach
+    void setUp() {
+        index = new Bm25Index();
+        index.add("about", "智云科技成立于2020年，是一家专注于企业级AI解决方案的高科技公司。");
+        index.add("product", "智能客服系统：7x24小时自动应答，支持多轮对话，可对接企业知识库。");
+        index.add("faq", "调用接口返回错误码E1001表示API密钥无效，请在控制台重新创建密钥。");
+        index.add("contact", "客服电话：400-888-8888，邮箱：support@zhiyun.com。");
+    }
+
+    record SearchTestCase(String name, String query, String expectedFirst) {}
+
+    static Stream<SearchTestCase> searchTestCases() {
+        return Stream.of(
+                new SearchTestCase("电话号码精确匹配", "400-888-8888", "contact"),
+                new SearchTestCase("电话号码片段匹配", "拨打400", "contact"),
+                new SearchTestCase("错误码匹配", "E1001是什么错误", "faq"),
+                new SearchTestCase("中文词匹配", "多轮对话", "product"),
+                new SearchTestCase("年份匹配", "哪一年成立", "about")
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("searchTestCases")
+    @DisplayName("检索结果排序")
+    void search_shouldRankExactTermFirst(SearchTestCase tc) {
+        List<Bm25Index.ScoredId> results = index.search(tc.query(), 3, id -> true);
+
+        assertFalse(results.isEmpty());
+        assertEquals(tc.expectedFirst(), results.get(0).id());
+    }
+
+    @Test
+    @DisplayName("无匹配词项时返回空")
+    void search_withoutMatch_shouldReturnEmpty() {
+        assertTrue(index.search("量子计算", 3, id -> true).isEmpty());
+    }
+
+    @Test
+    @DisplayName("删除与替换后倒排表同步更新")
+    void removeAndReplace_shouldUpdatePostings() {
+        index.remove("contact");
+        assertTrue(index.search("400-888-8888", 3, id -> true).isEmpty());
+
+        index.add("faq", "客服电话：400-888-8888");
+        assertEquals("faq", index.search("400-888-8888", 3, id -> true).get(0).id());
+        assertTrue(index.search("E1001", 3, id -> true).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    @DisplayName("过滤条件与数量限制")
+    void search_shouldApplyFilterAndLimit() {
+        List<Bm25Index.ScoredId> results = index.search("企业客服", 1, id -> !id.equals("product"));
+
+        assertEquals(1, results.size());
+        assertNotEquals("product", results.get(0).id());
+    }
+}
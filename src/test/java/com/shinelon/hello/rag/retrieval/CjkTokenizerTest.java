@@ -0,0 +1,46 @@
+package com.shinelon.hello.rag.retrieval;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * CjkTokenizer 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("CjkTokenizer 测试")
+class CjkTokenizerTest {
+
+    record TokenizeTestCase(String name, String text, List<String> expected) {}
+
+    static Stream<TokenizeTestCase> tokenizeTestCases() {
+        return Stream.of(
+                new TokenizeTestCase("空文本", "", List.of()),
+                new TokenizeTestCase("null", null, List.of()),
+                new TokenizeTestCase("中文按二元组切分", "智能客服", List.of("智能", "能客", "客服")),
+                new TokenizeTestCase("单个汉字单独成词", "是", List.of("是")),
+                new TokenizeTestCase("英文转小写", "Spring Boot", List.of("spring", "boot")),
+                new TokenizeTestCase("电话号码保留整体并拆出各段", "400-888-8888",
+                        List.of("400-888-8888", "400", "888", "8888")),
+                new TokenizeTestCase("中英混排", "错误码E1001",
+                        List.of("错误", "误码", "e1001")),
+                new TokenizeTestCase("标点作为分隔符", "密钥？登录。",
+                        List.of("密钥", "登录")),
+                new TokenizeTestCase("末尾连接符不并入词", "v1.", List.of("v1"))
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("tokenizeTestCases")
+    @DisplayName("分词")
+    void tokenize(TokenizeTestCase tc) {
+        assertEquals(tc.expected(), CjkTokenizer.tokenize(tc.text()));
+    }
+}
@@ -0,0 +1,145 @@
+package com.shinelon.hello.rag.retrieval;
+
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.rag.FakeEmbeddingModel;
+import com.shinelon.hello.rag.store.KnowledgeVectorStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HybridDocumentRetriever 单元测试
+ *
+ * @author shinelon
+ */
+@DisplayName("HybridDocumentRetriever 测试")
+class HybridDocumentRetrieverTest {
+
+    private RagProperties.Retrieval properties;
+    private KnowledgeVectorStore vectorStore;
+    private HybridDocumentRetriever retriever;
+
+    private static final List<Document> DOCUMENTS = List.of(
+            new Document("about", "智云科技成立于2020年，是一家专注于企业级AI解决方案的高科技公司。",
+                    Map.of("category", "about")),
+            new Document("product", "智能客服系统：7x24小时自动应答，支持多轮对话，可对接企业知识库。",
+                    Map.of("category", "product")),
+            new Document("faq", "调用接口返回错误码E1001表示API密钥无效，请在控制台重新创建密钥。",
+                    Map.of("category", "faq")),
+            new Document("contact", "客服电话：400-888-8888，邮箱：support@zhiyun.com。",
+                    Map.of("category", "contact")));
+
+    @BeforeEach
+    void setUp() {
+        properties = new RagProperties().getRetrieval();
+        properties.setSimilarityThreshold(0.0);
+        vectorStore = new KnowledgeVectorStore(new FakeEmbeddingModel(), 4);
+        vectorStore.add(DOCUMENTS);
+        retriever = new HybridDocumentRetriever(vectorStore, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        retriever.close();
+    }
+
+    @Nested
+    @DisplayName("混合检索测试")
+    class RetrieveTests {
+
+        @Test
+        @DisplayName("context 中的相似度阈值覆盖配置值")
+        void retrieve_withContextThreshold_shouldOverrideProperty() {
+            Query loose = new Query("zzz");
+            Query strict = Query.builder()
+                    .text("zzz")
+                    .context(Map.of(HybridDocumentRetriever.SIMILARITY_THRESHOLD, 1.0))
+                    .build();
+
+            assertFalse(retriever.retrieve(loose).isEmpty());
+            assertTrue(retriever.retrieve(strict).isEmpty());
+        }
+
+        @Test
+        @DisplayName("错误码等精确词项排在首位")
+        void retrieve_shouldRankExactTermFirst() {
+            List<Document> results = retriever.retrieve(new Query("E1001"));
+
+            assertEquals("faq", results.get(0).getId());
+            assertTrue(results.size() <= properties.getTopK());
+        }
+
+        @Test
+        @DisplayName("过滤表达式同时作用于两路检索")
+        void retrieve_withFilterExpression_shouldFilterBothRankings() {
+            Query query = Query.builder()
+                    .text("客服电话400-888-8888")
+                    .context(Map.of(VectorStoreDocumentRetriever.FILTER_EXPRESSION, "category == 'product'"))
+                    .build();
+
+            List<Document> results = retriever.retrieve(query);
+
+            assertEquals(1, results.size());
+            assertEquals("product", results.get(0).getId());
+        }
+
+        @Test
+        @DisplayName("向量检索失败时降级为关键词检索")
+        void retrieve_whenEmbeddingFails_shouldFallbackToKeyword() {
+            FakeEmbeddingModel failingModel = new FakeEmbeddingModel() {
+                @Override
+                public EmbeddingResponse call(EmbeddingRequest request) {
+                    if (request.getInstructions().size() == 1) {
+                        throw new IllegalStateException("embedding unavailable");
+                    }
+                    return super.call(request);
+                }
+            };
+            KnowledgeVectorStore store = new KnowledgeVectorStore(failingModel, 4);
+            store.add(DOCUMENTS);
+            try (HybridDocumentRetriever fallback = new HybridDocumentRetriever(store, properties)) {
+                List<Document> results = fallback.retrieve(new Query("400-888-8888"));
+
+                assertEquals("contact", results.get(0).getId());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("倒数排名融合测试")
+    class FusionTests {
+
+        private Document doc(String id) {
+            return new Document(id, id, Map.of());
+        }
+
+        @Test
+        @DisplayName("两路都靠前的文档排在最前，得分为 RRF 得分")
+        void reciprocalRankFusion_shouldFavorDocumentsInBothRankings() {
+            List<Document> fused = HybridDocumentRetriever.reciprocalRankFusion(List.of(
+                    List.of(doc("a"), doc("b"), doc("c")),
+                    List.of(doc("b"), doc("d"))), 60, 3);
+
+            assertEquals(List.of("b", "a", "d"), fused.stream().map(Document::getId).toList());
+            assertEquals(1.0 / 62 + 1.0 / 61, fused.get(0).getScore(), 1e-9);
+        }
+
+        @Test
+        @DisplayName("空结果")
+        void reciprocalRankFusion_withEmptyRankings_shouldReturnEmpty() {
+            assertTrue(HybridDocumentRetriever.reciprocalRankFusion(List.of(List.of(), List.of()), 60, 3).isEmpty());
+        }
+    }
+}
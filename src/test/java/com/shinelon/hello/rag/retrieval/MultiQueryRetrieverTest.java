@@ -0,0 +1,164 @@
+package com.shinelon.hello.rag.retrieval;
+
+import com.shinelon.hello.config.RagProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.preretrieval.query.expansion.QueryExpander;
+import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
+import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
+import org.springframework.ai.rag.retrieval.search.VectorStoreDocumentRetriever;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MultiQueryRetriever 单元测试
+ *
+ * @author shinelon
+ */
+@DisplayName("MultiQueryRetriever 测试")
+class MultiQueryRetrieverTest {
+
+    private static final String FILTER = "category == 'faq'";
+
+    private RagProperties.Retrieval properties;
+    private Map<String, Query> retrievedQueries;
+    private DocumentRetriever retriever;
+    private MultiQueryRetriever multiQueryRetriever;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RagProperties().getRetrieval();
+        retrievedQueries = new ConcurrentHashMap<>();
+        retriever = query -> {
+            retrievedQueries.put(query.text(), query);
+            return List.of(new Document(query.text(), "内容:" + query.text(), Map.of("source", query.text())));
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (multiQueryRetriever != null) {
+            multiQueryRetriever.close();
+        }
+    }
+
+    private static Query queryWithFilter(String text) {
+        return Query.builder()
+                .text(text)
+                .context(Map.of(VectorStoreDocumentRetriever.FILTER_EXPRESSION, FILTER))
+                .build();
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    @Nested
+    @DisplayName("多路检索测试")
+    class RetrieveTests {
+
+        @Test
+        @DisplayName("原始查询与改写查询都参与融合，原始查询排在前面")
+        void retrieve_shouldFuseOriginalAndRewritten() {
+            multiQueryRetriever = new MultiQueryRetriever(retriever,
+                    query -> query.mutate().text("改写").build(), null, properties);
+
+            List<Document> results = multiQueryRetriever.retrieve(new Query("原始"));
+
+            assertEquals(List.of("原始", "改写"), ids(results));
+        }
+
+        @Test
+        @DisplayName("改写结果与原查询相同时只检索一次")
+        void retrieve_unchangedRewrite_shouldRetrieveOnce() {
+            multiQueryRetriever = new MultiQueryRetriever(retriever, query -> query, null, properties);
+
+            List<Document> results = multiQueryRetriever.retrieve(new Query("原始"));
+
+            assertEquals(List.of("原始"), ids(results));
+            assertEquals(1, retrievedQueries.size());
+        }
+
+        @Test
+        @DisplayName("原始查询检索不等待改写完成")
+        void retrieve_originalShouldNotWaitForRewrite() {
+            CountDownLatch originalRetrieved = new CountDownLatch(1);
+            DocumentRetriever signalling = query -> {
+                List<Document> documents = retriever.retrieve(query);
+                originalRetrieved.countDown();
+                return documents;
+            };
+            QueryTransformer slowRewriter = query -> {
+                try {
+                    assertTrue(originalRetrieved.await(5, TimeUnit.SECONDS), "原始查询检索被改写阻塞");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return query.mutate().text("改写").build();
+            };
+            multiQueryRetriever = new MultiQueryRetriever(signalling, slowRewriter, null, properties);
+
+            List<Document> results = multiQueryRetriever.retrieve(new Query("原始"));
+
+            assertEquals(List.of("原始", "改写"), ids(results));
+        }
+
+        @Test
+        @DisplayName("改写失败时降级为原始查询的结果")
+        void retrieve_rewriteFailure_shouldFallBackToOriginal() {
+            multiQueryRetriever = new MultiQueryRetriever(retriever, query -> {
+                throw new IllegalStateException("改写服务不可用");
+            }, null, properties);
+
+            List<Document> results = multiQueryRetriever.retrieve(new Query("原始"));
+
+            assertEquals(List.of("原始"), ids(results));
+        }
+    }
+
+    @Nested
+    @DisplayName("查询扩展测试")
+    class ExpansionTests {
+
+        @Test
+        @DisplayName("扩展查询并发检索并沿用原始查询的过滤表达式")
+        void retrieve_expandedQueries_shouldKeepFilterContext() {
+            QueryExpander expander = query -> List.of(new Query("扩展一"), new Query("扩展二"));
+            multiQueryRetriever = new MultiQueryRetriever(retriever, query -> query, expander, properties);
+
+            List<Document> results = multiQueryRetriever.retrieve(queryWithFilter("原始"));
+
+            assertEquals(3, results.size());
+            assertEquals("原始", results.get(0).getId());
+            assertEquals(List.of("原始", "扩展一", "扩展二").stream().sorted().toList(),
+                    retrievedQueries.keySet().stream().sorted().toList());
+            retrievedQueries.values().forEach(query -> assertEquals(FILTER,
+                    query.context().get(VectorStoreDocumentRetriever.FILTER_EXPRESSION)));
+        }
+
+        @Test
+        @DisplayName("扩展失败不影响其他路的结果")
+        void retrieve_expansionFailure_shouldBeIgnored() {
+            QueryExpander failing = query -> {
+                throw new IllegalStateException("扩展服务不可用");
+            };
+            multiQueryRetriever = new MultiQueryRetriever(retriever,
+                    query -> query.mutate().text("改写").build(), failing, properties);
+
+            List<Document> results = multiQueryRetriever.retrieve(new Query("原始"));
+
+            assertEquals(List.of("原始", "改写"), ids(results));
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.shinelon.hello.rag.store;
+
+import com.shinelon.hello.rag.FakeEmbeddingModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KnowledgeVectorStore 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("KnowledgeVectorStore 测试")
+class KnowledgeVectorStoreTest {
+
+    private FakeEmbeddingModel embeddingModel;
+    private KnowledgeVectorStore vectorStore;
+
+    @BeforeEach
+    void setUp() {
+        embeddingModel = new FakeEmbeddingModel();
+        vectorStore = new KnowledgeVectorStore(embeddingModel, 4);
+        vectorStore.add(List.of(
+                new Document("p1", "智能客服系统支持多轮对话", Map.of("category", "product")),
+                new Document("c1", "客服电话400-888-8888", Map.of("category", "contact")),
+                new Document("t1", "后端框架Spring Boot", Map.of("category", "tech"))
+        ));
+    }
+
+    @Nested
+    @DisplayName("写入测试")
+    class AddTests {
+
+        record BatchTestCase(String name, int documentCount, int expectedCalls) {}
+
+        static Stream<BatchTestCase> batchCases() {
+            return Stream.of(
+                    new BatchTestCase("不足一批", 3, 1),
+                    new BatchTestCase("正好一批", 4, 1),
+                    new BatchTestCase("多批", 9, 3)
+            );
+        }
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("batchCases")
+        @DisplayName("按批调用嵌入模型")
+        void add_shouldEmbedInBatches(BatchTestCase tc) {
+            FakeEmbeddingModel model = new FakeEmbeddingModel();
+            KnowledgeVectorStore store = new KnowledgeVectorStore(model, 4);
+
+            store.add(IntStream.range(0, tc.documentCount())
+                    .mapToObj(i -> new Document("doc-" + i, "内容" + i, Map.of()))
+                    .toList());
+
+            assertEquals(tc.expectedCalls(), model.callCount.get());
+            assertEquals(tc.documentCount(), store.size());
+        }
+
+        @Test
+        @DisplayName("文档与向量数量不一致时抛出异常")
+        void addEmbedded_withMismatchedSize_shouldThrow() {
+            assertThrows(IllegalArgumentException.class, () -> vectorStore.addEmbedded(
+                    List.of(new Document("x", "x", Map.of())), List.of()));
+        }
+    }
+
+    @Nested
+    @DisplayName("检索测试")
+    class SearchTests {
+
+        record SearchTestCase(String name, String query, String filter, String expectedFirstId) {}
+
+        static Stream<SearchTestCase> searchCases() {
+            return Stream.of(
+                    new SearchTestCase("相似度排序", "客服电话400", null, "c1"),
+                    new SearchTestCase("元数据过滤", "客服", "category == 'product'", "p1"),
+                    new SearchTestCase("IN 过滤", "框架", "category in ['tech', 'faq']", "t1")
+            );
+        }
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("searchCases")
+        @DisplayName("相似度检索")
+        void similaritySearch_shouldReturnMostSimilarFirst(SearchTestCase tc) {
+            SearchRequest.Builder builder = SearchRequest.builder().query(tc.query()).topK(3);
+            if (tc.filter() != null) {
+                builder.filterExpression(tc.filter());
+            }
+
+            List<Document> results = vectorStore.similaritySearch(builder.build());
+
+            assertFalse(results.isEmpty());
+            assertEquals(tc.expectedFirstId(), results.get(0).getId());
+            assertNotNull(results.get(0).getScore());
+        }
+
+        @Test
+        @DisplayName("topK 限制返回数量")
+        void similaritySearch_shouldRespectTopK() {
+            List<Document> results = vectorStore.similaritySearch(
+                    SearchRequest.builder().query("客服").topK(1).build());
+
+            assertEquals(1, results.size());
+        }
+    }
+
+    record PartitionTestCase(String name, String filter, Set<String> expectedIds, boolean expectedExact) {}
+
+    static Stream<PartitionTestCase> partitionTestCases() {
+        return Stream.of(
+                new PartitionTestCase("等值命中分区", "category == 'product'", Set.of("p1", "p2"), true),
+                new PartitionTestCase("IN 取多个分区", "category in ['product', 'tech']", Set.of("p1", "p2", "t1"), true),
+                new PartitionTestCase("分区不存在", "category == 'faq'", Set.of(), true),
+                new PartitionTestCase("AND 先圈定分区再过滤", "category == 'product' && lang == 'zh'",
+                        Set.of("p1", "p2"), false),
+                new PartitionTestCase("OR 取并集", "category == 'contact' || category == 'tech'",
+                        Set.of("c1", "t1"), true),
+                new PartitionTestCase("非分区键全量扫描", "lang == 'zh'", null, false),
+                new PartitionTestCase("OR 一侧无法圈定时全量扫描", "category == 'tech' || lang == 'zh'", null, false)
+        );
+    }
+
+    @Nested
+    @DisplayName("元数据分区测试")
+    class PartitionTests {
+
+        private KnowledgeVectorStore partitionedStore;
+
+        @BeforeEach
+        void setUp() {
+            partitionedStore = new KnowledgeVectorStore(embeddingModel, 4, List.of("category"));
+            partitionedStore.add(List.of(
+                    new Document("p1", "智能客服系统支持多轮对话", Map.of("category", "product", "lang", "zh")),
+                    new Document("p2", "文档智能处理支持PDF", Map.of("category", "product", "lang", "en")),
+                    new Document("c1", "客服电话400-888-8888", Map.of("category", "contact", "lang", "zh")),
+                    new Document("t1", "后端框架Spring Boot", Map.of("category", "tech", "lang", "zh"))
+            ));
+        }
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("com.shinelon.hello.rag.store.KnowledgeVectorStoreTest#partitionTestCases")
+        @DisplayName("根据过滤条件圈定扫描范围")
+        void planScan_shouldNarrowToPartitions(PartitionTestCase tc) {
+            KnowledgeVectorStore.ScanPlan plan = partitionedStore.planScan(
+                    SearchRequest.builder().filterExpression(tc.filter()).build().getFilterExpression());
+
+            assertEquals(tc.expectedIds(), plan.ids());
+            assertEquals(tc.expectedExact(), plan.exact());
+        }
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("com.shinelon.hello.rag.store.KnowledgeVectorStoreTest#partitionTestCases")
+        @DisplayName("分区检索结果与全量扫描一致")
+        void similaritySearch_shouldMatchFullScan(PartitionTestCase tc) {
+            KnowledgeVectorStore unpartitioned = new KnowledgeVectorStore(embeddingModel, 4);
+            unpartitioned.add(partitionedStore.liveChunks().stream()
+                    .map(chunk -> new Document(chunk.id(), chunk.text(), chunk.metadata()))
+                    .toList());
+            SearchRequest request = SearchRequest.builder().query("客服").topK(10).filterExpression(tc.filter()).build();
+
+            assertEquals(ids(unpartitioned.similaritySearch(request)), ids(partitionedStore.similaritySearch(request)));
+            assertEquals(ids(unpartitioned.keywordSearch(request)), ids(partitionedStore.keywordSearch(request)));
+        }
+
+        @Test
+        @DisplayName("空分区不调用嵌入模型")
+        void similaritySearch_withEmptyPartition_shouldSkipEmbedding() {
+            int calls = embeddingModel.callCount.get();
+
+            List<Document> results = partitionedStore.similaritySearch(
+                    SearchRequest.builder().query("密钥").filterExpression("category == 'faq'").build());
+
+            assertTrue(results.isEmpty());
+            assertEquals(calls, embeddingModel.callCount.get());
+        }
+
+        @Test
+        @DisplayName("分块更新分类后迁移分区，压缩后移出分区")
+        void partitions_shouldFollowUpdatesAndCompaction() {
+            partitionedStore.add(List.of(new Document("t1", "后端框架Spring Boot", Map.of("category", "product"))));
+            assertEquals(Set.of("p1", "p2", "t1"), planIds("category == 'product'"));
+            assertEquals(Set.of(), planIds("category == 'tech'"));
+
+            partitionedStore.delete(List.of("p1"));
+            partitionedStore.compact();
+            assertEquals(Set.of("p2", "t1"), planIds("category == 'product'"));
+        }
+
+        private Set<String> planIds(String filter) {
+            return partitionedStore.planScan(
+                    SearchRequest.builder().filterExpression(filter).build().getFilterExpression()).ids();
+        }
+
+        private Set<String> ids(List<Document> documents) {
+            return documents.stream().map(Document::getId).collect(Collectors.toSet());
+        }
+    }
+
+    @Nested
+    @DisplayName("关键词检索测试")
+    class KeywordSearchTests {
+
+        @Test
+        @DisplayName("按 BM25 得分排序并支持过滤表达式")
+        void keywordSearch_shouldRankAndFilter() {
+            List<Document> results = vectorStore.keywordSearch(SearchRequest.builder().query("客服").topK(3).build());
+            List<Document> filtered = vectorStore.keywordSearch(SearchRequest.builder()
+                    .query("客服").topK(3).filterExpression("category == 'contact'").build());
+
+            assertEquals(2, results.size());
+            assertTrue(results.get(0).getScore() >= results.get(1).getScore());
+            assertEquals(List.of("c1"), filtered.stream().map(Document::getId).toList());
+        }
+
+        @Test
+        @DisplayName("已删除的分块不参与关键词检索")
+        void keywordSearch_shouldSkipDeletedChunks() {
+            vectorStore.delete(List.of("c1"));
+
+            assertTrue(vectorStore.keywordSearch(SearchRequest.builder().query("400-888-8888").topK(3).build())
+                    .isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("删除测试")
+    class DeleteTests {
+
+        @Test
+        @DisplayName("按ID删除")
+        void delete_byIds_shouldRemoveDocuments() {
+            vectorStore.delete(List.of("p1", "c1"));
+
+            assertEquals(1, vectorStore.size());
+        }
+
+        @Test
+        @DisplayName("按过滤表达式删除")
+        void delete_byFilter_shouldRemoveMatchedDocuments() {
+            vectorStore.delete("category == 'tech'");
+
+            assertEquals(2, vectorStore.size());
+            assertTrue(vectorStore.similaritySearch(SearchRequest.builder().query("框架").topK(3).build())
+                    .stream().noneMatch(doc -> doc.getId().equals("t1")));
+        }
+
+        @Test
+        @DisplayName("删除只打墓碑，压缩后物理清理")
+        void delete_shouldTombstoneUntilCompact() {
+            vectorStore.delete(List.of("p1", "missing"));
+
+            assertEquals(1, vectorStore.tombstoneCount());
+            assertEquals(1, vectorStore.compact());
+            assertEquals(0, vectorStore.tombstoneCount());
+            assertEquals(2, vectorStore.size());
+        }
+
+        @Test
+        @DisplayName("重新写入已删除的ID会清除墓碑")
+        void add_afterDelete_shouldClearTombstone() {
+            vectorStore.delete(List.of("p1"));
+
+            vectorStore.add(List.of(new Document("p1", "智能客服产品", Map.of("category", "product"))));
+
+            assertEquals(0, vectorStore.tombstoneCount());
+            assertEquals(0, vectorStore.compact());
+            assertEquals(3, vectorStore.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("内存配额测试")
+    class QuotaTests {
+
+        @Test
+        @DisplayName("内存估算随写入增长，压缩后回落")
+        void estimatedBytes_shouldTrackWritesAndCompaction() {
+            long before = vectorStore.estimatedBytes();
+            assertTrue(before > 3L * Float.BYTES * FakeEmbeddingModel.DIMENSIONS);
+
+            vectorStore.delete(List.of("p1"));
+            assertEquals(before, vectorStore.estimatedBytes(), "墓碑分块压缩前仍占内存");
+
+            vectorStore.compact();
+            assertTrue(vectorStore.estimatedBytes() < before);
+        }
+
+        @Test
+        @DisplayName("超出配额的批次整体拒绝写入，覆盖已有分块不额外占用配额")
+        void addEmbedded_overQuota_shouldReject() {
+            KnowledgeVectorStore quotaStore = new KnowledgeVectorStore(embeddingModel, 4, List.of(),
+                    RetrievalCache.disabled(), 1024);
+            Document first = new Document("a", "智能客服系统", Map.of());
+            quotaStore.add(List.of(first));
+            long used = quotaStore.estimatedBytes();
+
+            quotaStore.add(List.of(new Document("a", "智能客服平台", Map.of())));
+            assertEquals(used, quotaStore.estimatedBytes());
+
+            List<Document> batch = IntStream.range(0, 5)
+                    .mapToObj(i -> new Document("d" + i, "分块" + i, Map.of()))
+                    .toList();
+            assertThrows(IllegalStateException.class, () -> quotaStore.add(batch));
+            assertEquals(1, quotaStore.size());
+        }
+    }
+}
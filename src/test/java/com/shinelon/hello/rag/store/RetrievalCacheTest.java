@@ -0,0 +1,109 @@
+package com.shinelon.hello.rag.store;
+
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.rag.FakeEmbeddingModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RetrievalCache 单元测试（通过 KnowledgeVectorStore 检索验证）
+ *
+ * @author shinelon
+ */
+@DisplayName("RetrievalCache 测试")
+class RetrievalCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private FakeEmbeddingModel embeddingModel;
+    private KnowledgeVectorStore vectorStore;
+
+    private static final SearchRequest FAQ_QUERY = SearchRequest.builder().query("如何获取API密钥？").topK(2).build();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        embeddingModel = new FakeEmbeddingModel();
+        vectorStore = new KnowledgeVectorStore(embeddingModel, 4, List.of(),
+                new RetrievalCache(new RagProperties.RetrievalCache(), meterRegistry));
+        vectorStore.add(List.of(
+                new Document("faq", "如何获取API密钥？登录控制台创建新密钥", Map.of("category", "faq")),
+                new Document("contact", "客服电话400-888-8888", Map.of("category", "contact"))));
+    }
+
+    private double count(String name, String result) {
+        return meterRegistry.get(name).tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("相同或近似相同的查询命中缓存，跳过嵌入与检索")
+    void similaritySearch_repeatedQuery_shouldHitCache() {
+        List<Document> first = vectorStore.similaritySearch(FAQ_QUERY);
+        int calls = embeddingModel.callCount.get();
+
+        List<Document> second = vectorStore.similaritySearch(
+                SearchRequest.from(FAQ_QUERY).query("  如何获取api密钥?").build());
+
+        assertEquals(first.stream().map(Document::getId).toList(), second.stream().map(Document::getId).toList());
+        assertEquals(first.get(0).getScore(), second.get(0).getScore());
+        assertEquals(calls, embeddingModel.callCount.get());
+        assertEquals(1.0, count("rag.retrieval.cache", "hit"));
+    }
+
+    @Test
+    @DisplayName("向量库写入后版本号递增，缓存失效但复用查询向量")
+    void similaritySearch_afterWrite_shouldInvalidateResultButReuseEmbedding() {
+        vectorStore.similaritySearch(FAQ_QUERY);
+        long version = vectorStore.version();
+        vectorStore.add(List.of(new Document("faq2", "API密钥遗失后如何重新获取", Map.of("category", "faq"))));
+        int calls = embeddingModel.callCount.get();
+
+        List<Document> results = vectorStore.similaritySearch(FAQ_QUERY);
+
+        assertTrue(vectorStore.version() > version);
+        assertTrue(results.stream().anyMatch(document -> document.getId().equals("faq2")));
+        assertEquals(calls, embeddingModel.callCount.get());
+        assertEquals(1.0, count("rag.retrieval.cache", "stale"));
+        assertEquals(1.0, count("rag.embedding.cache", "hit"));
+    }
+
+    @Test
+    @DisplayName("删除后不再返回已删除的分块")
+    void similaritySearch_afterDelete_shouldNotReturnDeletedChunk() {
+        vectorStore.similaritySearch(FAQ_QUERY);
+
+        vectorStore.delete(List.of("faq"));
+
+        assertTrue(vectorStore.similaritySearch(FAQ_QUERY).stream().noneMatch(d -> d.getId().equals("faq")));
+    }
+
+    @Test
+    @DisplayName("topK、阈值、过滤条件不同的查询互不命中")
+    void similaritySearch_differentParameters_shouldMiss() {
+        vectorStore.similaritySearch(FAQ_QUERY);
+
+        vectorStore.similaritySearch(SearchRequest.from(FAQ_QUERY).topK(1).build());
+        vectorStore.similaritySearch(SearchRequest.from(FAQ_QUERY).filterExpression("category == 'faq'").build());
+
+        assertEquals(0.0, count("rag.retrieval.cache", "hit"));
+        assertEquals(3.0, count("rag.retrieval.cache", "miss"));
+    }
+
+    @Test
+    @DisplayName("删除不存在的ID不递增版本号")
+    void delete_missingId_shouldKeepVersion() {
+        long version = vectorStore.version();
+
+        vectorStore.delete(List.of("missing"));
+
+        assertEquals(version, vectorStore.version());
+    }
+}
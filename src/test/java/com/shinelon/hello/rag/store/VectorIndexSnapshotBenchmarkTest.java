@@ -0,0 +1,90 @@
+package com.shinelon.hello.rag.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.model.vo.RagSnapshotVO;
+import com.shinelon.hello.rag.FakeEmbeddingModel;
+import com.shinelon.hello.rag.ingest.DocumentRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 向量索引快照启动耗时基准测试
+ * 默认跳过，运行方式：
+ * mvn test -Dtest=VectorIndexSnapshotBenchmarkTest -Drag.benchmark=true
+ *   [-Drag.benchmark.chunks=100000 -Drag.benchmark.dimensions=1024 -Drag.benchmark.embedding-latency-ms=200]
+ * <p>
+ * 对比两种启动方式：从快照加载 vs 重建（写入全部向量 + 按单批嵌入延迟估算的嵌入耗时）
+ *
+ * @author shinelon
+ */
+@EnabledIfSystemProperty(named = "rag.benchmark", matches = "true")
+@DisplayName("VectorIndexSnapshot 基准测试")
+class VectorIndexSnapshotBenchmarkTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("10万分块语料的启动耗时")
+    void startup_withSnapshot_vsRebuild() {
+        int chunkCount = Integer.getInteger("rag.benchmark.chunks", 100_000);
+        int dimensions = Integer.getInteger("rag.benchmark.dimensions", 256);
+
+        RagProperties properties = new RagProperties();
+        properties.getSnapshot().setPath(tempDir.resolve("vector-index.snap").toString());
+        FakeEmbeddingModel embeddingModel = new FakeEmbeddingModel();
+
+        List<Document> documents = new ArrayList<>(chunkCount);
+        List<float[]> embeddings = new ArrayList<>(chunkCount);
+        Random random = new Random(42);
+        for (int i = 0; i < chunkCount; i++) {
+            documents.add(new Document("chunk-" + i, "第" + i + "段：智能客服系统支持多轮对话与知识库问答。",
+                    Map.of("source", "doc-" + (i / 10), "category", "c" + (i % 8), "chunk_index", i % 10)));
+            float[] embedding = new float[dimensions];
+            for (int d = 0; d < dimensions; d++) {
+                embedding[d] = random.nextFloat();
+            }
+            embeddings.add(embedding);
+        }
+
+        long rebuildStart = System.nanoTime();
+        KnowledgeVectorStore source = new KnowledgeVectorStore(embeddingModel, 16);
+        source.addEmbedded(documents, embeddings);
+        long rebuildMillis = (System.nanoTime() - rebuildStart) / 1_000_000;
+
+        RagSnapshotVO saved = new VectorIndexSnapshot(source, new DocumentRegistry(), embeddingModel,
+                new ObjectMapper(), properties).save();
+
+        KnowledgeVectorStore restored = new KnowledgeVectorStore(embeddingModel, 16);
+        long loadStart = System.nanoTime();
+        boolean loaded = new VectorIndexSnapshot(restored, new DocumentRegistry(), embeddingModel,
+                new ObjectMapper(), properties).load();
+        long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+
+        assertTrue(loaded);
+        assertEquals(chunkCount, restored.size());
+        // 按默认批大小与并行度估算真实重建需要的嵌入调用耗时
+        RagProperties.Ingestion ingestion = properties.getIngestion();
+        long embeddingLatencyMillis = Long.getLong("rag.benchmark.embedding-latency-ms", 200);
+        long batches = (chunkCount + ingestion.getBatchSize() - 1) / ingestion.getBatchSize();
+        long estimatedRebuildMillis = rebuildMillis + batches * embeddingLatencyMillis / ingestion.getParallelism();
+        System.out.printf("[RAG-Snapshot-Benchmark] chunks=%d, dims=%d, file=%.1fMB, save=%dms, load=%dms, "
+                        + "rebuild=%dms (store only) / ~%dms (with %d batches x %dms embedding, parallelism=%d), "
+                        + "embeddingCalls(load)=%d%n",
+                chunkCount, dimensions, saved.getSizeBytes() / 1024.0 / 1024.0, saved.getElapsedMillis(),
+                loadMillis, rebuildMillis, estimatedRebuildMillis, batches, embeddingLatencyMillis,
+                ingestion.getParallelism(), embeddingModel.callCount.get());
+    }
+}
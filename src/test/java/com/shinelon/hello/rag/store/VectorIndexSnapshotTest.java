@@ -0,0 +1,166 @@
+package com.shinelon.hello.rag.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shinelon.hello.config.RagProperties;
+import com.shinelon.hello.model.vo.RagSnapshotVO;
+import com.shinelon.hello.rag.FakeEmbeddingModel;
+import com.shinelon.hello.rag.ingest.DocumentIngestionPipeline;
+import com.shinelon.hello.rag.ingest.DocumentRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VectorIndexSnapshot 单元测试
+ * 使用表格驱动测试风格
+ *
+ * @author shinelon
+ */
+@DisplayName("VectorIndexSnapshot 测试")
+class VectorIndexSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private RagProperties properties;
+    private FakeEmbeddingModel embeddingModel;
+    private KnowledgeVectorStore vectorStore;
+    private DocumentRegistry registry;
+    private VectorIndexSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RagProperties();
+        properties.getSnapshot().setPath(tempDir.resolve("vector-index.snap").toString());
+        embeddingModel = new FakeEmbeddingModel();
+        vectorStore = new KnowledgeVectorStore(embeddingModel, 4);
+        registry = new DocumentRegistry();
+        snapshot = new VectorIndexSnapshot(vectorStore, registry, embeddingModel, new ObjectMapper(), properties);
+
+        new DocumentIngestionPipeline(vectorStore, embeddingModel, registry, properties).ingestDocuments(List.of(
+                new Document("【产品说明】智能客服系统支持多轮对话", Map.of("source", "产品说明", "category", "product")),
+                new Document("【联系方式】客服电话400-888-8888", Map.of("source", "联系方式", "category", "contact"))));
+    }
+
+    /**
+     * 在新的空实例上加载快照，模拟应用重启
+     */
+    private record Restarted(KnowledgeVectorStore store, DocumentRegistry registry, VectorIndexSnapshot snapshot,
+                             FakeEmbeddingModel embeddingModel) {
+    }
+
+    private Restarted restart(RagProperties restartProperties) {
+        FakeEmbeddingModel model = new FakeEmbeddingModel();
+        KnowledgeVectorStore store = new KnowledgeVectorStore(model, 4);
+        DocumentRegistry documentRegistry = new DocumentRegistry();
+        return new Restarted(store, documentRegistry,
+                new VectorIndexSnapshot(store, documentRegistry, model, new ObjectMapper(), restartProperties), model);
+    }
+
+    @Nested
+    @DisplayName("保存与加载测试")
+    class RoundTripTests {
+
+        @Test
+        @DisplayName("加载后分块、元数据和文档登记表与保存前一致，且不调用嵌入模型")
+        void load_shouldRestoreWithoutReembedding() {
+            RagSnapshotVO saved = snapshot.save();
+            Restarted restarted = restart(properties);
+
+            assertTrue(restarted.snapshot().load());
+
+            assertEquals(2, saved.getChunkCount());
+            assertEquals(2, restarted.store().size());
+            assertEquals(2, restarted.registry().size());
+            assertEquals(registry.find("产品说明"), restarted.registry().find("产品说明"));
+            assertEquals(0, restarted.embeddingModel().embeddedTexts.get());
+
+            List<Document> results = restarted.store().similaritySearch(SearchRequest.builder()
+                    .query("客服电话").topK(1).filterExpression("category == 'contact'").build());
+            assertEquals("联系方式", results.get(0).getMetadata().get("source"));
+        }
+
+        @Test
+        @DisplayName("加载快照后再次摄取同样的文档全部跳过")
+        void ingest_afterLoad_shouldSkipUnchangedDocuments() {
+            snapshot.save();
+            Restarted restarted = restart(properties);
+            restarted.snapshot().load();
+
+            var report = new DocumentIngestionPipeline(restarted.store(), restarted.embeddingModel(),
+                    restarted.registry(), properties).ingestDocuments(List.of(
+                    new Document("【产品说明】智能客服系统支持多轮对话", Map.of("source", "产品说明", "category", "product"))));
+
+            assertEquals(1, report.getSkippedCount());
+            assertEquals(0, restarted.embeddingModel().embeddedTexts.get());
+        }
+
+        @Test
+        @DisplayName("已删除的分块不写入快照")
+        void save_shouldSkipTombstonedChunks() {
+            vectorStore.delete(List.of(vectorStore.liveChunks().get(0).id()));
+
+            assertEquals(1, snapshot.save().getChunkCount());
+        }
+    }
+
+    record FallbackTestCase(String name, String fileContent, String embeddingModelName) {}
+
+    static Stream<FallbackTestCase> fallbackTestCases() {
+        return Stream.of(
+                new FallbackTestCase("快照不存在", null, "embedding-2"),
+                new FallbackTestCase("嵌入模型变化", "", "embedding-3"),
+                new FallbackTestCase("文件格式不正确", "not a snapshot", "embedding-2")
+        );
+    }
+
+    @Nested
+    @DisplayName("回退重建测试")
+    class FallbackTests {
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("com.shinelon.hello.rag.store.VectorIndexSnapshotTest#fallbackTestCases")
+        @DisplayName("快照不可用时返回 false 且不改动向量库")
+        void load_whenUnavailable_shouldReturnFalse(FallbackTestCase tc) throws IOException {
+            Path file = Path.of(properties.getSnapshot().getPath());
+            if (tc.fileContent() != null) {
+                snapshot.save();
+                if (!tc.fileContent().isEmpty()) {
+                    Files.writeString(file, tc.fileContent());
+                }
+            }
+            RagProperties restartProperties = new RagProperties();
+            restartProperties.getSnapshot().setPath(file.toString());
+            restartProperties.getSnapshot().setEmbeddingModel(tc.embeddingModelName());
+            Restarted restarted = restart(restartProperties);
+
+            assertFalse(restarted.snapshot().load());
+            assertEquals(0, restarted.store().size());
+            assertEquals(0, restarted.registry().size());
+        }
+
+        @Test
+        @DisplayName("分块大小变化时指纹不一致")
+        void fingerprint_shouldIncludeChunkSize() {
+            RagProperties other = new RagProperties();
+            other.getIngestion().setChunkSize(256);
+
+            assertNotEquals(snapshot.fingerprint(), restart(other).snapshot().fingerprint());
+        }
+    }
+}
@@ -96,7 +96,7 @@ class MemoryChatServiceTest {
 
             if (testCase.expectedException() == null) {
                 // 正常场景
-                when(memoryChatManager.syncCall(anyString(), anyString())).thenReturn("AI回复");
+                when(memoryChatManager.syncCall(anyString(), anyString(), any())).thenReturn("AI回复");
 
                 // When
                 MemoryChatVO result = memoryChatService.chat(request);
@@ -107,7 +107,7 @@ class MemoryChatServiceTest {
                 assertEquals("AI回复", result.getContent());
                 assertNotNull(result.getCreateTime());
                 // Service 层不会 trim 内容，直接传递原始值
-                verify(memoryChatManager).syncCall(eq(testCase.conversationId()), anyString());
+                verify(memoryChatManager).syncCall(eq(testCase.conversationId()), anyString(), isNull());
             } else {
                 // 异常场景
                 Exception exception = assertThrows(testCase.expectedException(), () -> {
@@ -115,7 +115,7 @@ class MemoryChatServiceTest {
                 });
                 assertTrue(exception.getMessage().contains(testCase.expectedErrorMessage()),
                         () -> "异常消息应包含: " + testCase.expectedErrorMessage() + "，实际: " + exception.getMessage());
-                verify(memoryChatManager, never()).syncCall(anyString(), anyString());
+                verify(memoryChatManager, never()).syncCall(anyString(), anyString(), any());
             }
         }
 
@@ -136,7 +136,7 @@ class MemoryChatServiceTest {
             MemoryChatRequestDTO request = new MemoryChatRequestDTO();
             request.setConversationId("conv-001");
             request.setContent("你好");
-            when(memoryChatManager.syncCall(anyString(), anyString())).thenReturn("AI回复");
+            when(memoryChatManager.syncCall(anyString(), anyString(), any())).thenReturn("AI回复");
 
             // When
             MemoryChatVO result = memoryChatService.chat(request);
@@ -145,6 +145,20 @@ class MemoryChatServiceTest {
             assertNotNull(result.getCreateTime());
             assertTrue(result.getCreateTime().isBefore(LocalDateTime.now().plusSeconds(1)));
         }
+
+        @Test
+        @DisplayName("请求指定的 token 预算传给 Manager")
+        void chat_withTokenBudget_shouldPassThrough() {
+            MemoryChatRequestDTO request = new MemoryChatRequestDTO();
+            request.setConversationId("conv-001");
+            request.setContent("你好");
+            request.setTokenBudget(1200);
+            when(memoryChatManager.syncCall(anyString(), anyString(), any())).thenReturn("AI回复");
+
+            memoryChatService.chat(request);
+
+            verify(memoryChatManager).syncCall("conv-001", "你好", 1200);
+        }
     }
 
     @Nested
@@ -158,7 +172,7 @@ class MemoryChatServiceTest {
             MemoryChatRequestDTO request = new MemoryChatRequestDTO();
             request.setConversationId("conv-001");
             request.setContent("你好");
-            when(memoryChatManager.streamCall(anyString(), anyString()))
+            when(memoryChatManager.streamCall(anyString(), anyString(), any()))
                     .thenReturn(Flux.just("你", "好", "！"));
 
             // When
@@ -116,4 +116,38 @@ class RagServiceTest {
         assertNotNull(results);
         assertFalse(results.isEmpty());
     }
+
+    @Test
+    void advancedChatStream_shouldEmitDocumentsFirst() {
+        RagChatRequestDTO request = new RagChatRequestDTO();
+        request.setQuery("技术栈是什么");
+
+        List<RagChatVO> results = ragService.advancedChatStream(request)
+                .take(3)
+                .collectList()
+                .block();
+
+        assertNotNull(results);
+        assertNotNull(results.get(0).getDocuments());
+        assertNotNull(results.get(0).getCreateTime());
+        assertNull(results.get(0).getContent());
+        results.stream().skip(1).forEach(event ->
+                assertEquals(results.get(0).getCreateTime(), event.getCreateTime()));
+    }
+
+    @Test
+    void pipelinedChatStream_shouldEmitSourcesFirst() {
+        RagChatRequestDTO request = new RagChatRequestDTO();
+        request.setQuery("技术栈是什么");
+
+        List<RagChatVO> results = ragService.pipelinedChatStream(request)
+                .take(3)
+                .collectList()
+                .block();
+
+        assertNotNull(results);
+        assertFalse(results.isEmpty());
+        assertNotNull(results.get(0).getSources());
+        assertNull(results.get(0).getContent());
+    }
 }
@@ -0,0 +1,316 @@
+package com.shinelon.hello.tool.cache;
+
+import com.shinelon.hello.config.ToolExecutionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ToolResultCache 测试类
+ *
+ * @author shinelon
+ */
+class ToolResultCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong clock;
+    private ToolExecutionProperties.Cache properties;
+    private ToolResultCache cache;
+    private CountingTools tools;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new AtomicLong();
+        properties = new ToolExecutionProperties.Cache();
+        cache = new ToolResultCache(properties, meterRegistry, clock::get);
+        tools = new CountingTools();
+    }
+
+    static class CountingTools {
+
+        final AtomicInteger lookups = new AtomicInteger();
+        final AtomicInteger squares = new AtomicInteger();
+        final AtomicInteger searches = new AtomicInteger();
+        final AtomicInteger submits = new AtomicInteger();
+        Runnable duringLookup = () -> {
+        };
+
+        @CacheableTool(group = "rbac", ignoreCase = true)
+        @Tool(description = "按角色查询")
+        public String lookup(String role) {
+            lookups.incrementAndGet();
+            duringLookup.run();
+            if ("missing".equals(role)) {
+                throw new IllegalArgumentException("角色不存在");
+            }
+            return "permissions of " + role + "#" + lookups.get();
+        }
+
+        @CacheableTool(ttl = "PT1M")
+        @Tool(description = "平方")
+        public int square(int n) {
+            squares.incrementAndGet();
+            return n * n;
+        }
+
+        @CacheableTool(key = "keyword")
+        @Tool(description = "搜索")
+        public String search(String keyword, String traceId) {
+            searches.incrementAndGet();
+            return "result of " + keyword;
+        }
+
+        @Tool(description = "提交")
+        public String submit(String content) {
+            return "submitted-" + submits.incrementAndGet();
+        }
+    }
+
+    static class InvalidKeyTools {
+
+        @CacheableTool(key = "nonexistent")
+        @Tool(description = "非法缓存键")
+        public String invalid(String value) {
+            return value;
+        }
+    }
+
+    static class InvalidTtlTools {
+
+        @CacheableTool(ttl = "5 minutes")
+        @Tool(description = "非法有效期")
+        public String invalid(String value) {
+            return value;
+        }
+    }
+
+    private ToolCallback callback(String name) {
+        return Arrays.stream(cache.toolCallbacks(tools))
+                .filter(callback -> name.equals(callback.getToolDefinition().name()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private double count(String tool, String result) {
+        return meterRegistry.get("tool.result.cache").tag("tool", tool).tag("result", result).counter().count();
+    }
+
+    @Nested
+    @DisplayName("命中与键选择")
+    class HitTests {
+
+        @Test
+        @DisplayName("相同参数的重复调用命中缓存")
+        void call_sameInput_shouldHit() {
+            ToolCallback square = callback("square");
+
+            assertEquals("9", square.call("{\"n\":3}"));
+            assertEquals("9", square.call("{\"n\":3}"));
+            assertEquals("16", square.call("{\"n\":4}"));
+
+            assertEquals(2, tools.squares.get());
+            assertEquals(1, count("square", "hit"));
+            assertEquals(2, count("square", "miss"));
+        }
+
+        @Test
+        @DisplayName("重复注册同一工具共享缓存")
+        void toolCallbacks_registeredTwice_shouldShareCache() {
+            callback("square").call("{\"n\":3}");
+            callback("square").call("{\"n\":3}");
+
+            assertEquals(1, tools.squares.get());
+        }
+
+        @Test
+        @DisplayName("同名工具换成另一个对象时重新包装, 调用新对象")
+        void toolCallbacks_otherToolObject_shouldRewrap() {
+            ToolCallback first = callback("square");
+            first.call("{\"n\":3}");
+            CountingTools replacement = new CountingTools();
+
+            ToolCallback second = Arrays.stream(cache.toolCallbacks(replacement))
+                    .filter(callback -> "square".equals(callback.getToolDefinition().name()))
+                    .findFirst()
+                    .orElseThrow();
+            second.call("{\"n\":3}");
+            second.call("{\"n\":3}");
+
+            assertNotSame(first, second);
+            assertEquals(1, tools.squares.get());
+            assertEquals(1, replacement.squares.get());
+        }
+
+        record KeyCase(String name, String tool, String first, String second, boolean hit) {
+        }
+
+        static Stream<KeyCase> keyCases() {
+            return Stream.of(
+                    new KeyCase("空白与字段顺序不影响", "search", "{\"keyword\":\"a\",\"traceId\":\"1\"}",
+                            "{ \"traceId\" : \"1\", \"keyword\" : \"a\" }", true),
+                    new KeyCase("非键参数不影响", "search", "{\"keyword\":\"a\",\"traceId\":\"1\"}",
+                            "{\"keyword\":\"a\",\"traceId\":\"2\"}", true),
+                    new KeyCase("键参数不同", "search", "{\"keyword\":\"a\"}", "{\"keyword\":\"b\"}", false),
+                    new KeyCase("忽略大小写和首尾空白", "lookup", "{\"role\":\"ADMIN\"}", "{\"role\":\" admin \"}", true),
+                    new KeyCase("未声明忽略大小写时区分", "search", "{\"keyword\":\"A\"}", "{\"keyword\":\"a\"}", false)
+            );
+        }
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("keyCases")
+        @DisplayName("缓存键由选定参数的规范化结果决定")
+        void call_keySelection(KeyCase testCase) {
+            ToolCallback callback = callback(testCase.tool());
+
+            callback.call(testCase.first());
+            callback.call(testCase.second());
+
+            assertEquals(testCase.hit() ? 1 : 0, count(testCase.tool(), "hit"), testCase.name());
+        }
+
+        @Test
+        @DisplayName("未标注的工具不缓存")
+        void call_notCacheable_shouldAlwaysExecute() {
+            ToolCallback submit = callback("submit");
+
+            assertEquals("\"submitted-1\"", submit.call("{\"content\":\"x\"}"));
+            assertEquals("\"submitted-2\"", submit.call("{\"content\":\"x\"}"));
+            assertFalse(submit instanceof CachingToolCallback);
+        }
+
+        @Test
+        @DisplayName("工具抛出异常时不缓存")
+        void call_failure_shouldNotCache() {
+            ToolCallback lookup = callback("lookup");
+
+            assertThrows(ToolExecutionException.class, () -> lookup.call("{\"role\":\"missing\"}"));
+            assertThrows(ToolExecutionException.class, () -> lookup.call("{\"role\":\"missing\"}"));
+            assertEquals(2, tools.lookups.get());
+        }
+
+        @Test
+        @DisplayName("关闭缓存时返回原始 ToolCallback")
+        void toolCallbacks_disabled_shouldNotWrap() {
+            properties.setEnabled(false);
+            ToolResultCache disabled = new ToolResultCache(properties, meterRegistry, clock::get);
+
+            ToolCallback[] callbacks = disabled.toolCallbacks(tools);
+
+            assertEquals(4, callbacks.length);
+            assertTrue(Arrays.stream(callbacks).noneMatch(CachingToolCallback.class::isInstance));
+        }
+    }
+
+    @Nested
+    @DisplayName("过期与失效")
+    class InvalidationTests {
+
+        @Test
+        @DisplayName("超过注解指定的有效期后重新执行")
+        void call_afterTtl_shouldExecuteAgain() {
+            ToolCallback square = callback("square");
+            square.call("{\"n\":3}");
+
+            clock.addAndGet(Duration.ofSeconds(59).toNanos());
+            square.call("{\"n\":3}");
+            assertEquals(1, tools.squares.get());
+
+            clock.addAndGet(Duration.ofSeconds(1).toNanos());
+            square.call("{\"n\":3}");
+            assertEquals(2, tools.squares.get());
+        }
+
+        @Test
+        @DisplayName("未指定有效期时使用默认有效期")
+        void call_defaultTtl_shouldApply() {
+            ToolCallback lookup = callback("lookup");
+            lookup.call("{\"role\":\"ADMIN\"}");
+
+            clock.addAndGet(properties.getDefaultTtl().toNanos());
+            lookup.call("{\"role\":\"ADMIN\"}");
+
+            assertEquals(2, tools.lookups.get());
+        }
+
+        @Test
+        @DisplayName("失效事件使分组内的缓存失效, 其他工具不受影响")
+        void onInvalidation_shouldEvictGroup() {
+            ToolCallback lookup = callback("lookup");
+            ToolCallback square = callback("square");
+            lookup.call("{\"role\":\"ADMIN\"}");
+            square.call("{\"n\":3}");
+
+            cache.onInvalidation(new ToolResultInvalidationEvent("rbac"));
+            lookup.call("{\"role\":\"ADMIN\"}");
+            square.call("{\"n\":3}");
+
+            assertEquals(2, tools.lookups.get());
+            assertEquals(1, tools.squares.get());
+        }
+
+        @Test
+        @DisplayName("执行期间发生失效时, 写入的结果下次读取即过期")
+        void call_invalidatedDuringExecution_shouldNotServeStaleResult() {
+            ToolCallback lookup = callback("lookup");
+            tools.duringLookup = () -> cache.invalidate("rbac");
+            String first = lookup.call("{\"role\":\"ADMIN\"}");
+
+            tools.duringLookup = () -> {
+            };
+            String second = lookup.call("{\"role\":\"ADMIN\"}");
+            String third = lookup.call("{\"role\":\"ADMIN\"}");
+
+            assertNotEquals(first, second);
+            assertEquals(second, third);
+            assertEquals(1, count("lookup", "stale"));
+        }
+
+        @Test
+        @DisplayName("失效分组不能为空")
+        void invalidate_blankGroup_shouldThrow() {
+            assertThrows(IllegalArgumentException.class, () -> cache.invalidate(""));
+        }
+    }
+
+    @Nested
+    @DisplayName("注解校验")
+    class ValidationTests {
+
+        @Test
+        @DisplayName("缓存键参数不存在时拒绝注册")
+        void toolCallbacks_unknownKey_shouldThrow() {
+            assertThrows(IllegalStateException.class, () -> cache.toolCallbacks(new InvalidKeyTools()));
+        }
+
+        @Test
+        @DisplayName("有效期格式不合法时拒绝注册")
+        void toolCallbacks_invalidTtl_shouldThrow() {
+            assertThrows(IllegalStateException.class, () -> cache.toolCallbacks(new InvalidTtlTools()));
+        }
+
+        @Test
+        @DisplayName("默认有效期不大于0时拒绝创建")
+        void constructor_invalidDefaultTtl_shouldThrow() {
+            properties.setDefaultTtl(Duration.ZERO);
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> new ToolResultCache(properties, meterRegistry, clock::get));
+        }
+    }
+}
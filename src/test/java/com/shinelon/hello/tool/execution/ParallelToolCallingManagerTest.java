@@ -0,0 +1,369 @@
+package com.shinelon.hello.tool.execution;
+
+import com.shinelon.hello.config.ToolExecutionProperties;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.DefaultToolDefinition;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.DefaultToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+import org.springframework.ai.tool.resolution.StaticToolCallbackResolver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ParallelToolCallingManager 测试类
+ * 并发性用闩锁验证：每个工具都要等所有工具同时开始才能返回，逐个执行时必然超时
+ *
+ * @author shinelon
+ */
+class ParallelToolCallingManagerTest {
+
+    private ToolExecutionProperties.Parallel properties;
+    private ParallelToolCallingManager manager;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ToolExecutionProperties.Parallel();
+        properties.setEnabled(true);
+        properties.setParallelism(4);
+        properties.setTimeout(Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (manager != null) {
+            manager.close();
+        }
+    }
+
+    private ParallelToolCallingManager newManager(List<ToolCallback> registered) {
+        if (manager != null) {
+            manager.close();
+        }
+        manager = new ParallelToolCallingManager(new StaticToolCallbackResolver(registered),
+                DefaultToolExecutionExceptionProcessor.builder().build(), ObservationRegistry.NOOP, properties);
+        return manager;
+    }
+
+    private static ToolCallback tool(String name, Function<String, String> body) {
+        return tool(name, false, body);
+    }
+
+    private static ToolCallback tool(String name, boolean returnDirect, Function<String, String> body) {
+        ToolDefinition definition = DefaultToolDefinition.builder()
+                .name(name)
+                .description(name)
+                .inputSchema("{}")
+                .build();
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return definition;
+            }
+
+            @Override
+            public ToolMetadata getToolMetadata() {
+                return ToolMetadata.builder().returnDirect(returnDirect).build();
+            }
+
+            @Override
+            public String call(String toolInput) {
+                return body.apply(toolInput);
+            }
+
+            @Override
+            public String call(String toolInput, ToolContext toolContext) {
+                return call(toolInput);
+            }
+        };
+    }
+
+    private static Prompt prompt(List<ToolCallback> callbacks) {
+        return new Prompt(List.of(new UserMessage("问题")),
+                ToolCallingChatOptions.builder().toolCallbacks(callbacks).build());
+    }
+
+    private static ChatResponse response(String... toolNames) {
+        List<AssistantMessage.ToolCall> calls = new ArrayList<>();
+        for (int i = 0; i < toolNames.length; i++) {
+            calls.add(new AssistantMessage.ToolCall("call-" + i, "function", toolNames[i], "{\"n\":" + i + "}"));
+        }
+        return new ChatResponse(List.of(new Generation(AssistantMessage.builder().content("").toolCalls(calls).build())));
+    }
+
+    private static List<ToolResponseMessage.ToolResponse> responses(ToolExecutionResult result) {
+        List<Message> history = result.conversationHistory();
+        return ((ToolResponseMessage) history.get(history.size() - 1)).getResponses();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nested
+    @DisplayName("并行执行")
+    class ParallelTests {
+
+        @Test
+        @DisplayName("同一轮的工具调用同时执行")
+        void executeToolCalls_shouldRunConcurrently() {
+            CountDownLatch allStarted = new CountDownLatch(3);
+            Function<String, String> body = input -> {
+                allStarted.countDown();
+                try {
+                    return allStarted.await(2, TimeUnit.SECONDS) ? "ok" + input : "sequential";
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return "interrupted";
+                }
+            };
+            List<ToolCallback> callbacks = List.of(tool("a", body), tool("b", body), tool("c", body));
+
+            ToolExecutionResult result = newManager(List.of()).executeToolCalls(prompt(callbacks),
+                    response("a", "b", "c"));
+
+            assertEquals(List.of("ok{\"n\":0}", "ok{\"n\":1}", "ok{\"n\":2}"),
+                    responses(result).stream().map(ToolResponseMessage.ToolResponse::responseData).toList());
+        }
+
+        @Test
+        @DisplayName("结果按调用顺序组装, 与完成顺序无关")
+        void executeToolCalls_shouldKeepCallOrder() {
+            List<ToolCallback> callbacks = List.of(
+                    tool("slow", input -> {
+                        sleep(200);
+                        return "slow";
+                    }),
+                    tool("fast", input -> "fast"));
+
+            ToolExecutionResult result = newManager(List.of()).executeToolCalls(prompt(callbacks),
+                    response("slow", "fast", "slow"));
+
+            List<ToolResponseMessage.ToolResponse> responses = responses(result);
+            assertEquals(List.of("call-0", "call-1", "call-2"),
+                    responses.stream().map(ToolResponseMessage.ToolResponse::id).toList());
+            assertEquals(List.of("slow", "fast", "slow"),
+                    responses.stream().map(ToolResponseMessage.ToolResponse::responseData).toList());
+        }
+
+        @Test
+        @DisplayName("对话历史为原提示词、助手消息和工具结果")
+        void executeToolCalls_shouldBuildHistory() {
+            List<ToolCallback> callbacks = List.of(tool("a", input -> "A"));
+            ChatResponse chatResponse = response("a");
+
+            ToolExecutionResult result = newManager(List.of()).executeToolCalls(prompt(callbacks), chatResponse);
+
+            List<Message> history = result.conversationHistory();
+            assertEquals(3, history.size());
+            assertEquals("问题", history.get(0).getText());
+            assertSame(chatResponse.getResult().getOutput(), history.get(1));
+            assertInstanceOf(ToolResponseMessage.class, history.get(2));
+            assertFalse(result.returnDirect());
+        }
+
+        @Test
+        @DisplayName("提示词中没有的工具从解析器查找")
+        void executeToolCalls_shouldFallBackToResolver() {
+            ToolExecutionResult result = newManager(List.of(tool("registered", input -> "R")))
+                    .executeToolCalls(prompt(List.of()), response("registered"));
+
+            assertEquals("R", responses(result).get(0).responseData());
+        }
+
+        record ReturnDirectCase(String name, boolean first, boolean second, boolean expected) {
+        }
+
+        static Stream<ReturnDirectCase> returnDirectCases() {
+            return Stream.of(
+                    new ReturnDirectCase("都直接返回", true, true, true),
+                    new ReturnDirectCase("只有一个直接返回", true, false, false),
+                    new ReturnDirectCase("都不直接返回", false, false, false)
+            );
+        }
+
+        @ParameterizedTest
+        @MethodSource("returnDirectCases")
+        @DisplayName("所有工具都直接返回时结果才直接返回")
+        void executeToolCalls_shouldCombineReturnDirect(ReturnDirectCase testCase) {
+            List<ToolCallback> callbacks = List.of(tool("a", testCase.first(), input -> "A"),
+                    tool("b", testCase.second(), input -> "B"));
+
+            ToolExecutionResult result = newManager(List.of()).executeToolCalls(prompt(callbacks),
+                    response("a", "b"));
+
+            assertEquals(testCase.expected(), result.returnDirect(), testCase.name());
+        }
+    }
+
+    @Nested
+    @DisplayName("超时与异常")
+    class FailureTests {
+
+        @Test
+        @DisplayName("超时的工具被中断并返回超时信息, 其他工具结果照常返回")
+        void executeToolCalls_timeout_shouldInterruptAndReport() throws InterruptedException {
+            properties.setTimeouts(Map.of("hang", Duration.ofMillis(100)));
+            AtomicBoolean interrupted = new AtomicBoolean();
+            CountDownLatch finished = new CountDownLatch(1);
+            List<ToolCallback> callbacks = List.of(
+                    tool("hang", input -> {
+                        try {
+                            Thread.sleep(10_000);
+                            return "never";
+                        } catch (InterruptedException e) {
+                            interrupted.set(true);
+                            return "interrupted";
+                        } finally {
+                            finished.countDown();
+                        }
+                    }),
+                    tool("quick", input -> "quick"));
+
+            long start = System.nanoTime();
+            ToolExecutionResult result = newManager(List.of()).executeToolCalls(prompt(callbacks),
+                    response("hang", "quick"));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            List<ToolResponseMessage.ToolResponse> responses = responses(result);
+            assertTrue(responses.get(0).responseData().contains("超时"), responses.get(0).responseData());
+            assertEquals("quick", responses.get(1).responseData());
+            assertTrue(elapsedMillis < 5_000, "超时未生效, 耗时=" + elapsedMillis);
+            assertTrue(finished.await(2, TimeUnit.SECONDS));
+            assertTrue(interrupted.get());
+        }
+
+        @Test
+        @DisplayName("线程池和队列都满时拒绝多出的调用并返回错误信息, 不在调用线程执行")
+        void executeToolCalls_queueFull_shouldRejectWithoutCallerRuns() {
+            properties.setParallelism(1);
+            properties.setQueueCapacity(1);
+            Thread caller = Thread.currentThread();
+            List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+            List<ToolCallback> callbacks = List.of(tool("busy", input -> {
+                threads.add(Thread.currentThread());
+                sleep(200);
+                return "done" + input;
+            }));
+
+            ToolExecutionResult result = newManager(List.of()).executeToolCalls(prompt(callbacks),
+                    response("busy", "busy", "busy"));
+
+            List<ToolResponseMessage.ToolResponse> responses = responses(result);
+            assertEquals("done{\"n\":0}", responses.get(0).responseData());
+            assertEquals("done{\"n\":1}", responses.get(1).responseData());
+            assertTrue(responses.get(2).responseData().contains("繁忙"), responses.get(2).responseData());
+            assertEquals(2, threads.size());
+            assertFalse(threads.contains(caller));
+        }
+
+        @Test
+        @DisplayName("ToolExecutionException 交给异常处理器转为工具结果")
+        void executeToolCalls_toolExecutionException_shouldBeProcessed() {
+            ToolCallback[] holder = new ToolCallback[1];
+            holder[0] = tool("broken", input -> {
+                throw new ToolExecutionException(holder[0].getToolDefinition(), new IllegalStateException("库存不足"));
+            });
+
+            ToolExecutionResult result = newManager(List.of()).executeToolCalls(prompt(List.of(holder[0])),
+                    response("broken"));
+
+            assertEquals("库存不足", responses(result).get(0).responseData());
+        }
+
+        @Test
+        @DisplayName("其他异常原样抛出")
+        void executeToolCalls_runtimeException_shouldPropagate() {
+            List<ToolCallback> callbacks = List.of(tool("boom", input -> {
+                throw new IllegalArgumentException("参数错误");
+            }), tool("ok", input -> "ok"));
+            ParallelToolCallingManager parallel = newManager(List.of());
+
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> parallel.executeToolCalls(prompt(callbacks), response("ok", "boom")));
+            assertEquals("参数错误", e.getMessage());
+        }
+
+        @Test
+        @DisplayName("找不到工具时不执行任何调用")
+        void executeToolCalls_unknownTool_shouldFailBeforeRunning() {
+            AtomicBoolean ran = new AtomicBoolean();
+            List<ToolCallback> callbacks = List.of(tool("known", input -> {
+                ran.set(true);
+                return "ok";
+            }));
+            ParallelToolCallingManager parallel = newManager(List.of());
+
+            assertThrows(IllegalStateException.class,
+                    () -> parallel.executeToolCalls(prompt(callbacks), response("known", "missing")));
+            assertFalse(ran.get());
+        }
+
+        @Test
+        @DisplayName("模型没有请求工具调用时拒绝")
+        void executeToolCalls_noToolCall_shouldThrow() {
+            ParallelToolCallingManager parallel = newManager(List.of());
+            ChatResponse chatResponse = new ChatResponse(List.of(new Generation(new AssistantMessage("直接回答"))));
+
+            assertThrows(IllegalStateException.class, () -> parallel.executeToolCalls(prompt(List.of()), chatResponse));
+        }
+    }
+
+    @Nested
+    @DisplayName("配置")
+    class ConfigTests {
+
+        @Test
+        @DisplayName("按工具名覆盖超时时间, 其余用默认值")
+        void timeout_shouldPreferPerToolOverride() {
+            properties.setTimeouts(Map.of("slowTool", Duration.ofSeconds(30)));
+            ParallelToolCallingManager parallel = newManager(List.of());
+
+            assertEquals(Duration.ofSeconds(30), parallel.timeout("slowTool"));
+            assertEquals(Duration.ofSeconds(5), parallel.timeout("other"));
+        }
+
+        @Test
+        @DisplayName("超时时间不大于0时拒绝创建")
+        void constructor_invalidTimeout_shouldThrow() {
+            properties.setTimeout(Duration.ZERO);
+
+            assertThrows(IllegalArgumentException.class, () -> newManager(List.of()));
+        }
+    }
+}
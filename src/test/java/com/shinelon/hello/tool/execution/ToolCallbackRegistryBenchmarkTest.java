@@ -0,0 +1,98 @@
+package com.shinelon.hello.tool.execution;
+
+import com.shinelon.hello.tool.CalculatorTool;
+import com.shinelon.hello.tool.DateTimeTool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.ai.support.ToolCallbacks;
+import org.springframework.ai.tool.ToolCallback;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 每次请求的工具准备开销基准测试
+ * 默认跳过，运行方式：
+ * mvn test -Dtest=ToolCallbackRegistryBenchmarkTest -Dtool.benchmark=true
+ *   [-Dtool.benchmark.iterations=20000 -Dtool.benchmark.warmup=20000]
+ * <p>
+ * 对比两种方式（按请求轮换启用工具组合）：
+ * 1. 原方式：按工具名选出工具对象，再像 ChatClient.tools(Object...) 一样用 ToolCallbacks.from 反射解析 @Tool 方法、生成 JSON Schema
+ * 2. 注册表：按工具名查启动时预先生成的 ToolCallback 列表
+ * 输出每次请求的耗时（ns/op）与当前线程分配的字节数（B/op）
+ *
+ * @author shinelon
+ */
+@EnabledIfSystemProperty(named = "tool.benchmark", matches = "true")
+@DisplayName("ToolCallbackRegistry 基准测试")
+class ToolCallbackRegistryBenchmarkTest {
+
+    private static final List<List<String>> REQUESTS = List.of(
+            List.of(), List.of("datetime"), List.of("calculator"), List.of("calculator", "datetime"));
+
+    @Test
+    @DisplayName("每次请求的工具准备开销")
+    void resolve_perRequestOverhead() {
+        int iterations = Integer.getInteger("tool.benchmark.iterations", 20000);
+        int warmup = Integer.getInteger("tool.benchmark.warmup", 20000);
+
+        Map<String, Object> toolMap = new LinkedHashMap<>();
+        toolMap.put("datetime", new DateTimeTool());
+        toolMap.put("calculator", new CalculatorTool());
+        Map<String, ToolCallback[]> callbacks = new LinkedHashMap<>();
+        toolMap.forEach((name, tool) -> callbacks.put(name, ToolCallbacks.from(tool)));
+        ToolCallbackRegistry registry = new ToolCallbackRegistry(callbacks);
+
+        Function<List<String>, List<ToolCallback>> reflective = enabledTools -> {
+            List<Object> tools = new ArrayList<>();
+            for (String toolName : enabledTools) {
+                tools.add(toolMap.get(toolName));
+            }
+            Object[] toolObjects = tools.isEmpty() ? toolMap.values().toArray() : tools.toArray();
+            return List.of(ToolCallbacks.from(toolObjects));
+        };
+
+        for (List<String> request : REQUESTS) {
+            assertEquals(reflective.apply(request).size(), registry.resolve(request).size());
+        }
+        Result reflectiveResult = measure(reflective, warmup, iterations);
+        Result registryResult = measure(registry::resolve, warmup, iterations);
+
+        assertTrue(registryResult.nanosPerOp() < reflectiveResult.nanosPerOp());
+        assertTrue(registryResult.bytesPerOp() < 1.0, "查表不应分配对象");
+        System.out.printf("[Tool-Registry-Benchmark] iterations=%d, reflective=%.0f ns/op %.0f B/op, "
+                        + "registry=%.1f ns/op %.1f B/op, speedup=%.0fx%n",
+                iterations, reflectiveResult.nanosPerOp(), reflectiveResult.bytesPerOp(),
+                registryResult.nanosPerOp(), registryResult.bytesPerOp(),
+                reflectiveResult.nanosPerOp() / registryResult.nanosPerOp());
+    }
+
+    private static Result measure(Function<List<String>, List<ToolCallback>> resolver, int warmup, int iterations) {
+        long sink = 0;
+        for (int i = 0; i < warmup; i++) {
+            sink += resolver.apply(REQUESTS.get(i % REQUESTS.size())).size();
+        }
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += resolver.apply(REQUESTS.get(i % REQUESTS.size())).size();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        assertTrue(sink > 0);
+        return new Result((double) nanos / iterations, (double) allocated / iterations);
+    }
+
+    private record Result(double nanosPerOp, double bytesPerOp) {
+    }
+}
@@ -0,0 +1,152 @@
+package com.shinelon.hello.tool.execution;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.DefaultToolDefinition;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ToolCallbackRegistry 测试类
+ *
+ * @author shinelon
+ */
+class ToolCallbackRegistryTest {
+
+    private ToolCallbackRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, ToolCallback[]> tools = new LinkedHashMap<>();
+        tools.put("datetime", new ToolCallback[]{callback("getCurrentDateTime"), callback("getCurrentDate")});
+        tools.put("calculator", new ToolCallback[]{callback("add"), callback("divide")});
+        tools.put("search", new ToolCallback[]{callback("search")});
+        registry = new ToolCallbackRegistry(tools);
+    }
+
+    private static ToolCallback callback(String name) {
+        ToolDefinition definition = DefaultToolDefinition.builder()
+                .name(name)
+                .description(name)
+                .inputSchema("{}")
+                .build();
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return definition;
+            }
+
+            @Override
+            public String call(String toolInput) {
+                return name;
+            }
+
+            @Override
+            public String call(String toolInput, ToolContext toolContext) {
+                return name;
+            }
+        };
+    }
+
+    private static List<String> names(List<ToolCallback> callbacks) {
+        return callbacks.stream().map(callback -> callback.getToolDefinition().name()).toList();
+    }
+
+    record ResolveCase(String name, List<String> enabledTools, List<String> expected) {
+    }
+
+    static Stream<ResolveCase> resolveCases() {
+        List<String> all = List.of("getCurrentDateTime", "getCurrentDate", "add", "divide", "search");
+        return Stream.of(
+                new ResolveCase("null - 使用全部工具", null, all),
+                new ResolveCase("空列表 - 使用全部工具", Collections.emptyList(), all),
+                new ResolveCase("仅calculator", List.of("calculator"), List.of("add", "divide")),
+                new ResolveCase("按注册顺序组合", List.of("search", "datetime"),
+                        List.of("getCurrentDateTime", "getCurrentDate", "search")),
+                new ResolveCase("不区分大小写", List.of("Calculator", "SEARCH"), List.of("add", "divide", "search")),
+                new ResolveCase("重复的工具名只算一次", List.of("search", "search"), List.of("search")),
+                new ResolveCase("包含不存在工具 - 使用存在的工具", Arrays.asList("search", "nonexistent", null),
+                        List.of("search")),
+                new ResolveCase("全部不存在工具 - 回退使用全部", List.of("nonexistent1", "nonexistent2"), all)
+        );
+    }
+
+    @Nested
+    @DisplayName("查表")
+    class ResolveTests {
+
+        @ParameterizedTest(name = "[{index}] {0}")
+        @MethodSource("com.shinelon.hello.tool.execution.ToolCallbackRegistryTest#resolveCases")
+        @DisplayName("按启用的工具返回 ToolCallback")
+        void resolve_shouldReturnCombination(ResolveCase testCase) {
+            assertEquals(testCase.expected(), names(registry.resolve(testCase.enabledTools())));
+        }
+
+        @Test
+        @DisplayName("同一组合返回同一个实例, 与请求中的顺序无关")
+        void resolve_sameCombination_shouldReturnSameInstance() {
+            List<ToolCallback> first = registry.resolve(List.of("datetime", "calculator"));
+
+            assertSame(first, registry.resolve(List.of("calculator", "datetime")));
+            assertSame(registry.resolve(null), registry.resolve(List.of("nonexistent")));
+        }
+
+        @Test
+        @DisplayName("返回的列表不可修改")
+        void resolve_shouldReturnImmutableList() {
+            List<ToolCallback> callbacks = registry.resolve(List.of("search"));
+
+            assertThrows(UnsupportedOperationException.class, () -> callbacks.add(callback("other")));
+        }
+
+        @Test
+        @DisplayName("工具名称按注册顺序返回")
+        void names_shouldKeepRegistrationOrder() {
+            assertEquals(List.of("datetime", "calculator", "search"), registry.names());
+        }
+    }
+
+    @Nested
+    @DisplayName("构造校验")
+    class ConstructorTests {
+
+        @Test
+        @DisplayName("没有工具时拒绝创建")
+        void constructor_empty_shouldThrow() {
+            assertThrows(IllegalArgumentException.class, () -> new ToolCallbackRegistry(Map.of()));
+        }
+
+        @Test
+        @DisplayName("工具数超过上限时拒绝创建")
+        void constructor_tooManyTools_shouldThrow() {
+            Map<String, ToolCallback[]> tools = new LinkedHashMap<>();
+            IntStream.rangeClosed(0, ToolCallbackRegistry.MAX_TOOLS)
+                    .forEach(i -> tools.put("tool" + i, new ToolCallback[]{callback("tool" + i)}));
+
+            assertThrows(IllegalArgumentException.class, () -> new ToolCallbackRegistry(tools));
+        }
+
+        @Test
+        @DisplayName("工具名称不是小写时拒绝创建")
+        void constructor_upperCaseName_shouldThrow() {
+            Map<String, ToolCallback[]> tools = Map.of("Search", new ToolCallback[]{callback("search")});
+
+            assertThrows(IllegalArgumentException.class, () -> new ToolCallbackRegistry(tools));
+        }
+    }
+}